@@ -0,0 +1,219 @@
+/**
+ * BspConnection 测试脚本
+ * 启动真实的 BSP Server 进程，测试分帧、并发请求、取消、崩溃后重连和关闭
+ *
+ * 用法（classpath 为 qin 的编译输出和 gson）：
+ *   java -cp build/classes:lib/gson-2.10.1.jar BspConnectionTest.java
+ * 任一测试失败时退出码为 1
+ */
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.qin.bsp.BspConnection;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class BspConnectionTest {
+
+    private static final long TIMEOUT_MS = 60_000;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws Exception {
+        Path projectDir = createProject();
+        List<String> command = List.of(
+                ProcessHandle.current().info().command().orElse("java"),
+                "-cp", System.getProperty("java.class.path"),
+                "com.qin.bsp.BspServer");
+
+        System.out.println("============================================");
+        System.out.println("BspConnection 测试");
+        System.out.println("测试项目: " + projectDir);
+        System.out.println("============================================\n");
+
+        List<String> notifications = new CopyOnWriteArrayList<>();
+        BspConnection connection = new BspConnection(projectDir, command);
+        connection.setNotificationListener((method, params) -> notifications.add(method));
+        try {
+            String targetUri = testFraming(connection);
+            testConcurrentRequests(connection, targetUri, notifications);
+            testCancel(connection, targetUri);
+            testReconnect(connection);
+            testClose(connection);
+        } finally {
+            connection.close();
+            ProcessHandle.current().children().forEach(ProcessHandle::destroyForcibly);
+            deleteProject(projectDir);
+        }
+
+        System.out.println("\n============================================");
+        System.out.println(failures == 0 ? "所有测试通过！" : failures + " 项检查失败");
+        System.out.println("============================================");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * 测试 1: 握手和分帧（非 ASCII 内容按字节计算 Content-Length）
+     */
+    static String testFraming(BspConnection connection) throws Exception {
+        System.out.println("【测试 1】握手和分帧");
+
+        JsonObject response = connection.call("workspace/buildTargets", null, TIMEOUT_MS);
+        JsonArray targets = response.getAsJsonObject("result").getAsJsonArray("targets");
+        check(connection.isConnected(), "服务器已启动并完成 build/initialize");
+        check(targets.size() == 1, "返回 1 个构建目标");
+        JsonObject target = targets.get(0).getAsJsonObject();
+        check(target.get("displayName").getAsString().contains("演示"), "非 ASCII 的目标名称完整往返");
+        System.out.println();
+        return target.getAsJsonObject("id").get("uri").getAsString();
+    }
+
+    /**
+     * 测试 2: 多个线程同时发请求，响应按 ID 对应到各自的请求，期间的通知不打乱分帧
+     */
+    static void testConcurrentRequests(BspConnection connection, String targetUri, List<String> notifications)
+            throws Exception {
+        System.out.println("【测试 2】并发请求");
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<JsonObject>> futures = new ArrayList<>();
+        futures.add(pool.submit(() -> connection.call("buildTarget/compile", targets(targetUri), TIMEOUT_MS)));
+        for (int i = 0; i < 32; i++) {
+            String method = i % 2 == 0 ? "workspace/buildTargets" : "buildTarget/javacOptions";
+            JsonObject params = i % 2 == 0 ? null : targets(targetUri);
+            futures.add(pool.submit(() -> connection.call(method, params, TIMEOUT_MS)));
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        boolean matched = true;
+        JsonObject compile = futures.get(0).get();
+        ids.add(compile.get("id").getAsInt());
+        for (int i = 1; i < futures.size(); i++) {
+            JsonObject result = futures.get(i).get().getAsJsonObject("result");
+            ids.add(futures.get(i).get().get("id").getAsInt());
+            matched &= (i - 1) % 2 == 0 ? result.has("targets") : result.has("items");
+        }
+        pool.shutdown();
+
+        check(ids.size() == futures.size(), "每个响应的 ID 都不同（" + ids.size() + "/" + futures.size() + "）");
+        check(matched, "每个请求都收到自己方法的结果");
+        check(compile.getAsJsonObject("result").get("statusCode").getAsInt() == 1, "编译成功");
+        check(notifications.contains("build/taskStart") && notifications.contains("build/taskFinish"),
+                "编译期间收到任务通知");
+        System.out.println();
+    }
+
+    /**
+     * 测试 3: 取消 future 后服务器继续处理后续请求
+     */
+    static void testCancel(BspConnection connection, String targetUri) throws Exception {
+        System.out.println("【测试 3】取消请求");
+
+        CompletableFuture<JsonObject> compile = connection.request("buildTarget/compile", targets(targetUri));
+        compile.cancel(true);
+        check(compile.isCancelled(), "future 已取消");
+
+        JsonObject response = connection.call("workspace/buildTargets", null, TIMEOUT_MS);
+        check(response.has("result"), "取消后连接仍可用");
+        System.out.println();
+    }
+
+    /**
+     * 测试 4: 服务器崩溃时未完成的请求以异常结束，下一次请求自动重启服务器
+     */
+    static void testReconnect(BspConnection connection) throws Exception {
+        System.out.println("【测试 4】崩溃后重连");
+
+        CompletableFuture<JsonObject> pending = connection.request("workspace/buildTargets", null);
+        ProcessHandle.current().children().forEach(ProcessHandle::destroyForcibly);
+
+        boolean finished;
+        try {
+            pending.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            finished = true; // 响应先于崩溃到达
+        } catch (ExecutionException e) {
+            finished = true;
+        } catch (TimeoutException e) {
+            finished = false;
+        }
+        check(finished, "崩溃时未完成的请求没有挂起");
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (connection.isConnected() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        check(!connection.isConnected(), "检测到服务器退出");
+
+        JsonObject response = connection.call("workspace/buildTargets", null, TIMEOUT_MS);
+        check(response.has("result") && connection.isConnected(), "下一次请求重启了服务器");
+        System.out.println();
+    }
+
+    /**
+     * 测试 5: close 正常关闭服务器，之后的请求直接失败
+     */
+    static void testClose(BspConnection connection) throws Exception {
+        System.out.println("【测试 5】关闭");
+
+        List<ProcessHandle> servers = ProcessHandle.current().children().toList();
+        connection.close();
+        boolean exited = true;
+        for (ProcessHandle server : servers) {
+            try {
+                server.onExit().get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                exited = false;
+            }
+        }
+        check(exited && !connection.isConnected(), "服务器进程已退出");
+
+        CompletableFuture<JsonObject> after = connection.request("workspace/buildTargets", null);
+        check(after.isCompletedExceptionally(), "关闭后的请求直接失败");
+        System.out.println();
+    }
+
+    private static JsonObject targets(String targetUri) {
+        JsonObject target = new JsonObject();
+        target.addProperty("uri", targetUri);
+        JsonArray list = new JsonArray();
+        list.add(target);
+        JsonObject params = new JsonObject();
+        params.add("targets", list);
+        return params;
+    }
+
+    private static Path createProject() throws Exception {
+        Path dir = Files.createTempDirectory("qin-bsp-connection");
+        Files.writeString(dir.resolve("qin.config.json"), """
+                {"name": "com.example:演示", "version": "1.0.0"}
+                """);
+        Path source = dir.resolve("src/main/java/demo/Hello.java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, """
+                package demo;
+
+                public class Hello {
+                    public static void main(String[] args) {
+                        System.out.println("你好");
+                    }
+                }
+                """);
+        return dir;
+    }
+
+    private static void deleteProject(Path dir) throws Exception {
+        try (var paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        System.out.println("  " + (condition ? "✅ " : "❌ ") + message);
+        if (!condition) {
+            failures++;
+        }
+    }
+}
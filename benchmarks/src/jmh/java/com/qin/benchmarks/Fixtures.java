@@ -0,0 +1,137 @@
+package com.qin.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 基准测试用的合成数据（工作区目录树、jar、npm tgz）
+ * 所有随机数据使用固定种子，保证不同版本之间的输入一致
+ */
+public final class Fixtures {
+    public static final long SEED = 42;
+
+    private Fixtures() {
+    }
+
+    public static Path tempDir(String prefix) throws IOException {
+        return Files.createTempDirectory("qin-bench-" + prefix);
+    }
+
+    public static void delete(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * 合成 monorepo：root/packages/group-N/project-M，每个项目有 qin.config.json、源码、
+     * build 输出和 node_modules（扫描时应被跳过）
+     */
+    public static Path createWorkspace(int projects) throws IOException {
+        Path root = tempDir("workspace");
+        Files.createDirectories(root.resolve(".git"));
+        int perGroup = 20;
+        for (int i = 0; i < projects; i++) {
+            Path project = root.resolve("packages").resolve("group-" + (i / perGroup)).resolve("project-" + i);
+            Path src = project.resolve("src/main/java/com/example/p" + i);
+            Files.createDirectories(src);
+            Files.writeString(src.resolve("Main.java"), "package com.example.p" + i + ";\npublic class Main {}\n");
+            Files.createDirectories(project.resolve("build/classes"));
+            Files.createDirectories(project.resolve("node_modules/some-package/lib"));
+            Files.writeString(project.resolve("qin.config.json"), """
+                    {
+                      "name": "com.example:project-%d",
+                      "version": "1.0.0",
+                      "dependencies": {
+                        "com.example:project-%d": "1.0.0"
+                      }
+                    }
+                    """.formatted(i, Math.max(0, i - 1)));
+        }
+        return root;
+    }
+
+    /**
+     * 生成包含 classes 个伪类文件的 jar
+     */
+    public static void writeJar(Path jar, String packageName, int classes, int classSize) throws IOException {
+        Files.createDirectories(jar.getParent());
+        Random random = new Random(SEED + jar.getFileName().toString().hashCode());
+        byte[] content = new byte[classSize];
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (int i = 0; i < classes; i++) {
+                random.nextBytes(content);
+                out.putNextEntry(new JarEntry(packageName.replace('.', '/') + "/C" + i + ".class"));
+                out.write(content);
+                out.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * 生成 npm 风格的 tgz（条目位于 package/ 下）
+     */
+    public static byte[] createTgz(int files, int averageSize) throws IOException {
+        Random random = new Random(SEED);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            writeTarHeader(gzip, "package/", 0, '5');
+            for (int i = 0; i < files; i++) {
+                int size = averageSize / 2 + random.nextInt(averageSize);
+                byte[] content = new byte[size];
+                // 源码类文本，压缩率接近真实 npm 包
+                for (int j = 0; j < size; j++) {
+                    content[j] = (byte) ('a' + random.nextInt(8));
+                }
+                writeTarHeader(gzip, "package/lib/dir" + (i % 16) + "/file" + i + ".js", size, '0');
+                gzip.write(content);
+                gzip.write(new byte[(512 - size % 512) % 512]);
+            }
+            gzip.write(new byte[1024]);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeTarHeader(OutputStream out, String name, long size, char type) throws IOException {
+        byte[] header = new byte[512];
+        put(header, 0, 100, name);
+        put(header, 100, 8, "0000644");
+        put(header, 108, 8, "0000000");
+        put(header, 116, 8, "0000000");
+        put(header, 124, 12, String.format("%011o", size));
+        put(header, 136, 12, String.format("%011o", 0));
+        header[156] = (byte) type;
+        put(header, 257, 6, "ustar");
+        put(header, 263, 2, "00");
+
+        // 校验和：计算时校验和字段按空格处理
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        int checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        put(header, 148, 8, String.format("%06o", checksum) + "\0 ");
+        out.write(header);
+    }
+
+    private static void put(byte[] header, int offset, int length, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, Math.min(bytes.length, length));
+    }
+}
@@ -0,0 +1,83 @@
+package com.qin.core;
+
+import com.google.gson.Gson;
+import com.qin.benchmarks.Fixtures;
+import com.qin.types.QinConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 配置加载：Gson 把 qin.config.json 反序列化为 QinConfig（record），以及包含读文件和默认值处理的 ConfigLoader.load
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConfigLoaderBenchmark {
+
+    @Param({"10", "100"})
+    public int dependencies;
+
+    private final Gson gson = new Gson();
+    private Path project;
+    private String json;
+    private ConfigLoader loader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        StringBuilder deps = new StringBuilder();
+        for (int i = 0; i < dependencies; i++) {
+            deps.append(i == 0 ? "" : ",\n").append("    \"com.example@lib-").append(i).append("\": \"1.0.").append(i)
+                    .append('"');
+        }
+        json = """
+                {
+                  "name": "com.example:app",
+                  "version": "1.0.0",
+                  "description": "Benchmark fixture",
+                  "entry": "src/main/java/app/Main.java",
+                  "dependencies": {
+                %s
+                  },
+                  "devDependencies": {
+                    "org.junit.jupiter@junit-jupiter": "5.10.2"
+                  },
+                  "java": {
+                    "version": "21",
+                    "sourceDir": "src/main/java",
+                    "outputDir": "build/classes",
+                    "encoding": "UTF-8"
+                  },
+                  "output": {
+                    "dir": "build",
+                    "jarName": "app.jar"
+                  },
+                  "repositories": [
+                    { "id": "central", "url": "https://repo1.maven.org/maven2" }
+                  ]
+                }
+                """.formatted(deps);
+
+        project = Fixtures.tempDir("config");
+        Files.writeString(project.resolve("qin.config.json"), json);
+        loader = new ConfigLoader(project.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Fixtures.delete(project);
+    }
+
+    @Benchmark
+    public QinConfig gsonParse() {
+        return gson.fromJson(json, QinConfig.class);
+    }
+
+    @Benchmark
+    public QinConfig load() throws IOException {
+        return loader.load();
+    }
+}
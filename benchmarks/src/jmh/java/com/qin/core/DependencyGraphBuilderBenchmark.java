@@ -0,0 +1,44 @@
+package com.qin.core;
+
+import com.qin.benchmarks.Fixtures;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 依赖图拓扑排序：随机 DAG，每个项目依赖最多 4 个编号更小的项目
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DependencyGraphBuilderBenchmark {
+
+    @Param({"1000"})
+    public int nodes;
+
+    private final DependencyGraphBuilder builder = new DependencyGraphBuilder();
+    private DependencyGraphBuilder.DependencyGraph graph;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(Fixtures.SEED);
+        graph = new DependencyGraphBuilder.DependencyGraph();
+        for (int i = 0; i < nodes; i++) {
+            DependencyGraphBuilder.DependencyNode node = new DependencyGraphBuilder.DependencyNode(
+                    "com.example:project-" + i, Paths.get("packages", "project-" + i));
+            int deps = i == 0 ? 0 : random.nextInt(Math.min(i, 4) + 1);
+            for (int d = 0; d < deps; d++) {
+                node.addDependency("com.example:project-" + random.nextInt(i));
+            }
+            graph.addNode(node);
+        }
+    }
+
+    @Benchmark
+    public List<String> topologicalSort() {
+        return builder.topologicalSort(graph);
+    }
+}
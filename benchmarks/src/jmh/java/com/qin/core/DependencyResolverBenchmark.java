@@ -0,0 +1,42 @@
+package com.qin.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * classpath 字符串解析与拼接（每次命令都会执行多次）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DependencyResolverBenchmark {
+
+    @Param({"50", "500"})
+    public int entries;
+
+    private List<String> paths;
+    private String classpath;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        paths = new ArrayList<>();
+        for (int i = 0; i < entries; i++) {
+            paths.add("/home/user/.qin/libs/com.example@lib-" + i + "/com.example@lib-" + i + "-1.0." + i
+                    + "/lib-" + i + "-1.0." + i + ".jar");
+        }
+        classpath = DependencyResolver.buildClasspath(paths);
+    }
+
+    @Benchmark
+    public List<String> parseClasspath() {
+        return DependencyResolver.parseClasspath(classpath);
+    }
+
+    @Benchmark
+    public String buildClasspath() {
+        return DependencyResolver.buildClasspath(paths);
+    }
+}
@@ -0,0 +1,80 @@
+package com.qin.core;
+
+import com.qin.benchmarks.Fixtures;
+import com.qin.types.BuildResult;
+import com.qin.types.QinConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fat Jar 组装：解压依赖 jar、编译、生成清单、打包（完整的 FatJarBuilder.build）
+ * 依赖通过 .qin/classpath.json 提供，不访问网络
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FatJarBuilderBenchmark {
+
+    @Param({"10"})
+    public int jars;
+
+    @Param({"200"})
+    public int classesPerJar;
+
+    private Path project;
+    private QinConfig config;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        project = Fixtures.tempDir("fatjar");
+        Path src = project.resolve("src/main/java/app");
+        Files.createDirectories(src);
+        Files.writeString(src.resolve("Main.java"), """
+                package app;
+                public class Main {
+                    public static void main(String[] args) {
+                        System.out.println("Hello");
+                    }
+                }
+                """);
+        Files.writeString(project.resolve("qin.config.json"), """
+                {
+                  "name": "com.example:fatjar",
+                  "version": "1.0.0",
+                  "entry": "src/main/java/app/Main.java"
+                }
+                """);
+
+        List<String> jarPaths = new ArrayList<>();
+        for (int i = 0; i < jars; i++) {
+            Path jar = project.resolve("libs/lib-" + i + ".jar");
+            Fixtures.writeJar(jar, "com.example.lib" + i, classesPerJar, 1024);
+            jarPaths.add("\"" + jar.toString().replace("\\", "/") + "\"");
+        }
+        Path classpathCache = QinPaths.getClasspathCache(project.toString());
+        Files.createDirectories(classpathCache.getParent());
+        Files.writeString(classpathCache, "{\n  \"classpath\": [" + String.join(",", jarPaths) + "]\n}\n");
+
+        config = new ConfigLoader(project.toString()).load();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Fixtures.delete(project);
+    }
+
+    @Benchmark
+    public BuildResult build() {
+        BuildResult result = new FatJarBuilder(config, false, project.toString()).build();
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("Fat jar build failed: " + result.getError());
+        }
+        return result;
+    }
+}
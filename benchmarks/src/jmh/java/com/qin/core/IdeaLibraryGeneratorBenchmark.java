@@ -0,0 +1,65 @@
+package com.qin.core;
+
+import com.qin.benchmarks.Fixtures;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IDEA 库配置生成：qin sync 时清理并重新生成 .idea/libraries/*.xml 和 .iml 中的库引用
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IdeaLibraryGeneratorBenchmark {
+
+    @Param({"50", "300"})
+    public int libraries;
+
+    private Path project;
+    private String classpath;
+    private IdeaLibraryGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        project = Fixtures.tempDir("idea");
+        Files.writeString(project.resolve("app.iml"), """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <module type="JAVA_MODULE" version="4">
+                  <component name="NewModuleRootManager" inherit-compiler-output="true">
+                    <exclude-output />
+                    <content url="file://$MODULE_DIR$">
+                      <sourceFolder url="file://$MODULE_DIR$/src/main/java" isTestSource="false" />
+                    </content>
+                    <orderEntry type="inheritedJdk" />
+                    <orderEntry type="sourceFolder" forTests="false" />
+                  </component>
+                </module>
+                """);
+
+        List<String> jars = new ArrayList<>();
+        for (int i = 0; i < libraries; i++) {
+            String coordinate = "com.example@lib-" + i;
+            jars.add(project.resolve(".qin/libs/" + coordinate + "/" + coordinate + "-1.0." + i
+                    + "/lib-" + i + "-1.0." + i + ".jar").toString());
+        }
+        classpath = DependencyResolver.buildClasspath(jars);
+        generator = new IdeaLibraryGenerator(project.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Fixtures.delete(project);
+    }
+
+    @Benchmark
+    public int regenerate() throws IOException {
+        generator.cleanLibraryConfigs();
+        return generator.generateLibraryConfigs(classpath);
+    }
+}
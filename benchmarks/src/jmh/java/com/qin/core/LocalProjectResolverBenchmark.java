@@ -0,0 +1,58 @@
+package com.qin.core;
+
+import com.qin.benchmarks.Fixtures;
+import com.qin.constants.QinConstants;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 工作区扫描：LocalProjectResolver.scanProjects 并行冷扫描合成 monorepo（WorkspaceWalker），
+ * 以及工作区索引已存在时 WorkspaceIndex 的校验（只 stat，不重新列目录）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LocalProjectResolverBenchmark {
+
+    @Param({"100", "1000"})
+    public int projects;
+
+    private Path root;
+    private LocalProjectResolver resolver;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Fixtures.createWorkspace(projects);
+        resolver = new LocalProjectResolver(root.toString());
+        WorkspaceIndex.forRoot(root);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Fixtures.delete(root);
+    }
+
+    @Benchmark
+    public List<Path> scanProjects() {
+        List<Path> found = new ArrayList<>();
+        resolver.scanProjects(root, found, 0, QinConstants.MAX_SCAN_DEPTH);
+        if (found.size() != projects) {
+            throw new IllegalStateException("Expected " + projects + " projects, found " + found.size());
+        }
+        return found;
+    }
+
+    @Benchmark
+    public List<Path> indexedProjects() {
+        List<Path> found = WorkspaceIndex.forRoot(root).projectDirs();
+        if (found.size() != projects) {
+            throw new IllegalStateException("Expected " + projects + " projects, found " + found.size());
+        }
+        return found;
+    }
+}
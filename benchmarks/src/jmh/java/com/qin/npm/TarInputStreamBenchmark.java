@@ -0,0 +1,47 @@
+package com.qin.npm;
+
+import com.qin.benchmarks.Fixtures;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * npm tgz 解压：gunzip + TarInputStream 读取所有条目（不落盘，只测流处理本身）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TarInputStreamBenchmark {
+
+    @Param({"100", "1000"})
+    public int files;
+
+    private byte[] tgz;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        tgz = Fixtures.createTgz(files, 2048);
+    }
+
+    @Benchmark
+    public long extract() throws IOException {
+        long total = 0;
+        byte[] buffer = new byte[8192];
+        try (TarInputStream tar = new TarInputStream(new GZIPInputStream(new ByteArrayInputStream(tgz)))) {
+            TarEntry entry;
+            while ((entry = tar.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                int len;
+                while ((len = tar.read(buffer)) != -1) {
+                    total += len;
+                }
+            }
+        }
+        return total;
+    }
+}
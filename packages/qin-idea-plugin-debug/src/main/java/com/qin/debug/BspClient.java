@@ -1,16 +1,32 @@
 package com.qin.debug;
 
 import com.google.gson.*;
-import java.io.*;
-import java.nio.charset.StandardCharsets;
+import com.qin.bsp.BspConnection;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * BSP 客户端
- * 与 qin-bsp-server 通信
+ * 与 qin bsp-server 通信
+ *
+ * 每个项目共享一个长期运行的服务器连接（BspConnection），第一次请求时启动，
+ * 服务器崩溃后下一次请求自动重启；项目关闭时 DebugStartup 注册的回调调用 disconnect 关闭服务器
  */
 public class BspClient {
+    /**
+     * 单个请求的最长等待时间
+     */
+    private static final long REQUEST_TIMEOUT_MS = 60_000;
+
+    /**
+     * 项目路径 -> 服务器连接
+     */
+    private static final Map<String, BspConnection> CONNECTIONS = new ConcurrentHashMap<>();
+
     private final String projectPath;
-    private final Gson gson = new Gson();
 
     public BspClient(String projectPath) {
         this.projectPath = projectPath;
@@ -21,45 +37,36 @@ public class BspClient {
      */
     public JsonObject sendRequest(String method, JsonObject params) {
         try {
-            // 构建 JSON-RPC 请求
-            JsonObject request = new JsonObject();
-            request.addProperty("jsonrpc", "2.0");
-            request.addProperty("id", 1);
-            request.addProperty("method", method);
-            request.add("params", params != null ? params : new JsonObject());
-
-            String requestJson = gson.toJson(request);
-
-            // 启动 BSP Server
-            ProcessBuilder pb = new ProcessBuilder(
-                    "cmd", "/c", "qin", "bsp-server");
-            pb.directory(new File(projectPath));
-            pb.redirectErrorStream(true);
-
-            Process process = pb.start();
-
-            // 发送请求
-            try (OutputStream os = process.getOutputStream()) {
-                os.write(requestJson.getBytes(StandardCharsets.UTF_8));
-                os.write('\n');
-                os.flush();
-            }
+            return connection().call(method, params, REQUEST_TIMEOUT_MS);
+        } catch (Exception e) {
+            QinLogger.error("BSP " + method + " failed: " + e.getMessage(), e);
+        }
+        return null;
+    }
 
-            // 读取响应
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-                String line = reader.readLine();
-                if (line != null) {
-                    return gson.fromJson(line, JsonObject.class);
+    /**
+     * 关闭项目及其子项目的服务器连接（项目关闭时由 DebugStartup 注册的回调调用）
+     */
+    public static void disconnect(String projectPath) {
+        Path root = Paths.get(projectPath);
+        for (String path : List.copyOf(CONNECTIONS.keySet())) {
+            if (Paths.get(path).startsWith(root)) {
+                BspConnection connection = CONNECTIONS.remove(path);
+                if (connection != null) {
+                    connection.close();
                 }
             }
+        }
+    }
 
-            process.waitFor();
+    private BspConnection connection() {
+        return CONNECTIONS.computeIfAbsent(projectPath, path -> new BspConnection(Paths.get(path), serverCommand()));
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return null;
+    private static List<String> serverCommand() {
+        return com.qin.constants.QinConstants.isWindows()
+                ? List.of("cmd", "/c", "qin", "bsp-server")
+                : List.of("qin", "bsp-server");
     }
 
     /**
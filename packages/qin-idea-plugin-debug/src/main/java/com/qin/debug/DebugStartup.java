@@ -3,6 +3,7 @@ package com.qin.debug;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.startup.ProjectActivity;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowManager;
 import kotlin.Unit;
@@ -39,6 +40,9 @@ public class DebugStartup implements ProjectActivity {
         QinLogger.info("[STARTUP] Qin 插件启动 - " + project.getName());
         QinLogger.info("[STARTUP] 项目路径: " + basePath);
 
+        // 项目关闭时关闭该项目（及子项目）的 BSP 服务器连接
+        Disposer.register(project, () -> BspClient.disconnect(basePath));
+
         // 立即配置 Project SDK（在 EDT 线程中）
         ApplicationManager.getApplication().invokeLater(() -> {
             configureProjectSdk(project);
@@ -126,7 +130,7 @@ public class DebugStartup implements ProjectActivity {
 
     /**
      * 发现所有 Qin 项目
-     * 使用 qin-cli 的 LocalProjectResolver
+     * 使用 qin-cli 的 LocalProjectResolver，与 CLI 共享工作区索引（.qin/workspace-index）
      */
     private List<Path> discoverQinProjects(Path ideaProjectDir) {
         return com.qin.core.LocalProjectResolver.scanAllProjects(ideaProjectDir.toString());
@@ -5,10 +5,10 @@ import com.qin.types.LanguageSupport;
 import com.qin.types.CompileContext;
 import com.qin.types.CompileResult;
 import com.qin.types.RunContext;
+import com.qin.dev.FileWatchService;
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
-import java.util.concurrent.*;
 
 /**
  * qin-plugin-graalvm-js
@@ -301,11 +301,7 @@ class JsHotReloadManager {
     private final boolean verbose;
 
     private Process process;
-    private WatchService watchService;
-    private Thread watchThread;
-    private volatile boolean running = false;
-    private ScheduledExecutorService debounceExecutor;
-    private ScheduledFuture<?> debounceTask;
+    private FileWatchService.Subscription subscription;
 
     public JsHotReloadManager(String nodePath, String entry, String cwd,
             Map<String, String> env, List<String> args,
@@ -328,26 +324,9 @@ class JsHotReloadManager {
     }
 
     public void stop() {
-        running = false;
-
-        if (debounceTask != null) {
-            debounceTask.cancel(false);
-        }
-
-        if (debounceExecutor != null) {
-            debounceExecutor.shutdown();
-        }
-
-        if (watchService != null) {
-            try {
-                watchService.close();
-            } catch (IOException e) {
-                // 忽略
-            }
-        }
-
-        if (watchThread != null) {
-            watchThread.interrupt();
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
         }
 
         stopProcess();
@@ -396,72 +375,29 @@ class JsHotReloadManager {
         startProcess();
     }
 
+    /**
+     * 通过共享的 FileWatchService 递归监听入口所在目录
+     */
     private void startWatcher() throws IOException {
-        watchService = FileSystems.getDefault().newWatchService();
-        debounceExecutor = Executors.newSingleThreadScheduledExecutor();
-
         Path watchDir = Paths.get(cwd, entry).getParent();
         if (watchDir == null) {
             watchDir = Paths.get(cwd);
         }
 
-        watchDir.register(watchService,
-                StandardWatchEventKinds.ENTRY_CREATE,
-                StandardWatchEventKinds.ENTRY_DELETE,
-                StandardWatchEventKinds.ENTRY_MODIFY);
-
-        running = true;
-        final Path finalWatchDir = watchDir;
-
-        watchThread = new Thread(() -> {
-            while (running) {
-                try {
-                    WatchKey key = watchService.poll(100, TimeUnit.MILLISECONDS);
-                    if (key == null)
-                        continue;
-
-                    for (WatchEvent<?> event : key.pollEvents()) {
-                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
-                            continue;
-                        }
-
-                        Path filename = (Path) event.context();
-                        String name = filename.toString();
-
-                        if (name.endsWith(".js") || name.endsWith(".mjs")) {
-                            if (verbose) {
-                                System.out.println("[hot-reload] File changed: " + name);
-                            }
-                            scheduleRestart();
-                        }
+        subscription = FileWatchService.shared().subscribe(watchDir, List.of("**/*.js", "**/*.mjs"), debounce,
+                changes -> {
+                    if (verbose) {
+                        changes.paths().forEach(p -> System.out.println("[hot-reload] File changed: " + p.getFileName()));
                     }
-
-                    key.reset();
-                } catch (InterruptedException e) {
-                    break;
-                }
-            }
-        }, "js-hot-reload-watcher");
-
-        watchThread.setDaemon(true);
-        watchThread.start();
+                    try {
+                        restart();
+                    } catch (Exception e) {
+                        System.err.println("[hot-reload] Restart failed: " + e.getMessage());
+                    }
+                });
 
         if (verbose) {
-            System.out.println("[hot-reload] Watching " + finalWatchDir + " for changes...");
-        }
-    }
-
-    private void scheduleRestart() {
-        if (debounceTask != null) {
-            debounceTask.cancel(false);
+            System.out.println("[hot-reload] Watching " + watchDir + " for changes...");
         }
-
-        debounceTask = debounceExecutor.schedule(() -> {
-            try {
-                restart();
-            } catch (Exception e) {
-                System.err.println("[hot-reload] Restart failed: " + e.getMessage());
-            }
-        }, debounce, TimeUnit.MILLISECONDS);
     }
 }
@@ -1,9 +1,11 @@
 package com.qin.plugins;
 
+import com.qin.dev.DevSupervisor;
+import com.qin.dev.FileWatchService;
+
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
-import java.util.concurrent.*;
 
 /**
  * qin-plugin-java-hot-reload
@@ -13,10 +15,12 @@ import java.util.concurrent.*;
  * - 监听 Java 文件变化
  * - 自动重新编译
  * - 防抖处理
+ * - 可接入 DevSupervisor（热替换 / 备用 JVM 重启）
  */
 public class HotReloadPlugin implements QinPlugin {
     private final HotReloadOptions options;
     private HotReloadManager manager;
+    private Runnable recompileCallback;
     private boolean enabled = true;
 
     public HotReloadPlugin() {
@@ -46,6 +50,7 @@ public class HotReloadPlugin implements QinPlugin {
         if (!enabled) return;
         
         manager = new HotReloadManager(options);
+        manager.setRecompileCallback(recompileCallback);
         manager.start();
     }
 
@@ -58,14 +63,23 @@ public class HotReloadPlugin implements QinPlugin {
     }
 
     /**
-     * 设置重编译回调
+     * 设置重编译回调（可以在 devServer 之前设置）
      */
     public void setRecompileCallback(Runnable callback) {
+        this.recompileCallback = callback;
         if (manager != null) {
             manager.setRecompileCallback(callback);
         }
     }
 
+    /**
+     * 由 DevSupervisor 处理文件变化：增量编译后热替换，结构性变化时重启
+     * （RestartMode.STANDBY 时切换到预热的备用 JVM）
+     */
+    public void attach(DevSupervisor supervisor) {
+        setRecompileCallback(supervisor::onSourcesChanged);
+    }
+
     /**
      * 创建热重载插件
      */
@@ -112,15 +126,12 @@ class HotReloadOptions {
 
 /**
  * 热重载管理器
+ * 通过共享的 FileWatchService 递归监听（新建的包目录也会被监听）
  */
 class HotReloadManager {
     private final HotReloadOptions options;
     private final String cwd;
-    private WatchService watchService;
-    private Thread watchThread;
-    private volatile boolean running = false;
-    private ScheduledExecutorService debounceExecutor;
-    private ScheduledFuture<?> debounceTask;
+    private FileWatchService.Subscription subscription;
     private Runnable recompileCallback;
 
     public HotReloadManager(HotReloadOptions options) {
@@ -139,24 +150,15 @@ class HotReloadManager {
      * 开始监听
      */
     public void start() {
-        try {
-            watchService = FileSystems.getDefault().newWatchService();
-            debounceExecutor = Executors.newSingleThreadScheduledExecutor();
-
-            Path watchPath = Paths.get(cwd, options.getWatchDir());
-            if (!Files.exists(watchPath)) {
-                log("监听目录不存在: " + watchPath);
-                return;
-            }
-
-            // 递归注册所有目录
-            registerAll(watchPath);
-
-            running = true;
-            watchThread = new Thread(this::watchLoop, "hot-reload-watcher");
-            watchThread.setDaemon(true);
-            watchThread.start();
+        Path watchPath = Paths.get(cwd, options.getWatchDir());
+        if (!Files.exists(watchPath)) {
+            log("监听目录不存在: " + watchPath);
+            return;
+        }
 
+        try {
+            subscription = FileWatchService.shared().subscribe(watchPath, List.of("**/*.java"),
+                    options.getDebounce(), this::onChanges);
             log("热重载已启动，监听: " + watchPath);
         } catch (IOException e) {
             log("启动热重载失败: " + e.getMessage());
@@ -167,84 +169,20 @@ class HotReloadManager {
      * 停止监听
      */
     public void stop() {
-        running = false;
-        
-        if (debounceTask != null) {
-            debounceTask.cancel(false);
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
         }
-        
-        if (debounceExecutor != null) {
-            debounceExecutor.shutdown();
-        }
-        
-        if (watchService != null) {
-            try {
-                watchService.close();
-            } catch (IOException e) {
-                // 忽略
-            }
-        }
-        
-        if (watchThread != null) {
-            watchThread.interrupt();
-        }
-    }
-
-    private void registerAll(Path start) throws IOException {
-        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult preVisitDirectory(Path dir, java.nio.file.attribute.BasicFileAttributes attrs) throws IOException {
-                dir.register(watchService,
-                    StandardWatchEventKinds.ENTRY_CREATE,
-                    StandardWatchEventKinds.ENTRY_DELETE,
-                    StandardWatchEventKinds.ENTRY_MODIFY);
-                return FileVisitResult.CONTINUE;
-            }
-        });
     }
 
-    private void watchLoop() {
-        while (running) {
-            try {
-                WatchKey key = watchService.poll(100, TimeUnit.MILLISECONDS);
-                if (key == null) continue;
-
-                for (WatchEvent<?> event : key.pollEvents()) {
-                    WatchEvent.Kind<?> kind = event.kind();
-                    
-                    if (kind == StandardWatchEventKinds.OVERFLOW) {
-                        continue;
-                    }
-
-                    @SuppressWarnings("unchecked")
-                    WatchEvent<Path> ev = (WatchEvent<Path>) event;
-                    Path filename = ev.context();
-
-                    // 只处理 .java 文件
-                    if (filename.toString().endsWith(".java")) {
-                        logVerbose("检测到变化: " + filename);
-                        scheduleRecompile();
-                    }
-                }
-
-                key.reset();
-            } catch (InterruptedException e) {
-                break;
-            }
+    private void onChanges(FileWatchService.Changes changes) {
+        for (Path file : changes.paths()) {
+            logVerbose("检测到变化: " + file.getFileName());
         }
-    }
-
-    private void scheduleRecompile() {
-        if (debounceTask != null) {
-            debounceTask.cancel(false);
+        log("文件变化，重新编译...");
+        if (recompileCallback != null) {
+            recompileCallback.run();
         }
-
-        debounceTask = debounceExecutor.schedule(() -> {
-            log("文件变化，重新编译...");
-            if (recompileCallback != null) {
-                recompileCallback.run();
-            }
-        }, options.getDebounce(), TimeUnit.MILLISECONDS);
     }
 
     private void log(String msg) {
@@ -1,5 +1,6 @@
 package com.qin.plugins;
 
+import com.qin.core.ResourceCopier;
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
@@ -209,8 +210,54 @@ class JavaLanguageSupport implements LanguageSupport {
 
     @Override
     public TestResult test(TestContext ctx) {
-        // 简化实现
-        return new TestResult(true, 0, 0, 0, 0, 0, "Tests not implemented", null);
+        try {
+            // 1. 编译测试源码
+            Path testDir = Paths.get(cwd, "src", "test", "java");
+            if (!Files.isDirectory(testDir)) {
+                testDir = Paths.get(cwd, "test");
+            }
+            List<String> testFiles = new ArrayList<>();
+            if (Files.isDirectory(testDir)) {
+                try (Stream<Path> walk = Files.walk(testDir)) {
+                    walk.filter(p -> p.toString().endsWith(".java")).forEach(p -> testFiles.add(p.toString()));
+                }
+            }
+            if (testFiles.isEmpty()) {
+                return new TestResult(true, 0, 0, 0, 0, 0, "No tests found", null);
+            }
+
+            String separator = getClasspathSeparator();
+            String classpath = ctx.getClasspath() != null && !ctx.getClasspath().isEmpty()
+                ? outputDir + separator + ctx.getClasspath()
+                : outputDir;
+            Files.createDirectories(Paths.get(testOutputDir));
+
+            List<String> args = new ArrayList<>(List.of("javac", "-d", testOutputDir, "-cp", classpath));
+            args.addAll(testFiles);
+            Process proc = new ProcessBuilder(args).directory(new File(cwd)).start();
+            String stderr = readStream(proc.getErrorStream());
+            if (proc.waitFor() != 0) {
+                return new TestResult(false, 0, 0, 0, 0, 0, null,
+                    stderr.isEmpty() ? "Test compilation failed" : stderr.trim());
+            }
+
+            // 2. 分片运行（JUnit Platform）
+            Path junitJar = com.qin.test.TestRunner.resolveConsoleLauncher(
+                new com.qin.core.DependencyResolver(null, null, null, cwd, false));
+            com.qin.test.TestRunner runner = new com.qin.test.TestRunner(new com.qin.test.TestRunner.Options(
+                Paths.get(cwd),
+                Paths.get(testOutputDir),
+                testOutputDir + separator + classpath,
+                junitJar,
+                ctx.getFilter(),
+                0,
+                ctx.isVerbose()));
+            com.qin.types.TestResult result = runner.run();
+            return new TestResult(result.isSuccess(), result.getTestsRun(), result.getFailures(),
+                result.getErrors(), result.getSkipped(), result.getTime(), result.getOutput(), result.getError());
+        } catch (Exception e) {
+            return new TestResult(false, 0, 0, 0, 0, 0, null, e.getMessage());
+        }
     }
 
     @Override
@@ -274,17 +321,11 @@ class JavaLanguageSupport implements LanguageSupport {
     }
 
     private void copyResources(String destDir) throws IOException {
-        String[] resourceDirs = {
-            Paths.get(cwd, "src", "resources").toString(),
-            Paths.get(cwd, "src", "main", "resources").toString()
-        };
-
-        for (String resourceDir : resourceDirs) {
-            Path resPath = Paths.get(resourceDir);
-            if (Files.exists(resPath)) {
-                copyDir(resPath, Paths.get(destDir));
-            }
-        }
+        // 增量同步：只复制变化的文件，删除已移除的资源（见 ResourceCopier）
+        new ResourceCopier(cwd, "src", destDir).sync(List.of(
+            Paths.get(cwd, "src", "resources"),
+            Paths.get(cwd, "src", "main", "resources")
+        ));
     }
 
     private void copyDir(Path src, Path dest) throws IOException {
@@ -105,16 +105,24 @@ class RunContext extends PluginContext {
 class TestContext extends PluginContext {
     private final String filter;
     private final boolean verbose;
+    private final String classpath;
 
     public TestContext(String root, Map<String, Object> config, boolean isDev,
                        String filter, boolean verbose) {
+        this(root, config, isDev, filter, verbose, null);
+    }
+
+    public TestContext(String root, Map<String, Object> config, boolean isDev,
+                       String filter, boolean verbose, String classpath) {
         super(root, config, isDev);
         this.filter = filter;
         this.verbose = verbose;
+        this.classpath = classpath;
     }
 
     public String getFilter() { return filter; }
     public boolean isVerbose() { return verbose; }
+    public String getClasspath() { return classpath; }
 }
 
 /**
@@ -1,5 +1,7 @@
 package com.qin.plugins;
 
+import com.qin.constants.QinConstants;
+
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
@@ -100,7 +102,7 @@ public class SpringPlugin implements QinPlugin {
     private boolean hasDevTools(Map<String, String> dependencies) {
         if (dependencies == null) return false;
         return dependencies.keySet().stream()
-            .anyMatch(dep -> dep.contains("spring-boot-devtools"));
+            .anyMatch(dep -> dep.contains(QinConstants.SPRING_DEVTOOLS_ARTIFACT));
     }
 
     private boolean hasApplicationConfig() {
@@ -0,0 +1,137 @@
+package com.qin.bench;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * JMH 结果（-rf json）解析与基线对比
+ */
+public class BenchReport {
+
+    /**
+     * 单个基准测试的结果
+     *
+     * @param benchmark 基准测试方法（全限定名）
+     * @param mode      JMH 模式（thrpt / avgt / sample / ss）
+     * @param params    @Param 参数
+     * @param score     主指标得分
+     * @param error     误差（99.9% 置信区间半宽，单次迭代时为 NaN）
+     * @param unit      得分单位
+     */
+    public record Result(String benchmark, String mode, Map<String, String> params, double score, double error,
+            String unit) {
+
+        /**
+         * 对比用的唯一标识：方法 + 模式 + 参数
+         */
+        public String id() {
+            StringBuilder sb = new StringBuilder(benchmark).append(" [").append(mode).append(']');
+            if (!params.isEmpty()) {
+                sb.append(' ').append(params);
+            }
+            return sb.toString();
+        }
+
+        /**
+         * 吞吐量模式分数越高越好，其余（时间）模式越低越好
+         */
+        public boolean higherIsBetter() {
+            return "thrpt".equals(mode);
+        }
+    }
+
+    /**
+     * 与基线的对比
+     *
+     * @param id            基准测试标识
+     * @param baseline      基线得分
+     * @param current       当前得分
+     * @param unit          得分单位
+     * @param changePercent 变化百分比（正数 = 变慢）
+     * @param regression    是否超过阈值
+     */
+    public record Comparison(String id, double baseline, double current, String unit, double changePercent,
+            boolean regression) {
+    }
+
+    private BenchReport() {
+    }
+
+    /**
+     * 解析 JMH JSON 结果文件
+     */
+    public static List<Result> parse(Path file) throws IOException {
+        JsonElement root;
+        try {
+            root = JsonParser.parseString(Files.readString(file));
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid JMH result " + file + ": " + e.getMessage(), e);
+        }
+        if (!root.isJsonArray()) {
+            throw new IOException("Invalid JMH result " + file + ": expected an array");
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (JsonElement element : root.getAsJsonArray()) {
+            JsonObject obj = element.getAsJsonObject();
+            Map<String, String> params = new TreeMap<>();
+            if (obj.has("params")) {
+                for (Map.Entry<String, JsonElement> param : obj.getAsJsonObject("params").entrySet()) {
+                    params.put(param.getKey(), param.getValue().getAsString());
+                }
+            }
+            JsonObject metric = obj.getAsJsonObject("primaryMetric");
+            results.add(new Result(
+                    obj.get("benchmark").getAsString(),
+                    obj.get("mode").getAsString(),
+                    params,
+                    metric.get("score").getAsDouble(),
+                    number(metric.get("scoreError")),
+                    metric.get("scoreUnit").getAsString()));
+        }
+        return results;
+    }
+
+    /**
+     * 与基线对比，只对比两边都有的基准测试
+     *
+     * @param thresholdPercent 变慢超过这个百分比视为回归
+     */
+    public static List<Comparison> compare(List<Result> baseline, List<Result> current, double thresholdPercent) {
+        Map<String, Result> base = new HashMap<>();
+        for (Result result : baseline) {
+            base.put(result.id(), result);
+        }
+
+        List<Comparison> comparisons = new ArrayList<>();
+        for (Result result : current) {
+            Result before = base.get(result.id());
+            if (before == null || before.score() == 0 || !before.unit().equals(result.unit())) {
+                continue;
+            }
+            double change = (result.score() - before.score()) / before.score() * 100;
+            // 统一为"正数 = 变慢"
+            double slowdown = result.higherIsBetter() ? -change : change;
+            comparisons.add(new Comparison(result.id(), before.score(), result.score(), result.unit(), slowdown,
+                    slowdown > thresholdPercent));
+        }
+        return comparisons;
+    }
+
+    private static double number(JsonElement element) {
+        // JMH 在无法计算误差时输出 "NaN" 字符串
+        if (element == null || element.isJsonNull()) {
+            return Double.NaN;
+        }
+        try {
+            return element.getAsDouble();
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.qin.bench;
+
+import com.qin.constants.QinConstants;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * JMH 基准测试运行器（qin bench）
+ *
+ * 在 fork 出的 JVM 中运行 org.openjdk.jmh.Main（JMH 再按 --forks 为每个基准测试 fork JVM），
+ * 结果以 JSON 格式保存到 .qin/bench/<commit>.json
+ */
+public class BenchRunner {
+
+    /**
+     * 运行参数
+     *
+     * @param projectDir         项目目录
+     * @param classpath          运行时 classpath（jmh-classes + classes + 依赖 + jmh-core）
+     * @param includes           基准测试选择（正则，为空时运行全部）
+     * @param forks              每个基准测试 fork 的 JVM 数
+     * @param warmupIterations   预热迭代次数
+     * @param iterations         测量迭代次数
+     * @param warmupTime         每次预热迭代时长（JMH 时间格式，如 1s）
+     * @param measurementTime    每次测量迭代时长
+     * @param jvmArgs            追加到基准测试 JVM 的参数
+     */
+    public record Options(
+            Path projectDir,
+            String classpath,
+            List<String> includes,
+            int forks,
+            int warmupIterations,
+            int iterations,
+            String warmupTime,
+            String measurementTime,
+            List<String> jvmArgs) {
+
+        public Options {
+            Objects.requireNonNull(projectDir, "projectDir");
+            classpath = classpath != null ? classpath : "";
+            includes = includes != null ? List.copyOf(includes) : List.of();
+            jvmArgs = jvmArgs != null ? List.copyOf(jvmArgs) : List.of();
+        }
+    }
+
+    private final Options options;
+
+    public BenchRunner(Options options) {
+        this.options = options;
+    }
+
+    /**
+     * 运行基准测试
+     *
+     * @return 保存的结果文件（.qin/bench/<commit>.json）
+     */
+    public Path run() throws IOException, InterruptedException {
+        Path benchDir = resultsDir(options.projectDir());
+        Files.createDirectories(benchDir);
+        Path resultFile = benchDir.resolve(currentCommit(options.projectDir()) + ".json");
+        Path tmp = Files.createTempFile(benchDir, "run", ".json");
+
+        List<String> command = new ArrayList<>();
+        command.add("java");
+        command.add("-cp");
+        command.add(options.classpath());
+        command.add(QinConstants.JMH_MAIN);
+        command.addAll(options.includes());
+        command.addAll(List.of(
+                "-f", String.valueOf(options.forks()),
+                "-wi", String.valueOf(options.warmupIterations()),
+                "-i", String.valueOf(options.iterations()),
+                "-w", options.warmupTime(),
+                "-r", options.measurementTime(),
+                "-rf", "json",
+                "-rff", tmp.toString()));
+        if (!options.jvmArgs().isEmpty()) {
+            command.add("-jvmArgsAppend");
+            command.add(String.join(" ", options.jvmArgs()));
+        }
+
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(options.projectDir().toFile());
+        pb.inheritIO();
+        int exitCode = pb.start().waitFor();
+        if (exitCode != 0) {
+            Files.deleteIfExists(tmp);
+            throw new IOException("JMH exited with code " + exitCode);
+        }
+
+        Files.move(tmp, resultFile, StandardCopyOption.REPLACE_EXISTING);
+        return resultFile;
+    }
+
+    /**
+     * 结果目录：.qin/bench
+     */
+    public static Path resultsDir(Path projectDir) {
+        return QinConstants.getProjectQinDir(projectDir).resolve(QinConstants.BENCH_DIR);
+    }
+
+    /**
+     * 基线文件：.qin/bench/baseline.json
+     */
+    public static Path baselineFile(Path projectDir) {
+        return resultsDir(projectDir).resolve(QinConstants.BENCH_BASELINE_FILE);
+    }
+
+    /**
+     * 结果文件名：当前提交的短哈希，有未提交修改时加 -dirty；不是 git 仓库时为 local
+     */
+    static String currentCommit(Path projectDir) {
+        String commit = git(projectDir, "rev-parse", "--short", "HEAD");
+        if (commit == null || commit.isEmpty()) {
+            return "local";
+        }
+        String status = git(projectDir, "status", "--porcelain", "--untracked-files=no");
+        return status != null && !status.isEmpty() ? commit + "-dirty" : commit;
+    }
+
+    private static String git(Path dir, String... args) {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+        try {
+            Process process = new ProcessBuilder(command)
+                    .directory(dir.toFile())
+                    .redirectErrorStream(true)
+                    .start();
+            StringBuilder output = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    output.append(line).append('\n');
+                }
+            }
+            return process.waitFor() == 0 ? output.toString().trim() : null;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
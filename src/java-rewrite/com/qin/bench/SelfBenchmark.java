@@ -0,0 +1,264 @@
+package com.qin.bench;
+
+import com.google.gson.GsonBuilder;
+import com.qin.constants.QinConstants;
+import com.qin.core.QinPaths;
+import com.qin.utils.QinUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Qin 端到端基准测试（qin bench-self）
+ *
+ * 在合成工作区中以子进程方式运行 qin 命令并计时，包含 JVM 启动和文件 I/O。
+ * sync / compile 按依赖顺序在每个项目中运行一次（qin compile 不会编译本地依赖），
+ * build 只在 apps/app 中运行，修改一个文件后只重新编译该文件所在的包。
+ * 每轮依次运行所有场景，报告多轮的 p50 / p95。子进程的 user.home 指向工作区内的 .home，
+ * 依赖只来自本地文件仓库，全程不访问网络
+ */
+public class SelfBenchmark {
+
+    /**
+     * 场景（按每轮的运行顺序）
+     */
+    public enum Scenario {
+        SYNC_COLD("sync (cold)"),
+        SYNC_WARM("sync (warm)"),
+        COMPILE_COLD("compile (cold)"),
+        COMPILE_WARM("compile (warm)"),
+        COMPILE_INCREMENTAL("compile (edit one file)"),
+        BUILD_COLD("build (cold)"),
+        BUILD_WARM("build (warm)");
+
+        private final String label;
+
+        Scenario(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    /**
+     * 运行参数
+     *
+     * @param workspace   合成工作区参数
+     * @param repetitions 每个场景的重复次数
+     * @param jvmArgs     追加到 qin 子进程 JVM 的参数
+     */
+    public record Options(SyntheticWorkspace.Options workspace, int repetitions, List<String> jvmArgs) {
+
+        public Options {
+            Objects.requireNonNull(workspace, "workspace");
+            if (repetitions < 1) {
+                throw new IllegalArgumentException("repetitions must be at least 1");
+            }
+            jvmArgs = jvmArgs != null ? List.copyOf(jvmArgs) : List.of();
+        }
+    }
+
+    /**
+     * 单个场景的耗时统计（毫秒）
+     */
+    public record Stats(String scenario, long p50, long p95, long min, long max, List<Long> samples) {
+    }
+
+    private final Options options;
+    private SyntheticWorkspace.Layout layout;
+    private Path log;
+
+    public SelfBenchmark(Options options) {
+        this.options = options;
+    }
+
+    /**
+     * 生成工作区并运行所有场景
+     */
+    public List<Stats> run() throws IOException, InterruptedException {
+        layout = new SyntheticWorkspace(options.workspace()).generate();
+        log = layout.root().resolve("bench-self.log");
+        if (options.workspace().externalJars() > 0) {
+            linkCoursier();
+        }
+
+        Map<Scenario, List<Long>> samples = new EnumMap<>(Scenario.class);
+        for (Scenario scenario : Scenario.values()) {
+            samples.put(scenario, new ArrayList<>());
+        }
+
+        for (int rep = 1; rep <= options.repetitions(); rep++) {
+            System.out.println("  → Repetition " + rep + "/" + options.repetitions());
+
+            deleteDependencyCaches();
+            samples.get(Scenario.SYNC_COLD).add(timeQin(layout.projects(), "sync"));
+            samples.get(Scenario.SYNC_WARM).add(timeQin(layout.projects(), "sync"));
+
+            deleteBuildDirs(layout.projects());
+            samples.get(Scenario.COMPILE_COLD).add(timeQin(layout.projects(), "compile"));
+            samples.get(Scenario.COMPILE_WARM).add(timeQin(layout.projects(), "compile"));
+
+            SyntheticWorkspace.touchSource(layout.editFile(), rep);
+            samples.get(Scenario.COMPILE_INCREMENTAL).add(timeQin(List.of(layout.editProject()), "compile"));
+
+            // build 复用已编译的本地包，只清理应用的输出（build/、dist/）
+            deleteBuildDirs(List.of(layout.app()));
+            samples.get(Scenario.BUILD_COLD).add(timeQin(List.of(layout.app()), "build"));
+            samples.get(Scenario.BUILD_WARM).add(timeQin(List.of(layout.app()), "build"));
+        }
+
+        List<Stats> stats = new ArrayList<>();
+        for (Map.Entry<Scenario, List<Long>> entry : samples.entrySet()) {
+            stats.add(stats(entry.getKey().label(), entry.getValue()));
+        }
+        return stats;
+    }
+
+    /**
+     * 生成的工作区（run() 之后可用）
+     */
+    public SyntheticWorkspace.Layout layout() {
+        return layout;
+    }
+
+    /**
+     * 保存结果到 .qin/bench/self-<commit>.json
+     */
+    public Path save(Path projectDir, List<Stats> stats) throws IOException {
+        Path benchDir = BenchRunner.resultsDir(projectDir);
+        Files.createDirectories(benchDir);
+        Path resultFile = benchDir.resolve("self-" + BenchRunner.currentCommit(projectDir) + ".json");
+
+        SyntheticWorkspace.Options ws = options.workspace();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("packages", ws.packages());
+        report.put("classesPerPackage", ws.classesPerPackage());
+        report.put("fanOut", ws.fanOut());
+        report.put("externalJars", ws.externalJars());
+        report.put("seed", ws.seed());
+        report.put("repetitions", options.repetitions());
+        report.put("java", Runtime.version().toString());
+        report.put("results", stats);
+        Files.writeString(resultFile, new GsonBuilder().setPrettyPrinting().create().toJson(report));
+        return resultFile;
+    }
+
+    /**
+     * 最近秩百分位数
+     */
+    static long percentile(List<Long> sorted, double percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, rank - 1)));
+    }
+
+    private static Stats stats(String scenario, List<Long> samples) {
+        List<Long> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted);
+        return new Stats(scenario, percentile(sorted, 50), percentile(sorted, 95),
+                sorted.get(0), sorted.get(sorted.size() - 1), List.copyOf(samples));
+    }
+
+    /**
+     * 依次在每个项目中运行 qin 命令，返回总耗时（毫秒）；输出追加到 bench-self.log
+     */
+    private long timeQin(List<Path> projects, String command) throws IOException, InterruptedException {
+        long total = 0;
+        for (Path project : projects) {
+            total += timeQin(project, command);
+        }
+        return total;
+    }
+
+    private long timeQin(Path project, String command) throws IOException, InterruptedException {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        cmd.add("-Duser.home=" + layout.home());
+        cmd.addAll(options.jvmArgs());
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(QinConstants.QIN_MAIN);
+        cmd.add(command);
+
+        ProcessBuilder pb = new ProcessBuilder(cmd);
+        pb.directory(project.toFile());
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(ProcessBuilder.Redirect.appendTo(log.toFile()));
+        // IDE 环境变量会改变工作区根目录的查找
+        pb.environment().remove("IDEA_INITIAL_DIRECTORY");
+        pb.environment().remove("VSCODE_CWD");
+        // Coursier 除 -r 指定的仓库外还会使用默认仓库（ivy2Local、Maven Central），替换为本地文件仓库
+        pb.environment().put(QinConstants.COURSIER_REPOSITORIES_ENV, layout.repository().toUri().toString());
+
+        long start = System.nanoTime();
+        int exitCode = pb.start().waitFor();
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        if (exitCode != 0) {
+            throw new IOException("qin " + command + " in " + layout.root().relativize(project)
+                    + " exited with code " + exitCode + ", see " + log);
+        }
+        return elapsed;
+    }
+
+    /**
+     * 冷启动：清理全局 libs、coursier 缓存和各项目的 .qin / libs
+     */
+    private void deleteDependencyCaches() throws IOException {
+        QinUtils.deleteDir(layout.home().resolve(QinPaths.LIBS_DIR));
+        QinUtils.deleteDir(layout.home().resolve(".cache"));
+        for (Path project : layout.projects()) {
+            QinUtils.deleteDir(project.resolve(QinConstants.QIN_DIR));
+            QinUtils.deleteDir(project.resolve("libs"));
+        }
+    }
+
+    private static void deleteBuildDirs(List<Path> projects) throws IOException {
+        for (Path project : projects) {
+            QinUtils.deleteDir(project.resolve("build"));
+            QinUtils.deleteDir(project.resolve("dist"));
+        }
+    }
+
+    /**
+     * 子进程的 user.home 是隔离的，把已安装的 Coursier 链接到 .home/.qin/bin；
+     * 找不到时直接失败，不自动下载
+     */
+    private void linkCoursier() throws IOException {
+        Path coursier = findCoursier();
+        if (coursier == null) {
+            throw new IOException("Coursier not found. qin bench-self runs offline and will not install it; "
+                    + "install Coursier or use --jars 0");
+        }
+        Path target = layout.home().resolve(QinConstants.QIN_DIR).resolve("bin")
+                .resolve(coursier.getFileName().toString());
+        Files.createDirectories(target.getParent());
+        Files.deleteIfExists(target);
+        try {
+            Files.createSymbolicLink(target, coursier);
+        } catch (IOException | UnsupportedOperationException e) {
+            // Windows 没有权限创建符号链接时复制
+            Files.copy(coursier, target);
+        }
+    }
+
+    private static Path findCoursier() {
+        String exe = QinConstants.isWindows() ? "cs.exe" : "cs";
+        Path installed = QinConstants.getQinHomeDir().resolve("bin").resolve(exe);
+        if (Files.isExecutable(installed)) {
+            return installed.toAbsolutePath();
+        }
+        String path = System.getenv("PATH");
+        if (path != null) {
+            for (String dir : path.split(File.pathSeparator)) {
+                Path candidate = Paths.get(dir, exe);
+                if (!dir.isEmpty() && Files.isExecutable(candidate)) {
+                    return candidate.toAbsolutePath();
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,372 @@
+package com.qin.bench;
+
+import com.qin.constants.QinConstants;
+import com.qin.utils.QinUtils;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+
+/**
+ * 合成 monorepo 生成器（qin bench-self）
+ *
+ * 布局沿用 create-qin 的 Java monorepo 模板：
+ * <pre>
+ * root/
+ *   qin.config.json          工作区配置（packages: apps/*, packages/*）
+ *   packages/lib-000..       每个包 M 个类，依赖 fanOut 个编号更小的包和一个伪 jar
+ *   apps/app                 依赖所有没有被其他包依赖的包和全部伪 jar
+ *   .m2/repository           本地文件 Maven 仓库（伪 jar + pom）
+ *   .home                    子进程的 user.home（~/.qin/libs、coursier 缓存）
+ * </pre>
+ * 类源码以模板中的 packages/common/src/common/Utils.java 为基础，
+ * 相同的参数和种子总是生成完全相同的工作区
+ */
+public class SyntheticWorkspace {
+
+    /**
+     * 找不到 create-qin 模板时使用的类模板（与模板中的 Utils.java 相同）
+     */
+    private static final String FALLBACK_CLASS_TEMPLATE = """
+            package common;
+
+            public class Utils {
+                public static String greet(String name) {
+                    return "Hello, " + name + "!";
+                }
+            }
+            """;
+
+    private static final String WORKSPACE_NAME = QinConstants.SYNTHETIC_GROUP + ":workspace";
+    private static final String VERSION = "1.0.0";
+    private static final int JAR_ENTRIES = 50;
+    private static final int JAR_ENTRY_SIZE = 1024;
+
+    /**
+     * 生成参数
+     *
+     * @param root              工作区根目录（不存在、为空或是之前生成的工作区）
+     * @param packages          包数量
+     * @param classesPerPackage 每个包的类数量
+     * @param fanOut            每个包依赖的本地包数量（不超过编号更小的包数）
+     * @param externalJars      本地 Maven 仓库中的伪 jar 数量
+     * @param seed              随机种子
+     */
+    public record Options(Path root, int packages, int classesPerPackage, int fanOut, int externalJars, long seed) {
+
+        public Options {
+            Objects.requireNonNull(root, "root");
+            if (packages < 1 || classesPerPackage < 1) {
+                throw new IllegalArgumentException("packages and classes must be at least 1");
+            }
+            if (fanOut < 0 || externalJars < 0) {
+                throw new IllegalArgumentException("fan-out and jars cannot be negative");
+            }
+        }
+    }
+
+    /**
+     * 生成结果
+     *
+     * @param root        工作区根目录
+     * @param app         应用目录（apps/app）
+     * @param projects    所有项目目录，按依赖顺序（包 + 应用）
+     * @param home        子进程的 user.home
+     * @param repository  本地文件 Maven 仓库（.m2/repository）
+     * @param editProject 增量编译场景中修改的包
+     * @param editFile    增量编译场景中修改的源文件
+     */
+    public record Layout(Path root, Path app, List<Path> projects, Path home, Path repository, Path editProject,
+            Path editFile) {
+    }
+
+    private final Options options;
+
+    public SyntheticWorkspace(Options options) {
+        this.options = options;
+    }
+
+    public Layout generate() throws IOException {
+        Path root = options.root().toAbsolutePath().normalize();
+        prepareRoot(root);
+
+        Random random = new Random(options.seed());
+        String classTemplate = loadClassTemplate(root);
+
+        Files.writeString(root.resolve(QinConstants.CONFIG_FILE), """
+                {
+                  "name": "%s",
+                  "version": "%s",
+                  "packages": ["apps/*", "packages/*"]
+                }
+                """.formatted(WORKSPACE_NAME, VERSION));
+
+        Path repository = root.resolve(".m2").resolve("repository");
+        List<String> jars = new ArrayList<>();
+        for (int i = 0; i < options.externalJars(); i++) {
+            String artifactId = "ext-" + index(i);
+            writeArtifact(repository, artifactId, random);
+            jars.add(artifactId);
+        }
+        String repositoryUrl = repository.toUri().toString();
+
+        // 包 i 只依赖编号更小的包，依赖图总是 DAG
+        List<Path> projects = new ArrayList<>();
+        Set<Integer> dependedOn = new HashSet<>();
+        for (int i = 0; i < options.packages(); i++) {
+            List<Integer> candidates = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                candidates.add(j);
+            }
+            Collections.shuffle(candidates, random);
+            List<Integer> deps = new ArrayList<>(candidates.subList(0, Math.min(options.fanOut(), i)));
+            Collections.sort(deps);
+            dependedOn.addAll(deps);
+
+            Map<String, String> dependencies = new LinkedHashMap<>();
+            for (int dep : deps) {
+                dependencies.put(packageCoordinate(dep), VERSION);
+            }
+            if (!jars.isEmpty()) {
+                dependencies.put(QinConstants.SYNTHETIC_GROUP + ":" + jars.get(i % jars.size()), VERSION);
+            }
+
+            Path project = root.resolve("packages").resolve("lib-" + index(i));
+            writeConfig(project, packageCoordinate(i), dependencies, repositoryUrl, null);
+            Path sourceDir = project.resolve(QinConstants.DEFAULT_SOURCE_DIR).resolve(packageName(i));
+            Files.createDirectories(sourceDir);
+            for (int c = 0; c < options.classesPerPackage(); c++) {
+                Files.writeString(sourceDir.resolve(className(c) + ".java"),
+                        classSource(classTemplate, i, c, deps));
+            }
+            projects.add(project);
+        }
+
+        // 应用依赖所有没有被其他包依赖的包，整个工作区都在它的依赖闭包里
+        Map<String, String> appDependencies = new LinkedHashMap<>();
+        List<Integer> roots = new ArrayList<>();
+        for (int i = 0; i < options.packages(); i++) {
+            if (!dependedOn.contains(i)) {
+                roots.add(i);
+                appDependencies.put(packageCoordinate(i), VERSION);
+            }
+        }
+        for (String jar : jars) {
+            appDependencies.put(QinConstants.SYNTHETIC_GROUP + ":" + jar, VERSION);
+        }
+        Path app = root.resolve("apps").resolve("app");
+        String entry = QinConstants.DEFAULT_SOURCE_DIR + "/app/Main.java";
+        writeConfig(app, QinConstants.SYNTHETIC_GROUP + ":app", appDependencies, repositoryUrl, entry);
+        Files.createDirectories(app.resolve(entry).getParent());
+        Files.writeString(app.resolve(entry), mainSource(roots));
+        projects.add(app);
+
+        Path home = root.resolve(".home");
+        Files.createDirectories(home);
+
+        int editPackage = options.packages() / 2;
+        Path editProject = projects.get(editPackage);
+        Path editFile = editProject.resolve(QinConstants.DEFAULT_SOURCE_DIR).resolve(packageName(editPackage))
+                .resolve(className(0) + ".java");
+
+        return new Layout(root, app, List.copyOf(projects), home, repository, editProject, editFile);
+    }
+
+    /**
+     * 修改源文件中 revision() 的返回值（方法体修改，不影响其他类的编译结果）
+     */
+    public static void touchSource(Path file, int revision) throws IOException {
+        String source = Files.readString(file);
+        Files.writeString(file, source.replaceAll("return \"r\\d+\";", "return \"r" + revision + "\";"));
+    }
+
+    /**
+     * 根目录必须不存在、为空或是之前生成的工作区，避免误删用户文件
+     */
+    private static void prepareRoot(Path root) throws IOException {
+        if (Files.isDirectory(root)) {
+            boolean empty;
+            try (Stream<Path> entries = Files.list(root)) {
+                empty = entries.findAny().isEmpty();
+            }
+            if (!empty) {
+                String config = QinUtils.readFileOrNull(root.resolve(QinConstants.CONFIG_FILE));
+                if (config == null || !config.contains("\"" + WORKSPACE_NAME + "\"")) {
+                    throw new IOException("Directory is not empty and is not a synthetic workspace: " + root);
+                }
+                QinUtils.deleteDir(root);
+            }
+        }
+        Files.createDirectories(root);
+    }
+
+    /**
+     * 查找 create-qin 的 monorepo 模板：qin.home、Qin 的 classpath 位置和当前目录的上级目录
+     */
+    static Path findTemplateDir() {
+        List<Path> starts = new ArrayList<>();
+        String qinHome = System.getProperty("qin.home");
+        if (qinHome != null) {
+            starts.add(Paths.get(qinHome));
+        }
+        try {
+            starts.add(Paths.get(SyntheticWorkspace.class.getProtectionDomain().getCodeSource().getLocation().toURI()));
+        } catch (URISyntaxException | NullPointerException | SecurityException e) {
+            // 找不到 classpath 位置时只检查其他候选
+        }
+        starts.add(QinConstants.getCwdPath());
+
+        for (Path start : starts) {
+            for (Path dir = start.toAbsolutePath(); dir != null; dir = dir.getParent()) {
+                Path template = dir.resolve(QinConstants.CREATE_QIN_MONOREPO_TEMPLATE);
+                if (Files.isDirectory(template)) {
+                    return template;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String loadClassTemplate(Path root) throws IOException {
+        Path templateDir = findTemplateDir();
+        if (templateDir == null) {
+            return FALLBACK_CLASS_TEMPLATE;
+        }
+        Path gitignore = templateDir.resolve(".gitignore");
+        if (Files.exists(gitignore)) {
+            Files.copy(gitignore, root.resolve(".gitignore"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        String template = QinUtils.readFileOrNull(templateDir.resolve("packages/common/src/common/Utils.java"));
+        return template != null ? template.replace("\r\n", "\n") : FALLBACK_CLASS_TEMPLATE;
+    }
+
+    private static void writeConfig(Path project, String name, Map<String, String> dependencies,
+            String repositoryUrl, String entry) throws IOException {
+        Files.createDirectories(project);
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"name\": \"").append(name).append("\",\n");
+        json.append("  \"version\": \"").append(VERSION).append("\",\n");
+        if (entry != null) {
+            json.append("  \"entry\": \"").append(entry).append("\",\n");
+        }
+        json.append("  \"dependencies\": {");
+        int i = 0;
+        for (Map.Entry<String, String> dep : dependencies.entrySet()) {
+            json.append(i++ == 0 ? "\n" : ",\n");
+            json.append("    \"").append(dep.getKey()).append("\": \"").append(dep.getValue()).append('"');
+        }
+        json.append(dependencies.isEmpty() ? "},\n" : "\n  },\n");
+        // 只使用本地文件仓库，保证完全离线
+        json.append("  \"repositories\": [\n");
+        json.append("    { \"id\": \"synthetic\", \"url\": \"").append(repositoryUrl).append("\" }\n");
+        json.append("  ]\n");
+        json.append("}\n");
+        Files.writeString(project.resolve(QinConstants.CONFIG_FILE), json.toString());
+    }
+
+    /**
+     * 模板类改名后，追加依赖包同名类的调用链和 revision()
+     */
+    private static String classSource(String template, int pkg, int cls, List<Integer> deps) {
+        StringBuilder weight = new StringBuilder(String.valueOf(pkg * 31 + cls));
+        if (cls > 0) {
+            weight.append(" + ").append(className(cls - 1)).append(".weight()");
+        }
+        for (int dep : deps) {
+            weight.append(" + ").append(packageName(dep)).append('.').append(className(cls)).append(".weight()");
+        }
+
+        String source = template
+                .replace("package common;", "package " + packageName(pkg) + ";")
+                .replace("class Utils", "class " + className(cls));
+        int end = source.lastIndexOf('}');
+        return source.substring(0, end) + """
+
+                    public static int weight() {
+                        return %s;
+                    }
+
+                    public static String revision() {
+                        return "r0";
+                    }
+                }
+                """.formatted(weight);
+    }
+
+    private static String mainSource(List<Integer> roots) {
+        StringBuilder sum = new StringBuilder("0");
+        for (int pkg : roots) {
+            sum.append(" + ").append(packageName(pkg)).append('.').append(className(0)).append(".weight()");
+        }
+        return """
+                package app;
+
+                public class Main {
+                    public static void main(String[] args) {
+                        System.out.println(%s.%s.greet("Qin") + " " + (%s));
+                    }
+                }
+                """.formatted(packageName(roots.get(0)), className(0), sum);
+    }
+
+    /**
+     * 伪 jar：只包含资源文件（避免无效的 class 文件被 javac 读取），附带最小的 pom
+     */
+    private static void writeArtifact(Path repository, String artifactId, Random random) throws IOException {
+        Path dir = repository.resolve(QinConstants.SYNTHETIC_GROUP.replace('.', '/'))
+                .resolve(artifactId).resolve(VERSION);
+        Files.createDirectories(dir);
+        String baseName = artifactId + "-" + VERSION;
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        String resourceDir = QinConstants.SYNTHETIC_GROUP.replace('.', '/') + "/" + artifactId.replace("-", "") + "/";
+        byte[] content = new byte[JAR_ENTRY_SIZE];
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(dir.resolve(baseName + ".jar")),
+                manifest)) {
+            for (int i = 0; i < JAR_ENTRIES; i++) {
+                for (int j = 0; j < content.length; j++) {
+                    content[j] = (byte) ('a' + random.nextInt(26));
+                }
+                out.putNextEntry(new JarEntry(resourceDir + "data-" + i + ".txt"));
+                out.write(content);
+                out.closeEntry();
+            }
+        }
+
+        Files.writeString(dir.resolve(baseName + ".pom"), """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                  <modelVersion>4.0.0</modelVersion>
+                  <groupId>%s</groupId>
+                  <artifactId>%s</artifactId>
+                  <version>%s</version>
+                  <packaging>jar</packaging>
+                </project>
+                """.formatted(QinConstants.SYNTHETIC_GROUP, artifactId, VERSION), StandardCharsets.UTF_8);
+    }
+
+    private static String packageCoordinate(int pkg) {
+        return QinConstants.SYNTHETIC_GROUP + ":lib-" + index(pkg);
+    }
+
+    private static String packageName(int pkg) {
+        return "lib" + index(pkg);
+    }
+
+    private static String className(int cls) {
+        return "C" + index(cls);
+    }
+
+    private static String index(int i) {
+        return String.format("%03d", i);
+    }
+}
@@ -0,0 +1,334 @@
+package com.qin.bsp;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.qin.core.QinPaths;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * BSP 客户端连接：每个项目一个长期运行的 BSP Server 进程
+ *
+ * - 第一次请求时启动服务器并完成 build/initialize 握手，之后所有请求复用同一个进程
+ * - 请求 ID 递增，每个请求对应一个 CompletableFuture，多个线程可以同时发请求；
+ *   读线程按 ID 完成对应的 future，通知交给通知回调
+ * - 取消 future 时向服务器发送 $/cancelRequest
+ * - 服务器退出（崩溃）时所有未完成的请求以异常结束，下一次请求自动重启服务器
+ *
+ * 不依赖 IDE 的 API，IDEA 插件的 BspClient 通过它与 qin bsp-server 通信
+ */
+public final class BspConnection implements AutoCloseable {
+    private static final String CONTENT_LENGTH = "Content-Length:";
+    private static final String BSP_VERSION = "2.1.0";
+
+    /**
+     * build/initialize 的最长等待时间（包括服务器 JVM 启动和工作区发现）
+     */
+    private static final long INITIALIZE_TIMEOUT_MS = 60_000;
+
+    /**
+     * close 时等待服务器退出的最长时间
+     */
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+
+    private final Gson gson = new Gson();
+    private final Path projectDir;
+    private final List<String> command;
+    private final AtomicInteger ids = new AtomicInteger();
+    private volatile BiConsumer<String, JsonObject> notificationListener;
+
+    /**
+     * 当前服务器进程，未启动或已退出时为 null
+     */
+    private Server server;
+    private boolean closed;
+
+    /**
+     * 一个服务器进程及其未完成的请求
+     */
+    private final class Server {
+        final Process process;
+        final OutputStream out;
+        final Map<Integer, CompletableFuture<JsonObject>> pending = new ConcurrentHashMap<>();
+        volatile boolean alive = true;
+
+        Server(Process process) {
+            this.process = process;
+            this.out = new BufferedOutputStream(process.getOutputStream());
+        }
+
+        void send(JsonObject message) throws IOException {
+            byte[] body = gson.toJson(message).getBytes(StandardCharsets.UTF_8);
+            synchronized (out) {
+                out.write((CONTENT_LENGTH + " " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.write(body);
+                out.flush();
+            }
+        }
+
+        /**
+         * 读线程：直到服务器关闭 stdout
+         */
+        void readLoop() {
+            try (InputStream in = new BufferedInputStream(process.getInputStream())) {
+                String message;
+                while ((message = readMessage(in)) != null) {
+                    dispatch(message);
+                }
+            } catch (IOException | RuntimeException e) {
+                // 服务器崩溃或被终止
+            }
+            alive = false;
+            IOException exited = new IOException("BSP server exited");
+            pending.values().forEach(future -> future.completeExceptionally(exited));
+            pending.clear();
+        }
+
+        private void dispatch(String json) {
+            JsonObject message = gson.fromJson(json, JsonObject.class);
+            if (message == null) {
+                return;
+            }
+            if (message.has("method")) {
+                BiConsumer<String, JsonObject> listener = notificationListener;
+                if (listener != null && !message.has("id")) {
+                    JsonObject params = message.has("params") && message.get("params").isJsonObject()
+                            ? message.getAsJsonObject("params")
+                            : new JsonObject();
+                    listener.accept(message.get("method").getAsString(), params);
+                }
+                return; // 服务器发来的请求不支持
+            }
+            JsonElement id = message.get("id");
+            if (id != null && id.isJsonPrimitive() && id.getAsJsonPrimitive().isNumber()) {
+                CompletableFuture<JsonObject> future = pending.remove(id.getAsInt());
+                if (future != null) {
+                    future.complete(message);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param projectDir 项目目录（服务器的工作目录）
+     * @param command    启动服务器的命令，例如 qin bsp-server
+     */
+    public BspConnection(Path projectDir, List<String> command) {
+        this.projectDir = projectDir.toAbsolutePath().normalize();
+        this.command = List.copyOf(command);
+    }
+
+    /**
+     * 设置服务器通知的回调（方法名、参数），在读线程上调用
+     */
+    public void setNotificationListener(BiConsumer<String, JsonObject> listener) {
+        this.notificationListener = listener;
+    }
+
+    /**
+     * 发送请求，返回完整的 JSON-RPC 响应（包含 result 或 error）
+     *
+     * 服务器未启动或已退出时先（重新）启动；取消返回的 future 会取消服务器上的请求
+     */
+    public CompletableFuture<JsonObject> request(String method, JsonObject params) {
+        Server current;
+        try {
+            current = connect();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return send(current, method, params);
+    }
+
+    /**
+     * 发送请求并等待响应
+     *
+     * @throws IOException 服务器无法启动、在响应前退出或超时
+     */
+    public JsonObject call(String method, JsonObject params, long timeoutMs) throws IOException {
+        CompletableFuture<JsonObject> future = request(method, params);
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new IOException(method + " timed out after " + timeoutMs + " ms");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(method + " interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException io ? io : new IOException(cause);
+        }
+    }
+
+    /**
+     * 服务器进程是否在运行
+     */
+    public synchronized boolean isConnected() {
+        return server != null && server.alive;
+    }
+
+    /**
+     * 正常关闭服务器（build/shutdown + build/exit），超时后强制终止
+     */
+    @Override
+    public void close() {
+        Server current;
+        synchronized (this) {
+            closed = true;
+            current = server;
+            server = null;
+        }
+        if (current == null || !current.alive) {
+            return;
+        }
+        try {
+            send(current, "build/shutdown", null).get(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            notify(current, "build/exit");
+            if (current.process.waitFor(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | IOException e) {
+            // 服务器无响应，强制终止
+        }
+        current.process.descendants().forEach(ProcessHandle::destroy);
+        current.process.destroy();
+    }
+
+    /**
+     * 返回运行中的服务器，必要时启动并完成初始化握手
+     */
+    private synchronized Server connect() throws IOException {
+        if (closed) {
+            throw new IOException("BSP connection closed");
+        }
+        if (server != null && server.alive) {
+            return server;
+        }
+
+        // 服务器 stderr 是日志（编译输出、调试信息），写入文件，避免管道写满阻塞服务器
+        Path log = QinPaths.getBspServerLog(projectDir.toString());
+        Files.createDirectories(log.getParent());
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(projectDir.toFile());
+        pb.redirectError(ProcessBuilder.Redirect.appendTo(log.toFile()));
+        Server started = new Server(pb.start());
+        Thread reader = new Thread(started::readLoop, "qin-bsp-client-" + projectDir.getFileName());
+        reader.setDaemon(true);
+        reader.start();
+
+        try {
+            JsonObject response = send(started, "build/initialize", initializeParams())
+                    .get(INITIALIZE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (response.has("error")) {
+                throw new IOException("build/initialize failed: " + response.get("error"));
+            }
+            notify(started, "build/initialized");
+        } catch (InterruptedException e) {
+            started.process.destroy();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("build/initialize interrupted");
+        } catch (ExecutionException | TimeoutException | IOException e) {
+            started.process.destroy();
+            throw e instanceof IOException io ? io
+                    : new IOException("Failed to start BSP server: " + e.getMessage(), e);
+        }
+        server = started;
+        return started;
+    }
+
+    private JsonObject initializeParams() {
+        JsonObject capabilities = new JsonObject();
+        capabilities.add("languageIds", gson.toJsonTree(List.of("java")));
+        JsonObject params = new JsonObject();
+        params.addProperty("displayName", "qin-bsp-client");
+        params.addProperty("version", "0.1.0");
+        params.addProperty("bspVersion", BSP_VERSION);
+        params.addProperty("rootUri", projectDir.toUri().toString());
+        params.add("capabilities", capabilities);
+        return params;
+    }
+
+    private CompletableFuture<JsonObject> send(Server target, String method, JsonObject params) {
+        int id = ids.incrementAndGet();
+        CompletableFuture<JsonObject> future = new CompletableFuture<>();
+        target.pending.put(id, future);
+        if (!target.alive) {
+            // 读线程已经清理过未完成的请求
+            target.pending.remove(id);
+            return CompletableFuture.failedFuture(new IOException("BSP server exited"));
+        }
+
+        JsonObject request = new JsonObject();
+        request.addProperty("jsonrpc", "2.0");
+        request.addProperty("id", id);
+        request.addProperty("method", method);
+        request.add("params", params != null ? params : new JsonObject());
+        try {
+            target.send(request);
+        } catch (IOException e) {
+            target.pending.remove(id);
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        future.whenComplete((response, error) -> {
+            if (future.isCancelled() && target.pending.remove(id) != null) {
+                JsonObject cancel = new JsonObject();
+                cancel.addProperty("id", id);
+                try {
+                    notify(target, "$/cancelRequest", cancel);
+                } catch (IOException e) {
+                    // 服务器已退出
+                }
+            }
+        });
+        return future;
+    }
+
+    private void notify(Server target, String method) throws IOException {
+        notify(target, method, new JsonObject());
+    }
+
+    private void notify(Server target, String method, JsonObject params) throws IOException {
+        JsonObject notification = new JsonObject();
+        notification.addProperty("jsonrpc", "2.0");
+        notification.addProperty("method", method);
+        notification.add("params", params);
+        target.send(notification);
+    }
+
+    /**
+     * 读取一条 Content-Length 分帧的消息，流结束时返回 null
+     */
+    private static String readMessage(InputStream in) throws IOException {
+        int length = -1;
+        StringBuilder header = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c != '\n') {
+                header.append((char) c);
+                continue;
+            }
+            String line = header.toString().trim();
+            header.setLength(0);
+            if (line.isEmpty() && length >= 0) {
+                byte[] body = in.readNBytes(length);
+                return body.length == length ? new String(body, StandardCharsets.UTF_8) : null;
+            }
+            if (line.regionMatches(true, 0, CONTENT_LENGTH, 0, CONTENT_LENGTH.length())) {
+                length = Integer.parseInt(line.substring(CONTENT_LENGTH.length()).trim());
+            }
+        }
+        return null;
+    }
+}
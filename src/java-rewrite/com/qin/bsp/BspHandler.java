@@ -1,51 +1,253 @@
 package com.qin.bsp;
 
-import com.qin.constants.QinConstants;
-import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.qin.bsp.model.*;
 import com.qin.constants.QinConstants;
+import com.qin.core.ClassDependencyIndex;
+import com.qin.core.ClassFileInfo;
+import com.qin.core.CompileStatus;
+import com.qin.core.ConfigLoader;
+import com.qin.core.DependencyResolver;
+import com.qin.core.EnvironmentChecker;
+import com.qin.core.JavaRunner;
+import com.qin.core.ProjectModelRegistry;
+import com.qin.core.QinPaths;
+import com.qin.core.SourceIndex;
+import com.qin.dev.FileWatchService;
+import com.qin.test.TestRunner;
+import com.qin.test.TestWorkerPool;
+import com.qin.types.CompileDiagnostic;
+import com.qin.types.CompileResult;
+import com.qin.types.QinConfig;
+import com.qin.types.TestResult;
 import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 /**
  * BSP 请求处理器
  * 将 BSP 协议方法映射到具体实现
+ *
+ * 工作区中的每个 Qin 项目是一个构建目标（见 BspWorkspace），一个服务器进程服务整个工作区。
+ * 请求可能在多个线程上并发调用（见 BspServer），编译串行执行。
+ * 编译过程通过通知报告进度和诊断（见 CompileTaskReporter），
+ * 项目的 qin.config.json 或 .qin/classpath.json 变化时只重新加载该目标并发送 buildTarget/didChange
+ *
+ * buildTarget/test 在常驻的测试 worker JVM 中运行（TestWorkerPool 在请求之间复用），
+ * 逐个测试发送开始 / 结束通知（见 TestTaskReporter）
+ *
+ * 扩展请求 qin/check：编辑器发送未保存的文件内容，只检查不写磁盘，诊断同样通过 build/publishDiagnostics 发送
  */
 public class BspHandler {
+    // BSP StatusCode
+    private static final int STATUS_OK = 1;
+    private static final int STATUS_ERROR = 2;
+
+    // BSP MessageType
+    private static final int MESSAGE_LOG = 4;
+
+    /**
+     * 配置 / 依赖变化的防抖时间（保存配置后 qin sync 会紧接着写 classpath.json）
+     */
+    private static final int WATCH_DEBOUNCE_MS = 300;
+
     private final String workDir;
-    private final Gson gson = new Gson();
-    private QinProjectInfo project;
-    private List<String> classpath;
+    private final BspWorkspace workspace;
+    private volatile BiConsumer<String, Object> notifier;
+
+    private final Object buildLock = new Object();
+    /**
+     * 目标 URI -> 编译状态（在请求之间复用）
+     */
+    private final Map<String, TargetBuild> builds = new ConcurrentHashMap<>();
+
+    /**
+     * 测试 worker JVM 池（整个服务器会话复用，close 时关闭）
+     */
+    private TestWorkerPool testWorkers;
+
+    private final List<FileWatchService.Subscription> subscriptions = new ArrayList<>();
+    /**
+     * 项目目录 -> .qin/classpath.json 的监听
+     */
+    private final Map<Path, FileWatchService.Subscription> classpathWatches = new HashMap<>();
+
+    /**
+     * 单个目标的编译状态
+     */
+    private static final class TargetBuild {
+        JavaRunner runner;
+        String runnerKey;
+        /**
+         * 上次成功编译时每个源文件的内容哈希，null 表示下次全量编译
+         */
+        Map<Path, String> compiledHashes;
+        /**
+         * 上次编译失败的源文件（含受 API 变化影响的依赖方），下次一并重新编译
+         */
+        Set<Path> failedSources = Set.of();
+        /**
+         * 上次成功编译时依赖目标输出目录中的类结构，用于找出依赖目标的 API 变化
+         */
+        Map<Path, ClassFileInfo> upstreamClasses;
+        /**
+         * 当前在客户端有诊断的文件
+         */
+        final Set<String> publishedFiles = new HashSet<>();
+        /**
+         * 当前在客户端有诊断的测试源文件（测试编译单独跟踪，全量编译不影响主代码的诊断）
+         */
+        final Set<String> testPublishedFiles = new HashSet<>();
+        /**
+         * 测试依赖 classpath 和 JUnit ConsoleLauncher（随 JavaRunner 一起重建）
+         */
+        String testClasspath;
+        Path junitConsoleJar;
+    }
 
     public BspHandler(String workDir) {
         this.workDir = workDir;
+        this.workspace = new BspWorkspace(Paths.get(workDir));
+    }
+
+    /**
+     * 设置向客户端发送通知的回调（方法名、参数）
+     */
+    public void setNotifier(BiConsumer<String, Object> notifier) {
+        this.notifier = notifier;
+    }
+
+    // ==================== 变化监听 ====================
+
+    /**
+     * 开始监听配置和依赖变化（BspServer 启动时调用，IDEA 插件直接使用本类时不监听）
+     *
+     * 工作区根目录下递归监听所有 qin.config.json；classpath.json 在隐藏目录中，
+     * 按目标分别监听已存在的 .qin 目录（当前项目的 .qin 目录不存在时创建）
+     */
+    public synchronized void watchChanges() throws IOException {
+        workspace.load();
+        Files.createDirectories(QinConstants.getProjectQinDir(Paths.get(workDir)));
+        subscriptions.add(FileWatchService.shared().subscribe(workspace.root(),
+                List.of("**/" + QinConstants.CONFIG_FILE), WATCH_DEBOUNCE_MS, this::onConfigChanges));
+        syncClasspathWatches();
+    }
+
+    /**
+     * 停止监听
+     */
+    public synchronized void close() {
+        subscriptions.forEach(FileWatchService.Subscription::close);
+        subscriptions.clear();
+        classpathWatches.values().forEach(FileWatchService.Subscription::close);
+        classpathWatches.clear();
+        synchronized (buildLock) {
+            if (testWorkers != null) {
+                testWorkers.close();
+                testWorkers = null;
+            }
+        }
+    }
+
+    private void onConfigChanges(FileWatchService.Changes changes) {
+        if (changes.overflow()) {
+            workspace.load();
+            Map<String, Integer> events = new LinkedHashMap<>();
+            workspace.targets().forEach(target -> events.put(target.uri(), BspWorkspace.TARGET_CHANGED));
+            publishChanges(events);
+            return;
+        }
+        publishChanges(workspace.reload(changes.paths().stream().map(Path::getParent).toList()));
+    }
+
+    /**
+     * 通知客户端重新获取变化目标的 sources / javacOptions
+     * （下次编译时按配置哈希和 classpath 重建该目标的 JavaRunner）
+     */
+    private void publishChanges(Map<String, Integer> events) {
+        syncClasspathWatches();
+        if (events.isEmpty()) {
+            return;
+        }
+        List<Map<String, Object>> changes = new ArrayList<>();
+        events.forEach((uri, kind) -> {
+            if (kind == BspWorkspace.TARGET_DELETED) {
+                builds.remove(uri);
+            }
+            changes.add(Map.of("target", Map.of("uri", uri), "kind", kind));
+        });
+        notify("buildTarget/didChange", Map.of("changes", changes));
+    }
+
+    /**
+     * 让 classpath.json 的监听与当前目标一致
+     */
+    private synchronized void syncClasspathWatches() {
+        if (subscriptions.isEmpty()) {
+            return; // 未开始监听或已关闭
+        }
+        Set<Path> dirs = new HashSet<>();
+        for (BspWorkspace.Target target : workspace.targets()) {
+            Path qinDir = QinConstants.getProjectQinDir(target.dir());
+            if (!Files.isDirectory(qinDir)) {
+                continue;
+            }
+            dirs.add(target.dir());
+            if (!classpathWatches.containsKey(target.dir())) {
+                try {
+                    classpathWatches.put(target.dir(), FileWatchService.shared().subscribe(qinDir,
+                            List.of(QinPaths.getClasspathCache(target.dir().toString()).getFileName().toString()),
+                            WATCH_DEBOUNCE_MS,
+                            changes -> publishChanges(workspace.reload(List.of(target.dir())))));
+                } catch (IOException e) {
+                    System.err.println("[bsp] Failed to watch " + qinDir + ": " + e.getMessage());
+                }
+            }
+        }
+        classpathWatches.entrySet().removeIf(entry -> {
+            if (dirs.contains(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().close();
+            return true;
+        });
     }
 
+    // ==================== 请求分发 ====================
+
     /**
      * 处理 BSP 请求
+     *
+     * @throws UnsupportedOperationException 未知方法
      */
-    public Object handle(String method, JsonObject params) {
+    public Object handle(String method, JsonObject params) throws Exception {
         return switch (method) {
             case "build/initialize" -> handleInitialize(params);
-            case "build/initialized" -> null; // 通知，无需响应
+            case "build/initialized", "build/shutdown" -> null; // 无需处理
             case "workspace/buildTargets" -> handleBuildTargets();
+            case "workspace/reload" -> handleReload();
             case "buildTarget/sources" -> handleSources(params);
             case "buildTarget/dependencySources" -> handleDependencySources(params);
             case "buildTarget/javacOptions" -> handleJavacOptions(params);
             case "buildTarget/compile" -> handleCompile(params);
             case "buildTarget/run" -> handleRun(params);
-            default -> Map.of("error", "Unknown method: " + method);
+            case "buildTarget/test" -> handleTest(params);
+            case "qin/check" -> handleCheck(params);
+            default -> throw new UnsupportedOperationException("Unknown method: " + method);
         };
     }
 
     private Object handleInitialize(JsonObject params) {
-        loadProject();
-        loadClasspath();
+        workspace.targets(); // 发现工作区项目
         Map<String, Object> caps = new HashMap<>();
         caps.put("compileProvider", Map.of("languageIds", List.of("java")));
         caps.put("runProvider", Map.of("languageIds", List.of("java")));
+        caps.put("testProvider", Map.of("languageIds", List.of("java")));
         caps.put("canReload", true);
         return Map.of(
                 "displayName", "Qin BSP Server",
@@ -54,30 +256,11 @@ public class BspHandler {
                 "capabilities", caps);
     }
 
-    private void loadProject() {
-        try {
-            Path configPath = Paths.get(workDir, QinConstants.CONFIG_FILE);
-            String json = Files.readString(configPath);
-            project = gson.fromJson(json, QinProjectInfo.class);
-        } catch (IOException e) {
-            project = new QinProjectInfo();
-        }
-    }
-
-    private void loadClasspath() {
-        classpath = new ArrayList<>();
-        try {
-            Path cpPath = Paths.get(workDir, ".qin", "classpath.json");
-            if (Files.exists(cpPath)) {
-                String json = Files.readString(cpPath);
-                JsonObject obj = gson.fromJson(json, JsonObject.class);
-                if (obj.has("classpath")) {
-                    obj.getAsJsonArray("classpath").forEach(e -> classpath.add(e.getAsString()));
-                }
-            }
-        } catch (IOException e) {
-            // 忽略
-        }
+    private Object handleReload() {
+        workspace.targets().forEach(target -> ProjectModelRegistry.invalidate(target.dir()));
+        workspace.load();
+        syncClasspathWatches();
+        return null;
     }
 
     // ==================== 公共方法供 IDEA 插件使用 ====================
@@ -86,156 +269,561 @@ public class BspHandler {
      * 获取源代码目录
      */
     public String getSourceDir() {
-        if (project == null) {
-            loadProject();
-        }
-        return project.getSourceDir();
+        return workspace.primary().info().getSourceDir();
     }
 
     /**
      * 获取输出目录
      */
     public String getOutputDir() {
-        if (project == null) {
-            loadProject();
+        return outputDir(workspace.primary());
+    }
+
+    /**
+     * 获取 classpath
+     */
+    public List<String> getClasspath() {
+        return workspace.primary().classpath();
+    }
+
+    // ==================== 目标信息 ====================
+
+    private Object handleBuildTargets() {
+        List<Map<String, Object>> targets = new ArrayList<>();
+        for (BspWorkspace.Target t : workspace.targets()) {
+            Map<String, Object> target = new HashMap<>();
+            target.put("id", Map.of("uri", t.uri()));
+            target.put("displayName", t.name());
+            target.put("baseDirectory", t.uri());
+            target.put("languageIds", List.of("java"));
+            target.put("tags", List.of(t.info().entry != null ? "application" : "library"));
+            target.put("capabilities", Map.of("canCompile", true, "canRun", true, "canTest", true));
+            target.put("dependencies", t.dependencies().stream().map(uri -> Map.of("uri", uri)).toList());
+
+            // 数据类型标识
+            target.put("dataKind", "jvm");
+            target.put("data", Map.of(
+                    "javaHome", System.getProperty("java.home"),
+                    "javaVersion", t.info().getJavaVersion()));
+            targets.add(target);
+        }
+        return Map.of("targets", targets);
+    }
+
+    private Object handleSources(JsonObject params) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (BspWorkspace.Target target : workspace.resolve(params)) {
+            String uri = target.dir().resolve(target.info().getSourceDir()).toUri().toString();
+            Map<String, Object> item = Map.of(
+                    "uri", uri,
+                    "kind", 1, // 1 = directory
+                    "generated", false);
+            items.add(Map.of(
+                    "target", Map.of("uri", target.uri()),
+                    "sources", List.of(item),
+                    "roots", List.of(uri)));
+        }
+        return Map.of("items", items);
+    }
+
+    private Object handleDependencySources(JsonObject params) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (BspWorkspace.Target target : workspace.resolve(params)) {
+            items.add(Map.of(
+                    "target", Map.of("uri", target.uri()),
+                    "sources", target.dependencySourceUris()));
         }
-        if (project.java != null && project.java.outputDir != null) {
-            return project.java.outputDir;
+        return Map.of("items", items);
+    }
+
+    private Object handleJavacOptions(JsonObject params) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (BspWorkspace.Target target : workspace.resolve(params)) {
+            // 依赖目标的输出目录（未执行 qin sync 时 classpath.json 中没有）
+            Set<String> classpath = new LinkedHashSet<>(target.classpathUris());
+            dependencyClassDirs(target).forEach(dir -> classpath.add(dir.toUri().toString()));
+            items.add(Map.of(
+                    "target", Map.of("uri", target.uri()),
+                    "options", List.of("--release", target.info().getJavaVersion()),
+                    "classpath", List.copyOf(classpath),
+                    "classDirectory", target.dir().resolve(outputDir(target)).toUri().toString()));
+        }
+        return Map.of("items", items);
+    }
+
+    /**
+     * qin compile --watch 覆盖了目标当前源码的编译结果，没有时返回 null
+     */
+    private static CompileStatus watchStatus(BspWorkspace.Target target) {
+        try {
+            Path sourceDir = target.dir().resolve(ProjectModelRegistry.get(target.dir()).sourceDir());
+            return CompileStatus.awaitCurrent(target.dir(), sourceDir);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String outputDir(BspWorkspace.Target target) {
+        QinProjectInfo info = target.info();
+        if (info.java != null && info.java.outputDir != null) {
+            return info.java.outputDir;
         }
         return QinConstants.BUILD_CLASSES_DIR;
     }
 
     /**
-     * 获取 classpath
+     * 传递依赖的目标的输出目录（按构建顺序）
      */
-    public List<String> getClasspath() {
-        if (classpath == null) {
-            loadClasspath();
+    private List<Path> dependencyClassDirs(BspWorkspace.Target target) {
+        return workspace.withDependencies(List.of(target)).stream()
+                .filter(dep -> dep != target)
+                .map(dep -> dep.dir().resolve(outputDir(dep)))
+                .toList();
+    }
+
+    // ==================== 编译与运行（进程内） ====================
+
+    /**
+     * 一次编译的结果
+     *
+     * @param result      编译结果
+     * @param diagnostics 编译诊断
+     */
+    private record BuildOutcome(CompileResult result, List<CompileDiagnostic> diagnostics) {
+    }
+
+    private Object handleCompile(JsonObject params) {
+        String originId = originId(params);
+        int compiledFiles = 0;
+        boolean success = true;
+        List<CompileDiagnostic> diagnostics = new ArrayList<>();
+        for (BuildOutcome outcome : buildAll(workspace.resolve(params), originId)) {
+            success &= outcome.result().isSuccess();
+            compiledFiles += outcome.result().getCompiledFiles();
+            diagnostics.addAll(outcome.diagnostics());
+        }
+        return Map.of(
+                "originId", originId,
+                "statusCode", success ? STATUS_OK : STATUS_ERROR,
+                "dataKind", "compile-report",
+                "data", Map.of(
+                        "errors", diagnostics.stream().filter(CompileDiagnostic::isError).count(),
+                        "compiledFiles", compiledFiles,
+                        "diagnostics", diagnostics));
+    }
+
+    /**
+     * qin/check：检查编辑器中未保存的文件
+     *
+     * 参数 textDocuments: [{uri, text}]（可选 targets：同时检查这些目标中修改过的文件）。
+     * 未保存的文件和上次编译后修改过的文件一起编译，class 只留在内存中（见 JavaRunner.checkSources），
+     * 不更新编译状态，下一次 buildTarget/compile 照常编译磁盘上的内容
+     */
+    private Object handleCheck(JsonObject params) {
+        String originId = originId(params);
+        Map<BspWorkspace.Target, Map<Path, String>> overlays = new LinkedHashMap<>();
+        if (params != null && params.has("targets")) {
+            workspace.resolve(params).forEach(target -> overlays.put(target, new LinkedHashMap<>()));
+        }
+        if (params != null && params.has("textDocuments")) {
+            for (JsonElement element : params.getAsJsonArray("textDocuments")) {
+                JsonObject document = element.getAsJsonObject();
+                Path file = Paths.get(URI.create(document.get("uri").getAsString()));
+                BspWorkspace.Target target = workspace.owner(file);
+                if (target != null && document.has("text")) {
+                    overlays.computeIfAbsent(target, t -> new LinkedHashMap<>())
+                            .put(file, document.get("text").getAsString());
+                }
+            }
+        }
+
+        boolean success = true;
+        List<CompileDiagnostic> diagnostics = new ArrayList<>();
+        for (Map.Entry<BspWorkspace.Target, Map<Path, String>> entry : overlays.entrySet()) {
+            BuildOutcome outcome = check(entry.getKey(), entry.getValue(), originId);
+            success &= outcome.result().isSuccess();
+            diagnostics.addAll(outcome.diagnostics());
         }
-        return classpath;
+        return Map.of(
+                "originId", originId,
+                "statusCode", success ? STATUS_OK : STATUS_ERROR,
+                "errors", diagnostics.stream().filter(CompileDiagnostic::isError).count());
     }
 
-    private Object handleBuildTargets() {
-        String uri = Paths.get(workDir).toUri().toString();
-        Map<String, Object> target = new HashMap<>();
-        target.put("id", Map.of("uri", uri));
-        target.put("displayName", project.name != null ? project.name : "qin-project");
-        target.put("languageIds", List.of("java"));
-        target.put("tags", List.of("application"));
-        target.put("capabilities", Map.of("canCompile", true, "canRun", true, "canTest", false));
-        target.put("baseDirectory", uri);
+    private BuildOutcome check(BspWorkspace.Target target, Map<Path, String> overlays, String originId) {
+        synchronized (buildLock) {
+            TargetBuild state = builds.computeIfAbsent(target.uri(), uri -> new TargetBuild());
+            CompileTaskReporter reporter = new CompileTaskReporter(this::notify, target.uri(), originId,
+                    state.publishedFiles);
 
-        // 数据类型标识
-        target.put("dataKind", "jvm");
-        target.put("data", Map.of(
-                "javaHome", System.getProperty("java.home"),
-                "javaVersion", project.getJavaVersion()));
+            JavaRunner runner;
+            try {
+                runner = runner(target, state);
+            } catch (IOException | RuntimeException e) {
+                reporter.start("Loading project");
+                reporter.finish(false, List.of(), Set.of());
+                return new BuildOutcome(CompileResult.failure(e.getMessage()), List.of());
+            }
+
+            // 上次编译后修改过的文件一起检查，未修改的直接使用输出目录中的 class
+            Set<Path> files = new TreeSet<>(overlays.keySet());
+            Map<Path, String> compiledHashes = state.compiledHashes;
+            if (compiledHashes != null) {
+                SourceIndex index = SourceIndex.forProject(target.dir());
+                for (SourceIndex.SourceFile source : index.filesUnder(runner.getSourceDirPath())) {
+                    Path file = index.resolve(source);
+                    if (!source.hash().equals(compiledHashes.get(file))) {
+                        files.add(file);
+                    }
+                }
+            }
 
-        return Map.of("targets", List.of(target));
+            reporter.start("Checking " + files.size() + " files");
+            List<CompileDiagnostic> diagnostics = Collections.synchronizedList(new ArrayList<>());
+            runner.setDiagnosticListener(diagnostic -> {
+                diagnostics.add(diagnostic);
+                reporter.diagnostic(diagnostic);
+            });
+            runner.setProgressListener(reporter::progress);
+            CompileResult result;
+            try {
+                result = runner.checkSources(files.stream().map(Path::toString).toList(), overlays);
+            } finally {
+                runner.setDiagnosticListener(null);
+                runner.setProgressListener(null);
+            }
+            reporter.finish(result.isSuccess(), diagnostics,
+                    new HashSet<>(files.stream().map(Path::toString).toList()));
+            return new BuildOutcome(result, List.copyOf(diagnostics));
+        }
     }
 
-    private Object handleSources(JsonObject params) {
-        String sourceDir = project.getSourceDir();
-        Path srcPath = Paths.get(workDir, sourceDir);
-        String uri = srcPath.toUri().toString();
+    private Object handleRun(JsonObject params) throws Exception {
+        String originId = originId(params);
+        List<BspWorkspace.Target> targets = workspace.resolve(params);
+        if (targets.isEmpty()) {
+            throw new IllegalArgumentException("Unknown build target");
+        }
+        BspWorkspace.Target target = targets.get(0);
+        if (buildAll(List.of(target), originId).stream().anyMatch(outcome -> !outcome.result().isSuccess())) {
+            return Map.of("originId", originId, "statusCode", STATUS_ERROR);
+        }
 
-        String targetUri = Paths.get(workDir).toUri().toString();
+        List<String> args = new ArrayList<>();
+        if (params.has("arguments") && params.get("arguments").isJsonArray()) {
+            params.getAsJsonArray("arguments").forEach(arg -> args.add(arg.getAsString()));
+        }
+        JavaRunner runner;
+        synchronized (buildLock) {
+            runner = runner(target, builds.computeIfAbsent(target.uri(), uri -> new TargetBuild()));
+        }
+        Set<String> runtimeClasspath = new LinkedHashSet<>(
+                List.of(runner.getRuntimeClasspath().split(File.pathSeparator)));
+        dependencyClassDirs(target).forEach(dir -> runtimeClasspath.add(dir.toString()));
+        runtimeClasspath.remove("");
+        List<String> command = new ArrayList<>(List.of("java", "-cp",
+                String.join(File.pathSeparator, runtimeClasspath), runner.getMainClassName()));
+        command.addAll(args);
 
-        Map<String, Object> item = Map.of(
-                "uri", uri,
-                "kind", 1, // 1 = directory
-                "generated", false);
-        Map<String, Object> sources = Map.of(
-                "target", Map.of("uri", targetUri),
-                "sources", List.of(item),
-                "roots", List.of(uri));
-        return Map.of("items", List.of(sources));
+        // 程序输出不能继承 stdout（JSON-RPC 通道），逐行转发为 build/logMessage
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(target.dir().toFile());
+        pb.redirectErrorStream(true);
+        pb.redirectInput(ProcessBuilder.Redirect.PIPE);
+        Process process = pb.start();
+        process.getOutputStream().close();
+        Thread pump = Thread.ofVirtual().start(() -> forwardOutput(process, originId));
+        try {
+            int exitCode = process.waitFor();
+            pump.join();
+            return Map.of("originId", originId, "statusCode", exitCode == 0 ? STATUS_OK : STATUS_ERROR);
+        } catch (InterruptedException e) {
+            // $/cancelRequest
+            process.descendants().forEach(ProcessHandle::destroy);
+            process.destroy();
+            throw e;
+        }
     }
 
-    private Object handleDependencySources(JsonObject params) {
-        String targetUri = Paths.get(workDir).toUri().toString();
-
-        // 将 classpath 转换为 URI
-        List<String> sourceUris = new ArrayList<>();
-        for (String path : classpath) {
-            Path p = Paths.get(path);
-            if (Files.exists(p)) {
-                if (path.endsWith(".jar")) {
-                    sourceUris.add("jar:" + p.toUri().toString() + "!/");
-                } else {
-                    sourceUris.add(p.toUri().toString());
+    /**
+     * 编译目标（及其依赖）和测试，在常驻 worker JVM 中运行测试
+     *
+     * arguments 支持 -f / --filter &lt;pattern&gt;（与 qin test 相同）；
+     * 请求被取消时中断测试运行，正在运行的 worker JVM 被终止
+     */
+    private Object handleTest(JsonObject params) throws Exception {
+        String originId = originId(params);
+        String filter = null;
+        if (params.has("arguments") && params.get("arguments").isJsonArray()) {
+            List<String> args = new ArrayList<>();
+            params.getAsJsonArray("arguments").forEach(arg -> args.add(arg.getAsString()));
+            for (int i = 0; i < args.size() - 1; i++) {
+                if ("-f".equals(args.get(i)) || "--filter".equals(args.get(i))) {
+                    filter = args.get(i + 1);
                 }
             }
         }
 
-        Map<String, Object> item = Map.of(
-                "target", Map.of("uri", targetUri),
-                "sources", sourceUris);
-        return Map.of("items", List.of(item));
+        List<BspWorkspace.Target> targets = workspace.resolve(params);
+        boolean success = true;
+        for (BuildOutcome outcome : buildAll(targets, originId)) {
+            success &= outcome.result().isSuccess();
+        }
+        if (!success) {
+            return Map.of("originId", originId, "statusCode", STATUS_ERROR);
+        }
+        for (BspWorkspace.Target target : targets) {
+            success &= runTests(target, filter, originId);
+        }
+        return Map.of("originId", originId, "statusCode", success ? STATUS_OK : STATUS_ERROR);
     }
 
-    private Object handleJavacOptions(JsonObject params) {
-        String javaVersion = project.getJavaVersion();
-        String targetUri = Paths.get(workDir).toUri().toString();
+    /**
+     * 编译并运行一个目标的测试（同一时间只有一个编译或测试运行）
+     */
+    private boolean runTests(BspWorkspace.Target target, String filter, String originId) throws Exception {
+        synchronized (buildLock) {
+            TargetBuild state = builds.computeIfAbsent(target.uri(), uri -> new TargetBuild());
+            JavaRunner runner = runner(target, state);
+            if (SourceIndex.forProject(target.dir()).filesUnder(runner.getTestSourceDirPath()).isEmpty()) {
+                notify("build/logMessage", Map.of("type", MESSAGE_LOG,
+                        "message", target.name() + ": no test sources", "originId", originId));
+                return true;
+            }
 
-        List<String> options = new ArrayList<>();
-        options.add("--release");
-        options.add(javaVersion);
+            if (state.junitConsoleJar == null) {
+                QinConfig config = new ConfigLoader(target.dir().toString()).load();
+                EnvironmentChecker env = new EnvironmentChecker();
+                DependencyResolver resolver = new DependencyResolver(
+                        env.checkCoursier() ? env.getCoursierCommand() : null, config.repositories(), null,
+                        target.dir().toString(), config.localRep());
+                state.testClasspath = resolver.resolveFromObject(config.devDependencies());
+                state.junitConsoleJar = TestRunner.resolveConsoleLauncher(resolver);
+            }
+
+            CompileTaskReporter compileReporter = new CompileTaskReporter(this::notify, target.uri(), originId,
+                    state.testPublishedFiles);
+            compileReporter.start("Compiling tests");
+            List<CompileDiagnostic> diagnostics = Collections.synchronizedList(new ArrayList<>());
+            runner.setDiagnosticListener(diagnostic -> {
+                diagnostics.add(diagnostic);
+                compileReporter.diagnostic(diagnostic);
+            });
+            CompileResult compiled;
+            try {
+                compiled = runner.compileTests(state.testClasspath);
+            } finally {
+                runner.setDiagnosticListener(null);
+            }
+            compileReporter.finish(compiled.isSuccess(), diagnostics, null);
+            if (!compiled.isSuccess()) {
+                return false;
+            }
+
+            Set<String> classpath = new LinkedHashSet<>(DependencyResolver.parseClasspath(
+                    TestRunner.buildTestClasspath(runner.getTestOutputDir(), runner.getRuntimeClasspath(),
+                            state.testClasspath)));
+            dependencyClassDirs(target).forEach(dir -> classpath.add(dir.toString()));
+            TestRunner.Options options = new TestRunner.Options(
+                    target.dir(),
+                    runner.getTestOutputDir(),
+                    DependencyResolver.buildClasspath(new ArrayList<>(classpath)),
+                    state.junitConsoleJar,
+                    filter,
+                    0,
+                    false,
+                    dependencyClassDirs(target),
+                    false,
+                    true,
+                    List.of());
+            if (testWorkers == null) {
+                testWorkers = new TestWorkerPool(QinConstants.getProjectQinDir(Paths.get(workDir))
+                        .resolve(QinConstants.TEST_WORKERS_DIR));
+            }
 
-        // classpath URIs
-        List<String> cpUris = new ArrayList<>();
-        for (String path : classpath) {
-            Path p = Paths.get(path);
-            if (Files.exists(p)) {
-                cpUris.add(p.toUri().toString());
+            TestTaskReporter reporter = new TestTaskReporter(this::notify, target.uri(), originId);
+            reporter.start();
+            TestRunner testRunner = new TestRunner(options, testWorkers);
+            testRunner.setListener(reporter);
+            try {
+                TestResult result = testRunner.run();
+                reporter.finish(result.isSuccess(), false, result.getOutput());
+                return result.isSuccess();
+            } catch (InterruptedException e) {
+                reporter.finish(false, true, "Cancelled");
+                throw e;
             }
         }
+    }
 
-        Map<String, Object> item = Map.of(
-                "target", Map.of("uri", targetUri),
-                "options", options,
-                "classpath", cpUris,
-                "classDirectory", Paths.get(workDir, QinConstants.BUILD_CLASSES_DIR).toUri().toString());
-        return Map.of("items", List.of(item));
+    private void forwardOutput(Process process, String originId) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                notify("build/logMessage", Map.of("type", MESSAGE_LOG, "message", line, "originId", originId));
+            }
+        } catch (IOException e) {
+            // 进程被终止
+        }
     }
 
-    private Object handleCompile(JsonObject params) {
-        // 调用 qin compile
-        try {
-            ProcessBuilder pb = new ProcessBuilder("qin", "compile");
-            pb.directory(new File(workDir));
-            pb.inheritIO();
-            Process p = pb.start();
-            int exitCode = p.waitFor();
-            return Map.of(
-                    "originId", params.has("originId") ? params.get("originId").getAsString() : "",
-                    "statusCode", exitCode == 0 ? 1 : 2, // 1 = ok, 2 = error
-                    "dataKind", "compile-report",
-                    "data", Map.of());
-        } catch (Exception e) {
-            return Map.of(
-                    "originId", "",
-                    "statusCode", 2,
-                    "dataKind", "compile-report",
-                    "data", Map.of("error", e.getMessage()));
-        }
-    }
-
-    private Object handleRun(JsonObject params) {
-        // 调用 qin run
-        try {
-            ProcessBuilder pb = new ProcessBuilder("qin", "run");
-            pb.directory(new File(workDir));
-            pb.inheritIO();
-            Process p = pb.start();
-            int exitCode = p.waitFor();
-            return Map.of(
-                    "originId", params.has("originId") ? params.get("originId").getAsString() : "",
-                    "statusCode", exitCode == 0 ? 1 : 2);
-        } catch (Exception e) {
-            return Map.of(
-                    "originId", "",
-                    "statusCode", 2);
+    /**
+     * 按依赖顺序编译目标及其依赖的目标，依赖编译失败的目标跳过
+     */
+    private List<BuildOutcome> buildAll(List<BspWorkspace.Target> requested, String originId) {
+        List<BuildOutcome> outcomes = new ArrayList<>();
+        Set<String> failed = new HashSet<>();
+        for (BspWorkspace.Target target : workspace.withDependencies(requested)) {
+            Optional<String> brokenDependency = target.dependencies().stream().filter(failed::contains).findFirst();
+            BuildOutcome outcome = brokenDependency.isPresent()
+                    ? new BuildOutcome(CompileResult.failure("Dependency failed: " + brokenDependency.get()),
+                            List.of())
+                    : build(target, originId);
+            if (!outcome.result().isSuccess()) {
+                failed.add(target.uri());
+            }
+            outcomes.add(outcome);
+        }
+        return outcomes;
+    }
+
+    /**
+     * 编译一个目标（同一时间只有一个编译）
+     *
+     * 1. qin compile --watch 正在该项目中运行，且最近一次编译之后没有修改过源码：
+     *    直接使用它的结果和诊断（刚保存、监听进程仍在防抖的修改按第 2 步编译）
+     * 2. 否则在进程内编译，JavaRunner 在请求之间复用：
+     *    按源码索引的内容哈希与上次成功编译比较，没有变化时只同步资源（毫秒级返回），
+     *    只有修改 / 新增时只编译这些文件，有文件被删除或首次编译时全量编译；
+     *    本目标或依赖目标中的类 API 变化时，引用它们的源文件一起重新编译（见 JavaRunner.compileIncremental）
+     */
+    private BuildOutcome build(BspWorkspace.Target target, String originId) {
+        synchronized (buildLock) {
+            TargetBuild state = builds.computeIfAbsent(target.uri(), uri -> new TargetBuild());
+            CompileTaskReporter reporter = new CompileTaskReporter(this::notify, target.uri(), originId,
+                    state.publishedFiles);
+
+            CompileStatus status = watchStatus(target);
+            if (status != null) {
+                reporter.start("Using qin compile --watch result");
+                status.diagnostics().forEach(reporter::diagnostic);
+                boolean success = status.state() == CompileStatus.State.UP_TO_DATE;
+                reporter.finish(success, status.diagnostics(), null);
+                CompileResult result = success
+                        ? CompileResult.success(status.compiledFiles(), outputDir(target))
+                        : CompileResult.failure("Compilation failed (qin compile --watch)");
+                return new BuildOutcome(result, status.diagnostics());
+            }
+
+            JavaRunner runner;
+            try {
+                runner = runner(target, state);
+            } catch (IOException | RuntimeException e) {
+                reporter.start("Loading project");
+                reporter.finish(false, List.of(), Set.of());
+                return new BuildOutcome(CompileResult.failure(e.getMessage()), List.of());
+            }
+
+            SourceIndex index = SourceIndex.forProject(target.dir());
+            Map<Path, String> current = new HashMap<>();
+            for (SourceIndex.SourceFile source : index.filesUnder(runner.getSourceDirPath())) {
+                current.put(index.resolve(source), source.hash());
+            }
+
+            Map<Path, String> compiledHashes = state.compiledHashes;
+            boolean full = compiledHashes == null || !Files.isDirectory(runner.getOutputDir())
+                    || !current.keySet().containsAll(compiledHashes.keySet());
+            Set<Path> changedFiles = new TreeSet<>();
+            if (!full) {
+                state.failedSources.stream().filter(current::containsKey).forEach(changedFiles::add);
+                current.forEach((file, hash) -> {
+                    if (!hash.equals(compiledHashes.get(file))) {
+                        changedFiles.add(file);
+                    }
+                });
+            }
+            List<Path> changed = List.copyOf(changedFiles);
+
+            // 依赖目标的 API 变化（它们可能由本服务器、qin compile --watch 或命令行编译）
+            Map<Path, ClassFileInfo> upstreamClasses = new HashMap<>();
+            for (Path dir : dependencyClassDirs(target)) {
+                upstreamClasses.putAll(ClassDependencyIndex.forDir(dir).scan());
+            }
+            ClassDependencyIndex.ApiChanges upstream = full || state.upstreamClasses == null
+                    ? ClassDependencyIndex.ApiChanges.NONE
+                    : ClassDependencyIndex.diff(state.upstreamClasses, upstreamClasses);
+
+            reporter.start(full ? "Compiling " + current.size() + " files"
+                    : !changed.isEmpty() ? "Compiling " + changed.size() + " changed files"
+                    : !upstream.isEmpty() ? "Dependencies changed" : "Up to date");
+            List<CompileDiagnostic> diagnostics = Collections.synchronizedList(new ArrayList<>());
+            runner.setDiagnosticListener(diagnostic -> {
+                diagnostics.add(diagnostic);
+                reporter.diagnostic(diagnostic);
+            });
+            runner.setProgressListener(reporter::progress);
+            CompileResult result;
+            List<String> compiled = null;
+            try {
+                runner.getResourceCopier().copyResources();
+                JavaRunner.IncrementalResult incremental = runner.compileIncremental(
+                        full ? null : changed.stream().map(Path::toString).toList(), upstream);
+                result = incremental.result();
+                compiled = incremental.compiledSources();
+            } catch (IOException e) {
+                result = CompileResult.failure(e.getMessage());
+                compiled = List.of();
+            } finally {
+                runner.setDiagnosticListener(null);
+                runner.setProgressListener(null);
+            }
+            // 清空本次编译过（包括依赖方）、但不再有诊断的文件
+            reporter.finish(result.isSuccess(), diagnostics, compiled == null ? null : new HashSet<>(compiled));
+
+            if (result.isSuccess()) {
+                if (compiled == null) {
+                    state.compiledHashes = current;
+                } else {
+                    changed.forEach(file -> compiledHashes.put(file, current.get(file)));
+                }
+                state.failedSources = Set.of();
+                state.upstreamClasses = upstreamClasses;
+            } else if (compiled == null) {
+                state.compiledHashes = null;
+            } else {
+                state.failedSources = Set.copyOf(compiled.stream().map(Paths::get).toList());
+            }
+            return new BuildOutcome(result, List.copyOf(diagnostics));
+        }
+    }
+
+    /**
+     * 目标的 JavaRunner，配置（内容哈希）、源码目录或依赖变化时重建，并丢弃上次编译的状态
+     */
+    private static JavaRunner runner(BspWorkspace.Target target, TargetBuild state) throws IOException {
+        ProjectModelRegistry.ProjectModel model = ProjectModelRegistry.get(target.dir());
+        String key = model.configHash() + File.pathSeparator + model.sourceDir() + File.pathSeparator
+                + model.classpath();
+        if (state.runner == null || !key.equals(state.runnerKey)) {
+            String dir = target.dir().toString();
+            QinConfig config = new ConfigLoader(dir).load();
+            state.runner = new JavaRunner(config, String.join(File.pathSeparator, model.classpath()), dir);
+            state.runnerKey = key;
+            state.compiledHashes = null;
+            state.junitConsoleJar = null;
+        }
+        return state.runner;
+    }
+
+    private static String originId(JsonObject params) {
+        return params != null && params.has("originId") ? params.get("originId").getAsString() : "";
+    }
+
+    private void notify(String method, Object params) {
+        BiConsumer<String, Object> target = notifier;
+        if (target != null) {
+            target.accept(method, params);
         }
     }
 }
@@ -1,72 +1,286 @@
 package com.qin.bsp;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.qin.constants.QinConstants;
 import java.io.*;
-import java.util.Scanner;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
 
 /**
  * Qin BSP Server 主入口
  * 通过 stdio 与 IDE 进行 JSON-RPC 通信
+ *
+ * - 消息使用 LSP 风格的 Content-Length 头分帧（兼容旧的按行 JSON：首条消息没有头时按行读写）
+ * - 每个请求在独立的虚拟线程上处理，慢请求（编译、运行）不阻塞其它请求；
+ *   $/cancelRequest 中断对应的请求并立即返回 RequestCancelled
+ * - 所有输出由单个写线程串行写入真正的 stdout；System.out 重定向到 stderr，
+ *   编译器等打印的日志不会混入 JSON-RPC 流
+ * - 处理器发出的通知（编译进度、诊断、buildTarget/didChange）经同一个写线程发送
  */
 public class BspServer {
+    private static final String CONTENT_LENGTH = "Content-Length:";
+
+    // JSON-RPC 错误码
+    private static final int PARSE_ERROR = -32700;
+    private static final int METHOD_NOT_FOUND = -32601;
+    private static final int INTERNAL_ERROR = -32603;
+    private static final int REQUEST_CANCELLED = -32800;
+
+    /**
+     * build/exit 时等待处理中的请求结束的最长时间
+     */
+    private static final long EXIT_TIMEOUT_MS = 5000;
+
     private final Gson gson = new Gson();
     private final BspHandler handler;
 
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "qin-bsp-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * 处理中的请求（请求 ID -> 任务），取消和正常完成时移除，保证每个请求只响应一次
+     */
+    private final Map<JsonElement, Future<?>> inFlight = new HashMap<>();
+
+    private OutputStream out;
+    private volatile boolean framed = true;
+    private volatile boolean shutdownRequested;
+
     public BspServer(String workDir) {
         this.handler = new BspHandler(workDir);
+        this.handler.setNotifier(this::notify);
     }
 
     /**
-     * 启动服务器，监听 stdin
+     * 启动服务器，监听 stdin，直到 stdin 关闭或收到 build/exit
      */
     public void run() throws IOException {
-        BufferedReader reader = new BufferedReader(
-                new InputStreamReader(System.in));
+        out = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out));
+        System.setOut(System.err);
+        try {
+            handler.watchChanges();
+        } catch (IOException e) {
+            System.err.println("[bsp] Failed to watch project config: " + e.getMessage());
+        }
+
+        InputStream in = new BufferedInputStream(System.in);
+        boolean first = true;
+        String message;
+        while ((message = readMessage(in, first)) != null) {
+            first = false;
+            dispatch(message);
+        }
+
+        // stdin 关闭：等待处理中的请求写完响应
+        handler.close();
+        dispatcher.close();
+        writer.close();
+    }
+
+    // ==================== 分帧 ====================
+
+    /**
+     * 读取一条消息：Content-Length 头 + 空行 + 正文；首条消息没有头时切换为按行模式
+     */
+    private String readMessage(InputStream in, boolean first) throws IOException {
+        int length = -1;
         String line;
-        while ((line = reader.readLine()) != null) {
-            String response = processRequest(line);
-            if (response != null) {
-                System.out.println(response);
-                System.out.flush();
+        while ((line = readLine(in)) != null) {
+            if (line.isEmpty()) {
+                if (length >= 0) {
+                    break;
+                }
+                continue; // 消息之间的空行
+            }
+            if (line.startsWith("{") && (first || !framed)) {
+                framed = false;
+                return line;
+            }
+            if (line.regionMatches(true, 0, CONTENT_LENGTH, 0, CONTENT_LENGTH.length())) {
+                length = Integer.parseInt(line.substring(CONTENT_LENGTH.length()).trim());
+            }
+            // 其它头（Content-Type）忽略
+        }
+        if (line == null) {
+            return null;
+        }
+        byte[] body = in.readNBytes(length);
+        if (body.length < length) {
+            return null; // stdin 在消息中途关闭
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 读取一行头（ASCII，去掉 \r\n），流结束时返回 null
+     */
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                int end = line.length();
+                return end > 0 && line.charAt(end - 1) == '\r' ? line.substring(0, end - 1) : line.toString();
+            }
+            line.append((char) c);
+        }
+        return line.length() > 0 ? line.toString() : null;
+    }
+
+    private void send(JsonObject message) {
+        byte[] body = gson.toJson(message).getBytes(StandardCharsets.UTF_8);
+        writer.execute(() -> {
+            try {
+                if (framed) {
+                    out.write((CONTENT_LENGTH + " " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                    out.write(body);
+                } else {
+                    out.write(body);
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                System.err.println("[bsp] Failed to write message: " + e.getMessage());
             }
+        });
+    }
+
+    // ==================== 分发 ====================
+
+    private void dispatch(String json) {
+        JsonObject req;
+        try {
+            req = gson.fromJson(json, JsonObject.class);
+        } catch (RuntimeException e) {
+            send(buildError(null, PARSE_ERROR, "Parse error: " + e.getMessage()));
+            return;
+        }
+        if (req == null || !req.has("method")) {
+            return; // 服务器不发请求，客户端的响应直接忽略
+        }
+        String method = req.get("method").getAsString();
+        JsonElement id = req.has("id") ? req.get("id") : null;
+        JsonObject params = req.has("params") && req.get("params").isJsonObject()
+                ? req.getAsJsonObject("params")
+                : new JsonObject();
+
+        switch (method) {
+            case "$/cancelRequest" -> {
+                cancel(params.get("id"));
+                return;
+            }
+            case "build/shutdown" -> shutdownRequested = true;
+            case "build/exit" -> exit();
+            default -> {
+            }
+        }
+
+        if (id == null) {
+            // 通知：不需要响应，错误只记录
+            dispatcher.execute(() -> {
+                try {
+                    handler.handle(method, params);
+                } catch (UnsupportedOperationException e) {
+                    // 未知通知（例如其它 $/ 扩展）直接忽略
+                } catch (Exception e) {
+                    System.err.println("[bsp] " + method + " failed: " + e.getMessage());
+                }
+            });
+            return;
+        }
+
+        synchronized (inFlight) {
+            inFlight.put(id, dispatcher.submit(() -> process(id, method, params)));
+        }
+    }
+
+    /**
+     * build/exit：中断仍在处理的请求（运行中的程序随之终止），稍等它们清理后退出
+     */
+    private void exit() {
+        dispatcher.shutdownNow();
+        try {
+            dispatcher.awaitTermination(EXIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        writer.close();
+        System.exit(shutdownRequested ? 0 : 1);
     }
 
-    private String processRequest(String json) {
+    private void process(JsonElement id, String method, JsonObject params) {
+        JsonObject response;
         try {
-            JsonObject req = gson.fromJson(json, JsonObject.class);
-            String method = req.get("method").getAsString();
-            Object id = req.has("id") ? req.get("id") : null;
-            JsonObject params = req.has("params")
-                    ? req.getAsJsonObject("params")
-                    : null;
-
-            Object result = handler.handle(method, params);
-            return buildResponse(id, result);
+            response = buildResponse(id, handler.handle(method, params));
+        } catch (UnsupportedOperationException e) {
+            response = buildError(id, METHOD_NOT_FOUND, e.getMessage());
         } catch (Exception e) {
-            return buildError(null, -32603, e.getMessage());
+            response = buildError(id, INTERNAL_ERROR, String.valueOf(e.getMessage()));
+        }
+        if (complete(id)) {
+            send(response);
+        }
+    }
+
+    /**
+     * 取消请求：中断处理线程并立即响应，之后处理线程的结果被丢弃
+     */
+    private void cancel(JsonElement id) {
+        if (id == null) {
+            return;
+        }
+        Future<?> task;
+        synchronized (inFlight) {
+            task = inFlight.remove(id);
         }
+        if (task != null) {
+            task.cancel(true);
+            send(buildError(id, REQUEST_CANCELLED, "Request cancelled"));
+        }
+    }
+
+    /**
+     * 从处理中移除，已被取消时返回 false
+     */
+    private boolean complete(JsonElement id) {
+        synchronized (inFlight) {
+            return inFlight.remove(id) != null;
+        }
+    }
+
+    private void notify(String method, Object params) {
+        JsonObject notification = new JsonObject();
+        notification.addProperty("jsonrpc", "2.0");
+        notification.addProperty("method", method);
+        notification.add("params", gson.toJsonTree(params));
+        send(notification);
     }
 
-    private String buildResponse(Object id, Object result) {
+    private JsonObject buildResponse(JsonElement id, Object result) {
         JsonObject res = new JsonObject();
         res.addProperty("jsonrpc", "2.0");
-        res.add("id", gson.toJsonTree(id));
+        res.add("id", id);
         res.add("result", gson.toJsonTree(result));
-        return gson.toJson(res);
+        return res;
     }
 
-    private String buildError(Object id, int code, String msg) {
+    private JsonObject buildError(JsonElement id, int code, String msg) {
         JsonObject res = new JsonObject();
         res.addProperty("jsonrpc", "2.0");
-        res.add("id", gson.toJsonTree(id));
+        res.add("id", id);
         JsonObject err = new JsonObject();
         err.addProperty("code", code);
         err.addProperty("message", msg);
         res.add("error", err);
-        return gson.toJson(res);
+        return res;
     }
 
     public static void main(String[] args) throws IOException {
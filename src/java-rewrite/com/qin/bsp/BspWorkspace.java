@@ -0,0 +1,325 @@
+package com.qin.bsp;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.qin.bsp.model.QinProjectInfo;
+import com.qin.constants.QinConstants;
+import com.qin.core.LocalProjectResolver;
+import com.qin.core.ProjectModelRegistry;
+import com.qin.core.WorkspaceIndex;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * BSP 工作区模型：工作区中的每个 Qin 项目是一个构建目标
+ *
+ * - 项目通过工作区索引发现（与 LocalProjectResolver 相同的工作区根目录），
+ *   配置和 classpath 来自 ProjectModelRegistry 的缓存模型
+ * - 依赖边：dependencies 中与工作区项目同名的条目（同名项目取路径最接近的，与依赖解析的就近优先一致）
+ * - 每个目标的 classpath / 依赖源码 URI 在加载时计算一次，sources / javacOptions 请求直接返回
+ * - 单个项目的 qin.config.json 或 classpath.json 变化时只重新加载该目标，依赖边在内存中重算
+ */
+final class BspWorkspace {
+    // BSP BuildTargetEventKind
+    static final int TARGET_CREATED = 1;
+    static final int TARGET_CHANGED = 2;
+    static final int TARGET_DELETED = 3;
+
+    /**
+     * 构建目标
+     *
+     * @param uri                  目标 URI（项目目录）
+     * @param dir                  项目目录（绝对路径）
+     * @param info                 项目信息
+     * @param model                项目模型，配置缺失或无效时为 null
+     * @param dependencies         依赖的目标 URI
+     * @param classpathUris        classpath 中存在的条目（URI）
+     * @param dependencySourceUris 依赖源码（jar 使用 jar:...!/ 形式）
+     */
+    record Target(
+            String uri,
+            Path dir,
+            QinProjectInfo info,
+            ProjectModelRegistry.ProjectModel model,
+            List<String> dependencies,
+            List<String> classpathUris,
+            List<String> dependencySourceUris) {
+
+        String name() {
+            return info.name != null ? info.name : dir.getFileName().toString();
+        }
+
+        List<String> classpath() {
+            return model != null ? model.classpath() : List.of();
+        }
+
+        private Target withDependencies(List<String> dependencies) {
+            return new Target(uri, dir, info, model, dependencies, classpathUris, dependencySourceUris);
+        }
+    }
+
+    private final Path workDir;
+    private Path root;
+    /**
+     * URI -> 目标（按工作区索引的顺序），每次变化整体替换，读取时无需加锁
+     */
+    private volatile Map<String, Target> targets;
+
+    BspWorkspace(Path workDir) {
+        this.workDir = workDir.toAbsolutePath().normalize();
+    }
+
+    /**
+     * 工作区根目录（load 之后有效）
+     */
+    synchronized Path root() {
+        return root;
+    }
+
+    /**
+     * 重新发现工作区中的所有项目
+     */
+    synchronized void load() {
+        root = new LocalProjectResolver(workDir.toString()).findWorkspaceRoot(workDir).toAbsolutePath().normalize();
+        Map<String, Target> loaded = new LinkedHashMap<>();
+        List<Path> dirs = new ArrayList<>(WorkspaceIndex.forRoot(root).projectDirs());
+        if (!dirs.contains(workDir)) {
+            dirs.add(0, workDir); // 当前目录没有配置时也作为目标（使用默认值）
+        }
+        for (Path dir : dirs) {
+            Target target = loadTarget(dir);
+            if (target != null) {
+                loaded.put(target.uri(), target);
+            }
+        }
+        targets = link(loaded);
+    }
+
+    /**
+     * 所有目标（未加载时先加载）
+     */
+    Collection<Target> targets() {
+        return loaded().values();
+    }
+
+    Target target(String uri) {
+        return loaded().get(uri);
+    }
+
+    /**
+     * 文件所属的目标（目录最深的那个，嵌套项目优先），不在任何项目中时为 null
+     */
+    Target owner(Path file) {
+        Path path = file.toAbsolutePath().normalize();
+        Target owner = null;
+        for (Target target : targets()) {
+            if (path.startsWith(target.dir())
+                    && (owner == null || target.dir().getNameCount() > owner.dir().getNameCount())) {
+                owner = target;
+            }
+        }
+        return owner;
+    }
+
+    /**
+     * 当前目录对应的目标（IDEA 插件的公共方法使用，未加载工作区时只加载这一个项目）
+     */
+    Target primary() {
+        Map<String, Target> current = targets;
+        Target target = current != null ? current.get(uriOf(workDir)) : null;
+        return target != null ? target : loadTarget(workDir);
+    }
+
+    /**
+     * 请求中的目标（params.targets 或 params.target），未指定时为当前目录的目标，未知的 URI 忽略
+     */
+    List<Target> resolve(JsonObject params) {
+        List<JsonElement> ids = new ArrayList<>();
+        if (params != null && params.has("targets") && params.get("targets").isJsonArray()) {
+            params.getAsJsonArray("targets").forEach(ids::add);
+        } else if (params != null && params.has("target")) {
+            ids.add(params.get("target"));
+        }
+        if (ids.isEmpty()) {
+            return List.of(primary());
+        }
+        List<Target> resolved = new ArrayList<>();
+        for (JsonElement id : ids) {
+            if (id.isJsonObject() && id.getAsJsonObject().has("uri")) {
+                Target target = target(id.getAsJsonObject().get("uri").getAsString());
+                if (target != null && !resolved.contains(target)) {
+                    resolved.add(target);
+                }
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * 目标及其传递依赖，按构建顺序排列（被依赖的在前）
+     */
+    List<Target> withDependencies(List<Target> requested) {
+        Map<String, Target> all = loaded();
+        List<Target> order = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        for (Target target : requested) {
+            visit(target, all, visited, order);
+        }
+        return order;
+    }
+
+    private static void visit(Target target, Map<String, Target> all, Set<String> visited, List<Target> order) {
+        if (!visited.add(target.uri())) {
+            return; // 已处理或循环依赖
+        }
+        for (String dependency : target.dependencies()) {
+            Target dep = all.get(dependency);
+            if (dep != null) {
+                visit(dep, all, visited, order);
+            }
+        }
+        order.add(target);
+    }
+
+    /**
+     * 重新加载指定项目目录对应的目标（配置或 classpath.json 变化），其余目标沿用缓存
+     *
+     * @return 发生变化的目标 URI -> 事件类型（TARGET_CREATED / CHANGED / DELETED）
+     */
+    synchronized Map<String, Integer> reload(Collection<Path> projectDirs) {
+        Map<String, Target> next = new LinkedHashMap<>(loaded());
+        Map<String, Integer> events = new LinkedHashMap<>();
+        for (Path dir : projectDirs) {
+            Path normalized = dir.toAbsolutePath().normalize();
+            String uri = uriOf(normalized);
+            ProjectModelRegistry.invalidate(normalized);
+            Target target = Files.exists(normalized.resolve(QinConstants.CONFIG_FILE))
+                    || normalized.equals(workDir) ? loadTarget(normalized) : null;
+            if (target == null) {
+                if (next.remove(uri) != null) {
+                    events.put(uri, TARGET_DELETED);
+                }
+            } else {
+                Target previous = next.put(uri, target);
+                if (previous == null) {
+                    events.put(uri, TARGET_CREATED);
+                } else if (!sameModel(previous, target)) {
+                    events.put(uri, TARGET_CHANGED);
+                }
+            }
+        }
+
+        // 名称或依赖变化可能改变其它目标的依赖边
+        Map<String, Target> linked = link(next);
+        for (Target target : linked.values()) {
+            Target previous = targets.get(target.uri());
+            if (previous != null && !previous.dependencies().equals(target.dependencies())) {
+                events.putIfAbsent(target.uri(), TARGET_CHANGED);
+            }
+        }
+        targets = linked;
+        return events;
+    }
+
+    /**
+     * 配置内容、源码目录和 classpath 都未变（例如只是 touch 了配置文件）
+     */
+    private static boolean sameModel(Target a, Target b) {
+        if (a.model() == null || b.model() == null) {
+            return a.model() == b.model();
+        }
+        return a.model().configHash().equals(b.model().configHash())
+                && a.model().sourceDir().equals(b.model().sourceDir())
+                && a.classpath().equals(b.classpath());
+    }
+
+    private Map<String, Target> loaded() {
+        Map<String, Target> current = targets;
+        if (current == null) {
+            load();
+            current = targets;
+        }
+        return current;
+    }
+
+    // ==================== 目标构建 ====================
+
+    /**
+     * 从缓存模型构建目标（依赖边由 link 计算），配置无效的项目返回 null（当前目录除外）
+     */
+    private Target loadTarget(Path dir) {
+        ProjectModelRegistry.ProjectModel model;
+        QinProjectInfo info;
+        try {
+            model = ProjectModelRegistry.get(dir);
+            info = QinProjectInfo.from(model);
+        } catch (IOException | RuntimeException e) {
+            if (!dir.equals(workDir)) {
+                return null;
+            }
+            // 没有配置或配置无效（QinConfig 要求 name / version）时使用默认值
+            model = null;
+            info = new QinProjectInfo();
+        }
+
+        List<String> classpathUris = new ArrayList<>();
+        List<String> sourceUris = new ArrayList<>();
+        if (model != null) {
+            for (String path : model.classpath()) {
+                Path p = Paths.get(path);
+                if (Files.exists(p)) {
+                    classpathUris.add(p.toUri().toString());
+                    sourceUris.add(path.endsWith(".jar") ? "jar:" + p.toUri() + "!/" : p.toUri().toString());
+                }
+            }
+        }
+        return new Target(uriOf(dir), dir, info, model, List.of(), List.copyOf(classpathUris),
+                List.copyOf(sourceUris));
+    }
+
+    /**
+     * 计算依赖边：dependencies 中的名称匹配工作区项目，同名时取与依赖方路径最接近的
+     */
+    private static Map<String, Target> link(Map<String, Target> targets) {
+        Map<String, List<Target>> byName = new HashMap<>();
+        for (Target target : targets.values()) {
+            if (target.info().name != null) {
+                byName.computeIfAbsent(target.info().name, k -> new ArrayList<>()).add(target);
+            }
+        }
+        Map<String, Target> linked = new LinkedHashMap<>();
+        for (Target target : targets.values()) {
+            List<String> dependencies = new ArrayList<>();
+            Map<String, String> declared = target.info().dependencies;
+            if (declared != null) {
+                for (String name : declared.keySet()) {
+                    List<Target> candidates = byName.getOrDefault(name, List.of());
+                    candidates.stream()
+                            .filter(candidate -> candidate != target)
+                            .max(Comparator.comparingInt(candidate -> commonPrefix(candidate.dir(), target.dir())))
+                            .ifPresent(dep -> dependencies.add(dep.uri()));
+                }
+            }
+            linked.put(target.uri(), target.withDependencies(List.copyOf(dependencies)));
+        }
+        return Collections.unmodifiableMap(linked);
+    }
+
+    private static int commonPrefix(Path a, Path b) {
+        int n = Math.min(a.getNameCount(), b.getNameCount());
+        int i = 0;
+        while (i < n && a.getName(i).equals(b.getName(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 目录 URI（总是以 / 结尾，与目录是否存在无关，删除的项目也能对应到原来的目标）
+     */
+    static String uriOf(Path dir) {
+        String uri = dir.toUri().toString();
+        return uri.endsWith("/") ? uri : uri + "/";
+    }
+}
@@ -0,0 +1,164 @@
+package com.qin.bsp;
+
+import com.qin.types.CompileDiagnostic;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * 一次 buildTarget/compile 的进度和诊断通知
+ *
+ * - build/taskStart / build/taskProgress / build/taskFinish：进度按源文件数报告，
+ *   百分比变化时才发送，大项目不会刷屏
+ * - build/publishDiagnostics：javac 报告一条就发送一条，每个文件的第一条 reset = true
+ *   （替换该文件上次的诊断），之后的追加；结束时清空本次编译过、但不再有诊断的文件
+ *
+ * 跨编译的状态（哪些文件上次有诊断）由调用方持有，传入 publishedFiles
+ */
+final class CompileTaskReporter {
+    // BSP StatusCode
+    private static final int STATUS_OK = 1;
+    private static final int STATUS_ERROR = 2;
+
+    // BSP DiagnosticSeverity
+    private static final int SEVERITY_ERROR = 1;
+    private static final int SEVERITY_WARNING = 2;
+    private static final int SEVERITY_INFORMATION = 3;
+    private static final int SEVERITY_HINT = 4;
+
+    // BSP MessageType
+    private static final int MESSAGE_ERROR = 1;
+    private static final int MESSAGE_WARNING = 2;
+
+    private static final AtomicLong TASK_IDS = new AtomicLong();
+
+    private final BiConsumer<String, Object> notifier;
+    private final Map<String, String> target;
+    private final String originId;
+    private final Map<String, String> taskId = Map.of("id", "compile-" + TASK_IDS.incrementAndGet());
+    private final Set<String> publishedFiles;
+    private final Set<String> reportedFiles = new HashSet<>();
+    private final long startedAt = System.currentTimeMillis();
+    private int lastPercent = -1;
+
+    /**
+     * @param notifier       通知回调（方法名、参数）
+     * @param targetUri      构建目标 URI
+     * @param originId       客户端请求的 originId
+     * @param publishedFiles 当前在客户端有诊断的文件（跨编译共享，会被更新）
+     */
+    CompileTaskReporter(BiConsumer<String, Object> notifier, String targetUri, String originId,
+            Set<String> publishedFiles) {
+        this.notifier = notifier;
+        this.target = Map.of("uri", targetUri);
+        this.originId = originId;
+        this.publishedFiles = publishedFiles;
+    }
+
+    void start(String message) {
+        Map<String, Object> params = event(message);
+        params.put("dataKind", "compile-task");
+        params.put("data", Map.of("target", target));
+        notifier.accept("build/taskStart", params);
+    }
+
+    /**
+     * javac 进度（JavaRunner.ProgressListener）
+     */
+    synchronized void progress(int done, int total) {
+        int percent = total > 0 ? done * 100 / total : 100;
+        if (percent == lastPercent) {
+            return;
+        }
+        lastPercent = percent;
+        Map<String, Object> params = event("Compiled " + done + "/" + total + " files");
+        params.put("total", total);
+        params.put("progress", done);
+        params.put("unit", "files");
+        notifier.accept("build/taskProgress", params);
+    }
+
+    /**
+     * javac 诊断（JavaRunner 的诊断回调）
+     */
+    synchronized void diagnostic(CompileDiagnostic diagnostic) {
+        if (diagnostic.file() == null) {
+            notifier.accept("build/logMessage", Map.of(
+                    "type", diagnostic.isError() ? MESSAGE_ERROR : MESSAGE_WARNING,
+                    "message", diagnostic.format(),
+                    "originId", originId));
+            return;
+        }
+        boolean reset = reportedFiles.add(diagnostic.file());
+        publish(diagnostic.file(), List.of(toBsp(diagnostic)), reset);
+    }
+
+    /**
+     * 发送 build/taskFinish，并清空已修复文件的诊断
+     *
+     * @param compiledFiles 本次编译的源文件（绝对路径），null 表示全量编译
+     */
+    synchronized void finish(boolean success, List<CompileDiagnostic> diagnostics, Set<String> compiledFiles) {
+        for (String file : new ArrayList<>(publishedFiles)) {
+            if (!reportedFiles.contains(file) && (compiledFiles == null || compiledFiles.contains(file))) {
+                publish(file, List.of(), true);
+                publishedFiles.remove(file);
+            }
+        }
+        publishedFiles.addAll(reportedFiles);
+
+        long errors = diagnostics.stream().filter(CompileDiagnostic::isError).count();
+        long warnings = diagnostics.stream().filter(d -> d.kind().contains("WARNING")).count();
+        long elapsed = System.currentTimeMillis() - startedAt;
+        Map<String, Object> params = event(success
+                ? "Compiled successfully (" + elapsed + " ms)"
+                : "Compilation failed with " + errors + " error(s)");
+        params.put("status", success ? STATUS_OK : STATUS_ERROR);
+        params.put("dataKind", "compile-report");
+        params.put("data", Map.of(
+                "target", target,
+                "originId", originId,
+                "errors", errors,
+                "warnings", warnings,
+                "time", elapsed));
+        notifier.accept("build/taskFinish", params);
+    }
+
+    private void publish(String file, List<Map<String, Object>> diagnostics, boolean reset) {
+        notifier.accept("build/publishDiagnostics", Map.of(
+                "textDocument", Map.of("uri", Paths.get(file).toUri().toString()),
+                "buildTarget", target,
+                "originId", originId,
+                "diagnostics", diagnostics,
+                "reset", reset));
+    }
+
+    private Map<String, Object> event(String message) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("taskId", taskId);
+        params.put("originId", originId);
+        params.put("eventTime", System.currentTimeMillis());
+        params.put("message", message);
+        return params;
+    }
+
+    /**
+     * 转换为 BSP Diagnostic（行列从 0 开始）
+     */
+    private static Map<String, Object> toBsp(CompileDiagnostic diagnostic) {
+        Map<String, Long> position = Map.of(
+                "line", Math.max(0, diagnostic.line() - 1),
+                "character", Math.max(0, diagnostic.column() - 1));
+        return Map.of(
+                "range", Map.of("start", position, "end", position),
+                "severity", switch (diagnostic.kind()) {
+                    case "ERROR" -> SEVERITY_ERROR;
+                    case "WARNING", "MANDATORY_WARNING" -> SEVERITY_WARNING;
+                    case "NOTE" -> SEVERITY_INFORMATION;
+                    default -> SEVERITY_HINT;
+                },
+                "source", "javac",
+                "message", diagnostic.message());
+    }
+}
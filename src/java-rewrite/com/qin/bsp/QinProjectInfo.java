@@ -1,6 +1,7 @@
 package com.qin.bsp.model;
 
 import com.qin.constants.QinConstants;
+import com.qin.core.ProjectModelRegistry;
 
 import java.util.Map;
 
@@ -21,6 +22,24 @@ public class QinProjectInfo {
         public String outputDir = QinConstants.BUILD_CLASSES_DIR;
     }
 
+    /**
+     * 从共享的项目模型构建（源码 / 输出目录与编译器实际使用的一致）
+     */
+    public static QinProjectInfo from(ProjectModelRegistry.ProjectModel model) {
+        QinProjectInfo info = new QinProjectInfo();
+        info.name = model.config().name();
+        info.version = model.config().version();
+        info.entry = model.entry();
+        info.dependencies = model.config().dependencies();
+        info.java = new JavaConfig();
+        if (model.config().java() != null) {
+            info.java.version = model.config().java().version();
+        }
+        info.java.sourceDir = model.sourceDir();
+        info.java.outputDir = model.outputDir();
+        return info;
+    }
+
     public String getSourceDir() {
         if (java != null && java.sourceDir != null) {
             return java.sourceDir;
@@ -0,0 +1,145 @@
+package com.qin.bsp;
+
+import com.qin.test.JUnitXmlReport;
+import com.qin.test.TestRunner;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * 一次 buildTarget/test 在一个目标上的通知
+ *
+ * - build/taskStart（test-task）/ build/taskFinish（test-report）包住整个目标的测试运行
+ * - 每个测试一对 build/taskStart（test-start）/ build/taskFinish（test-finish），
+ *   父任务是目标的测试任务；缓存回放的测试没有开始事件，结束时补发
+ *
+ * 事件来自多个分片线程，方法都加锁
+ */
+final class TestTaskReporter implements TestRunner.Listener {
+    // BSP StatusCode
+    private static final int STATUS_OK = 1;
+    private static final int STATUS_ERROR = 2;
+    private static final int STATUS_CANCELLED = 3;
+
+    // BSP TestStatus
+    private static final int TEST_PASSED = 1;
+    private static final int TEST_FAILED = 2;
+    private static final int TEST_SKIPPED = 5;
+
+    private static final AtomicLong TASK_IDS = new AtomicLong();
+
+    private final BiConsumer<String, Object> notifier;
+    private final Map<String, String> target;
+    private final String originId;
+    private final String taskId = "test-" + TASK_IDS.incrementAndGet();
+    private final long startedAt = System.currentTimeMillis();
+
+    /**
+     * 测试（类 > 名称）-> 已开始的测试任务 ID
+     */
+    private final Map<String, String> started = new HashMap<>();
+    private int nextTest;
+    private int passed;
+    private int failed;
+    private int skipped;
+
+    TestTaskReporter(BiConsumer<String, Object> notifier, String targetUri, String originId) {
+        this.notifier = notifier;
+        this.target = Map.of("uri", targetUri);
+        this.originId = originId;
+    }
+
+    synchronized void start() {
+        Map<String, Object> params = event(Map.of("id", taskId), "Running tests");
+        params.put("dataKind", "test-task");
+        params.put("data", Map.of("target", target));
+        notifier.accept("build/taskStart", params);
+    }
+
+    @Override
+    public synchronized void testStarted(String className, String name) {
+        String id = taskId + "-" + (++nextTest);
+        started.put(key(className, name), id);
+        Map<String, Object> params = event(childId(id), displayName(className, name) + " started");
+        params.put("dataKind", "test-start");
+        params.put("data", Map.of("displayName", displayName(className, name)));
+        notifier.accept("build/taskStart", params);
+    }
+
+    @Override
+    public synchronized void testFinished(JUnitXmlReport.TestCase testCase) {
+        String key = key(testCase.className(), testCase.name());
+        if (!started.containsKey(key)) {
+            testStarted(testCase.className(), testCase.name());
+        }
+        String id = started.remove(key);
+        int status = switch (testCase.status()) {
+            case PASSED -> TEST_PASSED;
+            case FAILED, ERROR -> TEST_FAILED;
+            case SKIPPED -> TEST_SKIPPED;
+        };
+        switch (status) {
+            case TEST_PASSED -> passed++;
+            case TEST_FAILED -> failed++;
+            default -> skipped++;
+        }
+
+        String displayName = displayName(testCase.className(), testCase.name());
+        Map<String, Object> data = new HashMap<>();
+        data.put("displayName", displayName);
+        data.put("status", status);
+        if (testCase.message() != null) {
+            data.put("message", testCase.message());
+        }
+        Map<String, Object> params = event(childId(id), displayName + " " + testCase.status().name().toLowerCase());
+        params.put("status", status == TEST_FAILED ? STATUS_ERROR : STATUS_OK);
+        params.put("dataKind", "test-finish");
+        params.put("data", data);
+        notifier.accept("build/taskFinish", params);
+    }
+
+    /**
+     * 发送目标的 test-report
+     *
+     * @param success   测试全部通过
+     * @param cancelled 请求被取消
+     * @param message   结果摘要
+     */
+    synchronized void finish(boolean success, boolean cancelled, String message) {
+        long elapsed = System.currentTimeMillis() - startedAt;
+        Map<String, Object> params = event(Map.of("id", taskId), message);
+        params.put("status", cancelled ? STATUS_CANCELLED : success ? STATUS_OK : STATUS_ERROR);
+        params.put("dataKind", "test-report");
+        params.put("data", Map.of(
+                "target", target,
+                "originId", originId,
+                "passed", passed,
+                "failed", failed,
+                "ignored", 0,
+                "cancelled", cancelled ? started.size() : 0,
+                "skipped", skipped,
+                "time", elapsed));
+        notifier.accept("build/taskFinish", params);
+    }
+
+    private Map<String, Object> childId(String id) {
+        return Map.of("id", id, "parents", List.of(taskId));
+    }
+
+    private Map<String, Object> event(Map<String, Object> id, String message) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("taskId", id);
+        params.put("originId", originId);
+        params.put("eventTime", System.currentTimeMillis());
+        params.put("message", message);
+        return params;
+    }
+
+    private static String key(String className, String name) {
+        return className + " > " + name;
+    }
+
+    private static String displayName(String className, String name) {
+        return className.equals(name) ? className : className + " > " + name;
+    }
+}
@@ -1,6 +1,18 @@
 package com.qin.cli;
 
 import com.qin.core.*;
+import com.qin.bsp.BspServer;
+import com.qin.bench.BenchReport;
+import com.qin.bench.BenchRunner;
+import com.qin.bench.SelfBenchmark;
+import com.qin.bench.SyntheticWorkspace;
+import com.qin.dev.ContinuousCompiler;
+import com.qin.dev.DevSupervisor;
+import com.qin.dev.FileWatchService;
+import com.qin.dev.SourceWatcher;
+import com.qin.test.TestImpactAnalyzer;
+import com.qin.test.TestRunner;
+import com.qin.test.TestWorkerPool;
 import com.qin.types.*;
 import com.qin.plugins.*;
 import com.qin.constants.QinConstants;
@@ -17,6 +29,7 @@ import java.util.*;
 public class QinCli {
     private static final String VERSION = "0.1.0";
     private static final EnvironmentChecker envChecker = new EnvironmentChecker();
+    private static final int DEV_DEBOUNCE_MS = 300;
 
     public static void main(String[] args) {
         if (args.length == 0) {
@@ -37,6 +50,9 @@ public class QinCli {
                 case "clean" -> cleanProject();
                 case "sync" -> syncDependencies();
                 case "test" -> runTests(cmdArgs);
+                case "bench" -> runBenchmarks(cmdArgs);
+                case "bench-self" -> runSelfBenchmark(cmdArgs);
+                case "bsp-server" -> new BspServer(QinConstants.getCwd()).run();
                 case "help", "-h", "--help" -> printHelp();
                 case "version", "-v", "--version" -> System.out.println("qin " + VERSION);
                 default -> {
@@ -128,12 +144,19 @@ public class QinCli {
         ConfigLoader configLoader = new ConfigLoader();
         QinConfig config = configLoader.load();
 
-        // Check environment
-        EnvironmentStatus envStatus = envChecker.checkAll();
-        if (!envStatus.hasJavac()) {
-            System.err.println(red("Error: javac is not installed."));
-            System.out.println(envChecker.getInstallGuide("javac"));
-            System.exit(1);
+        // Check environment（同一 java.home / PATH 下已检查过时跳过，见 .qin/model.bin）
+        Path cwdPath = QinConstants.getCwdPath();
+        ModelSnapshot snapshot = ModelSnapshot.load(cwdPath);
+        if (snapshot == null || !snapshot.isEnvironmentVerified()) {
+            EnvironmentStatus envStatus = envChecker.checkAll();
+            if (!envStatus.hasJavac()) {
+                System.err.println(red("Error: javac is not installed."));
+                System.out.println(envChecker.getInstallGuide("javac"));
+                System.exit(1);
+            }
+            if (snapshot != null) {
+                saveSnapshot(snapshot.withVerifiedEnvironment(ModelSnapshot.environmentKey()));
+            }
         }
 
         // 检查是否指定了 .java 文件
@@ -175,6 +198,12 @@ public class QinCli {
     }
 
     private static void buildProject(String[] args) throws Exception {
+        String since = optionValue(args, "--since");
+        if (since != null) {
+            runAffected("build", since, args);
+            return;
+        }
+
         boolean debug = Arrays.asList(args).contains("--debug");
         boolean clean = Arrays.asList(args).contains("--clean");
 
@@ -233,12 +262,65 @@ public class QinCli {
         System.out.println(blue("→ Starting development mode..."));
         JavaRunner runner = new JavaRunner(config, classpath);
 
-        // Simple dev mode - just compile and run
-        // TODO: Add hot reload support
-        runner.compileAndRun(new ArrayList<>());
+        // 通过 Java Agent 启动：方法体修改直接热替换，结构性修改自动重启
+        // --standby: 不能在 JVM 内重启的应用，用预热的备用 JVM 隐藏重启延迟
+        List<String> appArgs = new ArrayList<>(Arrays.asList(args));
+        DevSupervisor.RestartMode restartMode = appArgs.remove("--standby")
+                ? DevSupervisor.RestartMode.STANDBY
+                : DevSupervisor.detectRestartMode(config);
+        if (restartMode == DevSupervisor.RestartMode.PROCESS) {
+            System.out.println(gray("  Spring DevTools detected, structural changes restart the process"));
+        } else if (restartMode == DevSupervisor.RestartMode.STANDBY) {
+            System.out.println(gray("  Standby JVM enabled, structural changes switch to a pre-warmed JVM"));
+        }
+        DevSupervisor supervisor = new DevSupervisor(runner, QinConstants.getCwd(), appArgs, restartMode);
+        supervisor.start();
+
+        SourceWatcher watcher = new SourceWatcher(runner.getSourceDirPath(), DEV_DEBOUNCE_MS,
+                supervisor::onSourcesChanged);
+        watcher.start();
+
+        // qin.config.json 变化时重新同步依赖（classpath.json / model.bin），新依赖在重启 qin dev 后生效
+        FileWatchService.Subscription configWatch = FileWatchService.shared().subscribe(
+                Paths.get(QinConstants.getCwd()), List.of(QinConstants.CONFIG_FILE), DEV_DEBOUNCE_MS,
+                changes -> onDevConfigChanged());
 
-        System.out.println(green("✓ Development server started"));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            configWatch.close();
+            watcher.stop();
+            supervisor.stop();
+        }));
+
+        System.out.println(green("✓ Development server started (hot swap enabled)"));
         System.out.println(gray("  Press Ctrl+C to stop"));
+
+        // 保持前台运行，直到 Ctrl+C
+        Thread.currentThread().join();
+    }
+
+    private static void printDiagnostic(Path cwd, CompileDiagnostic diagnostic) {
+        String text = diagnostic.file() != null && Paths.get(diagnostic.file()).startsWith(cwd)
+                ? new CompileDiagnostic(diagnostic.kind(), cwd.relativize(Paths.get(diagnostic.file())).toString(),
+                        diagnostic.line(), diagnostic.column(), diagnostic.message()).format()
+                : diagnostic.format();
+        if (diagnostic.isError()) {
+            System.err.println(red(text));
+        } else {
+            System.out.println(yellow(text));
+        }
+    }
+
+    private static void onDevConfigChanged() {
+        try {
+            QinConfig config = new ConfigLoader().load();
+            Map<String, String> deps = config.dependencies();
+            if (deps != null && !deps.isEmpty()) {
+                syncDependenciesCore(config);
+            }
+            System.out.println(yellow("  qin.config.json changed, restart qin dev to apply dependency changes"));
+        } catch (Exception e) {
+            System.err.println(red("  Failed to reload qin.config.json: " + e.getMessage()));
+        }
     }
 
     private static void compileProject(String[] args) throws Exception {
@@ -279,8 +361,22 @@ public class QinCli {
             }
         }
 
-        System.out.println(blue("→ Compiling..."));
         JavaRunner runner = new JavaRunner(config, classpath);
+
+        // --watch: 保持前台运行，保存后只编译变化的文件，build/classes 始终是最新的
+        if (Arrays.asList(args).contains("--watch")) {
+            Path cwdPath = QinConstants.getCwdPath();
+            ContinuousCompiler compiler = new ContinuousCompiler(runner, cwdPath,
+                    diagnostic -> printDiagnostic(cwdPath, diagnostic));
+            compiler.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(compiler::stop));
+            System.out.println(green("✓ Watching " + runner.getSourceDirPath() + " for changes"));
+            System.out.println(gray("  Press Ctrl+C to stop"));
+            Thread.currentThread().join();
+            return;
+        }
+
+        System.out.println(blue("→ Compiling..."));
         CompileResult result = runner.compile();
 
         if (result.isSuccess()) {
@@ -370,6 +466,17 @@ public class QinCli {
         String json = buildClasspathJson(classpath);
         Files.writeString(com.qin.core.QinPaths.getClasspathCache(QinConstants.getCwd()), json);
 
+        // 二进制快照：下次 qin run / build 直接读取，跳过依赖解析
+        Path cwdPath = QinConstants.getCwdPath();
+        ModelSnapshot previous = ModelSnapshot.load(cwdPath);
+        Map<String, String> localProjects = new LinkedHashMap<>();
+        localResult.localProjects.forEach((name, dir) -> localProjects.put(name, dir.toString()));
+        saveSnapshot(ModelSnapshot.capture(
+                ProjectModelRegistry.get(cwdPath).configHash(),
+                classpath.isEmpty() ? List.of() : Arrays.asList(classpath.split(sep)),
+                localProjects,
+                previous != null && previous.isEnvironmentVerified() ? previous.verifiedEnvironment() : ""));
+
         // 生成 IDEA 库配置文件（.idea/libraries/*.xml）
         if (!classpath.isEmpty()) {
             try {
@@ -395,61 +502,48 @@ public class QinCli {
      * @return classpath 字符串
      */
     private static String ensureDependenciesSynced(QinConfig config) throws Exception {
-        String cwd = QinConstants.getCwd();
-        Path cacheFile = com.qin.core.QinPaths.getClasspathCache(cwd);
-        Path configFile = Paths.get(cwd, QinConstants.CONFIG_FILE);
-
-        // 检查缓存是否有效
-        if (Files.exists(cacheFile) && Files.exists(configFile)) {
-            try {
-                if (Files.getLastModifiedTime(cacheFile).compareTo(
-                        Files.getLastModifiedTime(configFile)) > 0) {
-                    String json = Files.readString(cacheFile);
-                    String classpath = parseClasspathFromJson(json);
-                    if (!classpath.isEmpty()) {
-                        // 验证所有 jar 文件是否存在
-                        if (validateClasspathFiles(classpath)) {
-                            System.out.println(
-                                    blue("→ Using cached dependencies (" + com.qin.core.QinPaths.CLASSPATH_CACHE
-                                            + ")"));
-                            return classpath;
-                        } else {
-                            System.out.println(
-                                    yellow("→ Cache invalid (some jars missing), re-syncing..."));
-                        }
-                    }
-                }
-            } catch (IOException e) {
-                // 缓存读取失败，重新同步
+        Path cwd = QinConstants.getCwdPath();
+
+        // 检查快照是否有效：配置内容未变，classpath 中的文件都未变化
+        ModelSnapshot snapshot = ModelSnapshot.load(cwd);
+        if (snapshot != null && Files.exists(cwd.resolve(QinConstants.CONFIG_FILE))) {
+            if (snapshot.isUpToDate(ProjectModelRegistry.get(cwd).configHash())) {
+                System.out.println(blue("→ Using cached dependencies (" + com.qin.core.QinPaths.MODEL_SNAPSHOT + ")"));
+                return snapshot.classpathString();
             }
+            System.out.println(yellow("→ Cache invalid (config or jars changed), re-syncing..."));
         }
 
-        // 缓存无效，执行同步
+        // 快照无效，执行同步
         return syncDependenciesCore(config);
     }
 
     /**
-     * 验证 classpath 中的所有文件是否存在
+     * 写入 .qin/model.bin，失败只影响下次启动速度
      */
-    private static boolean validateClasspathFiles(String classpath) {
-        if (classpath == null || classpath.isEmpty()) {
-            return true;
-        }
-        String sep = QinConstants.getClasspathSeparator();
-        String[] paths = classpath.split(sep);
-        for (String path : paths) {
-            if (path.isEmpty())
-                continue;
-            if (!Files.exists(Paths.get(path))) {
-                return false;
-            }
+    private static void saveSnapshot(ModelSnapshot snapshot) {
+        try {
+            snapshot.save(QinConstants.getCwdPath());
+        } catch (IOException e) {
+            System.err.println(yellow("  Warning: Failed to write " + com.qin.core.QinPaths.MODEL_SNAPSHOT + ": "
+                    + e.getMessage()));
         }
-        return true;
     }
 
     private static void runTests(String[] args) throws Exception {
+        String since = optionValue(args, "--since");
+        if (since != null) {
+            runAffected("test", since, args);
+            return;
+        }
+
         String filter = null;
         boolean verbose = false;
+        int shards = 0;
+        boolean affected = false;
+        boolean useCache = true;
+        boolean watch = false;
+        List<String> jvmArgs = new ArrayList<>();
 
         for (int i = 0; i < args.length; i++) {
             if (("-f".equals(args[i]) || "--filter".equals(args[i])) && i + 1 < args.length) {
@@ -458,6 +552,21 @@ public class QinCli {
             if ("-v".equals(args[i]) || "--verbose".equals(args[i])) {
                 verbose = true;
             }
+            if ("--shards".equals(args[i]) && i + 1 < args.length) {
+                shards = Integer.parseInt(args[i + 1]);
+            }
+            if ("--affected".equals(args[i])) {
+                affected = true;
+            }
+            if ("--no-test-cache".equals(args[i])) {
+                useCache = false;
+            }
+            if ("--watch".equals(args[i])) {
+                watch = true;
+            }
+            if (args[i].startsWith("-J") && args[i].length() > 2) {
+                jvmArgs.add(args[i].substring(2));
+            }
         }
 
         System.out.println(blue("→ Loading configuration..."));
@@ -471,29 +580,362 @@ public class QinCli {
             System.exit(1);
         }
 
+        String csCommand = ensureCoursier();
+        DependencyResolver resolver = new DependencyResolver(
+                csCommand, config.repositories(), null,
+                QinConstants.getCwd(), config.localRep());
+        String classpath = resolver.resolveFromObject(config.dependencies());
+        String testClasspath = resolver.resolveFromObject(config.devDependencies());
+
+        JavaRunner runner = new JavaRunner(config, classpath);
+        Path junitJar = TestRunner.resolveConsoleLauncher(resolver);
+        TestRunner.Options options = new TestRunner.Options(
+                Paths.get(QinConstants.getCwd()),
+                runner.getTestOutputDir(),
+                TestRunner.buildTestClasspath(runner.getTestOutputDir(), runner.getRuntimeClasspath(), testClasspath),
+                junitJar,
+                filter,
+                shards,
+                verbose,
+                TestImpactAnalyzer.workspaceClassDirs(QinConstants.getCwd(), config),
+                affected,
+                useCache,
+                jvmArgs);
+
+        if (!watch) {
+            if (!compileAndRunTests(runner, testClasspath, options, null)) {
+                System.exit(1);
+            }
+            return;
+        }
+
+        // --watch: 保持前台运行，源码或测试变化后重新编译并在常驻 worker JVM 中重跑
+        TestWorkerPool workerPool = new TestWorkerPool(
+                QinConstants.getProjectQinDir(Paths.get(QinConstants.getCwd())).resolve(QinConstants.TEST_WORKERS_DIR));
+        Object lock = new Object();
+        Runnable rerun = () -> {
+            synchronized (lock) {
+                try {
+                    compileAndRunTests(runner, testClasspath, options, workerPool);
+                } catch (Exception e) {
+                    System.err.println(red("Error: ") + e.getMessage());
+                }
+                System.out.println(gray("  Watching for changes... (Ctrl+C to stop)"));
+            }
+        };
+        rerun.run();
+
+        List<SourceWatcher> watchers = new ArrayList<>();
+        for (Path dir : List.of(runner.getSourceDirPath(), runner.getTestSourceDirPath())) {
+            if (Files.isDirectory(dir)) {
+                SourceWatcher watcher = new SourceWatcher(dir, DEV_DEBOUNCE_MS, rerun);
+                watcher.start();
+                watchers.add(watcher);
+            }
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            watchers.forEach(SourceWatcher::stop);
+            workerPool.close();
+        }));
+        Thread.currentThread().join();
+    }
+
+    /**
+     * --since <rev>：只在自 rev 以来受影响的项目（变更所在项目及其反向依赖）中运行命令，
+     * 按依赖顺序在每个项目中启动一个 qin 子进程，其余参数原样传递
+     */
+    private static void runAffected(String command, String rev, String[] args) throws Exception {
+        System.out.println(blue("→ Finding projects affected since " + rev + "..."));
+        AffectedProjectFinder.Result result = new AffectedProjectFinder(QinConstants.getCwd()).find(rev);
+        System.out.println(gray("  " + result.changedFiles().size() + " changed files in "
+                + result.changedProjects().size() + " projects, " + result.affected().size()
+                + " affected with dependents"));
+
+        List<String> passArgs = new ArrayList<>(Arrays.asList(args));
+        int index = passArgs.indexOf("--since");
+        passArgs.subList(index, index + 2).clear();
+
+        List<Path> targets = new ArrayList<>();
+        for (LocalProjectResolver.ProjectInfo project : result.affected()) {
+            ProjectModelRegistry.ProjectModel model = ProjectModelRegistry.get(project.projectDir);
+            // 工作区根项目只聚合子项目；test 跳过没有测试目录的项目
+            if (!model.config().packages().isEmpty()) {
+                continue;
+            }
+            if ("test".equals(command) && !Files.isDirectory(project.projectDir.resolve(model.testDir()))) {
+                System.out.println(gray("  Skipping " + project.fullName + " (no tests)"));
+                continue;
+            }
+            targets.add(project.projectDir);
+        }
+        if (targets.isEmpty()) {
+            System.out.println(green("✓ No affected projects"));
+            return;
+        }
+
+        Path cwd = QinConstants.getCwdPath().toAbsolutePath();
+        List<String> failed = new ArrayList<>();
+        for (Path dir : targets) {
+            String label = cwd.equals(dir) ? QinConstants.CURRENT_DIR : cwd.relativize(dir).toString();
+            System.out.println(blue("→ qin " + command + " in " + label));
+            List<String> cmd = new ArrayList<>();
+            cmd.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            cmd.add("-cp");
+            cmd.add(System.getProperty("java.class.path"));
+            cmd.add(QinConstants.QIN_MAIN);
+            cmd.add(command);
+            cmd.addAll(passArgs);
+            int exitCode = new ProcessBuilder(cmd).directory(dir.toFile()).inheritIO().start().waitFor();
+            if (exitCode != 0) {
+                failed.add(label);
+            }
+        }
+
+        if (!failed.isEmpty()) {
+            System.err.println(red("✗ qin " + command + " failed in: " + String.join(", ", failed)));
+            System.exit(1);
+        }
+        System.out.println(green("✓ qin " + command + " passed in " + targets.size() + " affected projects"));
+    }
+
+    /**
+     * 读取 "--name value" 形式的参数，不存在时返回 null
+     */
+    private static String optionValue(String[] args, String name) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (name.equals(args[i])) {
+                return args[i + 1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 编译源码和测试并运行一次测试
+     *
+     * @param workerPool 复用的 worker 池（为 null 时使用临时池）
+     * @return 编译和测试是否都成功
+     */
+    private static boolean compileAndRunTests(JavaRunner runner, String testClasspath, TestRunner.Options options,
+            TestWorkerPool workerPool) throws Exception {
         // Compile main source first
         System.out.println(blue("→ Compiling source code..."));
-        String classpath = "";
-        Map<String, String> deps = config.dependencies();
-        if (deps != null && !deps.isEmpty()) {
-            String csCommand = ensureCoursier();
-            DependencyResolver resolver = new DependencyResolver(
-                    csCommand, config.repositories(), null,
-                    QinConstants.getCwd(), config.localRep());
-            classpath = resolver.resolveFromObject(deps);
+        CompileResult compileResult = runner.compile();
+        if (!compileResult.isSuccess()) {
+            System.err.println(red("Compilation failed: ") + compileResult.getError());
+            return false;
+        }
+
+        System.out.println(blue("→ Compiling tests..."));
+        CompileResult testCompileResult = runner.compileTests(testClasspath);
+        if (!testCompileResult.isSuccess()) {
+            System.err.println(red("Test compilation failed: ") + testCompileResult.getError());
+            return false;
+        }
+
+        System.out.println(blue("→ Running tests..."));
+        TestResult result = new TestRunner(options, workerPool).run();
+
+        if (result.isSuccess()) {
+            System.out.println(green("✓ " + result.getOutput()) + gray(String.format(" (%.2fs)", result.getTime())));
+            return true;
+        }
+        System.err.println(result.getError());
+        System.err.println(red("✗ " + result.getOutput()) + gray(String.format(" (%.2fs)", result.getTime())));
+        return false;
+    }
+
+    private static void runBenchmarks(String[] args) throws Exception {
+        List<String> includes = new ArrayList<>();
+        int forks = 1;
+        int warmupIterations = 3;
+        int iterations = 5;
+        String warmupTime = "1s";
+        String measurementTime = "1s";
+        double threshold = 10;
+        String baseline = null;
+        boolean saveBaseline = false;
+        List<String> jvmArgs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            boolean hasValue = i + 1 < args.length;
+            if ("--forks".equals(arg) && hasValue) {
+                forks = Integer.parseInt(args[++i]);
+            } else if ("--warmup".equals(arg) && hasValue) {
+                warmupIterations = Integer.parseInt(args[++i]);
+            } else if ("--iterations".equals(arg) && hasValue) {
+                iterations = Integer.parseInt(args[++i]);
+            } else if ("--warmup-time".equals(arg) && hasValue) {
+                warmupTime = args[++i];
+            } else if ("--time".equals(arg) && hasValue) {
+                measurementTime = args[++i];
+            } else if ("--threshold".equals(arg) && hasValue) {
+                threshold = Double.parseDouble(args[++i]);
+            } else if ("--baseline".equals(arg) && hasValue) {
+                baseline = args[++i];
+            } else if ("--save-baseline".equals(arg)) {
+                saveBaseline = true;
+            } else if (arg.startsWith("-J") && arg.length() > 2) {
+                jvmArgs.add(arg.substring(2));
+            } else if (!arg.startsWith("-")) {
+                includes.add(arg);
+            }
+        }
+
+        System.out.println(blue("→ Loading configuration..."));
+        ConfigLoader configLoader = new ConfigLoader();
+        QinConfig config = configLoader.load();
+
+        EnvironmentStatus envStatus = envChecker.checkAll();
+        if (!envStatus.hasJavac()) {
+            System.err.println(red("Error: javac is not installed."));
+            System.exit(1);
         }
 
+        // benchDependencies 未声明 jmh-core 时自动添加，注解处理器与 jmh-core 使用同一版本
+        Map<String, String> benchDeps = new LinkedHashMap<>(config.benchDependencies());
+        String jmhVersion = null;
+        for (Map.Entry<String, String> entry : benchDeps.entrySet()) {
+            if (QinConstants.toMavenCoordinate(entry.getKey()).equals(QinConstants.JMH_CORE_ARTIFACT)) {
+                jmhVersion = entry.getValue();
+            }
+        }
+        if (jmhVersion == null) {
+            jmhVersion = QinConstants.JMH_DEFAULT_VERSION;
+            benchDeps.put(QinConstants.JMH_CORE_ARTIFACT, jmhVersion);
+        }
+
+        System.out.println(blue("→ Resolving dependencies..."));
+        String csCommand = ensureCoursier();
+        DependencyResolver resolver = new DependencyResolver(
+                csCommand, config.repositories(), null,
+                QinConstants.getCwd(), config.localRep());
+        String classpath = resolver.resolveFromObject(config.dependencies());
+        String benchClasspath = resolver.resolveFromObject(benchDeps);
+        String processorPath = resolver.resolve(List.of(
+                QinConstants.JMH_ANNPROCESS_ARTIFACT + QinConstants.MAVEN_COORDINATE_SEPARATOR + jmhVersion));
+
+        System.out.println(blue("→ Compiling source code..."));
         JavaRunner runner = new JavaRunner(config, classpath);
         CompileResult compileResult = runner.compile();
-
         if (!compileResult.isSuccess()) {
             System.err.println(red("Compilation failed: ") + compileResult.getError());
             System.exit(1);
         }
 
-        System.out.println(blue("→ Running tests..."));
-        // TODO: Implement test runner with JUnit
-        System.out.println(yellow("Test runner not yet implemented in Java version"));
+        System.out.println(blue("→ Compiling benchmarks..."));
+        CompileResult benchCompileResult = runner.compileBenchmarks(benchClasspath, processorPath);
+        if (!benchCompileResult.isSuccess()) {
+            System.err.println(red("Benchmark compilation failed: ") + benchCompileResult.getError());
+            System.exit(1);
+        }
+
+        System.out.println(blue("→ Running benchmarks..."));
+        Path projectDir = Paths.get(QinConstants.getCwd());
+        String runtimeClasspath = TestRunner.buildTestClasspath(runner.getBenchOutputDir(),
+                runner.getRuntimeClasspath(), benchClasspath);
+        Path resultFile = new BenchRunner(new BenchRunner.Options(projectDir, runtimeClasspath, includes,
+                forks, warmupIterations, iterations, warmupTime, measurementTime, jvmArgs)).run();
+        System.out.println(green("✓ Results saved to " + projectDir.relativize(resultFile)));
+
+        // 与基线对比：--baseline <commit> 指定 .qin/bench/<commit>.json，默认 .qin/bench/baseline.json
+        Path baselineFile = baseline != null
+                ? BenchRunner.resultsDir(projectDir).resolve(baseline.endsWith(".json") ? baseline : baseline + ".json")
+                : BenchRunner.baselineFile(projectDir);
+        boolean regressed = false;
+        if (Files.exists(baselineFile) && !baselineFile.equals(resultFile)) {
+            List<BenchReport.Comparison> comparisons = BenchReport.compare(
+                    BenchReport.parse(baselineFile), BenchReport.parse(resultFile), threshold);
+            System.out.println(blue("→ Comparing with " + projectDir.relativize(baselineFile)
+                    + String.format(" (threshold %.1f%%)", threshold)));
+            for (BenchReport.Comparison c : comparisons) {
+                String line = String.format("  %-60s %12.3f → %12.3f %-8s %+7.1f%%",
+                        c.id(), c.baseline(), c.current(), c.unit(), c.changePercent());
+                System.out.println(c.regression() ? red(line) : c.changePercent() < -threshold ? green(line) : line);
+                regressed |= c.regression();
+            }
+        } else if (!saveBaseline) {
+            System.out.println(gray("  No baseline yet, run 'qin bench --save-baseline' to record one"));
+        }
+
+        if (saveBaseline) {
+            Files.copy(resultFile, BenchRunner.baselineFile(projectDir), StandardCopyOption.REPLACE_EXISTING);
+            System.out.println(green("✓ Baseline updated"));
+        }
+        if (regressed) {
+            System.err.println(red("✗ Performance regression beyond " + threshold + "%"));
+            System.exit(1);
+        }
+    }
+
+    private static void runSelfBenchmark(String[] args) throws Exception {
+        int packages = 20;
+        int classes = 10;
+        int fanOut = 3;
+        int jars = 10;
+        int repetitions = 5;
+        long seed = 42;
+        String dir = null;
+        boolean keep = false;
+        List<String> jvmArgs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            boolean hasValue = i + 1 < args.length;
+            if ("--packages".equals(arg) && hasValue) {
+                packages = Integer.parseInt(args[++i]);
+            } else if ("--classes".equals(arg) && hasValue) {
+                classes = Integer.parseInt(args[++i]);
+            } else if ("--fan-out".equals(arg) && hasValue) {
+                fanOut = Integer.parseInt(args[++i]);
+            } else if ("--jars".equals(arg) && hasValue) {
+                jars = Integer.parseInt(args[++i]);
+            } else if ("--reps".equals(arg) && hasValue) {
+                repetitions = Integer.parseInt(args[++i]);
+            } else if ("--seed".equals(arg) && hasValue) {
+                seed = Long.parseLong(args[++i]);
+            } else if ("--dir".equals(arg) && hasValue) {
+                dir = args[++i];
+            } else if ("--keep".equals(arg)) {
+                keep = true;
+            } else if (arg.startsWith("-J") && arg.length() > 2) {
+                jvmArgs.add(arg.substring(2));
+            }
+        }
+
+        // 默认在临时目录生成，避免被当前目录所在的工作区扫描到；--dir 指定的目录总是保留
+        Path root = dir != null
+                ? Paths.get(QinConstants.getCwd()).resolve(dir)
+                : Files.createTempDirectory("qin-bench-self");
+        keep |= dir != null;
+
+        System.out.println(blue("→ Generating synthetic workspace: " + packages + " packages × " + classes
+                + " classes, fan-out " + fanOut + ", " + jars + " jars"));
+        SelfBenchmark benchmark = new SelfBenchmark(new SelfBenchmark.Options(
+                new SyntheticWorkspace.Options(root, packages, classes, fanOut, jars, seed), repetitions, jvmArgs));
+        List<SelfBenchmark.Stats> stats;
+        try {
+            stats = benchmark.run();
+        } finally {
+            if (!keep) {
+                QinUtils.deleteDir(root);
+            }
+        }
+
+        System.out.println(String.format("  %-26s %9s %9s %9s %9s", "scenario", "p50 ms", "p95 ms", "min ms",
+                "max ms"));
+        for (SelfBenchmark.Stats s : stats) {
+            System.out.println(String.format("  %-26s %9d %9d %9d %9d", s.scenario(), s.p50(), s.p95(), s.min(),
+                    s.max()));
+        }
+
+        Path projectDir = Paths.get(QinConstants.getCwd());
+        Path resultFile = benchmark.save(projectDir, stats);
+        System.out.println(green("✓ Results saved to " + projectDir.relativize(resultFile)));
+        if (keep) {
+            System.out.println(gray("  Workspace kept at " + root));
+        }
     }
 
     private static String ensureCoursier() throws Exception {
@@ -524,14 +966,38 @@ public class QinCli {
                   clean       Clean build artifacts
                   sync        Sync dependencies
                   test        Run JUnit tests
+                  bench       Run JMH benchmarks in src/jmh/java
+                  bench-self  Time sync/compile/build on a generated synthetic monorepo (offline)
+                  bsp-server  Start the Build Server Protocol server on stdio (used by IDEs)
                   help        Show this help message
                   version     Show version
 
                 Options:
                   --debug     Keep temporary files for debugging (build)
                   --clean     Clean build directory before building (build)
+                  --since <rev>  Only run in projects affected by changes since a git revision (build, test)
+                  --standby   Restart via a pre-warmed standby JVM (dev)
                   -o, --output <dir>  Output directory (compile)
-                  -f, --filter <pattern>  Filter tests (test)
+                  -f, --filter <pattern>  Filter test classes, * wildcard (test)
+                  --shards <n>  Number of test JVMs, default: cores / 2 (test)
+                  --affected  Only run tests affected by changes since the last green run (test)
+                  --no-test-cache  Run tests even if a cached passing result exists (test)
+                  -J<flag>    Pass a flag to the test / benchmark JVMs, e.g. -J-Xmx1g (test, bench, bench-self)
+                  --watch     Recompile changed sources on save (compile);
+                              re-run tests on changes, reusing warm test JVMs (test)
+                  --forks <n>, --warmup <n>, --iterations <n>
+                              JMH forks / warmup / measurement iterations, default: 1 / 3 / 5 (bench)
+                  --warmup-time <t>, --time <t>
+                              Duration of each iteration, default: 1s (bench)
+                  --threshold <pct>  Slowdown that counts as a regression, default: 10 (bench)
+                  --baseline <commit>  Compare with .qin/bench/<commit>.json instead of the saved baseline (bench)
+                  --save-baseline  Save this run as the baseline (bench)
+                  --packages <n>, --classes <n>, --fan-out <n>, --jars <n>
+                              Synthetic workspace size, default: 20 / 10 / 3 / 10 (bench-self)
+                  --reps <n>  Repetitions per scenario, default: 5 (bench-self)
+                  --seed <n>  Random seed of the synthetic workspace, default: 42 (bench-self)
+                  --dir <path>  Generate the workspace here and keep it (bench-self)
+                  --keep      Keep the generated workspace (bench-self)
                   -v, --verbose  Show verbose output
 
                 Examples:
@@ -563,40 +1029,6 @@ public class QinCli {
         return "\u001B[90m" + s + "\u001B[0m";
     }
 
-    /**
-     * 从 .qin/classpath.json 解析 classpath
-     */
-    private static String parseClasspathFromJson(String json) {
-        try {
-            // 简单解析 JSON 数组
-            int start = json.indexOf("[");
-            int end = json.lastIndexOf("]");
-            if (start < 0 || end < 0)
-                return "";
-
-            String arrayContent = json.substring(start + 1, end);
-            List<String> paths = new ArrayList<>();
-
-            // 解析每个路径
-            int pos = 0;
-            while (pos < arrayContent.length()) {
-                int quote1 = arrayContent.indexOf("\"", pos);
-                if (quote1 < 0)
-                    break;
-                int quote2 = arrayContent.indexOf("\"", quote1 + 1);
-                if (quote2 < 0)
-                    break;
-                paths.add(arrayContent.substring(quote1 + 1, quote2));
-                pos = quote2 + 1;
-            }
-
-            String sep = QinConstants.getClasspathSeparator();
-            return String.join(sep, paths);
-        } catch (Exception e) {
-            return "";
-        }
-    }
-
     /**
      * 构建 .qin/classpath.json 格式
      */
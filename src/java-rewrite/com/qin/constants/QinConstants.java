@@ -63,6 +63,27 @@ public class QinConstants {
             "node_modules", ".git", ".qin", "dist", "build", ".cache",
             ".vscode", ".idea", "out", "target", "libs");
 
+    /**
+     * EXCLUDED_DIRS 中的构建输出目录：只在项目根目录下排除，源码中的同名目录可能是包（例如 com/acme/build）
+     */
+    public static final java.util.Set<String> BUILD_OUTPUT_DIRS = java.util.Set.of(
+            "dist", "build", "out", "target", "libs");
+
+    /**
+     * 扫描 / 监听时是否跳过该目录：构建输出目录只在项目根目录下跳过，其余 EXCLUDED_DIRS 任意深度都跳过
+     *
+     * @param name           目录名
+     * @param projectTopLevel 目录是否直接位于项目根目录下
+     */
+    public static boolean isExcludedDir(String name, boolean projectTopLevel) {
+        return EXCLUDED_DIRS.contains(name) && (projectTopLevel || !BUILD_OUTPUT_DIRS.contains(name));
+    }
+
+    /**
+     * 项目内的源码目录（包含 qin.config.json 或 package.json 的目录下不再向下扫描）
+     */
+    public static final java.util.Set<String> PROJECT_SOURCE_DIRS = java.util.Set.of("src");
+
     /**
      * 工作区/项目根目录标志（用于识别和向上查找根目录）
      * 优先级: .idea > .vscode > qin.config.json > package.json > .git
@@ -92,6 +113,41 @@ public class QinConstants {
      */
     public static final String BUILD_CLASSES_DIR = "build/classes";
 
+    /**
+     * 测试编译输出目录（相对于项目根目录）
+     */
+    public static final String BUILD_TEST_CLASSES_DIR = "build/test-classes";
+
+    /**
+     * 测试报告目录（相对于项目根目录，JUnit XML 报告）
+     */
+    public static final String BUILD_TEST_RESULTS_DIR = "build/test-results";
+
+    /**
+     * 测试类历史耗时文件（.qin 下，用于分片负载均衡）
+     */
+    public static final String TEST_TIMINGS_FILE = "test-timings";
+
+    /**
+     * 常驻测试 worker 目录（.qin 下，存放 worker jar 和启动参数）
+     */
+    public static final String TEST_WORKERS_DIR = "test-workers";
+
+    /**
+     * 测试影响分析状态文件（.qin 下，每个测试类的依赖集合）
+     */
+    public static final String TEST_IMPACT_FILE = "test-impact.json";
+
+    /**
+     * 工作区索引文件（工作区根目录的 .qin 下，项目路径、名称和配置哈希）
+     */
+    public static final String WORKSPACE_INDEX_FILE = "workspace-index";
+
+    /**
+     * 源码索引文件（项目的 .qin 下，每个 .java 文件的包名、顶层类型、main 方法和 import）
+     */
+    public static final String SOURCE_INDEX_FILE = "source-index";
+
     /**
      * 日志子目录名
      */
@@ -177,6 +233,87 @@ public class QinConstants {
      */
     public static final String DEFAULT_MAIN_CLASS = "Main";
 
+    /**
+     * Spring Boot DevTools 的 artifactId
+     * 声明了它的项目由 DevTools 负责重启，Qin dev 模式退回进程级重启
+     */
+    public static final String SPRING_DEVTOOLS_ARTIFACT = "spring-boot-devtools";
+
+    /**
+     * 运行测试使用的 JUnit Platform Console Launcher（包含 Jupiter/Vintage 引擎）
+     */
+    public static final String JUNIT_CONSOLE_COORDINATE = "org.junit.platform:junit-platform-console-standalone:1.10.2";
+
+    /**
+     * 远程构建缓存地址的环境变量（HTTP GET/PUT，目前用于测试结果缓存）
+     */
+    public static final String REMOTE_CACHE_ENV = "QIN_REMOTE_CACHE";
+
+    /**
+     * JMH 基准测试源码目录（qin bench）
+     */
+    public static final String BENCH_SOURCE_DIR = "src/jmh/java";
+
+    /**
+     * JMH 基准测试编译输出目录（相对于项目根目录）
+     */
+    public static final String BUILD_BENCH_CLASSES_DIR = "build/jmh-classes";
+
+    /**
+     * 基准测试结果目录（.qin 下，每个提交一个 JSON 文件）
+     */
+    public static final String BENCH_DIR = "bench";
+
+    /**
+     * 基准测试基线文件（.qin/bench 下）
+     */
+    public static final String BENCH_BASELINE_FILE = "baseline.json";
+
+    /**
+     * benchDependencies 未声明 jmh-core 时使用的 JMH 版本
+     */
+    public static final String JMH_DEFAULT_VERSION = "1.37";
+
+    /**
+     * JMH 运行时（groupId:artifactId）
+     */
+    public static final String JMH_CORE_ARTIFACT = "org.openjdk.jmh:jmh-core";
+
+    /**
+     * JMH 注解处理器（groupId:artifactId），生成基准测试桩代码和 META-INF/BenchmarkList
+     */
+    public static final String JMH_ANNPROCESS_ARTIFACT = "org.openjdk.jmh:jmh-generator-annprocess";
+
+    /**
+     * JMH 注解处理器类
+     */
+    public static final String JMH_PROCESSOR = "org.openjdk.jmh.generators.BenchmarkProcessor";
+
+    /**
+     * JMH 入口类
+     */
+    public static final String JMH_MAIN = "org.openjdk.jmh.Main";
+
+    /**
+     * Qin CLI 入口类（qin bench-self 在子进程中运行 qin 命令）
+     */
+    public static final String QIN_MAIN = "com.qin.cli.QinCli";
+
+    /**
+     * 合成工作区的 groupId（qin bench-self）
+     */
+    public static final String SYNTHETIC_GROUP = "bench.synthetic";
+
+    /**
+     * Coursier 默认仓库列表的环境变量（qin bench-self 用本地文件仓库替换 ivy2Local 和 Maven Central）
+     */
+    public static final String COURSIER_REPOSITORIES_ENV = "COURSIER_REPOSITORIES";
+
+    /**
+     * create-qin 的 Java monorepo 模板目录（相对于 Qin 仓库根目录）
+     */
+    public static final String CREATE_QIN_MONOREPO_TEMPLATE = "packages/create-qin/templates/java/monorepo";
+
     // ==================== 配置获取工具方法 ====================
 
     /**
@@ -0,0 +1,137 @@
+package com.qin.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * 受影响项目分析（qin build / test --since <rev>）
+ *
+ * 1. 用本地 git 对比 <rev> 与工作目录（包括未提交和未跟踪的文件），不访问远程
+ * 2. 通过工作区索引把每个变更文件归属到包含它的最近的 Qin 项目
+ * 3. 通过 DependencyGraphBuilder 扩展到所有直接或间接依赖这些项目的项目
+ */
+public class AffectedProjectFinder {
+
+    /**
+     * 分析结果
+     *
+     * @param changedFiles    变更的文件（绝对路径）
+     * @param changedProjects 直接包含变更文件的项目名称
+     * @param affected        受影响的项目，按依赖顺序排列（被依赖的在前）
+     */
+    public record Result(
+            List<Path> changedFiles,
+            Set<String> changedProjects,
+            List<LocalProjectResolver.ProjectInfo> affected) {
+    }
+
+    private final String cwd;
+
+    public AffectedProjectFinder(String cwd) {
+        this.cwd = cwd;
+    }
+
+    /**
+     * 找出自 rev 以来受影响的项目
+     *
+     * @param rev git 修订（提交、分支、标签，如 origin/main）
+     * @throws IOException 不在 git 仓库中或 rev 不存在
+     */
+    public Result find(String rev) throws IOException {
+        Path dir = Paths.get(cwd).toAbsolutePath();
+        Path top = Paths.get(git(dir, "rev-parse", "--show-toplevel").trim()).toRealPath();
+        try {
+            git(top, "rev-parse", "--verify", rev + "^{commit}");
+        } catch (IOException e) {
+            throw new IOException("Unknown git revision: " + rev);
+        }
+
+        // 已跟踪文件的变更（含删除）+ 未跟踪的新文件，路径都相对于仓库根目录
+        // --no-renames：重命名拆成删除 + 新增，跨项目移动文件时原项目也算受影响
+        Set<Path> changed = new TreeSet<>();
+        for (String name : split(git(top, "diff", "--name-only", "--no-renames", "-z", rev, "--"))) {
+            changed.add(top.resolve(name).normalize());
+        }
+        for (String name : split(git(top, "ls-files", "--others", "--exclude-standard", "-z"))) {
+            changed.add(top.resolve(name).normalize());
+        }
+
+        // 项目目录按深度从深到浅，文件归属到最近的项目
+        Map<String, LocalProjectResolver.ProjectInfo> projects = new LocalProjectResolver(cwd).discoverProjects();
+        List<Map.Entry<Path, String>> owners = new ArrayList<>();
+        for (LocalProjectResolver.ProjectInfo project : projects.values()) {
+            owners.add(Map.entry(realPath(project.projectDir), project.fullName));
+        }
+        owners.sort(Comparator.comparingInt((Map.Entry<Path, String> e) -> e.getKey().getNameCount()).reversed());
+
+        Set<String> changedProjects = new LinkedHashSet<>();
+        for (Path file : changed) {
+            for (Map.Entry<Path, String> owner : owners) {
+                if (file.startsWith(owner.getKey())) {
+                    changedProjects.add(owner.getValue());
+                    break;
+                }
+            }
+        }
+
+        DependencyGraphBuilder graphBuilder = new DependencyGraphBuilder();
+        DependencyGraphBuilder.DependencyGraph graph = graphBuilder.buildWorkspaceGraph(projects);
+        Set<String> affectedNames = graphBuilder.withReverseDependents(graph, changedProjects);
+
+        // topologicalSort 把依赖方排在前面，构建时需要反过来
+        List<String> order = new ArrayList<>(graphBuilder.topologicalSort(graph));
+        Collections.reverse(order);
+        List<LocalProjectResolver.ProjectInfo> affected = new ArrayList<>();
+        for (String name : order) {
+            if (affectedNames.contains(name)) {
+                affected.add(projects.get(name));
+            }
+        }
+
+        return new Result(List.copyOf(changed), changedProjects, affected);
+    }
+
+    private static Path realPath(Path path) {
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            return path.toAbsolutePath().normalize();
+        }
+    }
+
+    private static List<String> split(String nulSeparated) {
+        List<String> names = new ArrayList<>();
+        for (String name : nulSeparated.split("\0")) {
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 运行本地 git 命令，返回标准输出；失败时抛出包含错误输出的 IOException
+     */
+    private static String git(Path dir, String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command)
+                .directory(dir.toFile())
+                .start();
+        // git 的错误输出很短，先读完标准输出再读错误输出不会阻塞
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        String error = new String(process.getErrorStream().readAllBytes(), StandardCharsets.UTF_8);
+        try {
+            if (process.waitFor() != 0) {
+                throw new IOException("git " + String.join(" ", args) + " failed: " + error.trim());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running git", e);
+        }
+        return output;
+    }
+}
@@ -0,0 +1,184 @@
+package com.qin.core;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 编译输出目录的类结构索引（增量编译用）
+ *
+ * 解析目录下每个 .class 的结构（ClassFileInfo），按大小和 mtime 缓存：
+ * 内容未变的 class 不会被重写（见 OverlayFileManager），再次扫描只需 stat。
+ *
+ * 增量编译据此找出：
+ * - 源文件生成的类（包名 + SourceFile 属性，包括内部类、匿名类）
+ * - 两次扫描之间其他类可见部分（API、常量）变化的类
+ * - 引用了这些类的类，即需要一起重新编译的依赖方
+ */
+public final class ClassDependencyIndex {
+    private static final String CLASS_EXT = ".class";
+
+    /**
+     * 进程内共享：dev 模式、qin compile --watch 和 BSP 在编译之间复用
+     */
+    private static final Map<Path, ClassDependencyIndex> INSTANCES = new ConcurrentHashMap<>();
+
+    /**
+     * 其他类可见部分的变化
+     *
+     * @param classes          API 变化、新增或删除的类
+     * @param constantsChanged 编译期常量变化（或删除了带常量的类），使用方无法从引用找到，需要全量编译
+     */
+    public record ApiChanges(Set<String> classes, boolean constantsChanged) {
+        public static final ApiChanges NONE = new ApiChanges(Set.of(), false);
+
+        public boolean isEmpty() {
+            return classes.isEmpty() && !constantsChanged;
+        }
+
+        public ApiChanges merge(ApiChanges other) {
+            Set<String> merged = new TreeSet<>(classes);
+            merged.addAll(other.classes());
+            return new ApiChanges(merged, constantsChanged || other.constantsChanged());
+        }
+    }
+
+    private record Entry(long size, long mtime, ClassFileInfo info) {
+    }
+
+    private final Path dir;
+    private final Map<Path, Entry> entries = new HashMap<>();
+
+    private ClassDependencyIndex(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * 输出目录的索引
+     */
+    public static ClassDependencyIndex forDir(Path dir) {
+        return INSTANCES.computeIfAbsent(dir.toAbsolutePath().normalize(), ClassDependencyIndex::new);
+    }
+
+    /**
+     * 扫描目录，返回 class 文件 -> 结构（无法解析的文件跳过）
+     * 未变化的文件返回与上次相同的 ClassFileInfo 实例
+     */
+    public synchronized Map<Path, ClassFileInfo> scan() {
+        Map<Path, Entry> next = new HashMap<>();
+        if (Files.isDirectory(dir)) {
+            try {
+                Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (!file.toString().endsWith(CLASS_EXT)) {
+                            return FileVisitResult.CONTINUE;
+                        }
+                        long mtime = attrs.lastModifiedTime().toMillis();
+                        Entry known = entries.get(file);
+                        if (known != null && known.size() == attrs.size() && known.mtime() == mtime) {
+                            next.put(file, known);
+                            return FileVisitResult.CONTINUE;
+                        }
+                        try {
+                            ClassFileInfo info = ClassFileInfo.parse(Files.readAllBytes(file));
+                            next.put(file, new Entry(attrs.size(), mtime, info));
+                        } catch (IOException | RuntimeException e) {
+                            // 写入中或损坏的 class，下次扫描再试
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                // 目录在扫描期间被删除：按空目录处理
+            }
+        }
+        entries.clear();
+        entries.putAll(next);
+        Map<Path, ClassFileInfo> result = new HashMap<>();
+        next.forEach((file, entry) -> result.put(file, entry.info()));
+        return result;
+    }
+
+    /**
+     * 比较两次扫描（按类名），找出其他类可见部分的变化
+     */
+    public static ApiChanges diff(Map<Path, ClassFileInfo> before, Map<Path, ClassFileInfo> after) {
+        Map<String, ClassFileInfo> older = byClassName(before);
+        Map<String, ClassFileInfo> newer = byClassName(after);
+        Set<String> classes = new TreeSet<>();
+        boolean constants = false;
+        for (Map.Entry<String, ClassFileInfo> entry : older.entrySet()) {
+            ClassFileInfo previous = entry.getValue();
+            ClassFileInfo current = newer.get(entry.getKey());
+            if (current == null) {
+                classes.add(entry.getKey());
+                constants |= previous.hasConstants();
+            } else if (current != previous) {
+                if (!previous.hasSameApiAs(current)) {
+                    classes.add(entry.getKey());
+                }
+                constants |= !previous.hasSameConstantsAs(current);
+            }
+        }
+        for (String className : newer.keySet()) {
+            if (!older.containsKey(className)) {
+                classes.add(className);
+            }
+        }
+        return new ApiChanges(classes, constants);
+    }
+
+    /**
+     * 引用了 targets 中任意一个类的类
+     */
+    public static List<ClassFileInfo> referencing(Map<Path, ClassFileInfo> classes, Set<String> targets) {
+        if (targets.isEmpty()) {
+            return List.of();
+        }
+        List<ClassFileInfo> result = new ArrayList<>();
+        for (ClassFileInfo info : classes.values()) {
+            if (!targets.contains(info.getClassName())
+                    && info.getReferencedClasses().stream().anyMatch(targets::contains)) {
+                result.add(info);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 类对应的源文件键（包路径/文件名，例如 com/acme/App.java），没有 SourceFile 属性时为 null
+     */
+    public static String sourceKey(ClassFileInfo info) {
+        if (info.getSourceFile() == null) {
+            return null;
+        }
+        String className = info.getClassName();
+        int dot = className.lastIndexOf('.');
+        return dot < 0 ? info.getSourceFile()
+                : className.substring(0, dot).replace('.', '/') + "/" + info.getSourceFile();
+    }
+
+    /**
+     * 源文件的键（与 sourceKey(ClassFileInfo) 对应）
+     */
+    public static String sourceKey(SourceIndex.SourceFile source) {
+        String name = source.path().substring(source.path().lastIndexOf('/') + 1);
+        return source.packageName() == null ? name : source.packageName().replace('.', '/') + "/" + name;
+    }
+
+    private static Map<String, ClassFileInfo> byClassName(Map<Path, ClassFileInfo> classes) {
+        Map<String, ClassFileInfo> result = new HashMap<>();
+        for (ClassFileInfo info : classes.values()) {
+            result.put(info.getClassName(), info);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,340 @@
+package com.qin.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Class 文件结构信息
+ * 轻量解析 .class 字节码（常量池 + 字段 + 方法签名），不依赖 ASM
+ *
+ * 用途：
+ * - 判断两个版本的类是否只有方法体变化（可用 redefineClasses 热替换）
+ * - 收集类引用的其他类（测试影响分析、增量编译的依赖方）
+ * - 判断其他类可见的部分（API、常量）是否变化（增量编译）
+ */
+public class ClassFileInfo {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final int ACC_ANNOTATION = 0x2000;
+    private static final int ACC_ENUM = 0x4000;
+
+    private final String className;
+    private final String superName;
+    private final List<String> interfaces;
+    private final int accessFlags;
+    private final Set<String> fields;
+    private final Set<String> methods;
+    private final Set<String> referencedClasses;
+    /**
+     * 非 private 成员（含泛型签名、声明的异常、常量值）和类的泛型签名，其他类编译时可见的部分
+     */
+    private final Set<String> api;
+    /**
+     * 非 private 的编译期常量：字段名 -> 值（会被内联到使用方，使用方的常量池中没有对该类的引用）
+     */
+    private final Map<String, String> constants;
+    private final String sourceFile;
+
+    private ClassFileInfo(String className, String superName, List<String> interfaces, int accessFlags,
+            Set<String> fields, Set<String> methods, Set<String> referencedClasses, Set<String> api,
+            Map<String, String> constants, String sourceFile) {
+        this.className = className;
+        this.superName = superName;
+        this.interfaces = interfaces;
+        this.accessFlags = accessFlags;
+        this.fields = fields;
+        this.methods = methods;
+        this.referencedClasses = referencedClasses;
+        this.api = api;
+        this.constants = constants;
+        this.sourceFile = sourceFile;
+    }
+
+    /**
+     * 字段或方法
+     *
+     * @param signature  泛型签名，没有时为 null
+     * @param exceptions 声明的异常
+     * @param constant   常量值（ConstantValue），没有时为 null
+     */
+    private record Member(int flags, String name, String descriptor, String signature, List<String> exceptions,
+            String constant) {
+
+        String key() {
+            return flags + " " + name + " " + descriptor;
+        }
+    }
+
+    /**
+     * 常量池中解析属性需要的部分
+     */
+    private record ConstantPool(String[] utf8, int[] classNameIndex, int[] stringIndex, Object[] values) {
+
+        String className(int index) {
+            return binaryName(utf8[classNameIndex[index]]);
+        }
+
+        String constant(int index) {
+            return stringIndex[index] != 0 ? "\"" + utf8[stringIndex[index]] : String.valueOf(values[index]);
+        }
+    }
+
+    /**
+     * 解析 class 文件字节
+     */
+    public static ClassFileInfo parse(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        in.readUnsignedShort(); // minor
+        in.readUnsignedShort(); // major
+
+        // 常量池：只保留 Utf8 和 Class 条目
+        int cpCount = in.readUnsignedShort();
+        String[] utf8 = new String[cpCount];
+        int[] classNameIndex = new int[cpCount];
+        int[] stringIndex = new int[cpCount];
+        Object[] values = new Object[cpCount];
+        List<Integer> descriptorIndexes = new ArrayList<>();
+        for (int i = 1; i < cpCount; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1 -> utf8[i] = in.readUTF();
+                case 7 -> classNameIndex[i] = in.readUnsignedShort();
+                case 8 -> stringIndex[i] = in.readUnsignedShort();
+                case 16, 19, 20 -> in.readUnsignedShort();
+                case 3 -> values[i] = in.readInt();
+                case 4 -> values[i] = in.readFloat();
+                case 5, 6 -> {
+                    values[i] = tag == 5 ? (Object) in.readLong() : (Object) in.readDouble();
+                    i++; // long/double 占两个槽位
+                }
+                case 9, 10, 11, 18, 17 -> {
+                    in.readUnsignedShort();
+                    in.readUnsignedShort();
+                }
+                case 12 -> {
+                    in.readUnsignedShort();
+                    descriptorIndexes.add(in.readUnsignedShort());
+                }
+                case 15 -> {
+                    in.readUnsignedByte();
+                    in.readUnsignedShort();
+                }
+                default -> throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+
+        int accessFlags = in.readUnsignedShort();
+        String className = binaryName(utf8[classNameIndex[in.readUnsignedShort()]]);
+        int superIndex = in.readUnsignedShort();
+        String superName = superIndex == 0 ? null : binaryName(utf8[classNameIndex[superIndex]]);
+
+        int interfaceCount = in.readUnsignedShort();
+        List<String> interfaces = new ArrayList<>(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaces.add(binaryName(utf8[classNameIndex[in.readUnsignedShort()]]));
+        }
+
+        ConstantPool pool = new ConstantPool(utf8, classNameIndex, stringIndex, values);
+        List<Member> fieldMembers = readMembers(in, pool, descriptorIndexes);
+        List<Member> methodMembers = readMembers(in, pool, descriptorIndexes);
+
+        // 类属性：源文件名和泛型签名
+        String sourceFile = null;
+        String classSignature = null;
+        int attrCount = in.readUnsignedShort();
+        for (int i = 0; i < attrCount; i++) {
+            String name = utf8[in.readUnsignedShort()];
+            int length = in.readInt();
+            if ("SourceFile".equals(name)) {
+                sourceFile = utf8[in.readUnsignedShort()];
+            } else if ("Signature".equals(name)) {
+                classSignature = utf8[in.readUnsignedShort()];
+            } else {
+                in.skipNBytes(length);
+            }
+        }
+
+        Set<String> fields = new TreeSet<>();
+        Set<String> methods = new TreeSet<>();
+        Set<String> api = new TreeSet<>();
+        Map<String, String> constants = new TreeMap<>();
+        fieldMembers.forEach(member -> fields.add(member.key()));
+        methodMembers.forEach(member -> methods.add(member.key()));
+        for (Member member : fieldMembers) {
+            if (member.constant() != null && (member.flags() & ACC_PRIVATE) == 0) {
+                constants.put(member.name(), member.constant());
+            }
+        }
+        for (List<Member> members : List.of(fieldMembers, methodMembers)) {
+            for (Member member : members) {
+                if ((member.flags() & ACC_PRIVATE) == 0) {
+                    api.add(member.key() + " " + member.signature() + " " + member.exceptions()
+                            + " " + member.constant());
+                }
+            }
+        }
+        if (classSignature != null) {
+            api.add("class " + classSignature);
+        }
+
+        // 引用的类：Class 常量 + 所有描述符中出现的类型
+        Set<String> referenced = new TreeSet<>();
+        for (int i = 1; i < cpCount; i++) {
+            if (classNameIndex[i] != 0 && utf8[classNameIndex[i]] != null) {
+                String name = utf8[classNameIndex[i]];
+                if (name.startsWith("[")) {
+                    collectDescriptorTypes(name, referenced);
+                } else {
+                    referenced.add(binaryName(name));
+                }
+            }
+        }
+        for (int index : descriptorIndexes) {
+            if (utf8[index] != null) {
+                collectDescriptorTypes(utf8[index], referenced);
+            }
+        }
+        referenced.remove(className);
+
+        return new ClassFileInfo(className, superName, interfaces, accessFlags,
+                fields, methods, referenced, api, constants, sourceFile);
+    }
+
+    /**
+     * 读取字段/方法表，只解析签名、异常和常量属性，跳过其余属性（含方法体）
+     */
+    private static List<Member> readMembers(DataInputStream in, ConstantPool pool, List<Integer> descriptorIndexes)
+            throws IOException {
+        int count = in.readUnsignedShort();
+        List<Member> members = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int flags = in.readUnsignedShort();
+            String name = pool.utf8()[in.readUnsignedShort()];
+            int descriptorIndex = in.readUnsignedShort();
+            descriptorIndexes.add(descriptorIndex);
+
+            String signature = null;
+            String constant = null;
+            List<String> exceptions = List.of();
+            int attrCount = in.readUnsignedShort();
+            for (int j = 0; j < attrCount; j++) {
+                String attribute = pool.utf8()[in.readUnsignedShort()];
+                int length = in.readInt();
+                switch (attribute) {
+                    case "Signature" -> signature = pool.utf8()[in.readUnsignedShort()];
+                    case "ConstantValue" -> constant = pool.constant(in.readUnsignedShort());
+                    case "Exceptions" -> {
+                        int exceptionCount = in.readUnsignedShort();
+                        exceptions = new ArrayList<>(exceptionCount);
+                        for (int k = 0; k < exceptionCount; k++) {
+                            exceptions.add(pool.className(in.readUnsignedShort()));
+                        }
+                    }
+                    default -> in.skipNBytes(length);
+                }
+            }
+            members.add(new Member(flags, name, pool.utf8()[descriptorIndex], signature, exceptions, constant));
+        }
+        return members;
+    }
+
+    /**
+     * 从描述符中提取 L...; 形式的类型
+     */
+    private static void collectDescriptorTypes(String descriptor, Set<String> out) {
+        int pos = 0;
+        while ((pos = descriptor.indexOf('L', pos)) >= 0) {
+            int end = descriptor.indexOf(';', pos);
+            if (end < 0) {
+                break;
+            }
+            String name = descriptor.substring(pos + 1, end);
+            // 排除 "Lfoo" 出现在非类型位置的误判（类型名不含这些字符）
+            if (!name.isEmpty() && name.indexOf('(') < 0 && name.indexOf(')') < 0) {
+                out.add(binaryName(name));
+            }
+            pos = end + 1;
+        }
+    }
+
+    private static String binaryName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+
+    /**
+     * 判断新版本是否只改动了方法体（类层次、字段、方法签名都不变）
+     * JVM 的 redefineClasses 只支持这种变化
+     */
+    public boolean isRedefinableAs(ClassFileInfo newer) {
+        return Objects.equals(className, newer.className)
+                && Objects.equals(superName, newer.superName)
+                && interfaces.equals(newer.interfaces)
+                && accessFlags == newer.accessFlags
+                && fields.equals(newer.fields)
+                && methods.equals(newer.methods);
+    }
+
+    /**
+     * 其他类编译时看到的部分是否相同（类层次、修饰符、非 private 成员的签名和常量值）
+     * 不同时引用该类的源文件需要重新编译
+     */
+    public boolean hasSameApiAs(ClassFileInfo newer) {
+        return Objects.equals(className, newer.className)
+                && Objects.equals(superName, newer.superName)
+                && interfaces.equals(newer.interfaces)
+                && accessFlags == newer.accessFlags
+                && api.equals(newer.api);
+    }
+
+    /**
+     * 编译期常量是否相同（常量被内联到使用方，变化时无法从引用找到使用方）
+     */
+    public boolean hasSameConstantsAs(ClassFileInfo newer) {
+        return constants.equals(newer.constants);
+    }
+
+    public boolean hasConstants() {
+        return !constants.isEmpty();
+    }
+
+    /**
+     * 源文件名（SourceFile 属性，不含目录），没有时为 null
+     */
+    public String getSourceFile() {
+        return sourceFile;
+    }
+
+    public int getAccessFlags() {
+        return accessFlags;
+    }
+
+    /**
+     * 是否是可以实例化的具体类（非接口、抽象类、注解、枚举）
+     */
+    public boolean isConcreteClass() {
+        return (accessFlags & (ACC_INTERFACE | ACC_ABSTRACT | ACC_ANNOTATION | ACC_ENUM)) == 0;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getSuperName() {
+        return superName;
+    }
+
+    public List<String> getInterfaces() {
+        return Collections.unmodifiableList(interfaces);
+    }
+
+    public Set<String> getReferencedClasses() {
+        return Collections.unmodifiableSet(referencedClasses);
+    }
+}
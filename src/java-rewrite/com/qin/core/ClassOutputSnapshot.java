@@ -0,0 +1,98 @@
+package com.qin.core;
+
+import com.qin.utils.QinUtils;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * 编译输出快照
+ * 记录 build/classes 下每个 .class 的内容哈希，用于找出两次编译之间变化的类
+ */
+public class ClassOutputSnapshot {
+    private final Path outputDir;
+    private final Map<String, String> hashes; // 类名 -> SHA-256
+
+    private ClassOutputSnapshot(Path outputDir, Map<String, String> hashes) {
+        this.outputDir = outputDir;
+        this.hashes = hashes;
+    }
+
+    /**
+     * 扫描输出目录生成快照
+     */
+    public static ClassOutputSnapshot capture(Path outputDir) throws IOException {
+        Map<String, String> hashes = new HashMap<>();
+        if (Files.isDirectory(outputDir)) {
+            try (Stream<Path> walk = Files.walk(outputDir)) {
+                for (Path file : (Iterable<Path>) walk.filter(p -> p.toString().endsWith(".class"))::iterator) {
+                    hashes.put(toClassName(outputDir, file), QinUtils.sha256(file));
+                }
+            }
+        }
+        return new ClassOutputSnapshot(outputDir, hashes);
+    }
+
+    /**
+     * 与更新的快照比较
+     */
+    public Diff diff(ClassOutputSnapshot newer) {
+        Set<String> changed = new TreeSet<>();
+        Set<String> added = new TreeSet<>();
+        Set<String> removed = new TreeSet<>();
+
+        for (Map.Entry<String, String> entry : newer.hashes.entrySet()) {
+            String oldHash = hashes.get(entry.getKey());
+            if (oldHash == null) {
+                added.add(entry.getKey());
+            } else if (!oldHash.equals(entry.getValue())) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String name : hashes.keySet()) {
+            if (!newer.hashes.containsKey(name)) {
+                removed.add(name);
+            }
+        }
+        return new Diff(changed, added, removed);
+    }
+
+    /**
+     * 读取某个类当前的字节码
+     */
+    public byte[] readClass(String className) throws IOException {
+        return Files.readAllBytes(classFile(className));
+    }
+
+    public Path classFile(String className) {
+        return outputDir.resolve(className.replace('.', '/') + ".class");
+    }
+
+    public Map<String, String> getHashes() {
+        return Collections.unmodifiableMap(hashes);
+    }
+
+    private static String toClassName(Path outputDir, Path classFile) {
+        String relative = outputDir.relativize(classFile).toString().replace('\\', '/');
+        return relative.substring(0, relative.length() - ".class".length()).replace('/', '.');
+    }
+
+    /**
+     * 快照差异
+     */
+    public record Diff(Set<String> changed, Set<String> added, Set<String> removed) {
+
+        public boolean isEmpty() {
+            return changed.isEmpty() && added.isEmpty() && removed.isEmpty();
+        }
+
+        /**
+         * 只有已有类的内容变化（没有新增/删除类）
+         */
+        public boolean onlyChanged() {
+            return added.isEmpty() && removed.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.qin.core;
+
+import com.google.gson.Gson;
+import com.qin.types.CompileDiagnostic;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+/**
+ * 持续编译状态（.qin/compile-status.json）
+ *
+ * qin compile --watch 在每次编译开始和结束时写入，退出时删除。
+ * qin run / build 和 BSP 读取它：监听进程存活、最近一次编译成功，
+ * 且源码目录中没有比该次编译开始时间更新的文件或目录（目录 mtime 反映删除和新建）时，
+ * build/classes 已是最新，直接跳过编译。
+ * 监听进程只在受 API 变化影响的依赖方也重新编译通过后才写入 UP_TO_DATE，
+ * 只编译改动文件、调用方仍是旧 class 的状态不会被当作最新
+ *
+ * @param pid           监听进程 ID
+ * @param state         当前状态
+ * @param startedAt     当前（或最近一次）编译开始的时间（毫秒）
+ * @param finishedAt    最近一次编译结束的时间，编译中为 0
+ * @param compiledFiles 最近一次编译的文件数
+ * @param diagnostics   最近一次编译的诊断
+ */
+public record CompileStatus(
+        long pid,
+        State state,
+        long startedAt,
+        long finishedAt,
+        int compiledFiles,
+        List<CompileDiagnostic> diagnostics) {
+
+    private static final Gson GSON = new Gson();
+
+    /**
+     * 监听进程正在编译时，等待结果的最长时间
+     */
+    private static final long AWAIT_TIMEOUT_MS = 60_000;
+    private static final long AWAIT_POLL_INTERVAL_MS = 50;
+
+    public enum State {
+        COMPILING,
+        UP_TO_DATE,
+        FAILED
+    }
+
+    public CompileStatus {
+        diagnostics = diagnostics != null ? List.copyOf(diagnostics) : List.of();
+    }
+
+    public static CompileStatus compiling(long startedAt) {
+        return new CompileStatus(ProcessHandle.current().pid(), State.COMPILING, startedAt, 0, 0, List.of());
+    }
+
+    public static CompileStatus finished(boolean success, long startedAt, int compiledFiles,
+            List<CompileDiagnostic> diagnostics) {
+        return new CompileStatus(ProcessHandle.current().pid(), success ? State.UP_TO_DATE : State.FAILED,
+                startedAt, System.currentTimeMillis(), compiledFiles, diagnostics);
+    }
+
+    /**
+     * 读取项目的编译状态，不存在、无法解析或监听进程已退出时返回 null
+     */
+    public static CompileStatus load(Path projectDir) {
+        Path file = QinPaths.getCompileStatus(projectDir.toString());
+        try {
+            CompileStatus status = GSON.fromJson(Files.readString(file, StandardCharsets.UTF_8), CompileStatus.class);
+            if (status == null || status.state() == null) {
+                return null;
+            }
+            boolean alive = ProcessHandle.of(status.pid()).map(ProcessHandle::isAlive).orElse(false);
+            return alive ? status : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 读取编译状态；监听进程正在编译时等待它结束
+     *
+     * @return 最近一次编译的结果，没有存活的监听进程时返回 null
+     */
+    public static CompileStatus await(Path projectDir) {
+        long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT_MS;
+        CompileStatus status = load(projectDir);
+        while (status != null && status.state() == State.COMPILING && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(AWAIT_POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            status = load(projectDir);
+        }
+        return status != null && status.state() != State.COMPILING ? status : null;
+    }
+
+    /**
+     * 读取覆盖了 sourceDir 当前内容的编译结果（等待方式同 await）
+     *
+     * @return 源码目录中有比该次编译开始时间更新的文件或目录（监听进程尚未处理，例如仍在防抖）时返回 null
+     */
+    public static CompileStatus awaitCurrent(Path projectDir, Path sourceDir) {
+        CompileStatus status = await(projectDir);
+        return status != null && !modifiedSince(sourceDir, status.startedAt()) ? status : null;
+    }
+
+    /**
+     * 监听进程是否已把 sourceDir 编译到最新
+     */
+    public static boolean isUpToDate(Path projectDir, Path sourceDir) {
+        CompileStatus status = awaitCurrent(projectDir, sourceDir);
+        return status != null && status.state() == State.UP_TO_DATE;
+    }
+
+    private static boolean modifiedSince(Path dir, long time) {
+        boolean[] modified = { false };
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) {
+                    return check(attrs);
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    return check(attrs);
+                }
+
+                private FileVisitResult check(BasicFileAttributes attrs) {
+                    if (attrs.lastModifiedTime().toMillis() >= time) {
+                        modified[0] = true;
+                        return FileVisitResult.TERMINATE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            return true;
+        }
+        return modified[0];
+    }
+
+    /**
+     * 写入项目的编译状态（先写临时文件再移动，读取方不会读到半个文件）
+     */
+    public void save(Path projectDir) throws IOException {
+        Path file = QinPaths.getCompileStatus(projectDir.toString());
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), "compile-status", ".tmp");
+        Files.writeString(tmp, GSON.toJson(this), StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 删除项目的编译状态（监听进程退出时调用）
+     */
+    public static void delete(Path projectDir) {
+        try {
+            Files.deleteIfExists(QinPaths.getCompileStatus(projectDir.toString()));
+        } catch (IOException e) {
+            // 进程已退出，残留的状态文件会因 pid 不存活而被忽略
+        }
+    }
+}
@@ -2,13 +2,10 @@ package com.qin.core;
 
 import com.qin.constants.QinConstants;
 import com.qin.types.*;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
-import java.util.regex.*;
 
 /**
  * Configuration Loader for Qin (Java 25)
@@ -16,7 +13,6 @@ import java.util.regex.*;
  */
 public class ConfigLoader {
     private final String cwd;
-    private final Gson gson;
 
     public ConfigLoader() {
         this(QinConstants.getCwd());
@@ -24,19 +20,16 @@ public class ConfigLoader {
 
     public ConfigLoader(String cwd) {
         this.cwd = cwd;
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
     }
 
     /**
      * Load configuration from qin.config.json
      */
     public QinConfig load() throws IOException {
-        // 尝试加载 JSON 配置
+        // 尝试加载 JSON 配置（解析结果由 ProjectModelRegistry 缓存）
         Path jsonConfig = Paths.get(cwd, QinConstants.CONFIG_FILE);
         if (Files.exists(jsonConfig)) {
-            String content = Files.readString(jsonConfig);
-            QinConfig config = gson.fromJson(content, QinConfig.class);
-            return applyDefaults(config);
+            return applyDefaults(ProjectModelRegistry.config(Paths.get(cwd)));
         }
 
         // 自动检测项目类型
@@ -138,6 +131,7 @@ public class ConfigLoader {
                 entry,
                 config.dependencies(),
                 config.devDependencies(),
+                config.benchDependencies(),
                 config.packages(),
                 output,
                 java,
@@ -163,20 +157,11 @@ public class ConfigLoader {
         String srcDir = lastSlash >= 0 ? normalized.substring(0, lastSlash) : ".";
         String simpleClassName = fileName.replace(".java", "");
 
-        // Try to read package declaration
+        // 包名取自源码索引（不在索引中时使用简单类名）
         String className = simpleClassName;
-        try {
-            Path filePath = Paths.get(cwd, entry);
-            if (Files.exists(filePath)) {
-                String content = Files.readString(filePath);
-                Pattern pattern = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
-                Matcher matcher = pattern.matcher(content);
-                if (matcher.find()) {
-                    className = matcher.group(1) + "." + simpleClassName;
-                }
-            }
-        } catch (IOException e) {
-            // Use simple class name
+        SourceIndex.SourceFile source = SourceIndex.forProject(Paths.get(cwd)).get(Paths.get(cwd, entry));
+        if (source != null && source.packageName() != null) {
+            className = source.packageName() + "." + simpleClassName;
         }
 
         return new ParsedEntry(srcDir, className, entry);
@@ -1,6 +1,5 @@
 package com.qin.core;
 
-import com.qin.constants.QinConstants;
 import com.qin.types.QinConfig;
 import java.nio.file.Path;
 import java.util.*;
@@ -73,6 +72,50 @@ public class DependencyGraphBuilder {
         return graph;
     }
 
+    /**
+     * 构建工作区中所有本地项目的依赖图
+     *
+     * @param allLocalProjects 所有本地项目 (项目名 -> 项目信息)
+     * @return 包含全部项目的依赖图
+     */
+    public DependencyGraph buildWorkspaceGraph(Map<String, LocalProjectResolver.ProjectInfo> allLocalProjects) {
+        DependencyGraph graph = new DependencyGraph();
+        Set<String> visited = new HashSet<>();
+
+        for (String projectName : allLocalProjects.keySet()) {
+            buildGraphRecursive(projectName, allLocalProjects, graph, visited);
+        }
+
+        return graph;
+    }
+
+    /**
+     * 反向依赖闭包：给定项目，以及所有直接或间接依赖它们的项目
+     *
+     * @param graph    依赖图
+     * @param projects 起始项目
+     * @return 受影响的项目名称
+     */
+    public Set<String> withReverseDependents(DependencyGraph graph, Collection<String> projects) {
+        // 反向边：被依赖的项目 -> 依赖它的项目
+        Map<String, List<String>> dependents = new HashMap<>();
+        for (DependencyNode node : graph.getAllNodes()) {
+            for (String dep : node.dependencies) {
+                dependents.computeIfAbsent(dep, k -> new ArrayList<>()).add(node.projectName);
+            }
+        }
+
+        Set<String> result = new LinkedHashSet<>();
+        Deque<String> queue = new ArrayDeque<>(projects);
+        while (!queue.isEmpty()) {
+            String current = queue.poll();
+            if (result.add(current)) {
+                queue.addAll(dependents.getOrDefault(current, List.of()));
+            }
+        }
+        return result;
+    }
+
     /**
      * 递归构建依赖图
      */
@@ -168,11 +211,9 @@ public class DependencyGraphBuilder {
     }
 
     /**
-     * 加载项目配置
+     * 加载项目配置（ProjectModelRegistry 缓存）
      */
     private QinConfig loadConfig(Path projectDir) throws Exception {
-        Path configPath = projectDir.resolve(QinConstants.CONFIG_FILE);
-        String json = java.nio.file.Files.readString(configPath);
-        return new com.google.gson.Gson().fromJson(json, QinConfig.class);
+        return ProjectModelRegistry.config(projectDir);
     }
 }
@@ -144,27 +144,23 @@ public class FatJarBuilder {
     }
 
     private List<String> resolveDependencies() throws IOException {
-        // Check for cached classpath
-        Path classpathCache = QinPaths.getClasspathCache(cwd);
-        if (Files.exists(classpathCache)) {
-            String content = Files.readString(classpathCache);
-            // 移除换行符，确保正确解析
-            content = content.replace("\n", "").replace("\r", "");
-            // Simple JSON parsing
-            int start = content.indexOf("[");
-            int end = content.lastIndexOf("]");
-            if (start >= 0 && end > start) {
-                String arrayContent = content.substring(start + 1, end);
-                List<String> result = Arrays.stream(arrayContent.split(","))
-                        .map(s -> s.trim().replace("\"", ""))
-                        .filter(s -> !s.isEmpty())
-                        .collect(Collectors.toList());
-                if (debug) {
-                    System.out.println("[FatJar] Resolved " + result.size() + " dependencies from cache:");
-                    result.forEach(p -> System.out.println("[FatJar]   - " + p));
-                }
-                return result;
+        // Check for cached classpath: .qin/model.bin，其次 .qin/classpath.json（旧版本 sync 的结果）
+        List<String> cached = null;
+        ModelSnapshot snapshot = ModelSnapshot.load(Paths.get(cwd));
+        if (snapshot != null) {
+            cached = snapshot.classpath();
+        } else if (Files.exists(QinPaths.getClasspathCache(cwd))) {
+            cached = ProjectModelRegistry.get(Paths.get(cwd)).classpath();
+        }
+        if (cached != null) {
+            List<String> result = cached.stream()
+                    .filter(s -> !s.isEmpty())
+                    .collect(Collectors.toList());
+            if (debug) {
+                System.out.println("[FatJar] Resolved " + result.size() + " dependencies from cache:");
+                result.forEach(p -> System.out.println("[FatJar]   - " + p));
             }
+            return result;
         }
 
         // Fallback to real-time resolution
@@ -185,6 +181,12 @@ public class FatJarBuilder {
 
     private void extractJars(List<String> jarPaths) throws Exception {
         for (String jarPath : jarPaths) {
+            // 本地项目依赖是 build/classes 目录，直接复制
+            Path path = Paths.get(jarPath);
+            if (Files.isDirectory(path)) {
+                copyDir(path, Paths.get(tempDir));
+                continue;
+            }
             ProcessBuilder pb = new ProcessBuilder(jarCommand, "-xf", jarPath);
             pb.directory(new File(tempDir));
             Process proc = pb.start();
@@ -233,14 +235,16 @@ public class FatJarBuilder {
         String sourceDirPath = QinConstants.getSourceDir(config.java());
         Path srcDir = Paths.get(cwd, sourceDirPath);
 
-        List<String> javaFiles;
-        try (Stream<Path> walk = Files.walk(srcDir)) {
-            javaFiles = walk
-                    .filter(p -> p.toString().endsWith(".java"))
-                    .map(Path::toString)
-                    .collect(Collectors.toList());
+        // qin compile --watch 已把 build/classes 编译到最新（含资源）：直接复制，不再调用 javac
+        Path classesDir = QinPaths.getOutputDir(cwd);
+        if (Files.isDirectory(classesDir) && CompileStatus.isUpToDate(Paths.get(cwd), srcDir)) {
+            System.out.println("[FatJar] Up to date (qin compile --watch), reusing " + QinConstants.BUILD_CLASSES_DIR);
+            copyDir(classesDir, Paths.get(tempDir));
+            return;
         }
 
+        List<String> javaFiles = SourceIndex.forProject(Paths.get(cwd)).javaFiles(srcDir);
+
         if (javaFiles.isEmpty()) {
             throw new Exception("No Java files found in " + srcDir);
         }
@@ -285,18 +289,7 @@ public class FatJarBuilder {
     }
 
     private void copyResources(String srcDir) throws IOException {
-        String[] resourceDirs = {
-                Paths.get(cwd, "src", "resources").toString(),
-                Paths.get(cwd, "src", "main", "resources").toString(),
-                Paths.get(cwd, srcDir, "resources").toString()
-        };
-
-        for (String resourceDir : resourceDirs) {
-            Path resPath = Paths.get(resourceDir);
-            if (Files.exists(resPath)) {
-                copyDir(resPath, Paths.get(tempDir));
-            }
-        }
+        new ResourceCopier(cwd, srcDir, tempDir).copyResources();
     }
 
     private void generateManifest(String mainClass) throws IOException {
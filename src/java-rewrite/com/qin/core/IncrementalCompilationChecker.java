@@ -41,8 +41,15 @@ public class IncrementalCompilationChecker {
                 return true;
             }
 
+            // 内容未变的 class 不会重写，以最近一次成功编译的时间为准
+            long compiledAt = oldestClassTime;
+            Path stamp = QinPaths.getCompileStamp(projectDir.toString());
+            if (Files.exists(stamp)) {
+                compiledAt = Math.max(compiledAt, Files.getLastModifiedTime(stamp).toMillis());
+            }
+
             // 如果源文件比 class 文件新，需要重新编译
-            return latestSrcTime > oldestClassTime;
+            return latestSrcTime > compiledAt;
 
         } catch (IOException e) {
             // 出错时保守起见，认为需要编译
@@ -2,12 +2,17 @@ package com.qin.core;
 
 import com.qin.constants.QinConstants;
 import com.qin.types.*;
+import com.qin.utils.QinUtils;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
 
 import javax.tools.*;
 import java.io.*;
 import java.nio.file.*;
 import java.nio.file.attribute.FileTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.*;
 
 /**
@@ -23,6 +28,38 @@ public class JavaRunner {
     private final ClasspathBuilder classpathBuilder;
     private final DependencyGraphBuilder graphBuilder;
     private final IncrementalCompilationChecker incrementalChecker;
+    private Consumer<CompileDiagnostic> diagnosticListener;
+    private ProgressListener progressListener;
+    /**
+     * 最近写入的 class 字节（runner 常驻时在编译之间复用，见 OverlayFileManager）
+     */
+    private final OverlayFileManager.OutputCache outputCache = new OverlayFileManager.OutputCache();
+    /**
+     * 最近一次写磁盘的编译生成的 class 文件（compileIncremental 据此清理不再生成的 class）
+     */
+    private Set<Path> lastOutputs = Set.of();
+
+    /**
+     * 增量编译结果
+     *
+     * @param result          编译结果
+     * @param compiledSources 实际编译的源文件（修改的文件和受影响的依赖方），全量编译时为 null
+     * @param apiChanges      其他类可见部分变化的类（依赖本项目的目标据此重新编译）
+     */
+    public record IncrementalResult(CompileResult result, List<String> compiledSources,
+            ClassDependencyIndex.ApiChanges apiChanges) {
+    }
+
+    /**
+     * 编译进度回调
+     */
+    public interface ProgressListener {
+        /**
+         * @param done  已完成分析的源文件数
+         * @param total 本次编译的源文件数
+         */
+        void onProgress(int done, int total);
+    }
 
     public JavaRunner(QinConfig config, String classpath) {
         this(config, classpath, QinConstants.getCwd());
@@ -39,17 +76,51 @@ public class JavaRunner {
         this.incrementalChecker = new IncrementalCompilationChecker();
     }
 
+    /**
+     * 设置诊断回调，javac 每报告一条诊断立即调用（qin compile --watch 用于实时输出）
+     */
+    public void setDiagnosticListener(Consumer<CompileDiagnostic> listener) {
+        this.diagnosticListener = listener;
+    }
+
+    /**
+     * 设置进度回调，javac 每分析完一个源文件调用一次（BSP 用于 build/taskProgress）
+     */
+    public void setProgressListener(ProgressListener listener) {
+        this.progressListener = listener;
+    }
+
     /**
      * 编译 Java 源文件
      * 使用 javax.tools API，javac 自动处理增量编译
      * 自动检测并编译过期的本地依赖项目
+     * qin compile --watch 已把当前项目编译到最新时跳过（见 CompileStatus）
      */
     public CompileResult compile() {
-        try {
-            // 1. 先编译所有过期的本地依赖
-            compileOutdatedLocalDependencies();
+        compileOutdatedLocalDependencies();
+        if (CompileStatus.isUpToDate(Paths.get(cwd), getSourceDirPath())) {
+            System.out.println("  → Up to date (qin compile --watch)");
+            try {
+                // 资源同步是增量的，顺带执行，避免监听进程防抖期间修改的资源未生效
+                getResourceCopier().copyResources();
+            } catch (IOException e) {
+                return CompileResult.failure(e.getMessage());
+            }
+            return CompileResult.success(0, outputDir);
+        }
+        return compileCurrentOnly();
+    }
+
+    /**
+     * 编译过期的本地依赖和当前项目的全部源文件（不检查 qin compile --watch 的状态）
+     */
+    public CompileResult compileAll() {
+        compileOutdatedLocalDependencies();
+        return compileCurrentOnly();
+    }
 
-            // 2. 编译当前项目
+    private CompileResult compileCurrentOnly() {
+        try {
             Files.createDirectories(Paths.get(outputDir));
 
             // 使用 sourceDir 配置（默认 src）
@@ -61,19 +132,36 @@ public class JavaRunner {
                 return CompileResult.failure("No Java files found in " + srcDir);
             }
 
-            // 复制资源文件
-            ResourceCopier resourceCopier = new ResourceCopier(cwd, srcDirStr, outputDir);
-            resourceCopier.copyResources();
+            // 同步资源文件（只复制变化的文件，删除已移除的资源）
+            getResourceCopier().copyResources();
 
             System.out.println("  → Compiling " + allJavaFiles.size() + " files (javac handles incremental)...");
 
             // 使用 javax.tools API 编译（javac 自动增量编译）
-            return compileWithToolsApi(allJavaFiles);
+            long startedAt = System.currentTimeMillis();
+            CompileResult result = compileWithToolsApi(allJavaFiles);
+            if (result.success()) {
+                touchCompileStamp(startedAt);
+            }
+            return result;
         } catch (Exception e) {
             return CompileResult.failure(e.getMessage());
         }
     }
 
+    /**
+     * 记录编译时间：内容未变的 class 不会重写，mtime 不再代表最近一次编译
+     * （见 IncrementalCompilationChecker）
+     */
+    private void touchCompileStamp(long startedAt) throws IOException {
+        Path stamp = QinPaths.getCompileStamp(cwd);
+        Files.createDirectories(stamp.getParent());
+        if (!Files.exists(stamp)) {
+            Files.createFile(stamp);
+        }
+        Files.setLastModifiedTime(stamp, FileTime.fromMillis(startedAt));
+    }
+
     /**
      * 获取源码目录
      * 优先使用 java.sourceDir 配置，否则自动检测
@@ -94,73 +182,257 @@ public class JavaRunner {
         return ".";
     }
 
+    /**
+     * 编译测试源码到 build/test-classes
+     *
+     * @param testClasspath 测试依赖（devDependencies 等），会追加在主代码 classpath 之后
+     */
+    public CompileResult compileTests(String testClasspath) {
+        try {
+            Path testDir = getTestSourceDirPath();
+            List<String> testFiles = findJavaFiles(testDir);
+            Path testOutput = getTestOutputDir();
+            if (testFiles.isEmpty()) {
+                // 没有测试不是错误（TestRunner 报告 "No tests found"），清掉已删除测试留下的 class
+                QinUtils.deleteDir(testOutput);
+                return CompileResult.success(0, testOutput.toString());
+            }
+
+            Files.createDirectories(testOutput);
+            new ResourceCopier(cwd, getSourceDir(), testOutput.toString()).copyTestResources();
+
+            String cp = buildFullClasspath();
+            if (testClasspath != null && !testClasspath.isEmpty()) {
+                cp = cp.isEmpty() ? testClasspath : cp + ClasspathBuilder.getClasspathSeparator() + testClasspath;
+            }
+
+            System.out.println("  → Compiling " + testFiles.size() + " test files...");
+            return compileWithToolsApi(testFiles, testOutput.toString(), cp);
+        } catch (Exception e) {
+            return CompileResult.failure(e.getMessage());
+        }
+    }
+
+    /**
+     * 测试源码目录（java.testDir 配置，默认 src/test/java；不存在时尝试 test）
+     */
+    public Path getTestSourceDirPath() {
+        String configured = QinConstants.getTestDir(config.java());
+        Path testDir = Paths.get(cwd, configured);
+        if (!Files.isDirectory(testDir) && (config.java() == null || config.java().testDir() == null)
+                && Files.isDirectory(Paths.get(cwd, "test"))) {
+            return Paths.get(cwd, "test");
+        }
+        return testDir;
+    }
+
+    /**
+     * 测试编译输出目录
+     */
+    public Path getTestOutputDir() {
+        return Paths.get(cwd, QinConstants.BUILD_TEST_CLASSES_DIR);
+    }
+
+    /**
+     * 编译 JMH 基准测试源码到 build/jmh-classes
+     * 每次全量编译（先清空输出目录），避免已删除基准测试残留在 META-INF/BenchmarkList 中
+     *
+     * @param benchClasspath 基准测试依赖（benchDependencies + jmh-core），会追加在主代码 classpath 之后
+     * @param processorPath  JMH 注解处理器及其依赖
+     */
+    public CompileResult compileBenchmarks(String benchClasspath, String processorPath) {
+        try {
+            Path benchDir = getBenchSourceDirPath();
+            List<String> benchFiles = findJavaFiles(benchDir);
+            if (benchFiles.isEmpty()) {
+                return CompileResult.failure("No benchmark files found in " + benchDir);
+            }
+
+            Path benchOutput = getBenchOutputDir();
+            QinUtils.deleteDir(benchOutput);
+            Files.createDirectories(benchOutput);
+
+            String cp = buildFullClasspath();
+            if (benchClasspath != null && !benchClasspath.isEmpty()) {
+                cp = cp.isEmpty() ? benchClasspath : cp + ClasspathBuilder.getClasspathSeparator() + benchClasspath;
+            }
+
+            System.out.println("  → Compiling " + benchFiles.size() + " benchmark files...");
+            return compileWithToolsApi(benchFiles, benchOutput.toString(), cp,
+                    List.of("-processorpath", processorPath, "-processor", QinConstants.JMH_PROCESSOR));
+        } catch (Exception e) {
+            return CompileResult.failure(e.getMessage());
+        }
+    }
+
+    /**
+     * 基准测试源码目录（src/jmh/java）
+     */
+    public Path getBenchSourceDirPath() {
+        return Paths.get(cwd, QinConstants.BENCH_SOURCE_DIR);
+    }
+
+    /**
+     * 基准测试编译输出目录
+     */
+    public Path getBenchOutputDir() {
+        return Paths.get(cwd, QinConstants.BUILD_BENCH_CLASSES_DIR);
+    }
+
     /**
      * 使用 javax.tools API 编译
      */
     private CompileResult compileWithToolsApi(List<String> javaFiles) {
+        return compileWithToolsApi(javaFiles, outputDir, buildCompileClasspath());
+    }
+
+    private CompileResult compileWithToolsApi(List<String> javaFiles, String targetDir, String fullCp) {
+        return compileWithToolsApi(javaFiles, targetDir, fullCp, List.of());
+    }
+
+    /**
+     * @param extraOptions 额外的 javac 参数（例如注解处理器）
+     */
+    private CompileResult compileWithToolsApi(List<String> javaFiles, String targetDir, String fullCp,
+            List<String> extraOptions) {
+        return compileWithToolsApi(javaFiles, targetDir, fullCp, extraOptions, Map.of(), outputCache);
+    }
+
+    /**
+     * @param overlays 源文件 -> 未保存的内容（代替磁盘文件，并总是参与编译）
+     * @param cache    输出缓存，null 表示检查模式：class 只保留在内存中，不写磁盘
+     */
+    private CompileResult compileWithToolsApi(List<String> javaFiles, String targetDir, String fullCp,
+            List<String> extraOptions, Map<Path, String> overlays, OverlayFileManager.OutputCache cache) {
         JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
         if (compiler == null) {
             return CompileResult.failure("No Java compiler available. Make sure you're using JDK, not JRE.");
         }
 
-        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
-            // 准备源文件
-            Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromStrings(javaFiles);
+        try (OverlayFileManager fileManager = new OverlayFileManager(
+                compiler.getStandardFileManager(null, null, null), overlays, cache)) {
+            // 准备源文件（有覆盖时使用未保存的内容）
+            List<JavaFileObject> compilationUnits = fileManager.compilationUnits(javaFiles);
 
             // 编译选项
             List<String> options = new ArrayList<>();
             options.add("-d");
-            options.add(outputDir);
+            options.add(targetDir);
             options.add("-encoding");
             options.add(QinConstants.CHARSET_UTF8);
 
-            String fullCp = buildCompileClasspath();
             System.out.println("  [DEBUG] Compile classpath: "
                     + (fullCp != null ? fullCp.substring(0, Math.min(200, fullCp.length())) + "..." : "null"));
             if (fullCp != null && !fullCp.isEmpty()) {
                 options.add("-cp");
                 options.add(fullCp);
             }
-
-            // 收集诊断信息
-            DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+            options.addAll(extraOptions);
+
+            // 收集诊断信息（设置了回调时同时实时转发）
+            StringBuilder errorMsg = new StringBuilder();
+            Consumer<CompileDiagnostic> listener = diagnosticListener;
+            DiagnosticListener<JavaFileObject> diagnostics = diagnostic -> {
+                if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                    errorMsg.append(diagnostic.getMessage(null)).append("\n");
+                }
+                if (listener != null) {
+                    listener.accept(toCompileDiagnostic(diagnostic));
+                }
+            };
 
             // 执行编译
             JavaCompiler.CompilationTask task = compiler.getTask(
                     null, fileManager, diagnostics, options, null, compilationUnits);
+            ProgressListener progress = progressListener;
+            if (progress != null && task instanceof JavacTask javacTask) {
+                javacTask.addTaskListener(progressTracker(progress, compilationUnits.size()));
+            }
 
             boolean success = task.call();
 
             if (!success) {
-                StringBuilder errorMsg = new StringBuilder();
-                for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
-                    if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
-                        errorMsg.append(diagnostic.getMessage(null)).append("\n");
-                    }
-                }
                 return CompileResult.failure(errorMsg.toString().trim());
             }
 
-            return CompileResult.success(javaFiles.size(), outputDir);
+            if (cache != null) {
+                lastOutputs = Set.copyOf(fileManager.outputs());
+            }
+            if (cache != null && fileManager.unchanged() > 0) {
+                System.out.println("  → Wrote " + fileManager.written() + " class files ("
+                        + fileManager.unchanged() + " unchanged)");
+            }
+            return CompileResult.success(compilationUnits.size(), targetDir);
         } catch (IOException e) {
             return CompileResult.failure(e.getMessage());
         }
     }
 
+    /**
+     * 按源文件统计 ANALYZE 完成事件（一个文件中有多个顶层类型时只计一次）
+     */
+    private static TaskListener progressTracker(ProgressListener progress, int total) {
+        Set<JavaFileObject> analyzed = new HashSet<>();
+        return new TaskListener() {
+            @Override
+            public void finished(TaskEvent e) {
+                if (e.getKind() == TaskEvent.Kind.ANALYZE && e.getSourceFile() != null
+                        && analyzed.add(e.getSourceFile())) {
+                    progress.onProgress(analyzed.size(), total);
+                }
+            }
+        };
+    }
+
+    private static CompileDiagnostic toCompileDiagnostic(Diagnostic<? extends JavaFileObject> diagnostic) {
+        JavaFileObject source = diagnostic.getSource();
+        String file = null;
+        if (source != null) {
+            try {
+                file = Paths.get(source.toUri()).toString();
+            } catch (RuntimeException e) {
+                file = source.getName();
+            }
+        }
+        return new CompileDiagnostic(diagnostic.getKind().name(), file,
+                diagnostic.getLineNumber(), diagnostic.getColumnNumber(), diagnostic.getMessage(null));
+    }
+
     /**
      * Run compiled Java program
      */
     public void run(List<String> args) throws Exception {
-        ConfigLoader configLoader = new ConfigLoader(cwd);
-        ParsedEntry parsed = configLoader.parseEntry(config.entry());
+        Process proc = start(null, args);
 
-        String fullClasspath = buildFullClasspath();
+        int exitCode = proc.waitFor();
+        if (exitCode != 0) {
+            throw new RuntimeException("Java program exited with code " + exitCode);
+        }
+    }
+
+    /**
+     * 启动入口类但不等待结束（dev 模式由调用方管理进程生命周期）
+     *
+     * @param jvmArgs 额外的 JVM 参数（如 -javaagent），可为 null
+     * @param args    传递给 main 方法的参数
+     */
+    public Process start(List<String> jvmArgs, List<String> args) throws IOException {
+        return start(jvmArgs, buildFullClasspath(), getMainClassName(), args);
+    }
 
+    /**
+     * 用指定的 classpath 和 main 类启动（dev 模式的两级类加载器启动器使用）
+     */
+    public Process start(List<String> jvmArgs, String classpath, String mainClass, List<String> args)
+            throws IOException {
         List<String> javaArgs = new ArrayList<>();
         javaArgs.add("java");
+        if (jvmArgs != null) {
+            javaArgs.addAll(jvmArgs);
+        }
         javaArgs.add("-cp");
-        javaArgs.add(fullClasspath);
-        javaArgs.add(parsed.className());
+        javaArgs.add(classpath);
+        javaArgs.add(mainClass);
         if (args != null) {
             javaArgs.addAll(args);
         }
@@ -168,12 +440,180 @@ public class JavaRunner {
         ProcessBuilder pb = new ProcessBuilder(javaArgs);
         pb.directory(new File(cwd));
         pb.inheritIO();
-        Process proc = pb.start();
+        return pb.start();
+    }
 
-        int exitCode = proc.waitFor();
-        if (exitCode != 0) {
-            throw new RuntimeException("Java program exited with code " + exitCode);
+    /**
+     * 入口类的完全限定名
+     */
+    public String getMainClassName() {
+        ConfigLoader configLoader = new ConfigLoader(cwd);
+        return configLoader.parseEntry(config.entry()).className();
+    }
+
+    /**
+     * 运行时 classpath（输出目录 + 依赖）
+     */
+    public String getRuntimeClasspath() {
+        return buildFullClasspath();
+    }
+
+    /**
+     * 编译输出目录
+     */
+    public Path getOutputDir() {
+        return Paths.get(outputDir);
+    }
+
+    /**
+     * 主代码资源同步器（输出到 build/classes）
+     */
+    public ResourceCopier getResourceCopier() {
+        return new ResourceCopier(cwd, getSourceDir(), outputDir);
+    }
+
+    /**
+     * 源码目录（绝对路径）
+     */
+    public Path getSourceDirPath() {
+        return Paths.get(cwd, getSourceDir());
+    }
+
+    /**
+     * 增量编译（dev 模式、qin compile --watch、BSP 使用）
+     * 输出目录在 classpath 上，未改动的类直接引用已有 class
+     *
+     * 1. 编译 changed 和引用了上游 API 变化类的源文件；changed 为 null 或上游常量变化时全量编译
+     * 2. 比较编译前后的类结构（ClassDependencyIndex）：API 变化时再编译引用了这些类的源文件，
+     *    直到没有新的依赖方；常量变化时全量编译（常量已内联到使用方，无法从引用找到）
+     * 3. 删除本次编译的源文件不再生成的 class（例如删掉的内部类），全量编译时删除所有未生成的 class
+     *
+     * @param changed  修改或新增的源文件，null 表示全量编译
+     * @param upstream 依赖的项目中 API 变化的类
+     */
+    public IncrementalResult compileIncremental(List<String> changed, ClassDependencyIndex.ApiChanges upstream) {
+        ClassDependencyIndex classIndex = ClassDependencyIndex.forDir(Paths.get(outputDir));
+        Map<Path, ClassFileInfo> before = classIndex.scan();
+        if (changed == null || upstream.constantsChanged()) {
+            return compileFull(classIndex, before);
+        }
+        try {
+            Files.createDirectories(Paths.get(outputDir));
+        } catch (IOException e) {
+            return new IncrementalResult(CompileResult.failure(e.getMessage()), List.of(),
+                    ClassDependencyIndex.ApiChanges.NONE);
+        }
+
+        Map<String, Path> sourcesByKey = new HashMap<>();
+        SourceIndex sourceIndex = SourceIndex.forProject(Paths.get(cwd));
+        for (SourceIndex.SourceFile source : sourceIndex.filesUnder(getSourceDirPath())) {
+            sourcesByKey.put(ClassDependencyIndex.sourceKey(source), sourceIndex.resolve(source));
+        }
+
+        Set<String> batch = new TreeSet<>(changed);
+        batch.addAll(sourcesOf(ClassDependencyIndex.referencing(before, upstream.classes()), sourcesByKey));
+        List<String> compiled = new ArrayList<>();
+        Set<String> apiChanged = new TreeSet<>();
+        Map<Path, ClassFileInfo> current = before;
+        while (!batch.isEmpty()) {
+            if (!compiled.isEmpty()) {
+                System.out.println("  → Recompiling " + batch.size() + " dependent files (API changed)");
+            }
+            List<String> files = new ArrayList<>(batch);
+            CompileResult result = compileWithToolsApi(files);
+            compiled.addAll(files);
+            if (!result.isSuccess()) {
+                return new IncrementalResult(result, compiled, ClassDependencyIndex.ApiChanges.NONE);
+            }
+            removeStaleOutputs(current, sourceKeys(files, sourceIndex));
+
+            Map<Path, ClassFileInfo> next = classIndex.scan();
+            ClassDependencyIndex.ApiChanges changes = ClassDependencyIndex.diff(current, next);
+            if (changes.constantsChanged()) {
+                System.out.println("  → Constants changed, recompiling all files");
+                return compileFull(classIndex, before);
+            }
+            apiChanged.addAll(changes.classes());
+            batch = new TreeSet<>(sourcesOf(ClassDependencyIndex.referencing(next, changes.classes()), sourcesByKey));
+            batch.removeAll(compiled);
+            current = next;
         }
+        return new IncrementalResult(CompileResult.success(compiled.size(), outputDir), compiled,
+                new ClassDependencyIndex.ApiChanges(apiChanged, false));
+    }
+
+    private IncrementalResult compileFull(ClassDependencyIndex classIndex, Map<Path, ClassFileInfo> before) {
+        lastOutputs = null;
+        CompileResult result = compileCurrentOnly();
+        if (!result.isSuccess() || lastOutputs == null) {
+            return new IncrementalResult(result, null, ClassDependencyIndex.ApiChanges.NONE);
+        }
+        // 全量编译生成所有源文件的 class，其余的都来自已删除的源文件
+        removeStaleOutputs(before, null);
+        return new IncrementalResult(result, null, ClassDependencyIndex.diff(before, classIndex.scan()));
+    }
+
+    /**
+     * 删除上次编译的输出中、本次没有生成的 class
+     *
+     * @param classes    编译前输出目录中的类
+     * @param sourceKeys 本次编译的源文件键，null 表示全量编译（所有未生成的 class）
+     */
+    private void removeStaleOutputs(Map<Path, ClassFileInfo> classes, Set<String> sourceKeys) {
+        for (Map.Entry<Path, ClassFileInfo> entry : classes.entrySet()) {
+            String key = ClassDependencyIndex.sourceKey(entry.getValue());
+            if (key == null || lastOutputs.contains(entry.getKey())
+                    || (sourceKeys != null && !sourceKeys.contains(key))) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(entry.getKey());
+                System.out.println("  → Removed stale " + entry.getValue().getClassName());
+            } catch (IOException e) {
+                System.err.println("Warning: Failed to delete " + entry.getKey() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static Set<String> sourceKeys(List<String> files, SourceIndex sourceIndex) {
+        Set<String> keys = new HashSet<>();
+        for (String file : files) {
+            SourceIndex.SourceFile source = sourceIndex.get(Paths.get(file));
+            if (source != null) {
+                keys.add(ClassDependencyIndex.sourceKey(source));
+            }
+        }
+        return keys;
+    }
+
+    private static Set<String> sourcesOf(List<ClassFileInfo> classes, Map<String, Path> sourcesByKey) {
+        Set<String> sources = new TreeSet<>();
+        for (ClassFileInfo info : classes) {
+            Path source = sourcesByKey.get(ClassDependencyIndex.sourceKey(info));
+            if (source != null) {
+                sources.add(source.toString());
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * 检查指定的源文件和编辑器中未保存的文件（BSP qin/check）
+     * 输出的 class 只保留在内存中，不写磁盘，也不影响下一次正常编译
+     *
+     * @param javaFiles 需要一起检查的磁盘源文件（例如上次编译后修改过的）
+     * @param overlays  源文件 -> 未保存的内容
+     */
+    public CompileResult checkSources(List<String> javaFiles, Map<Path, String> overlays) {
+        if (javaFiles.isEmpty() && overlays.isEmpty()) {
+            return CompileResult.success(0, outputDir);
+        }
+        try {
+            Files.createDirectories(Paths.get(outputDir));
+        } catch (IOException e) {
+            return CompileResult.failure(e.getMessage());
+        }
+        return compileWithToolsApi(javaFiles, outputDir, buildCompileClasspath(), List.of(), overlays, null);
     }
 
     /**
@@ -236,8 +676,14 @@ public class JavaRunner {
      * 将 Java 文件路径转换为完全限定类名
      * 例如: src/main/java/com/slime/parser/test/MinimalTokenTest.java ->
      * com.slime.parser.test.MinimalTokenTest
+     * 优先使用源码索引中的包名和类型（main 方法所在的类），不在索引中时按路径推断
      */
     private String javaFilePathToClassName(String javaFilePath) {
+        SourceIndex.SourceFile source = SourceIndex.forProject(Paths.get(cwd)).get(Paths.get(cwd, javaFilePath));
+        if (source != null) {
+            return source.hasMain() ? source.mainClassName() : source.className();
+        }
+
         // 标准化路径分隔符
         String normalized = javaFilePath.replace('\\', '/');
 
@@ -296,16 +742,7 @@ public class JavaRunner {
     }
 
     private List<String> findJavaFiles(Path dir) throws IOException {
-        if (!Files.exists(dir)) {
-            return new ArrayList<>();
-        }
-
-        try (Stream<Path> walk = Files.walk(dir)) {
-            return walk
-                    .filter(p -> p.toString().endsWith(".java"))
-                    .map(Path::toString)
-                    .collect(Collectors.toList());
-        }
+        return SourceIndex.forProject(Paths.get(cwd)).javaFiles(dir);
     }
 
     private String readStream(InputStream is) throws IOException {
@@ -332,8 +769,8 @@ public class JavaRunner {
                 return; // 没有本地依赖
             }
 
-            // 2. 构建依赖图
-            DependencyGraphBuilder.DependencyGraph graph = graphBuilder.buildGraph(config.name(), allLocalProjects);
+            // 2. 构建依赖图（当前项目不在本地项目中，从各个本地依赖出发）
+            DependencyGraphBuilder.DependencyGraph graph = graphBuilder.buildWorkspaceGraph(allLocalProjects);
 
             // 3. 检测需要重新编译的项目
             List<String> outdated = incrementalChecker
@@ -362,16 +799,24 @@ public class JavaRunner {
 
     /**
      * 发现所有本地项目依赖
+     *
+     * 快照（.qin/model.bin）有效时直接使用 qin sync 记录的本地项目，否则重新解析
      */
     private Map<String, LocalProjectResolver.ProjectInfo> discoverLocalProjects(
-            LocalProjectResolver resolver, Map<String, String> deps) {
-        Map<String, LocalProjectResolver.ProjectInfo> result = new HashMap<>();
-
-        // 简化实现：只收集 deps 中声明的本地依赖
-        LocalProjectResolver.ResolutionResult localResult = resolver.resolveDependencies(deps);
+            LocalProjectResolver resolver, Map<String, String> deps) throws IOException {
+        Map<String, Path> localProjects = new LinkedHashMap<>();
+
+        Path projectDir = Paths.get(cwd);
+        ModelSnapshot snapshot = ModelSnapshot.load(projectDir);
+        if (snapshot != null && snapshot.isUpToDate(ProjectModelRegistry.get(projectDir).configHash())) {
+            snapshot.localProjects().forEach((name, dir) -> localProjects.put(name, Paths.get(dir)));
+        } else {
+            localProjects.putAll(resolver.resolveDependencies(deps).localProjects);
+        }
 
-        // 这里需要扩展 LocalProjectResolver 以提供更多信息
-        // 暂时返回空，表示功能尚未完全实现
+        Map<String, LocalProjectResolver.ProjectInfo> result = new LinkedHashMap<>();
+        localProjects.forEach((name, dir) -> result.put(name, new LocalProjectResolver.ProjectInfo(
+                name, dir, dir.resolve(QinConstants.BUILD_CLASSES_DIR))));
         return result;
     }
 
@@ -389,11 +834,20 @@ public class JavaRunner {
                 return;
             }
 
-            String json = Files.readString(configPath);
-            QinConfig depConfig = new com.google.gson.Gson().fromJson(json, QinConfig.class);
+            ProjectModelRegistry.ProjectModel depModel = ProjectModelRegistry.get(projectInfo.projectDir);
+            QinConfig depConfig = depModel.config();
+
+            // 依赖项目自己的 classpath 来自它的 .qin/classpath.json，未同步时无法编译
+            Map<String, String> depDependencies = depConfig.dependencies();
+            if (depModel.classpath().isEmpty() && depDependencies != null && !depDependencies.isEmpty()) {
+                System.err.println("      Warning: Dependencies not synced, run qin sync in " + projectInfo.projectDir);
+                return;
+            }
 
             // 创建 JavaRunner 编译依赖项目
-            JavaRunner depRunner = new JavaRunner(depConfig, "", projectInfo.projectDir.toString());
+            JavaRunner depRunner = new JavaRunner(depConfig,
+                    String.join(QinConstants.getClasspathSeparator(), depModel.classpath()),
+                    projectInfo.projectDir.toString());
             CompileResult result = depRunner.compileCurrentOnly(); // 只编译当前，不递归
 
             if (result.isSuccess()) {
@@ -405,31 +859,4 @@ public class JavaRunner {
             System.err.println("      Error: " + e.getMessage());
         }
     }
-
-    /**
-     * 只编译当前项目，不编译依赖（避免递归）
-     */
-    private CompileResult compileCurrentOnly() {
-        try {
-            Files.createDirectories(Paths.get(outputDir));
-
-            // 使用 sourceDir 配置（默认 src）
-            String srcDirStr = getSourceDir();
-            Path srcDir = Paths.get(cwd, srcDirStr);
-
-            List<String> allJavaFiles = findJavaFiles(srcDir);
-            if (allJavaFiles.isEmpty()) {
-                return CompileResult.failure("No Java files found in " + srcDir);
-            }
-
-            // 复制资源文件
-            ResourceCopier resourceCopier = new ResourceCopier(cwd, srcDirStr, outputDir);
-            resourceCopier.copyResources();
-
-            // 使用 javax.tools API 编译（javac 自动增量编译）
-            return compileWithToolsApi(allJavaFiles);
-        } catch (Exception e) {
-            return CompileResult.failure(e.getMessage());
-        }
-    }
 }
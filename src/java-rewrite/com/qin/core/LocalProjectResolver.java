@@ -1,12 +1,10 @@
 package com.qin.core;
 
-import com.google.gson.Gson;
 import com.qin.constants.QinConstants;
-import com.qin.types.QinConfig;
 
-import java.io.IOException;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 本地项目解析器
@@ -21,33 +19,34 @@ import java.util.*;
 public class LocalProjectResolver {
 
     private final Path startDir;
-    private final Gson gson;
 
     public LocalProjectResolver(String workingDir) {
         this.startDir = Paths.get(workingDir).toAbsolutePath();
-        this.gson = new Gson();
     }
 
     // ==================== 公开的静态方法 ====================
 
     /**
      * 扫描工作目录下的所有 Qin 项目路径
-     * 供 IDEA 插件等外部调用
+     * 供 IDEA 插件等外部调用，通过 workspace root 的工作区索引（.qin/workspace-index）
      * 
      * @param workingDir 工作目录
      * @return 所有发现的 Qin 项目路径列表
      */
     public static List<Path> scanAllProjects(String workingDir) {
         LocalProjectResolver resolver = new LocalProjectResolver(workingDir);
-        List<Path> projects = new ArrayList<>();
 
         // 向上查找 workspace root
         Path workspaceRoot = resolver.findWorkspaceRoot(resolver.startDir);
 
-        // 从 workspace root 向下扫描
-        resolver.scanProjects(workspaceRoot, projects, 0, QinConstants.MAX_SCAN_DEPTH);
+        return WorkspaceIndex.forRoot(workspaceRoot).projectDirs();
+    }
 
-        return projects;
+    /**
+     * 发现工作区中的所有本地项目（项目名 -> 项目信息，就近优先）
+     */
+    public Map<String, ProjectInfo> discoverProjects() {
+        return discoverLocalProjects();
     }
 
     /**
@@ -66,6 +65,7 @@ public class LocalProjectResolver {
 
         // 2. 分类依赖:本地 vs 远程
         List<String> localClasspaths = new ArrayList<>();
+        Map<String, Path> localDependencies = new LinkedHashMap<>();
         Map<String, String> remoteDependencies = new LinkedHashMap<>();
 
         for (Map.Entry<String, String> dep : dependencies.entrySet()) {
@@ -76,6 +76,7 @@ public class LocalProjectResolver {
             if (project != null) {
                 // 本地项目:使用 build/classes 路径
                 localClasspaths.add(project.buildClassesPath.toString());
+                localDependencies.put(fullName, project.projectDir);
                 System.err.println("[DEBUG] Matched local: " + fullName + " -> " + project.buildClassesPath);
             } else {
                 // 远程依赖:需要下载
@@ -89,7 +90,7 @@ public class LocalProjectResolver {
         String separator = QinConstants.getClasspathSeparator();
         String localClasspath = localClasspaths.isEmpty() ? "" : String.join(separator, localClasspaths);
 
-        return new ResolutionResult(localClasspath, remoteDependencies);
+        return new ResolutionResult(localClasspath, localDependencies, remoteDependencies);
     }
 
     /**
@@ -97,7 +98,7 @@ public class LocalProjectResolver {
      * 
      * 新策略：
      * 1. 向上查找 workspace root
-     * 2. 从 workspace root 递归向下扫描所有项目
+     * 2. 从工作区索引获取所有项目（索引只在目录变化时重新扫描）
      * 3. 按距离排序（近的优先）
      * 
      * 返回Map: fullName -> ProjectInfo
@@ -110,52 +111,40 @@ public class LocalProjectResolver {
         Path workspaceRoot = findWorkspaceRoot(startDir);
         System.err.println("[DEBUG] Workspace root: " + workspaceRoot);
 
-        // 2. 从 workspace root 递归向下扫描所有项目
-        List<Path> projectPaths = new ArrayList<>();
-        scanProjects(workspaceRoot, projectPaths, 0, QinConstants.MAX_SCAN_DEPTH);
+        // 2. 从工作区索引获取所有项目（名称已在索引中，不再逐个读取配置）
+        List<WorkspaceIndex.Project> indexed = new ArrayList<>(WorkspaceIndex.forRoot(workspaceRoot).projects());
 
-        System.err.println("[DEBUG] Found " + projectPaths.size() + " project paths:");
-        for (Path p : projectPaths) {
-            System.err.println("[DEBUG]   - " + p);
+        System.err.println("[DEBUG] Found " + indexed.size() + " project paths:");
+        for (WorkspaceIndex.Project p : indexed) {
+            System.err.println("[DEBUG]   - " + p.dir());
         }
 
         // 3. 按距离排序（近的优先）
-        projectPaths.sort(Comparator.comparingInt(p -> startDir.toAbsolutePath().normalize()
-                .relativize(p.toAbsolutePath().normalize())
-                .getNameCount()));
+        Path from = startDir.toAbsolutePath().normalize();
+        indexed.sort(Comparator.comparingInt(p -> from.relativize(p.dir()).getNameCount()));
 
         // 4. 加载项目信息（就近优先，已存在的不覆盖）
-        for (Path projectPath : projectPaths) {
-            try {
-                Path configPath = projectPath.resolve(QinConstants.CONFIG_FILE);
-                QinConfig config = loadConfig(configPath);
-                String fullName = config.name(); // "com.slime:slime-token"
-
-                // 就近优先: 如果已存在，不覆盖
-                if (!projects.containsKey(fullName)) {
-                    Path buildPath = projectPath.resolve(QinConstants.BUILD_CLASSES_DIR);
-                    projects.put(fullName, new ProjectInfo(
-                            fullName,
-                            projectPath,
-                            buildPath));
-                    System.err.println("[DEBUG] Added project: " + fullName + " -> " + buildPath);
-                }
-            } catch (Exception e) {
-                System.err.println("[DEBUG] Failed to load config from " + projectPath + ": " + e.getMessage());
+        for (WorkspaceIndex.Project project : indexed) {
+            String fullName = project.name(); // "com.slime:slime-token"
+            if (fullName == null) {
+                System.err.println("[DEBUG] Failed to load config from " + project.dir() + ": no name");
+                continue;
+            }
+
+            // 就近优先: 如果已存在，不覆盖
+            if (!projects.containsKey(fullName)) {
+                Path buildPath = project.dir().resolve(QinConstants.BUILD_CLASSES_DIR);
+                projects.put(fullName, new ProjectInfo(
+                        fullName,
+                        project.dir(),
+                        buildPath));
+                System.err.println("[DEBUG] Added project: " + fullName + " -> " + buildPath);
             }
         }
 
         return projects;
     }
 
-    /**
-     * 加载qin.config.json
-     */
-    private QinConfig loadConfig(Path configPath) throws IOException {
-        String json = Files.readString(configPath);
-        return gson.fromJson(json, QinConfig.class);
-    }
-
     // ==================== workspace 扫描逻辑 ====================
     // 使用 QinConstants.PROJECT_ROOT_MARKERS 和 QinConstants.MAX_SCAN_DEPTH
 
@@ -207,34 +196,25 @@ public class LocalProjectResolver {
     }
 
     /**
-     * 递归扫描目录查找 qin.config.json
+     * 扫描目录下的 qin.config.json（WorkspaceWalker 并行冷扫描，不读写工作区索引），
+     * 按路径排序追加到 projects
      */
     public void scanProjects(Path dir, List<Path> projects, int depth, int maxDepth) {
         if (depth >= maxDepth || !Files.exists(dir)) {
             return;
         }
 
-        // 先检查当前目录是否有配置文件
-        if (Files.exists(dir.resolve(QinConstants.CONFIG_FILE)) && !projects.contains(dir)) {
-            projects.add(dir);
-        }
-
-        // 扫描子目录
-        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, Files::isDirectory)) {
-            for (Path subDir : stream) {
-                String dirName = subDir.getFileName().toString();
-
-                // 使用常量排除特殊目录
-                if (QinConstants.EXCLUDED_DIRS.contains(dirName) ||
-                        dirName.startsWith(QinConstants.HIDDEN_PREFIX)) {
-                    continue;
-                }
-
-                scanProjects(subDir, projects, depth + 1, maxDepth);
+        Set<Path> found = ConcurrentHashMap.newKeySet();
+        WorkspaceWalker.scan(dir, maxDepth - depth, new WorkspaceWalker.Listener() {
+            @Override
+            public void onProject(WorkspaceIndex.Project project) {
+                found.add(project.dir());
             }
-        } catch (IOException e) {
-            // 忽略目录遍历错误
-        }
+        });
+        found.stream()
+                .sorted()
+                .filter(project -> !projects.contains(project))
+                .forEach(projects::add);
     }
 
     /**
@@ -263,10 +243,17 @@ public class LocalProjectResolver {
      */
     public static class ResolutionResult {
         public final String localClasspath; // 本地项目的classpath字符串
+        public final Map<String, Path> localProjects; // 匹配到的本地项目（名称 -> 项目目录）
         public final Map<String, String> remoteDependencies; // 需要从Maven下载的依赖
 
         public ResolutionResult(String localClasspath, Map<String, String> remoteDependencies) {
+            this(localClasspath, new LinkedHashMap<>(), remoteDependencies);
+        }
+
+        public ResolutionResult(String localClasspath, Map<String, Path> localProjects,
+                Map<String, String> remoteDependencies) {
             this.localClasspath = localClasspath;
+            this.localProjects = localProjects;
             this.remoteDependencies = remoteDependencies;
         }
     }
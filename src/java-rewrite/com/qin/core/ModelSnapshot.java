@@ -0,0 +1,258 @@
+package com.qin.core;
+
+import com.qin.constants.QinConstants;
+import com.qin.utils.QinUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * 项目模型二进制快照（.qin/model.bin）
+ *
+ * qin sync 写入，qin run / build 启动时一次读入堆内存后解码，什么都没变时跳过依赖解析和环境检查，
+ * 并直接用记录的本地项目检查哪些本地依赖需要重新编译。
+ * 不使用内存映射：映射在 GC 前不会释放，Windows 上会导致随后 save() 的替换失败。
+ * 内容：配置哈希、依赖 classpath、本地项目依赖（名称 -> 目录）、classpath 文件指纹，
+ * 以及 javac 检查通过时的环境（java.home + PATH 的哈希）。
+ *
+ * 格式（大端）：magic "QINM" | version | payload 长度 | payload 的 CRC32 | payload。
+ * payload 中字符串为长度 + UTF-8 字节，列表为数量 + 元素。
+ * 魔数、版本、长度或校验和不符时视为不存在，调用方重新同步。
+ * classpath.json 仍然同时写入，供 IDEA 插件和 BSP 使用
+ *
+ * @param configHash          同步时 qin.config.json 的 SHA-256
+ * @param classpath           依赖 classpath（按配置顺序）
+ * @param localProjects       本地项目依赖（名称 -> 项目目录）
+ * @param fingerprints        classpath 中每个文件的指纹
+ * @param verifiedEnvironment javac 检查通过时的 environmentKey()，未检查时为空字符串
+ */
+public record ModelSnapshot(
+        String configHash,
+        List<String> classpath,
+        Map<String, String> localProjects,
+        List<Fingerprint> fingerprints,
+        String verifiedEnvironment) {
+
+    private static final int MAGIC = 0x51494E4D; // "QINM"
+
+    /**
+     * 格式版本，格式变化时递增，旧快照直接忽略
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * 文件指纹
+     *
+     * @param path  文件路径
+     * @param mtime 文件 mtime，目录为 -1（只检查存在，编译会改变其 mtime）
+     * @param size  文件大小，目录为 -1
+     */
+    public record Fingerprint(String path, long mtime, long size) {
+
+        boolean matches() {
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(Paths.get(path), BasicFileAttributes.class);
+            } catch (IOException e) {
+                return false;
+            }
+            if (mtime < 0) {
+                return attrs.isDirectory();
+            }
+            return attrs.lastModifiedTime().toMillis() == mtime && attrs.size() == size;
+        }
+    }
+
+    public ModelSnapshot {
+        classpath = List.copyOf(classpath);
+        localProjects = Collections.unmodifiableMap(new LinkedHashMap<>(localProjects));
+        fingerprints = List.copyOf(fingerprints);
+        verifiedEnvironment = verifiedEnvironment != null ? verifiedEnvironment : "";
+    }
+
+    /**
+     * 根据同步结果创建快照，记录 classpath 中每个文件的指纹
+     */
+    public static ModelSnapshot capture(String configHash, List<String> classpath,
+            Map<String, String> localProjects, String verifiedEnvironment) {
+        List<Fingerprint> fingerprints = new ArrayList<>();
+        for (String entry : classpath) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(Paths.get(entry), BasicFileAttributes.class);
+                fingerprints.add(attrs.isDirectory()
+                        ? new Fingerprint(entry, -1, -1)
+                        : new Fingerprint(entry, attrs.lastModifiedTime().toMillis(), attrs.size()));
+            } catch (IOException e) {
+                // 本地项目尚未编译时 build/classes 不存在，按目录记录
+                fingerprints.add(new Fingerprint(entry, -1, -1));
+            }
+        }
+        return new ModelSnapshot(configHash, classpath, localProjects, fingerprints, verifiedEnvironment);
+    }
+
+    /**
+     * 当前环境的标识（java.home + PATH 的哈希），变化后需要重新检查 javac
+     */
+    public static String environmentKey() {
+        String key = System.getProperty("java.home") + "\n" + Objects.toString(System.getenv("PATH"), "");
+        return QinUtils.sha256(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 配置内容未变、classpath 中的文件都未变化，且记录的本地项目仍然存在
+     */
+    public boolean isUpToDate(String currentConfigHash) {
+        if (!configHash.equals(currentConfigHash)) {
+            return false;
+        }
+        for (Fingerprint fingerprint : fingerprints) {
+            if (!fingerprint.matches()) {
+                return false;
+            }
+        }
+        for (String dir : localProjects.values()) {
+            if (!Files.isRegularFile(Paths.get(dir, QinConstants.CONFIG_FILE))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 当前环境是否已检查过 javac
+     */
+    public boolean isEnvironmentVerified() {
+        return verifiedEnvironment.equals(environmentKey());
+    }
+
+    public ModelSnapshot withVerifiedEnvironment(String environment) {
+        return new ModelSnapshot(configHash, classpath, localProjects, fingerprints, environment);
+    }
+
+    /**
+     * classpath 字符串（平台分隔符）
+     */
+    public String classpathString() {
+        return String.join(QinConstants.getClasspathSeparator(), classpath);
+    }
+
+    // ==================== 读写 ====================
+
+    /**
+     * 读取项目的快照，不存在或无效时返回 null
+     */
+    public static ModelSnapshot load(Path projectDir) {
+        Path file = QinPaths.getModelSnapshot(projectDir.toString());
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            int size = buffer.remaining();
+            if (size < HEADER_SIZE) {
+                return null;
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length != size - HEADER_SIZE) {
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice());
+            if ((int) crc.getValue() != checksum) {
+                return null;
+            }
+            return decode(buffer);
+        } catch (IOException | RuntimeException e) {
+            // 不存在、截断或损坏：重新同步
+            return null;
+        }
+    }
+
+    /**
+     * 写入项目的 .qin/model.bin（先写临时文件再移动，并发运行不会读到半个文件）
+     */
+    public void save(Path projectDir) throws IOException {
+        byte[] payload = encode();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(payload.length).putInt((int) crc.getValue());
+
+        Path file = QinPaths.getModelSnapshot(projectDir.toString());
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), "model", ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.write(new ByteBuffer[] { header.flip(), ByteBuffer.wrap(payload) });
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, configHash);
+        writeString(out, verifiedEnvironment);
+        out.writeInt(classpath.size());
+        for (String entry : classpath) {
+            writeString(out, entry);
+        }
+        out.writeInt(localProjects.size());
+        for (Map.Entry<String, String> project : localProjects.entrySet()) {
+            writeString(out, project.getKey());
+            writeString(out, project.getValue());
+        }
+        out.writeInt(fingerprints.size());
+        for (Fingerprint fingerprint : fingerprints) {
+            writeString(out, fingerprint.path());
+            out.writeLong(fingerprint.mtime());
+            out.writeLong(fingerprint.size());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static ModelSnapshot decode(ByteBuffer in) {
+        String configHash = readString(in);
+        String verifiedEnvironment = readString(in);
+        int classpathCount = in.getInt();
+        List<String> classpath = new ArrayList<>(classpathCount);
+        for (int i = 0; i < classpathCount; i++) {
+            classpath.add(readString(in));
+        }
+        int projectCount = in.getInt();
+        Map<String, String> localProjects = new LinkedHashMap<>();
+        for (int i = 0; i < projectCount; i++) {
+            localProjects.put(readString(in), readString(in));
+        }
+        int fingerprintCount = in.getInt();
+        List<Fingerprint> fingerprints = new ArrayList<>(fingerprintCount);
+        for (int i = 0; i < fingerprintCount; i++) {
+            fingerprints.add(new Fingerprint(readString(in), in.getLong(), in.getLong()));
+        }
+        return new ModelSnapshot(configHash, classpath, localProjects, fingerprints, verifiedEnvironment);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,237 @@
+package com.qin.core;
+
+import javax.tools.*;
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * javac 文件管理器：源码覆盖 + 只写入内容变化的 class 文件
+ *
+ * - 源码覆盖：编辑器中未保存的内容（BSP qin/check）代替磁盘上的文件参与编译，
+ *   覆盖的文件总是作为编译单元；诊断中的 URI 仍是磁盘文件
+ * - 写入输出：class 字节与磁盘上的相同时不写，mtime 不变，按 mtime 判断的下游缓存
+ *   （classpath 指纹、运行中的 dev 进程等）不会失效；变化的文件先写临时文件再原子移动
+ * - OutputCache 记住最近写入的字节（JavaRunner 在 BSP / --watch 中常驻），
+ *   比较时只需 stat 确认磁盘文件没被别人改过，不用重新读取
+ * - 检查模式（cache 为 null）：输出只留在内存中，不写磁盘，编辑器触发的检查不产生任何磁盘 I/O
+ */
+public final class OverlayFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+    /**
+     * 最近写入的 class 字节（按访问顺序淘汰），在编译之间复用
+     */
+    public static final class OutputCache {
+        /**
+         * 缓存的字节总量上限
+         */
+        private static final long MAX_BYTES = 64L * 1024 * 1024;
+
+        private record Entry(byte[] bytes, long size, long mtime) {
+        }
+
+        private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long totalBytes;
+
+        /**
+         * 磁盘上的文件内容是否已经是 bytes（缓存命中且文件未被改动时不读文件）
+         */
+        synchronized boolean matches(Path file, byte[] bytes) {
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (IOException e) {
+                return false; // 不存在（例如 qin clean 之后）
+            }
+            if (attrs.size() != bytes.length) {
+                return false;
+            }
+            Entry cached = entries.get(file);
+            if (cached != null && cached.size() == attrs.size()
+                    && cached.mtime() == attrs.lastModifiedTime().toMillis()) {
+                return Arrays.equals(cached.bytes(), bytes);
+            }
+            try {
+                if (!Arrays.equals(Files.readAllBytes(file), bytes)) {
+                    return false;
+                }
+            } catch (IOException e) {
+                return false;
+            }
+            put(file, bytes, attrs.lastModifiedTime().toMillis());
+            return true;
+        }
+
+        synchronized void put(Path file, byte[] bytes, long mtime) {
+            Entry previous = entries.put(file, new Entry(bytes, bytes.length, mtime));
+            totalBytes += bytes.length - (previous != null ? previous.bytes().length : 0);
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (totalBytes > MAX_BYTES && eldest.hasNext()) {
+                totalBytes -= eldest.next().bytes().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    private final Map<Path, String> overlays;
+    private final OutputCache cache;
+    private final Map<Path, byte[]> memoryOutputs = new HashMap<>();
+    private final Set<Path> outputs = new HashSet<>();
+    private int written;
+    private int unchanged;
+
+    /**
+     * @param delegate 标准文件管理器
+     * @param overlays 源文件（绝对路径）-> 未保存的内容
+     * @param cache    输出缓存，null 表示检查模式（输出只保存在内存中）
+     */
+    public OverlayFileManager(StandardJavaFileManager delegate, Map<Path, String> overlays, OutputCache cache) {
+        super(delegate);
+        this.overlays = new LinkedHashMap<>();
+        overlays.forEach((path, content) -> this.overlays.put(path.toAbsolutePath().normalize(), content));
+        this.cache = cache;
+    }
+
+    /**
+     * 编译单元：指定的源文件（有覆盖时使用覆盖内容）+ 其余覆盖的文件
+     */
+    public List<JavaFileObject> compilationUnits(Collection<String> javaFiles) {
+        List<JavaFileObject> units = new ArrayList<>();
+        Set<Path> covered = new HashSet<>();
+        List<Path> fromDisk = new ArrayList<>();
+        for (String file : javaFiles) {
+            Path path = Paths.get(file).toAbsolutePath().normalize();
+            if (!covered.add(path)) {
+                continue;
+            }
+            if (overlays.containsKey(path)) {
+                units.add(new OverlaySource(path, overlays.get(path)));
+            } else {
+                fromDisk.add(path);
+            }
+        }
+        overlays.forEach((path, content) -> {
+            if (covered.add(path)) {
+                units.add(new OverlaySource(path, content));
+            }
+        });
+        for (JavaFileObject unit : fileManager.getJavaFileObjectsFromPaths(fromDisk)) {
+            units.add(unit);
+        }
+        return units;
+    }
+
+    /**
+     * 写入磁盘的 class 文件数
+     */
+    public int written() {
+        return written;
+    }
+
+    /**
+     * 内容未变、没有写入的 class 文件数
+     */
+    public int unchanged() {
+        return unchanged;
+    }
+
+    /**
+     * 本次编译生成的 class 文件（包括内容未变、没有写入的）
+     */
+    public Set<Path> outputs() {
+        return Collections.unmodifiableSet(outputs);
+    }
+
+    /**
+     * 检查模式下编译出的 class（路径 -> 字节）
+     */
+    public Map<Path, byte[]> memoryOutputs() {
+        return Collections.unmodifiableMap(memoryOutputs);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+            FileObject sibling) throws IOException {
+        JavaFileObject file = super.getJavaFileForOutput(location, className, kind, sibling);
+        return kind == JavaFileObject.Kind.CLASS ? new ClassOutput(file) : file;
+    }
+
+    @Override
+    public boolean isSameFile(FileObject a, FileObject b) {
+        if (a instanceof OverlaySource || b instanceof OverlaySource) {
+            return a.toUri().equals(b.toUri());
+        }
+        return super.isSameFile(a, b);
+    }
+
+    /**
+     * javac 写完一个 class 文件
+     */
+    private void commit(Path file, byte[] bytes) throws IOException {
+        if (cache == null) {
+            memoryOutputs.put(file, bytes);
+            return;
+        }
+        outputs.add(file);
+        if (cache.matches(file, bytes)) {
+            unchanged++;
+            return;
+        }
+        Files.createDirectories(file.getParent());
+        // 先写临时文件再移动，运行中的进程不会加载到半个 class
+        // （不用 createTempFile：它创建的文件只有所有者可读，打包和其他用户运行时会出问题）
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, bytes);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        cache.put(file, bytes, Files.getLastModifiedTime(file).toMillis());
+        written++;
+    }
+
+    /**
+     * 未保存的源文件
+     */
+    private static final class OverlaySource extends SimpleJavaFileObject {
+        private final String content;
+
+        OverlaySource(Path path, String content) {
+            super(path.toUri(), Kind.SOURCE);
+            this.content = content;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+
+        @Override
+        public long getLastModified() {
+            return System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 写入时先收集到内存，关闭时交给 commit
+     */
+    private final class ClassOutput extends ForwardingJavaFileObject<JavaFileObject> {
+        ClassOutput(JavaFileObject file) {
+            super(file);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            Path path = Paths.get(fileObject.toUri());
+            return new ByteArrayOutputStream() {
+                private boolean closed;
+
+                @Override
+                public void close() throws IOException {
+                    if (!closed) {
+                        closed = true;
+                        commit(path, toByteArray());
+                    }
+                }
+            };
+        }
+    }
+}
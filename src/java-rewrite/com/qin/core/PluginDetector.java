@@ -60,11 +60,7 @@ public class PluginDetector {
         if (!Files.exists(srcDir))
             return false;
 
-        try (Stream<Path> walk = Files.walk(srcDir)) {
-            return walk.anyMatch(p -> p.toString().endsWith(".java"));
-        } catch (IOException e) {
-            return false;
-        }
+        return !SourceIndex.forProject(Paths.get(cwd)).filesUnder(srcDir).isEmpty();
     }
 
     private boolean hasKotlinFiles() {
@@ -87,30 +83,16 @@ public class PluginDetector {
             }
         }
 
-        // 查找包含 main 方法的文件
+        // 查找包含 main 方法的文件（源码索引中已记录，不需要读取文件）
         Path srcDir = Paths.get(cwd, "src");
         if (!Files.exists(srcDir))
             return null;
 
-        try (Stream<Path> walk = Files.walk(srcDir)) {
-            return walk
-                    .filter(p -> p.toString().endsWith(".java"))
-                    .filter(this::hasMainMethod)
-                    .map(p -> srcDir.getParent().relativize(p).toString().replace("\\", "/"))
-                    .findFirst()
-                    .orElse(null);
-        } catch (IOException e) {
-            return null;
-        }
-    }
-
-    private boolean hasMainMethod(Path javaFile) {
-        try {
-            String content = Files.readString(javaFile);
-            return content.contains("public static void main");
-        } catch (IOException e) {
-            return false;
-        }
+        return SourceIndex.forProject(Paths.get(cwd)).filesUnder(srcDir).stream()
+                .filter(SourceIndex.SourceFile::hasMain)
+                .map(SourceIndex.SourceFile::path)
+                .findFirst()
+                .orElse(null);
     }
 
     private String findClientDir() {
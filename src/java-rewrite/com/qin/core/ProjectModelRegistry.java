@@ -0,0 +1,229 @@
+package com.qin.core;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.qin.constants.QinConstants;
+import com.qin.types.QinConfig;
+import com.qin.utils.QinUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 项目模型注册表（进程内共享）
+ *
+ * 缓存每个项目解析后的 qin.config.json 和派生数据（源码目录、输出目录、入口、classpath），
+ * 以项目路径 + 配置内容哈希为键。ConfigLoader、DependencyGraphBuilder、JavaRunner、
+ * WorkspaceLoader 和 BspHandler 都从这里取配置，同一命令中每个配置文件只解析一次。
+ *
+ * 每次获取时 stat 配置文件和 .qin/classpath.json：mtime / 大小未变时直接返回缓存，
+ * 变化时重新读取并比较哈希，内容确实变了才重新解析。
+ * 与 WorkspaceIndex 相同，mtime 距上次校验太近的文件总是重新读取。
+ * 配置未指定 java.sourceDir 时源码目录由目录结构决定，每次获取都重新探测（两次 stat），
+ * 配置不变而新建或删除 src/main/java 时同样生效
+ */
+public final class ProjectModelRegistry {
+
+    /**
+     * mtime 距校验时间小于该值的文件下次仍然重新读取（文件系统 mtime 精度可能只有 1-2 秒）
+     */
+    private static final long RACY_WINDOW_MS = 2000;
+
+    private static final Gson GSON = new Gson();
+
+    private static final Map<Path, Cached> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 不可变的项目模型
+     *
+     * @param dir        项目目录（绝对路径）
+     * @param config     解析后的 qin.config.json（未应用 ConfigLoader 的默认值）
+     * @param configHash qin.config.json 的 SHA-256
+     * @param sourceDir  源码目录（相对项目目录，与 JavaRunner 编译时使用的一致）
+     * @param testDir    测试目录（相对项目目录）
+     * @param outputDir  编译输出目录（相对项目目录）
+     * @param entry      配置中的入口文件，未配置时为 null（自动检测见 ConfigLoader.findEntry）
+     * @param classpath  .qin/classpath.json 中的依赖，未同步时为空
+     */
+    public record ProjectModel(
+            Path dir,
+            QinConfig config,
+            String configHash,
+            String sourceDir,
+            String testDir,
+            String outputDir,
+            String entry,
+            List<String> classpath) {
+
+        public ProjectModel {
+            classpath = List.copyOf(classpath);
+        }
+
+        private ProjectModel withClasspath(List<String> classpath) {
+            return new ProjectModel(dir, config, configHash, sourceDir, testDir, outputDir, entry, classpath);
+        }
+
+        private ProjectModel withSourceDir(String sourceDir) {
+            return new ProjectModel(dir, config, configHash, sourceDir, testDir, outputDir, entry, classpath);
+        }
+    }
+
+    /**
+     * @param mtime 文件 mtime
+     * @param size  文件大小
+     * @param hash  内容 SHA-256
+     */
+    private record FileStamp(long mtime, long size, String hash) {
+    }
+
+    /**
+     * @param config    配置文件状态
+     * @param classpath classpath.json 状态，不存在时为 null
+     * @param checkedAt 上次校验的时间（毫秒）
+     */
+    private record Cached(ProjectModel model, FileStamp config, FileStamp classpath, long checkedAt) {
+    }
+
+    private ProjectModelRegistry() {
+    }
+
+    /**
+     * 获取项目模型
+     *
+     * @param projectDir 项目目录
+     * @throws NoSuchFileException 项目目录下没有 qin.config.json
+     */
+    public static ProjectModel get(Path projectDir) throws IOException {
+        Path dir = projectDir.toAbsolutePath().normalize();
+        try {
+            return CACHE.compute(dir, (key, cached) -> {
+                try {
+                    return refresh(key, cached);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).model();
+        } catch (UncheckedIOException e) {
+            if (e.getCause() instanceof NoSuchFileException) {
+                CACHE.remove(dir);
+            }
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 获取项目配置（get(projectDir).config()）
+     */
+    public static QinConfig config(Path projectDir) throws IOException {
+        return get(projectDir).config();
+    }
+
+    /**
+     * 丢弃项目的缓存（写入配置文件后立即读取时使用，避免 mtime 精度不足）
+     */
+    public static void invalidate(Path projectDir) {
+        CACHE.remove(projectDir.toAbsolutePath().normalize());
+    }
+
+    private static Cached refresh(Path dir, Cached cached) throws IOException {
+        long now = System.currentTimeMillis();
+        long racyBefore = cached != null ? cached.checkedAt() - RACY_WINDOW_MS : 0;
+
+        Path configPath = dir.resolve(QinConstants.CONFIG_FILE);
+        byte[][] configContent = new byte[1][];
+        FileStamp config = stamp(configPath, cached != null ? cached.config() : null, racyBefore, configContent);
+        if (config == null) {
+            throw new NoSuchFileException(configPath.toString());
+        }
+        ProjectModel model = cached != null && config.hash().equals(cached.config().hash())
+                ? cached.model()
+                : parse(dir, config.hash(), configContent[0]);
+
+        Path classpathPath = QinPaths.getClasspathCache(dir.toString());
+        FileStamp knownClasspath = cached != null && cached.model() == model ? cached.classpath() : null;
+        byte[][] classpathContent = new byte[1][];
+        FileStamp classpath = stamp(classpathPath, knownClasspath, racyBefore, classpathContent);
+        if (classpath == null) {
+            if (!model.classpath().isEmpty()) {
+                model = model.withClasspath(List.of());
+            }
+        } else if (knownClasspath == null || !classpath.hash().equals(knownClasspath.hash())) {
+            model = model.withClasspath(parseClasspath(classpathContent[0]));
+        }
+
+        String sourceDir = sourceDir(dir, model.config());
+        if (!sourceDir.equals(model.sourceDir())) {
+            model = model.withSourceDir(sourceDir);
+        }
+        return new Cached(model, config, classpath, now);
+    }
+
+    /**
+     * mtime / 大小未变时沿用已有状态，否则读取文件（内容放入 content[0]）并重新计算哈希；文件不存在时返回 null
+     */
+    private static FileStamp stamp(Path path, FileStamp known, long racyBefore, byte[][] content)
+            throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        long mtime = attrs.lastModifiedTime().toMillis();
+        if (known != null && known.mtime() == mtime && known.size() == attrs.size() && mtime < racyBefore) {
+            return known;
+        }
+        content[0] = Files.readAllBytes(path);
+        return new FileStamp(mtime, attrs.size(), QinUtils.sha256(content[0]));
+    }
+
+    private static ProjectModel parse(Path dir, String hash, byte[] content) {
+        QinConfig config = GSON.fromJson(new String(content, StandardCharsets.UTF_8), QinConfig.class);
+        return new ProjectModel(
+                dir,
+                config,
+                hash,
+                sourceDir(dir, config),
+                QinConstants.getTestDir(config.java()),
+                QinConstants.BUILD_CLASSES_DIR,
+                config.entry(),
+                List.of());
+    }
+
+    /**
+     * 源码目录：优先使用 java.sourceDir，否则 src/main/java > src > .
+     */
+    private static String sourceDir(Path dir, QinConfig config) {
+        if (config.java() != null && config.java().sourceDir() != null) {
+            return config.java().sourceDir();
+        }
+        if (Files.isDirectory(dir.resolve(QinConstants.DEFAULT_SOURCE_DIR))) {
+            return QinConstants.DEFAULT_SOURCE_DIR;
+        }
+        if (Files.isDirectory(dir.resolve("src"))) {
+            return "src";
+        }
+        return QinConstants.CURRENT_DIR;
+    }
+
+    private static List<String> parseClasspath(byte[] content) {
+        List<String> classpath = new ArrayList<>();
+        try {
+            JsonElement json = JsonParser.parseString(new String(content, StandardCharsets.UTF_8));
+            if (json.isJsonObject() && json.getAsJsonObject().has("classpath")) {
+                JsonObject obj = json.getAsJsonObject();
+                obj.getAsJsonArray("classpath").forEach(e -> classpath.add(e.getAsString()));
+            }
+        } catch (RuntimeException e) {
+            // 损坏的缓存视为未同步
+        }
+        return classpath;
+    }
+}
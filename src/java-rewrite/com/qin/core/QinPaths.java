@@ -17,6 +17,7 @@ import java.nio.file.Paths;
  * │ └── classes/ # OUTPUT_DIR - 编译输出
  * ├── .qin/
  * │ ├── classpath.json # CLASSPATH_CACHE - 依赖缓存
+ * │ ├── model.bin # MODEL_SNAPSHOT - 项目模型二进制快照
  * │ └── libs/ # LOCAL_LIBS_DIR - 本地项目依赖jar
  * └── src/
  * 
@@ -50,6 +51,31 @@ public final class QinPaths {
      */
     public static final String CLASSPATH_CACHE = ".qin/classpath.json";
 
+    /**
+     * 项目模型二进制快照 (相对于项目根目录)
+     */
+    public static final String MODEL_SNAPSHOT = ".qin/model.bin";
+
+    /**
+     * qin compile --watch 的编译状态 (相对于项目根目录)
+     */
+    public static final String COMPILE_STATUS = ".qin/compile-status.json";
+
+    /**
+     * 最近一次成功编译的时间戳文件，mtime 为编译开始时间 (相对于项目根目录)
+     */
+    public static final String COMPILE_STAMP = ".qin/compile-stamp";
+
+    /**
+     * 资源同步清单目录，每个输出目录一份 (相对于项目根目录)
+     */
+    public static final String RESOURCE_MANIFEST_DIR = ".qin/resource-manifests";
+
+    /**
+     * IDE 启动的 BSP Server 的日志 (相对于项目根目录)
+     */
+    public static final String BSP_SERVER_LOG = ".qin/bsp-server.log";
+
     // ==================== 依赖库目录 ====================
 
     /**
@@ -75,6 +101,41 @@ public final class QinPaths {
         return Paths.get(projectRoot, CLASSPATH_CACHE);
     }
 
+    /**
+     * 获取项目模型快照绝对路径
+     */
+    public static Path getModelSnapshot(String projectRoot) {
+        return Paths.get(projectRoot, MODEL_SNAPSHOT);
+    }
+
+    /**
+     * 获取编译状态文件绝对路径
+     */
+    public static Path getCompileStatus(String projectRoot) {
+        return Paths.get(projectRoot, COMPILE_STATUS);
+    }
+
+    /**
+     * 获取编译时间戳文件绝对路径
+     */
+    public static Path getCompileStamp(String projectRoot) {
+        return Paths.get(projectRoot, COMPILE_STAMP);
+    }
+
+    /**
+     * 获取资源同步清单目录绝对路径
+     */
+    public static Path getResourceManifestDir(String projectRoot) {
+        return Paths.get(projectRoot, RESOURCE_MANIFEST_DIR);
+    }
+
+    /**
+     * 获取 BSP Server 日志绝对路径
+     */
+    public static Path getBspServerLog(String projectRoot) {
+        return Paths.get(projectRoot, BSP_SERVER_LOG);
+    }
+
     /**
      * 获取本地libs目录绝对路径
      */
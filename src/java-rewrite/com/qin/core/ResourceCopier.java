@@ -1,19 +1,59 @@
 package com.qin.core;
 
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.qin.utils.QinUtils;
+
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.util.stream.Stream;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * 资源文件复制器
- * 负责复制资源文件到输出目录
+ * 资源文件同步器
+ * 负责把资源目录同步到输出目录（JavaRunner、FatJarBuilder、qin-plugin-java 共用）
+ *
+ * 每个输出目录在 .qin/resource-manifests 下有一份清单，记录上次同步的每个文件：
+ * - 源文件和目标文件的大小、mtime 都与清单一致时跳过
+ * - 大小相同但 mtime 变化时比较内容哈希，内容未变只更新清单，不改动目标文件
+ * - 复制时保留源文件的 mtime（COPY_ATTRIBUTES），下游按 mtime 判断的缓存不会失效
+ * - 清单中有、资源目录中已删除的文件从输出目录删除（只删除清单记录的文件，不会误删 class 文件）
+ * 文件并行处理
  */
 public class ResourceCopier {
+
+    private static final Gson GSON = new Gson();
+
     private final String cwd;
     private final String srcDir;
     private final String outputDir;
 
+    /**
+     * 同步结果
+     *
+     * @param copied    复制的文件数
+     * @param unchanged 未变化跳过的文件数
+     * @param deleted   删除的孤立文件数
+     */
+    public record SyncResult(int copied, int unchanged, int deleted) {
+    }
+
+    /**
+     * 清单条目
+     *
+     * @param source       源文件绝对路径
+     * @param size         文件大小
+     * @param sourceMtime  源文件 mtime
+     * @param targetMtime  目标文件 mtime
+     * @param hash         内容 SHA-256，未计算时为 null
+     */
+    private record Entry(String source, long size, long sourceMtime, long targetMtime, String hash) {
+    }
+
     public ResourceCopier(String cwd, String srcDir, String outputDir) {
         this.cwd = cwd;
         this.srcDir = srcDir;
@@ -21,42 +61,175 @@ public class ResourceCopier {
     }
 
     /**
-     * 复制资源文件到输出目录
-     * 查找多个可能的资源目录
+     * 同步资源文件到输出目录
+     * 查找多个可能的资源目录，同一路径以后面的目录为准
      */
-    public void copyResources() throws IOException {
-        String[] resourceDirs = {
-                Paths.get(cwd, "src", "resources").toString(),
-                Paths.get(cwd, "src", "main", "resources").toString(),
-                Paths.get(cwd, srcDir, "resources").toString()
-        };
+    public SyncResult copyResources() throws IOException {
+        return sync(resourceDirs());
+    }
 
-        for (String resourceDir : resourceDirs) {
-            Path resPath = Paths.get(resourceDir);
-            if (Files.exists(resPath)) {
-                copyDir(resPath, Paths.get(outputDir));
-            }
-        }
+    /**
+     * 同步测试资源文件（src/test/resources）到输出目录
+     */
+    public SyncResult copyTestResources() throws IOException {
+        return sync(List.of(Paths.get(cwd, "src", "test", "resources")));
+    }
+
+    /**
+     * 资源目录（FileWatchService 监听这些目录，变化后调用 copyResources）
+     */
+    public List<Path> resourceDirs() {
+        return List.of(
+                Paths.get(cwd, "src", "resources"),
+                Paths.get(cwd, "src", "main", "resources"),
+                Paths.get(cwd, srcDir, "resources"));
     }
 
     /**
-     * 递归复制目录
+     * 把多个资源目录同步到输出目录
      */
-    private void copyDir(Path src, Path dest) throws IOException {
-        try (Stream<Path> walk = Files.walk(src)) {
-            walk.forEach(source -> {
+    public SyncResult sync(List<Path> resourceDirs) throws IOException {
+        Path output = Paths.get(outputDir).toAbsolutePath().normalize();
+
+        // 1. 收集源文件（相对路径 -> 源文件），后面的目录覆盖前面的
+        Map<String, Path> sources = new TreeMap<>();
+        Set<Path> seen = new HashSet<>();
+        for (Path dir : resourceDirs) {
+            Path root = dir.toAbsolutePath().normalize();
+            if (!seen.add(root) || !Files.isDirectory(root)) {
+                continue;
+            }
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        sources.put(root.relativize(file).toString().replace('\\', '/'), file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        Path manifestFile = manifestFile(output);
+        Map<String, Entry> previous = loadManifest(manifestFile);
+        if (sources.isEmpty() && previous.isEmpty()) {
+            return new SyncResult(0, 0, 0);
+        }
+
+        // 2. 并行复制变化的文件
+        Map<String, Entry> current = new ConcurrentHashMap<>();
+        AtomicInteger copied = new AtomicInteger();
+        try {
+            sources.entrySet().parallelStream().forEach(source -> {
                 try {
-                    Path target = dest.resolve(src.relativize(source));
-                    if (Files.isDirectory(source)) {
-                        Files.createDirectories(target);
-                    } else {
-                        Files.createDirectories(target.getParent());
-                        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+                    Path target = output.resolve(source.getKey());
+                    Entry entry = syncFile(source.getValue(), target, previous.get(source.getKey()));
+                    if (entry == null) {
+                        entry = copy(source.getValue(), target);
+                        copied.incrementAndGet();
                     }
+                    current.put(source.getKey(), entry);
                 } catch (IOException e) {
                     throw new UncheckedIOException(e);
                 }
             });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+
+        // 3. 删除孤立文件
+        int deleted = 0;
+        for (String rel : previous.keySet()) {
+            if (!sources.containsKey(rel)) {
+                Path target = output.resolve(rel);
+                if (Files.deleteIfExists(target)) {
+                    deleted++;
+                }
+                deleteEmptyParents(target.getParent(), output);
+            }
+        }
+
+        if (copied.get() > 0 || deleted > 0 || !current.equals(previous)) {
+            saveManifest(manifestFile, current);
+        }
+        return new SyncResult(copied.get(), sources.size() - copied.get(), deleted);
+    }
+
+    /**
+     * 目标文件已是最新时返回（可能更新了的）清单条目，需要复制时返回 null
+     */
+    private static Entry syncFile(Path source, Path target, Entry known) throws IOException {
+        if (known == null) {
+            return null;
+        }
+        BasicFileAttributes sourceAttrs = Files.readAttributes(source, BasicFileAttributes.class);
+        BasicFileAttributes targetAttrs;
+        try {
+            targetAttrs = Files.readAttributes(target, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        long size = sourceAttrs.size();
+        long sourceMtime = sourceAttrs.lastModifiedTime().toMillis();
+        long targetMtime = targetAttrs.lastModifiedTime().toMillis();
+        if (known.size() != size || targetAttrs.size() != size || known.targetMtime() != targetMtime
+                || !known.source().equals(source.toString())) {
+            return null;
+        }
+        if (known.sourceMtime() == sourceMtime) {
+            return known;
+        }
+        // mtime 变了但大小没变（例如 git checkout、touch）：内容相同时不复制
+        String hash = QinUtils.sha256(source);
+        String targetHash = known.hash() != null ? known.hash() : QinUtils.sha256(target);
+        return hash.equals(targetHash) ? new Entry(source.toString(), size, sourceMtime, targetMtime, hash) : null;
+    }
+
+    private static Entry copy(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        BasicFileAttributes attrs = Files.readAttributes(target, BasicFileAttributes.class);
+        long sourceMtime = Files.getLastModifiedTime(source).toMillis();
+        return new Entry(source.toString(), attrs.size(), sourceMtime, attrs.lastModifiedTime().toMillis(), null);
+    }
+
+    private static void deleteEmptyParents(Path dir, Path output) {
+        while (dir != null && dir.startsWith(output) && !dir.equals(output)) {
+            try {
+                Files.delete(dir);
+            } catch (IOException e) {
+                return; // 非空或已删除
+            }
+            dir = dir.getParent();
+        }
+    }
+
+    // ==================== 清单 ====================
+
+    /**
+     * 每个输出目录一份清单，以输出目录绝对路径的哈希命名
+     */
+    private Path manifestFile(Path output) {
+        String key = QinUtils.sha256(output.toString().getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+        return QinPaths.getResourceManifestDir(cwd).resolve(key + ".json");
+    }
+
+    private static Map<String, Entry> loadManifest(Path file) {
+        try {
+            Map<String, Entry> manifest = GSON.fromJson(Files.readString(file, StandardCharsets.UTF_8),
+                    new TypeToken<Map<String, Entry>>() {
+                    }.getType());
+            return manifest != null ? manifest : Map.of();
+        } catch (IOException | RuntimeException e) {
+            // 没有清单（首次同步）或已损坏：全部重新复制，无法识别孤立文件
+            return Map.of();
+        }
+    }
+
+    private static void saveManifest(Path file, Map<String, Entry> manifest) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), "manifest", ".tmp");
+        Files.writeString(tmp, GSON.toJson(new TreeMap<>(manifest)), StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
 }
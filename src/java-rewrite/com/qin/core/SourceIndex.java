@@ -0,0 +1,345 @@
+package com.qin.core;
+
+import com.google.gson.Gson;
+import com.qin.constants.QinConstants;
+import com.qin.utils.QinUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * 项目源码索引（{projectDir}/.qin/source-index）
+ *
+ * 记录项目内每个 .java 文件的 mtime、大小、内容哈希、包名、顶层类型、main 方法和 import，
+ * 由 SourceLexer 提取（不需要编译）。跳过 EXCLUDED_DIRS（其中的构建输出目录只在项目根目录下跳过，
+ * 更深的同名目录可能是包，例如 com/acme/build）、隐藏目录和嵌套的 Qin 项目。
+ *
+ * 校验只需要 stat：mtime / 大小未变的文件直接沿用；变化的文件并行读取，
+ * 内容哈希未变时只更新 mtime，变了才重新扫描。与 WorkspaceIndex 相同，
+ * mtime 距上次扫描太近的文件总是重新检查。
+ *
+ * PluginDetector（零配置检测）、ConfigLoader.parseEntry / JavaRunner（入口和类名解析）、
+ * JavaRunner / FatJarBuilder（源文件列表）、DevSupervisor 和 qin compile --watch 都从这里查询，
+ * 不再各自遍历和读取源码
+ */
+public final class SourceIndex {
+    /**
+     * 格式版本，格式变化时递增，旧索引直接重建
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * mtime 距扫描时间小于该值的文件下次仍然重新检查（文件系统 mtime 精度可能只有 1-2 秒）
+     */
+    private static final long RACY_WINDOW_MS = 2000;
+
+    private static final String JAVA_EXT = ".java";
+
+    private static final Gson GSON = new Gson();
+
+    /**
+     * 进程内共享：同一命令中多次查询时只做 stat 校验
+     */
+    private static final Map<Path, SourceIndex> INSTANCES = new ConcurrentHashMap<>();
+
+    /**
+     * 索引中的源文件
+     *
+     * @param path        相对项目目录的路径（/ 分隔）
+     * @param mtime       文件 mtime
+     * @param size        文件大小
+     * @param hash        内容 SHA-256
+     * @param packageName 包名，默认包为 null
+     * @param types       顶层类型
+     * @param mainType    包含 main 方法的顶层类型，没有时为 null
+     * @param imports     导入（静态导入带 "static " 前缀）
+     */
+    public record SourceFile(
+            String path,
+            long mtime,
+            long size,
+            String hash,
+            String packageName,
+            List<String> types,
+            String mainType,
+            List<String> imports) {
+
+        public boolean hasMain() {
+            return mainType != null;
+        }
+
+        /**
+         * 主类型的完全限定名：与文件同名的顶层类型，没有时取第一个，都没有时按文件名
+         */
+        public String className() {
+            String stem = stem();
+            String primary = types.contains(stem) || types.isEmpty() ? stem : types.get(0);
+            return qualify(primary);
+        }
+
+        /**
+         * 包含 main 方法的类的完全限定名，没有时为 null
+         */
+        public String mainClassName() {
+            return mainType != null ? qualify(mainType) : null;
+        }
+
+        private String qualify(String type) {
+            return packageName != null ? packageName + "." + type : type;
+        }
+
+        private String stem() {
+            String name = path.substring(path.lastIndexOf('/') + 1);
+            return name.substring(0, name.length() - JAVA_EXT.length());
+        }
+
+        private SourceFile withStat(long mtime, long size) {
+            return new SourceFile(path, mtime, size, hash, packageName, types, mainType, imports);
+        }
+    }
+
+    /**
+     * 持久化格式
+     *
+     * @param version   格式版本
+     * @param scannedAt 上次校验的时间（毫秒）
+     * @param files     相对路径到源文件
+     */
+    private record Snapshot(int version, long scannedAt, Map<String, SourceFile> files) {
+    }
+
+    private final Path root;
+    private final Path file;
+    private Map<String, SourceFile> files = new HashMap<>();
+    private long scannedAt;
+    private boolean loaded;
+
+    private SourceIndex(Path root) {
+        this.root = root;
+        this.file = QinConstants.getProjectQinDir(root).resolve(QinConstants.SOURCE_INDEX_FILE);
+    }
+
+    /**
+     * 获取项目的源码索引，校验并增量更新后返回
+     */
+    public static SourceIndex forProject(Path projectDir) {
+        Path root = projectDir.toAbsolutePath().normalize();
+        SourceIndex index = INSTANCES.computeIfAbsent(root, SourceIndex::new);
+        index.refresh();
+        return index;
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    /**
+     * 所有源文件（按路径排序）
+     */
+    public synchronized List<SourceFile> files() {
+        return new TreeMap<>(files).values().stream().toList();
+    }
+
+    /**
+     * dir 下的源文件（按路径排序）
+     */
+    public synchronized List<SourceFile> filesUnder(Path dir) {
+        String prefix = relative(dir);
+        if (prefix == null) {
+            return List.of();
+        }
+        String withSlash = prefix.isEmpty() ? "" : prefix + "/";
+        return new TreeMap<>(files).values().stream()
+                .filter(f -> f.path().startsWith(withSlash))
+                .toList();
+    }
+
+    /**
+     * dir 下的 .java 文件绝对路径（编译用）
+     * dir 不在索引范围内（项目外、被排除的目录）时直接遍历
+     */
+    public List<String> javaFiles(Path dir) throws IOException {
+        if (!covers(dir)) {
+            if (!Files.isDirectory(dir)) {
+                return List.of();
+            }
+            try (Stream<Path> walk = Files.walk(dir)) {
+                return walk.filter(p -> p.toString().endsWith(JAVA_EXT)).map(Path::toString).sorted().toList();
+            }
+        }
+        return filesUnder(dir).stream().map(f -> resolve(f).toString()).toList();
+    }
+
+    /**
+     * 文件的索引条目，不在索引中时返回 null
+     */
+    public synchronized SourceFile get(Path source) {
+        String rel = relative(source);
+        return rel != null ? files.get(rel) : null;
+    }
+
+    /**
+     * 源文件绝对路径
+     */
+    public Path resolve(SourceFile source) {
+        return root.resolve(source.path());
+    }
+
+    /**
+     * dir 是否在索引范围内（项目目录下，且不经过被排除的目录、隐藏目录）
+     */
+    private boolean covers(Path dir) {
+        String rel = relative(dir);
+        if (rel == null) {
+            return false;
+        }
+        String[] segments = rel.split("/");
+        for (int i = 0; i < segments.length; i++) {
+            if (QinConstants.isExcludedDir(segments[i], i == 0)
+                    || segments[i].startsWith(QinConstants.HIDDEN_PREFIX)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 相对项目目录的路径（/ 分隔），不在项目目录下时返回 null
+     */
+    private String relative(Path path) {
+        Path abs = path.toAbsolutePath().normalize();
+        if (!abs.startsWith(root)) {
+            return null;
+        }
+        return root.relativize(abs).toString().replace('\\', '/');
+    }
+
+    // ==================== 校验与增量更新 ====================
+
+    private synchronized void refresh() {
+        if (!loaded) {
+            load();
+            loaded = true;
+        }
+        long now = System.currentTimeMillis();
+        long racyBefore = scannedAt - RACY_WINDOW_MS;
+
+        Map<String, SourceFile> next = new HashMap<>();
+        Map<String, BasicFileAttributes> stale = new TreeMap<>();
+        boolean[] racy = { false };
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (dir.equals(root)) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    String name = dir.getFileName().toString();
+                    // 构建输出目录只在项目根目录下排除，源码目录中的同名目录是包
+                    boolean excluded = QinConstants.isExcludedDir(name, dir.getParent().equals(root));
+                    if (excluded || name.startsWith(QinConstants.HIDDEN_PREFIX)
+                            || Files.exists(dir.resolve(QinConstants.CONFIG_FILE))) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path source, BasicFileAttributes attrs) {
+                    if (!attrs.isRegularFile() || !source.getFileName().toString().endsWith(JAVA_EXT)) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    String rel = root.relativize(source).toString().replace('\\', '/');
+                    SourceFile known = files.get(rel);
+                    long mtime = attrs.lastModifiedTime().toMillis();
+                    boolean unchanged = known != null && known.mtime() == mtime && known.size() == attrs.size();
+                    if (unchanged && mtime < racyBefore) {
+                        next.put(rel, known);
+                    } else {
+                        racy[0] |= unchanged;
+                        stale.put(rel, attrs);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path source, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            // 项目目录不存在：空索引
+        }
+
+        // 变化的文件并行读取和扫描
+        Map<String, SourceFile> rescanned = new ConcurrentHashMap<>();
+        stale.entrySet().parallelStream().forEach(entry -> {
+            SourceFile scanned = scan(entry.getKey(), entry.getValue(), files.get(entry.getKey()));
+            if (scanned != null) {
+                rescanned.put(entry.getKey(), scanned);
+            }
+        });
+        next.putAll(rescanned);
+
+        boolean changed = !next.equals(files);
+        files = next;
+        scannedAt = now;
+        // 重新检查过 racy 条目时也要保存新的扫描时间，否则这些文件每次都会被重新读取
+        if (changed || racy[0]) {
+            save();
+        }
+    }
+
+    private SourceFile scan(String rel, BasicFileAttributes attrs, SourceFile known) {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(root.resolve(rel));
+        } catch (IOException e) {
+            return null; // 扫描期间被删除
+        }
+        long mtime = attrs.lastModifiedTime().toMillis();
+        String hash = QinUtils.sha256(content);
+        if (known != null && known.hash().equals(hash)) {
+            return known.withStat(mtime, attrs.size());
+        }
+        String name = rel.substring(rel.lastIndexOf('/') + 1);
+        SourceLexer.Result result = SourceLexer.scan(new String(content, StandardCharsets.UTF_8),
+                name.substring(0, name.length() - JAVA_EXT.length()));
+        return new SourceFile(rel, mtime, attrs.size(), hash, result.packageName(), result.types(),
+                result.mainType(), result.imports());
+    }
+
+    // ==================== 持久化 ====================
+
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            Snapshot snapshot = GSON.fromJson(Files.readString(file), Snapshot.class);
+            if (snapshot != null && snapshot.version() == FORMAT_VERSION && snapshot.files() != null) {
+                files = new HashMap<>(snapshot.files());
+                scannedAt = snapshot.scannedAt();
+            }
+        } catch (Exception e) {
+            // 索引损坏时重建
+        }
+    }
+
+    private void save() {
+        try {
+            Files.createDirectories(file.getParent());
+            // 先写临时文件再移动，避免并发运行读到半个文件
+            Path tmp = Files.createTempFile(file.getParent(), "source-index", ".tmp");
+            Files.writeString(tmp, GSON.toJson(new Snapshot(FORMAT_VERSION, scannedAt, files)));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // 索引写入失败只影响下次的速度
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.qin.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 轻量 Java 词法扫描（SourceIndex 使用）
+ *
+ * 只识别标识符和单字符符号，跳过空白、注释、字符串、文本块和字符字面量，
+ * 按大括号深度提取：
+ * - package 声明和 import（静态导入带 "static " 前缀）
+ * - 顶层类型（class / interface / enum / record / @interface）
+ * - main 方法：顶层类型体内的 void main(...)（包括 Java 25 的实例 main），
+ *   或顶层的 void main(...)（隐式声明的类，类名为文件名）
+ * 不做完整语法分析，遇到无法识别的写法时宁可漏掉，不会抛出异常
+ */
+final class SourceLexer {
+
+    /**
+     * 扫描结果
+     *
+     * @param packageName 包名，默认包为 null
+     * @param types       顶层类型（按出现顺序）
+     * @param mainType    包含 main 方法的顶层类型，没有时为 null
+     * @param imports     导入
+     */
+    record Result(String packageName, List<String> types, String mainType, List<String> imports) {
+    }
+
+    private final String src;
+    private int pos;
+
+    private SourceLexer(String src) {
+        this.src = src;
+    }
+
+    /**
+     * @param content  源文件内容
+     * @param fileStem 文件名（不含 .java），隐式声明的类使用该名称
+     */
+    static Result scan(String content, String fileStem) {
+        return new SourceLexer(content).parse(fileStem);
+    }
+
+    private Result parse(String fileStem) {
+        String packageName = null;
+        List<String> types = new ArrayList<>();
+        List<String> imports = new ArrayList<>();
+        String mainType = null;
+
+        int depth = 0;
+        String currentType = null;
+        String prev = null;
+        String prev2 = null;
+        String token;
+        while ((token = next()) != null) {
+            if (token.equals("{")) {
+                depth++;
+            } else if (token.equals("}")) {
+                depth = Math.max(0, depth - 1);
+                if (depth == 0) {
+                    currentType = null;
+                }
+            } else if (depth == 0 && token.equals("package") && packageName == null && types.isEmpty()) {
+                packageName = qualifiedName(false);
+            } else if (depth == 0 && token.equals("import") && types.isEmpty()) {
+                String name = qualifiedName(true);
+                if (name != null) {
+                    imports.add(name);
+                }
+            } else if (depth == 0 && isTypeKeyword(token) && !".".equals(prev)) {
+                String name = next();
+                if (name != null && isIdentifier(name)) {
+                    types.add(name);
+                    currentType = name;
+                }
+            } else if (token.equals("(") && "main".equals(prev) && "void".equals(prev2) && mainType == null) {
+                if (depth == 1 && currentType != null) {
+                    mainType = currentType;
+                } else if (depth == 0) {
+                    mainType = fileStem;
+                    if (!types.contains(fileStem)) {
+                        types.add(fileStem);
+                    }
+                }
+            }
+            prev2 = prev;
+            prev = token;
+        }
+        return new Result(packageName, List.copyOf(types), mainType, List.copyOf(imports));
+    }
+
+    private static boolean isTypeKeyword(String token) {
+        return token.equals("class") || token.equals("interface") || token.equals("enum") || token.equals("record");
+    }
+
+    /**
+     * 读取 a.b.c; 形式的名称，allowStatic 时接受 static 前缀和 .* 结尾
+     */
+    private String qualifiedName(boolean allowStatic) {
+        StringBuilder name = new StringBuilder();
+        String token;
+        while ((token = next()) != null && !token.equals(";")) {
+            if (allowStatic && token.equals("static") && name.length() == 0) {
+                name.append("static ");
+            } else if (isIdentifier(token) || token.equals(".") || token.equals("*")) {
+                name.append(token);
+            } else {
+                return null;
+            }
+        }
+        return name.length() > 0 ? name.toString() : null;
+    }
+
+    private static boolean isIdentifier(String token) {
+        return Character.isJavaIdentifierStart(token.charAt(0));
+    }
+
+    /**
+     * 下一个标识符或符号，结束时返回 null
+     */
+    private String next() {
+        int n = src.length();
+        while (pos < n) {
+            char c = src.charAt(pos);
+            if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '/' && pos + 1 < n && src.charAt(pos + 1) == '/') {
+                int end = src.indexOf('\n', pos);
+                pos = end < 0 ? n : end + 1;
+            } else if (c == '/' && pos + 1 < n && src.charAt(pos + 1) == '*') {
+                int end = src.indexOf("*/", pos + 2);
+                pos = end < 0 ? n : end + 2;
+            } else if (c == '"' && src.startsWith("\"\"\"", pos)) {
+                pos = skipQuoted(pos + 3, "\"\"\"");
+            } else if (c == '"' || c == '\'') {
+                pos = skipQuoted(pos + 1, String.valueOf(c));
+            } else if (Character.isJavaIdentifierPart(c)) {
+                int start = pos;
+                while (pos < n && Character.isJavaIdentifierPart(src.charAt(pos))) {
+                    pos++;
+                }
+                return src.substring(start, pos);
+            } else {
+                pos++;
+                return String.valueOf(c);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 跳过字符串 / 字符字面量 / 文本块（处理反斜杠转义），返回结束引号之后的位置
+     */
+    private int skipQuoted(int from, String quote) {
+        int n = src.length();
+        int i = from;
+        while (i < n) {
+            char c = src.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (src.startsWith(quote, i)) {
+                return i + quote.length();
+            } else if (c == '\n' && quote.length() == 1) {
+                return i + 1; // 未闭合的单行字面量
+            } else {
+                i++;
+            }
+        }
+        return n;
+    }
+}
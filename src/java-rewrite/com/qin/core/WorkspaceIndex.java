@@ -0,0 +1,205 @@
+package com.qin.core;
+
+import com.google.gson.Gson;
+import com.qin.constants.QinConstants;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 工作区索引（{workspaceRoot}/.qin/workspace-index）
+ *
+ * 记录工作区内每个被扫描目录的 mtime、子目录列表，以及其中的 qin.config.json（项目名 + 配置哈希）
+ * 和 package.json（包名 + monorepo 入口）。
+ *
+ * 校验只需要 stat：
+ * - 目录 mtime 未变：子目录和配置文件的增删都没有发生，不重新列目录
+ * - 已知的配置文件 mtime / 大小未变：不重新读取
+ * 变化的目录只重新扫描这一层，新出现的子目录再递归扫描，所以重建是增量的；
+ * 遍历由 WorkspaceWalker 在 ForkJoinPool 上并行完成，冷启动时同样只走一遍。
+ * 与 git 的 racy-clean 相同，mtime 距上次扫描太近的条目总是重新检查。
+ *
+ * LocalProjectResolver、WorkspaceScanner、WorkspaceLoader 和 IDEA 插件都通过这里发现项目
+ */
+public final class WorkspaceIndex {
+    /**
+     * 格式版本，格式变化时递增，旧索引直接重建
+     */
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * mtime 距扫描时间小于该值的条目下次仍然重新检查（文件系统 mtime 精度可能只有 1-2 秒）
+     */
+    private static final long RACY_WINDOW_MS = 2000;
+
+    private static final Gson GSON = new Gson();
+
+    /**
+     * 进程内共享：同一命令中多次发现项目时只做 stat 校验
+     */
+    private static final Map<Path, WorkspaceIndex> INSTANCES = new ConcurrentHashMap<>();
+
+    /**
+     * Qin 项目
+     *
+     * @param dir        项目目录
+     * @param name       qin.config.json 中的 name（无法解析时为 null）
+     * @param configHash qin.config.json 的 SHA-256
+     */
+    public record Project(Path dir, String name, String configHash) {
+    }
+
+    /**
+     * 包含 package.json 的 JS 包
+     *
+     * @param dir       包目录
+     * @param name      package.json 中的 name（没有时为 null）
+     * @param monorepo  package.json 中的 monorepo 入口（没有时为 null）
+     */
+    public record JsPackage(Path dir, String name, String monorepo) {
+    }
+
+    /**
+     * 持久化格式
+     *
+     * @param version   格式版本
+     * @param scannedAt 上次校验的时间（毫秒）
+     * @param dirs      相对路径（/ 分隔，根目录为 ""）到目录条目
+     */
+    private record Snapshot(int version, long scannedAt, Map<String, WorkspaceWalker.DirEntry> dirs) {
+    }
+
+    private final Path root;
+    private final Path file;
+    private Map<String, WorkspaceWalker.DirEntry> dirs = new HashMap<>();
+    private long scannedAt;
+    private boolean loaded;
+
+    private WorkspaceIndex(Path root) {
+        this.root = root;
+        this.file = QinConstants.getProjectQinDir(root).resolve(QinConstants.WORKSPACE_INDEX_FILE);
+    }
+
+    /**
+     * 获取工作区根目录的索引，校验并增量更新后返回
+     */
+    public static WorkspaceIndex forRoot(Path workspaceRoot) {
+        return forRoot(workspaceRoot, null);
+    }
+
+    /**
+     * 同 forRoot(Path)，校验过程中每发现一个项目 / JS 包就回调 listener（在扫描线程上，顺序不固定）
+     */
+    public static WorkspaceIndex forRoot(Path workspaceRoot, WorkspaceWalker.Listener listener) {
+        Path root = workspaceRoot.toAbsolutePath().normalize();
+        WorkspaceIndex index = INSTANCES.computeIfAbsent(root, WorkspaceIndex::new);
+        index.refresh(listener);
+        return index;
+    }
+
+    /**
+     * 所有 Qin 项目（深度优先，子目录按名称排序）
+     */
+    public synchronized List<Project> projects() {
+        List<Project> projects = new ArrayList<>();
+        walk("", 0, (rel, entry) -> {
+            if (entry.config() != null) {
+                projects.add(new Project(resolve(rel), entry.config().name(), entry.config().hash()));
+            }
+        });
+        return projects;
+    }
+
+    /**
+     * 所有 Qin 项目目录
+     */
+    public List<Path> projectDirs() {
+        return projects().stream().map(Project::dir).toList();
+    }
+
+    /**
+     * 所有包含 package.json 的目录
+     */
+    public synchronized List<JsPackage> jsPackages() {
+        List<JsPackage> packages = new ArrayList<>();
+        walk("", 0, (rel, entry) -> {
+            if (entry.pkg() != null) {
+                packages.add(new JsPackage(resolve(rel), entry.pkg().name(), entry.pkg().monorepo()));
+            }
+        });
+        return packages;
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    // ==================== 校验与增量更新 ====================
+
+    private synchronized void refresh(WorkspaceWalker.Listener listener) {
+        if (!loaded) {
+            load();
+            loaded = true;
+        }
+        long now = System.currentTimeMillis();
+        WorkspaceWalker walker = new WorkspaceWalker(root, QinConstants.MAX_SCAN_DEPTH, dirs,
+                scannedAt - RACY_WINDOW_MS, listener);
+        // 只保留可达的目录（被删除、改名或超出深度的条目随之丢弃）
+        dirs = new HashMap<>(walker.walk());
+        scannedAt = now;
+        // 重新检查过 racy 条目时也要保存新的扫描时间，否则这些条目每次都会被重新检查
+        if (walker.changed() || walker.racy()) {
+            save();
+        }
+    }
+
+    private interface Visitor {
+        void visit(String rel, WorkspaceWalker.DirEntry entry);
+    }
+
+    private void walk(String rel, int depth, Visitor visitor) {
+        WorkspaceWalker.DirEntry entry = dirs.get(rel);
+        if (entry == null || depth >= QinConstants.MAX_SCAN_DEPTH) {
+            return;
+        }
+        visitor.visit(rel, entry);
+        for (String child : entry.children()) {
+            walk(rel.isEmpty() ? child : rel + "/" + child, depth + 1, visitor);
+        }
+    }
+
+    private Path resolve(String rel) {
+        return rel.isEmpty() ? root : root.resolve(rel);
+    }
+
+    // ==================== 持久化 ====================
+
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            Snapshot snapshot = GSON.fromJson(Files.readString(file), Snapshot.class);
+            if (snapshot != null && snapshot.version() == FORMAT_VERSION && snapshot.dirs() != null) {
+                dirs = new HashMap<>(snapshot.dirs());
+                scannedAt = snapshot.scannedAt();
+            }
+        } catch (Exception e) {
+            // 索引损坏时重建
+        }
+    }
+
+    private void save() {
+        try {
+            Files.createDirectories(file.getParent());
+            // 先写临时文件再移动，避免并发运行读到半个文件
+            Path tmp = Files.createTempFile(file.getParent(), "workspace-index", ".tmp");
+            Files.writeString(tmp, GSON.toJson(new Snapshot(FORMAT_VERSION, scannedAt, dirs)));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // 索引写入失败只影响下次的速度
+        }
+    }
+}
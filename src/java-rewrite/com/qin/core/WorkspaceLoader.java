@@ -2,7 +2,6 @@ package com.qin.core;
 
 import com.qin.constants.QinConstants;
 import com.qin.types.QinConfig;
-import com.google.gson.Gson;
 
 import java.io.*;
 import java.nio.file.*;
@@ -17,7 +16,6 @@ public class WorkspaceLoader {
     private final String cwd;
     private final Map<String, WorkspacePackage> packages = new HashMap<>();
     private String workspaceRoot = null;
-    private final Gson gson = new Gson();
 
     public WorkspaceLoader() {
         this(QinConstants.getCwd());
@@ -36,8 +34,7 @@ public class WorkspaceLoader {
         while (current != null) {
             Path configPath = current.resolve(QinConstants.CONFIG_FILE);
             if (Files.exists(configPath)) {
-                String content = Files.readString(configPath);
-                QinConfig config = gson.fromJson(content, QinConfig.class);
+                QinConfig config = ProjectModelRegistry.config(current);
                 if (config.packages() != null && !config.packages().isEmpty()) {
                     workspaceRoot = current.toString();
                     return workspaceRoot;
@@ -66,9 +63,7 @@ public class WorkspaceLoader {
         }
 
         // Load workspace root config
-        Path configPath = Paths.get(root, QinConstants.CONFIG_FILE);
-        String content = Files.readString(configPath);
-        QinConfig rootConfig = gson.fromJson(content, QinConfig.class);
+        QinConfig rootConfig = ProjectModelRegistry.config(Paths.get(root));
 
         return loadPackagesFromRoot(rootConfig, root);
     }
@@ -79,28 +74,24 @@ public class WorkspaceLoader {
             return packages;
         }
 
+        // 包目录来自工作区索引，不再逐个列目录
+        Path basePath = Paths.get(rootDir).toAbsolutePath().normalize();
+        List<Path> projectDirs = WorkspaceIndex.forRoot(basePath).projectDirs();
+
         for (String pattern : rootConfig.packages()) {
             // Simple glob matching
-            Path basePath = Paths.get(rootDir);
-
             if (pattern.endsWith("/*")) {
                 // Match all subdirectories
-                String baseDir = pattern.substring(0, pattern.length() - 2);
-                Path searchDir = basePath.resolve(baseDir);
-
-                if (Files.exists(searchDir) && Files.isDirectory(searchDir)) {
-                    try (DirectoryStream<Path> stream = Files.newDirectoryStream(searchDir)) {
-                        for (Path entry : stream) {
-                            if (Files.isDirectory(entry)) {
-                                loadPackage(entry.toString());
-                            }
-                        }
+                Path searchDir = basePath.resolve(pattern.substring(0, pattern.length() - 2)).normalize();
+                for (Path dir : projectDirs) {
+                    if (searchDir.equals(dir.getParent())) {
+                        loadPackage(dir.toString());
                     }
                 }
             } else {
                 // Direct path
-                Path pkgPath = basePath.resolve(pattern);
-                if (Files.exists(pkgPath) && Files.isDirectory(pkgPath)) {
+                Path pkgPath = basePath.resolve(pattern).normalize();
+                if (projectDirs.contains(pkgPath)) {
                     loadPackage(pkgPath.toString());
                 }
             }
@@ -114,8 +105,7 @@ public class WorkspaceLoader {
 
         try {
             if (Files.exists(configPath)) {
-                String content = Files.readString(configPath);
-                QinConfig config = gson.fromJson(content, QinConfig.class);
+                QinConfig config = ProjectModelRegistry.config(Paths.get(pkgPath));
 
                 if (config.name() != null) {
                     String classesDir = Paths.get(pkgPath, "build", "classes").toString();
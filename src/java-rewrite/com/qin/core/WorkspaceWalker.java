@@ -0,0 +1,263 @@
+package com.qin.core;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.qin.constants.QinConstants;
+import com.qin.utils.QinUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 工作区并行扫描
+ *
+ * 基于 ForkJoinPool，每个目录一个任务：stat 目录，读取其中的 qin.config.json 和 package.json，
+ * 再把子目录分叉成新任务。一次遍历同时发现 Qin 项目和 JS 包：
+ * - 跳过 EXCLUDED_DIRS 和隐藏目录
+ * - 项目边界：包含 qin.config.json 或 package.json 的目录不再进入 PROJECT_SOURCE_DIRS（源码树中没有嵌套项目）
+ * - 每个目录处理完立即回调 Listener，不等整个遍历结束
+ *
+ * 传入上次的结果时做增量校验（mtime 未变的目录沿用子目录列表，未变的配置文件不重新读取），
+ * 传入空 Map 即为冷扫描。WorkspaceIndex 和 LocalProjectResolver.scanProjects 都通过这里遍历
+ */
+public final class WorkspaceWalker {
+
+    /**
+     * 扫描主要在等 I/O，线程数多于 CPU 核数才能让 NVMe 的队列保持满载
+     */
+    private static final ForkJoinPool POOL = new ForkJoinPool(
+            Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+
+    /**
+     * 发现回调（在扫描线程上调用，实现需要线程安全）
+     */
+    public interface Listener {
+        default void onProject(WorkspaceIndex.Project project) {
+        }
+
+        default void onJsPackage(WorkspaceIndex.JsPackage pkg) {
+        }
+    }
+
+    /**
+     * @param mtime    目录 mtime
+     * @param children 参与扫描的子目录名（已排除 EXCLUDED_DIRS、隐藏目录和项目内的源码目录），按名称排序
+     * @param config   qin.config.json，不存在时为 null
+     * @param pkg      package.json，不存在时为 null
+     */
+    record DirEntry(long mtime, List<String> children, FileEntry config, FileEntry pkg) {
+    }
+
+    /**
+     * @param mtime    文件 mtime
+     * @param size     文件大小
+     * @param hash     内容 SHA-256
+     * @param name     name 字段
+     * @param monorepo monorepo 字段（只用于 package.json）
+     */
+    record FileEntry(long mtime, long size, String hash, String name, String monorepo) {
+    }
+
+    private final Path root;
+    private final int maxDepth;
+    private final Map<String, DirEntry> previous;
+    private final long racyBefore;
+    private final Listener listener;
+    private final Map<String, DirEntry> dirs = new ConcurrentHashMap<>();
+    private volatile boolean changed;
+    private volatile boolean racy;
+
+    /**
+     * @param root       扫描根目录
+     * @param maxDepth   最大深度（根目录为 0）
+     * @param previous   上次的结果（相对路径 -> 目录条目），冷扫描传空 Map
+     * @param racyBefore mtime 不早于该时间的条目总是重新检查
+     * @param listener   发现回调，可为 null
+     */
+    WorkspaceWalker(Path root, int maxDepth, Map<String, DirEntry> previous, long racyBefore, Listener listener) {
+        this.root = root;
+        this.maxDepth = maxDepth;
+        this.previous = previous;
+        this.racyBefore = racyBefore;
+        this.listener = listener;
+    }
+
+    /**
+     * 冷扫描 root 下的所有 Qin 项目和 JS 包，结果通过 listener 逐个返回
+     */
+    public static void scan(Path root, int maxDepth, Listener listener) {
+        new WorkspaceWalker(root.toAbsolutePath().normalize(), maxDepth, Map.of(), 0, listener).walk();
+    }
+
+    /**
+     * 并行遍历，返回所有可达目录的条目（不在其中的旧条目已不可达）
+     */
+    Map<String, DirEntry> walk() {
+        if (maxDepth > 0) {
+            POOL.invoke(new DirTask("", 0));
+        }
+        if (!dirs.keySet().equals(previous.keySet())) {
+            changed = true;
+        }
+        return dirs;
+    }
+
+    /**
+     * 是否有条目新增、变化或不再可达
+     */
+    boolean changed() {
+        return changed;
+    }
+
+    /**
+     * 是否重新检查过 racy 条目（需要保存新的扫描时间，否则这些条目每次都会被重新检查）
+     */
+    boolean racy() {
+        return racy;
+    }
+
+    @SuppressWarnings("serial") // 只在 ForkJoinPool 中执行，不会被序列化
+    private final class DirTask extends RecursiveAction {
+        private final String rel;
+        private final int depth;
+
+        DirTask(String rel, int depth) {
+            this.rel = rel;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            List<String> children = visit(rel);
+            if (children.isEmpty() || depth + 1 >= maxDepth) {
+                return;
+            }
+            List<DirTask> tasks = new ArrayList<>(children.size());
+            for (String child : children) {
+                tasks.add(new DirTask(rel.isEmpty() ? child : rel + "/" + child, depth + 1));
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * 校验或扫描单个目录，返回需要继续扫描的子目录
+     */
+    private List<String> visit(String rel) {
+        Path dir = rel.isEmpty() ? root : root.resolve(rel);
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(dir, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return List.of();
+        }
+        if (!attrs.isDirectory()) {
+            return List.of();
+        }
+
+        long mtime = attrs.lastModifiedTime().toMillis();
+        DirEntry entry = previous.get(rel);
+        boolean listingValid = entry != null && entry.mtime() == mtime && mtime < racyBefore;
+        if (entry != null && entry.mtime() == mtime && !listingValid) {
+            racy = true;
+        }
+
+        // 目录未变时，不存在的配置文件也不会出现，只需检查已知的配置文件
+        FileEntry config = listingValid && entry.config() == null
+                ? null
+                : refreshFile(dir.resolve(QinConstants.CONFIG_FILE), entry != null ? entry.config() : null);
+        FileEntry pkg = listingValid && entry.pkg() == null
+                ? null
+                : refreshFile(dir.resolve(QinConstants.PACKAGE_JSON), entry != null ? entry.pkg() : null);
+        List<String> children = listingValid
+                ? entry.children()
+                : listChildren(dir, config != null || pkg != null);
+
+        DirEntry updated = new DirEntry(mtime, children, config, pkg);
+        dirs.put(rel, updated);
+        if (!updated.equals(entry)) {
+            changed = true;
+        }
+
+        if (listener != null) {
+            if (config != null) {
+                listener.onProject(new WorkspaceIndex.Project(dir, config.name(), config.hash()));
+            }
+            if (pkg != null) {
+                listener.onJsPackage(new WorkspaceIndex.JsPackage(dir, pkg.name(), pkg.monorepo()));
+            }
+        }
+        return children;
+    }
+
+    private static List<String> listChildren(Path dir, boolean projectBoundary) {
+        List<String> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, Files::isDirectory)) {
+            for (Path subDir : stream) {
+                String name = subDir.getFileName().toString();
+                if (QinConstants.EXCLUDED_DIRS.contains(name) || name.startsWith(QinConstants.HIDDEN_PREFIX)) {
+                    continue;
+                }
+                if (projectBoundary && QinConstants.PROJECT_SOURCE_DIRS.contains(name)) {
+                    continue;
+                }
+                children.add(name);
+            }
+        } catch (IOException e) {
+            // 忽略无法读取的目录
+        }
+        Collections.sort(children);
+        return List.copyOf(children);
+    }
+
+    /**
+     * 文件 mtime / 大小未变时沿用已有条目，否则重新读取并解析 name / monorepo
+     */
+    private FileEntry refreshFile(Path path, FileEntry known) {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+        long mtime = attrs.lastModifiedTime().toMillis();
+        boolean unchanged = known != null && known.mtime() == mtime && known.size() == attrs.size();
+        if (unchanged && mtime < racyBefore) {
+            return known;
+        }
+        if (unchanged) {
+            racy = true;
+        }
+        try {
+            byte[] content = Files.readAllBytes(path);
+            String name = null;
+            String monorepo = null;
+            try {
+                JsonElement json = JsonParser.parseString(new String(content, StandardCharsets.UTF_8));
+                if (json.isJsonObject()) {
+                    name = stringField(json.getAsJsonObject(), "name");
+                    monorepo = stringField(json.getAsJsonObject(), "monorepo");
+                }
+            } catch (RuntimeException e) {
+                // 无法解析的配置：记录哈希，name 为空
+            }
+            return new FileEntry(mtime, attrs.size(), QinUtils.sha256(content), name, monorepo);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String stringField(JsonObject json, String field) {
+        JsonElement value = json.get(field);
+        return value != null && value.isJsonPrimitive() && value.getAsJsonPrimitive().isString()
+                ? value.getAsString()
+                : null;
+    }
+}
@@ -0,0 +1,211 @@
+package com.qin.dev;
+
+import com.qin.core.ClassDependencyIndex;
+import com.qin.core.CompileStatus;
+import com.qin.core.JavaRunner;
+import com.qin.core.ResourceCopier;
+import com.qin.core.SourceIndex;
+import com.qin.types.CompileDiagnostic;
+import com.qin.types.CompileResult;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * 持续编译（qin compile --watch）
+ *
+ * 1. 启动时全量编译，之后通过 FileWatchService 监听源码目录
+ * 2. 修改或新建的文件只编译这些文件和受 API 变化影响的依赖方（见 JavaRunner.compileIncremental，
+ *    源码索引中内容哈希与上次编译相同的跳过，例如只是 touch 或 checkout）；有文件被删除或事件丢失时全量编译
+ * 3. 编译失败的文件（包括依赖方）在下一次变化时一并重新编译，修好其它文件不会把状态误报为最新；
+ *    只有依赖方也编译通过后才写入 UP_TO_DATE
+ * 4. 每次编译前后写入 CompileStatus，qin run / build 和 BSP 据此跳过编译
+ * 5. 资源目录变化时增量同步到 build/classes（ResourceCopier）
+ *
+ * 防抖时间随编译耗时调整（耗时的一半，限制在 MIN / MAX 之间）：
+ * 编译快时保存后立即编译，编译慢时等待连续的保存合并成一次。
+ * 编译在单独的线程上执行，编译期间的变化在结束后合并为下一次编译
+ */
+public class ContinuousCompiler {
+
+    private static final int MIN_DEBOUNCE_MS = 50;
+    private static final int MAX_DEBOUNCE_MS = 1000;
+    private static final int INITIAL_DEBOUNCE_MS = 300;
+
+    private final JavaRunner runner;
+    private final Path projectDir;
+    private final Consumer<CompileDiagnostic> diagnosticListener;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "qin-compile");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Set<Path> pending = new TreeSet<>();
+    private boolean fullPending;
+    private Set<Path> failed = Set.of();
+    private boolean failedFull;
+    private final Map<Path, String> compiledHashes = new HashMap<>();
+    private volatile int debounceMs = INITIAL_DEBOUNCE_MS;
+    private final List<FileWatchService.Subscription> subscriptions = new ArrayList<>();
+
+    /**
+     * @param runner             项目的 JavaRunner
+     * @param projectDir         项目目录（写入 .qin/compile-status.json）
+     * @param diagnosticListener 诊断回调（在编译线程上调用）
+     */
+    public ContinuousCompiler(JavaRunner runner, Path projectDir, Consumer<CompileDiagnostic> diagnosticListener) {
+        this.runner = runner;
+        this.projectDir = projectDir.toAbsolutePath().normalize();
+        this.diagnosticListener = diagnosticListener;
+    }
+
+    /**
+     * 全量编译一次并开始监听
+     */
+    public void start() throws IOException {
+        synchronized (pending) {
+            fullPending = true;
+        }
+        executor.execute(this::compilePending);
+        subscriptions.add(FileWatchService.shared().subscribe(runner.getSourceDirPath(), List.of("**/*.java"),
+                () -> debounceMs, this::onChanges));
+        for (Path dir : runner.getResourceCopier().resourceDirs()) {
+            if (Files.isDirectory(dir)) {
+                subscriptions.add(FileWatchService.shared().subscribe(dir, List.of(), INITIAL_DEBOUNCE_MS,
+                        changes -> executor.execute(this::syncResources)));
+            }
+        }
+    }
+
+    /**
+     * 停止监听并删除编译状态
+     */
+    public void stop() {
+        subscriptions.forEach(FileWatchService.Subscription::close);
+        executor.shutdownNow();
+        CompileStatus.delete(projectDir);
+    }
+
+    private void onChanges(FileWatchService.Changes changes) {
+        synchronized (pending) {
+            pending.addAll(changes.paths());
+            fullPending |= changes.overflow();
+        }
+        executor.execute(this::compilePending);
+    }
+
+    private void compilePending() {
+        List<Path> files;
+        boolean full;
+        synchronized (pending) {
+            if (pending.isEmpty() && !fullPending) {
+                return; // 已被前一个任务一并编译
+            }
+            Set<Path> merged = new TreeSet<>(pending);
+            merged.addAll(failed);
+            files = new ArrayList<>(merged);
+            full = fullPending || failedFull || files.stream().anyMatch(file -> !Files.exists(file));
+            pending.clear();
+            fullPending = false;
+        }
+
+        SourceIndex index = SourceIndex.forProject(projectDir);
+        if (!full) {
+            files.removeIf(file -> {
+                SourceIndex.SourceFile source = index.get(file);
+                return source != null && source.hash().equals(compiledHashes.get(file));
+            });
+            if (files.isEmpty()) {
+                return; // 内容未变
+            }
+        }
+
+        long startedAt = System.currentTimeMillis();
+        writeStatus(CompileStatus.compiling(startedAt));
+
+        List<CompileDiagnostic> diagnostics = new ArrayList<>();
+        runner.setDiagnosticListener(diagnostic -> {
+            diagnostics.add(diagnostic);
+            if (diagnosticListener != null) {
+                diagnosticListener.accept(diagnostic);
+            }
+        });
+        JavaRunner.IncrementalResult incremental;
+        try {
+            incremental = runner.compileIncremental(full ? null : files.stream().map(Path::toString).toList(),
+                    ClassDependencyIndex.ApiChanges.NONE);
+        } finally {
+            runner.setDiagnosticListener(null);
+        }
+        CompileResult result = incremental.result();
+        // 常量变化时会升级为全量编译
+        List<Path> compiled = incremental.compiledSources() == null ? null
+                : incremental.compiledSources().stream().map(Paths::get).toList();
+
+        long elapsed = System.currentTimeMillis() - startedAt;
+        debounceMs = (int) Math.max(MIN_DEBOUNCE_MS, Math.min(MAX_DEBOUNCE_MS, elapsed / 2));
+
+        synchronized (pending) {
+            failed = result.isSuccess() || compiled == null ? Set.of() : Set.copyOf(compiled);
+            failedFull = !result.isSuccess() && compiled == null;
+        }
+        if (result.isSuccess()) {
+            recordHashes(index, compiled);
+        }
+        if (result.isSuccess()) {
+            log("✓ Compiled " + result.getCompiledFiles() + " files (" + elapsed + " ms)");
+        } else {
+            long errors = diagnostics.stream().filter(CompileDiagnostic::isError).count();
+            log(errors > 0
+                    ? "✗ Compilation failed with " + errors + " error(s) (" + elapsed + " ms)"
+                    : "✗ Compilation failed: " + result.getError());
+        }
+        writeStatus(CompileStatus.finished(result.isSuccess(), startedAt, result.getCompiledFiles(), diagnostics));
+    }
+
+    /**
+     * 记录编译成功时的内容哈希，files 为 null 时记录源码目录下的所有文件
+     */
+    private void recordHashes(SourceIndex index, List<Path> files) {
+        if (files == null) {
+            compiledHashes.clear();
+            for (SourceIndex.SourceFile source : index.filesUnder(runner.getSourceDirPath())) {
+                compiledHashes.put(index.resolve(source), source.hash());
+            }
+            return;
+        }
+        for (Path file : files) {
+            SourceIndex.SourceFile source = index.get(file);
+            if (source != null) {
+                compiledHashes.put(file, source.hash());
+            }
+        }
+    }
+
+    private void syncResources() {
+        try {
+            ResourceCopier.SyncResult result = runner.getResourceCopier().copyResources();
+            if (result.copied() > 0 || result.deleted() > 0) {
+                log("✓ Synced resources: " + result.copied() + " copied, " + result.deleted() + " deleted");
+            }
+        } catch (IOException e) {
+            log("✗ Resource sync failed: " + e.getMessage());
+        }
+    }
+
+    private void writeStatus(CompileStatus status) {
+        try {
+            status.save(projectDir);
+        } catch (IOException e) {
+            log("Failed to write compile status: " + e.getMessage());
+        }
+    }
+
+    private static void log(String msg) {
+        System.out.println("[compile] " + msg);
+    }
+}
@@ -0,0 +1,475 @@
+package com.qin.dev;
+
+import com.qin.constants.QinConstants;
+import com.qin.core.ClassDependencyIndex;
+import com.qin.core.ClassFileInfo;
+import com.qin.core.ClassOutputSnapshot;
+import com.qin.core.DependencyResolver;
+import com.qin.core.JavaRunner;
+import com.qin.core.SourceIndex;
+import com.qin.types.CompileResult;
+import com.qin.types.QinConfig;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Dev 模式进程管理器
+ *
+ * 流程：
+ * 1. 编译并以 -javaagent 方式启动应用（注入 HotSwapAgent）
+ * 2. 源码变化后只重编译改动的文件和受 API 变化影响的依赖方（见 JavaRunner.compileIncremental），
+ *    对比编译输出找出变化的类
+ * 3. 只有方法体变化 → 推送字节码，Instrumentation.redefineClasses 热替换
+ * 4. 结构性变化（新增/删除类、字段、方法签名变化）或热替换失败 → 自动重启
+ *
+ * 重启方式（RestartMode）：
+ * - IN_JVM: 应用以 RestartLauncher 为 main 启动，第三方 jar 在常驻的基础类加载器，
+ *   工作区项目和应用类在可丢弃的重启类加载器，重启时不需要新建 JVM
+ * - STANDBY: 不能在 JVM 内重启的应用，始终保留一个已启动、依赖类已预加载（有 CDS 归档时直接映射）的备用 JVM，
+ *   重启时停止当前进程并激活备用 JVM（只加载新的应用类再调用 main），同时在后台启动下一个备用 JVM
+ * - PROCESS: 销毁进程重新启动（使用 Spring DevTools 时，由 DevTools 负责重启）
+ */
+public class DevSupervisor {
+
+    /**
+     * 结构性变化时的重启方式
+     */
+    public enum RestartMode {
+        IN_JVM,
+        STANDBY,
+        PROCESS
+    }
+
+    private static final String CDS_ARCHIVE_FILE = "app-cds.jsa";
+    private static final int CDS_AUTO_ARCHIVE_MIN_JAVA = 19;
+    private static final long AGENT_STARTUP_TIMEOUT_MS = 30_000;
+    private static final long AGENT_POLL_INTERVAL_MS = 20;
+
+    private final JavaRunner runner;
+    private final String cwd;
+    private final List<String> appArgs;
+    private final RestartMode restartMode;
+    private final ExecutorService standbyExecutor;
+
+    private Process process;
+    private HotSwapClient hotSwap;
+    private Future<AppProcess> standby;
+    /**
+     * 负责写入 CDS 归档的进程（同一时间只有一个，其余进程只读映射），由 cdsLock 保护
+     */
+    private Process cdsWriter;
+    private final Object cdsLock = new Object();
+    private ClassOutputSnapshot snapshot;
+    private final Map<String, ClassFileInfo> structures = new HashMap<>();
+    private Set<Path> knownSources = new HashSet<>();
+    private long lastCompileTime;
+    /**
+     * 上次编译失败的源文件（含依赖方），下次变化时一并重新编译；null 表示需要全量编译
+     */
+    private Set<String> failedSources = Set.of();
+
+    public DevSupervisor(JavaRunner runner, String cwd, List<String> appArgs) {
+        this(runner, cwd, appArgs, RestartMode.IN_JVM);
+    }
+
+    public DevSupervisor(JavaRunner runner, String cwd, List<String> appArgs, RestartMode restartMode) {
+        this.runner = runner;
+        this.cwd = cwd;
+        this.appArgs = appArgs != null ? appArgs : List.of();
+        this.restartMode = restartMode;
+        this.standbyExecutor = restartMode == RestartMode.STANDBY
+                ? Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, "qin-dev-standby");
+                    t.setDaemon(true);
+                    return t;
+                })
+                : null;
+    }
+
+    /**
+     * 根据依赖选择重启方式
+     * 声明了 spring-boot-devtools 的项目由 DevTools 自己的 RestartClassLoader 负责重启，
+     * 其余项目（包括非 Spring 应用）使用 Qin 的两级类加载器代替 DevTools
+     */
+    public static RestartMode detectRestartMode(QinConfig config) {
+        Map<String, String> deps = config.dependencies();
+        boolean devTools = deps != null && deps.keySet().stream()
+                .anyMatch(dep -> dep.contains(QinConstants.SPRING_DEVTOOLS_ARTIFACT));
+        return devTools ? RestartMode.PROCESS : RestartMode.IN_JVM;
+    }
+
+    /**
+     * 全量编译并启动应用
+     */
+    public synchronized void start() throws Exception {
+        long compileStart = System.currentTimeMillis();
+        CompileResult result = runner.compile();
+        if (!result.isSuccess()) {
+            throw new RuntimeException("Compilation failed: " + result.getError());
+        }
+        lastCompileTime = compileStart;
+        knownSources = new HashSet<>(listSources());
+        snapshot = ClassOutputSnapshot.capture(runner.getOutputDir());
+        for (String className : snapshot.getHashes().keySet()) {
+            indexStructure(className, snapshot.readClass(className));
+        }
+        launch();
+        prepareStandby();
+    }
+
+    /**
+     * 源码变化回调（由 SourceWatcher 防抖后调用）
+     */
+    public synchronized void onSourcesChanged() {
+        long begin = System.nanoTime();
+        try {
+            List<Path> sources = listSources();
+            boolean sourceRemoved = !new HashSet<>(sources).containsAll(knownSources);
+            knownSources = new HashSet<>(sources);
+
+            // 1. 增量编译：上次编译后修改过的文件、上次失败的文件和受 API 变化影响的依赖方；
+            //    有源文件被删除时全量编译（同时清理已删除源文件的 class）
+            long compileStart = System.currentTimeMillis();
+            List<String> modified = null;
+            if (!sourceRemoved && failedSources != null) {
+                Set<String> files = sources.stream()
+                        .filter(this::modifiedSinceLastCompile)
+                        .map(Path::toString)
+                        .collect(Collectors.toCollection(TreeSet::new));
+                files.addAll(failedSources);
+                if (files.isEmpty()) {
+                    return;
+                }
+                modified = new ArrayList<>(files);
+                log("重新编译 " + modified.size() + " 个文件...");
+            }
+            JavaRunner.IncrementalResult incremental = runner.compileIncremental(modified,
+                    ClassDependencyIndex.ApiChanges.NONE);
+            CompileResult result = incremental.result();
+            if (!result.isSuccess()) {
+                // 编译失败时保持应用继续运行，等待下一次修改
+                failedSources = incremental.compiledSources() != null
+                        ? Set.copyOf(incremental.compiledSources())
+                        : null;
+                log("编译失败:\n" + result.getError());
+                return;
+            }
+            failedSources = Set.of();
+            lastCompileTime = compileStart;
+
+            // 2. 找出字节码变化的类
+            ClassOutputSnapshot next = ClassOutputSnapshot.capture(runner.getOutputDir());
+            ClassOutputSnapshot.Diff diff = snapshot.diff(next);
+            snapshot = next;
+            if (diff.isEmpty()) {
+                log("字节码无变化");
+                return;
+            }
+
+            Map<String, byte[]> changedBytes = new LinkedHashMap<>();
+            for (String className : diff.changed()) {
+                changedBytes.put(className, next.readClass(className));
+            }
+
+            // 3. 判断能否热替换
+            String reason = findStructuralChange(diff, changedBytes);
+            for (String className : diff.added()) {
+                indexStructure(className, next.readClass(className));
+            }
+            diff.removed().forEach(structures::remove);
+            for (Map.Entry<String, byte[]> entry : changedBytes.entrySet()) {
+                indexStructure(entry.getKey(), entry.getValue());
+            }
+
+            if (reason == null && isRunning()) {
+                String response = hotSwap.push(changedBytes);
+                if (response.startsWith("OK")) {
+                    log("✓ 热替换 " + changedBytes.size() + " 个类 (" + elapsedMs(begin) + " ms)");
+                    return;
+                }
+                reason = "热替换失败: " + response;
+            }
+
+            restart(reason != null ? reason : "应用未运行");
+            log("✓ 已重启 (" + elapsedMs(begin) + " ms)");
+        } catch (Exception e) {
+            log("处理文件变化失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 停止应用（包括备用 JVM）
+     */
+    public synchronized void stop() {
+        stopActive();
+        if (standby != null) {
+            try {
+                destroy(standby.get(AGENT_STARTUP_TIMEOUT_MS, TimeUnit.MILLISECONDS).process());
+            } catch (Exception e) {
+                // 备用 JVM 未启动成功，无需清理
+            }
+            standby = null;
+        }
+        if (standbyExecutor != null) {
+            standbyExecutor.shutdownNow();
+        }
+    }
+
+    private void stopActive() {
+        destroy(process);
+        process = null;
+    }
+
+    private static void destroy(Process target) {
+        if (target == null) {
+            return;
+        }
+        target.destroy();
+        try {
+            target.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 重启应用（结构性变化时的回退路径）
+     */
+    protected void restart(String reason) throws IOException {
+        log("需要重启: " + reason);
+
+        // 优先在已预热的 JVM 内重启，只重新加载工作区和应用类
+        if (restartMode == RestartMode.IN_JVM && isRunning()) {
+            String response = hotSwap.restart();
+            if (response.startsWith("OK")) {
+                return;
+            }
+            log("JVM 内重启失败，重新启动进程: " + response);
+        }
+
+        stopActive();
+        if (restartMode == RestartMode.STANDBY && activateStandby()) {
+            prepareStandby();
+            return;
+        }
+        launch();
+    }
+
+    /**
+     * 切换到备用 JVM（旧进程已停止，端口已释放）
+     *
+     * @return 备用 JVM 不可用时返回 false
+     */
+    private boolean activateStandby() {
+        if (standby == null) {
+            return false;
+        }
+        try {
+            AppProcess next = standby.get();
+            standby = null;
+            if (next.process().isAlive() && next.client().activate().startsWith("OK")) {
+                process = next.process();
+                hotSwap = next.client();
+                log("已切换到备用 JVM");
+                return true;
+            }
+            destroy(next.process());
+        } catch (Exception e) {
+            log("备用 JVM 不可用: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * 在后台启动下一个备用 JVM
+     */
+    private void prepareStandby() {
+        if (restartMode == RestartMode.STANDBY) {
+            standby = standbyExecutor.submit(() -> spawn(StandbyLauncher.class.getName()));
+        }
+    }
+
+    private void launch() throws IOException {
+        String launcher = switch (restartMode) {
+            case IN_JVM -> RestartLauncher.class.getName();
+            // 第一个进程也经过 StandbyLauncher（立即激活），负责写入之后的备用 JVM 映射的 CDS 归档
+            case STANDBY -> StandbyLauncher.class.getName();
+            case PROCESS -> null;
+        };
+        AppProcess app = spawn(launcher);
+        process = app.process();
+        hotSwap = app.client();
+        if (restartMode == RestartMode.STANDBY && !hotSwap.activate().startsWith("OK")) {
+            throw new IOException("Failed to activate application JVM");
+        }
+    }
+
+    /**
+     * 启动一个带 HotSwapAgent 的应用进程
+     *
+     * @param launcher 启动器类名；为 null 时直接运行入口类
+     */
+    private AppProcess spawn(String launcher) throws IOException {
+        int port = HotSwapClient.findFreePort();
+        Path devDir = QinConstants.getProjectQinDir(cwd).resolve("dev");
+        Path agentJar = HotSwapClient.writeAgentJar(devDir);
+        HotSwapClient client = new HotSwapClient(port);
+        String agentArg = "-javaagent:" + agentJar + "=" + port;
+
+        if (launcher == null) {
+            return new AppProcess(runner.start(List.of(agentArg), appArgs), client);
+        }
+
+        // 拆分 classpath：jar → 基础类加载器（系统 classpath），目录 → 可丢弃的应用类加载器
+        List<String> baseEntries = new ArrayList<>();
+        List<String> appEntries = new ArrayList<>();
+        for (String entry : DependencyResolver.parseClasspath(runner.getRuntimeClasspath())) {
+            if (Files.isDirectory(Paths.get(entry))) {
+                appEntries.add(entry);
+            } else {
+                baseEntries.add(entry);
+            }
+        }
+        baseEntries.add(agentJar.toString());
+
+        List<String> jvmArgs = new ArrayList<>(List.of(agentArg, "--add-opens", "java.base/java.lang=ALL-UNNAMED"));
+
+        List<String> launcherArgs = new ArrayList<>();
+        launcherArgs.add(runner.getMainClassName());
+        launcherArgs.add(DependencyResolver.buildClasspath(appEntries));
+        launcherArgs.addAll(appArgs);
+
+        Process started;
+        synchronized (cdsLock) {
+            // 备用 JVM 在后台线程启动，可能与当前进程同时运行：只让一个进程写归档
+            boolean writer = false;
+            if (restartMode == RestartMode.STANDBY) {
+                writer = cdsWriter == null || !cdsWriter.isAlive();
+                jvmArgs.addAll(cdsArgs(devDir, writer));
+            }
+            started = runner.start(jvmArgs, DependencyResolver.buildClasspath(baseEntries), launcher, launcherArgs);
+            if (writer) {
+                cdsWriter = started;
+            }
+        }
+        waitForAgent(started, client);
+        return new AppProcess(started, client);
+    }
+
+    /**
+     * 动态 CDS 归档（JDK 19+）：写入进程退出时记录已加载的类（包括 StandbyLauncher 预加载的依赖），
+     * 之后的 JVM 直接映射，省去备用 JVM 的类解析和校验。
+     * 只有写入进程使用 AutoCreateSharedArchive（归档无效或 classpath 变化时在退出时重建），
+     * 其余进程只读映射已有的归档，避免多个 JVM 同时写同一个文件或替换正被映射的文件
+     *
+     * @param writer 是否由该进程写入归档
+     */
+    private static List<String> cdsArgs(Path devDir, boolean writer) {
+        if (Runtime.version().feature() < CDS_AUTO_ARCHIVE_MIN_JAVA) {
+            return List.of();
+        }
+        Path archive = devDir.resolve(CDS_ARCHIVE_FILE);
+        if (!writer && !Files.isRegularFile(archive)) {
+            return List.of();
+        }
+        // 运行应用的 java 可能比 Qin 自身的旧，不认识的参数直接忽略
+        List<String> args = new ArrayList<>(List.of(
+                "-XX:+IgnoreUnrecognizedVMOptions",
+                // 进程带 HotSwapAgent，动态归档需要显式允许
+                "-XX:+UnlockDiagnosticVMOptions",
+                "-XX:+AllowArchivingWithJavaAgent"));
+        if (writer) {
+            args.add("-XX:+AutoCreateSharedArchive");
+        }
+        args.addAll(List.of(
+                "-XX:SharedArchiveFile=" + archive,
+                "-Xlog:cds=off",
+                "-Xlog:cds+dynamic=off"));
+        return args;
+    }
+
+    /**
+     * 等待 agent 开始监听（ACTIVATE/RESTART 需要在进程启动后立即可用）
+     */
+    private static void waitForAgent(Process started, HotSwapClient client) throws IOException {
+        long deadline = System.currentTimeMillis() + AGENT_STARTUP_TIMEOUT_MS;
+        while (started.isAlive() && System.currentTimeMillis() < deadline) {
+            if (client.isListening()) {
+                return;
+            }
+            try {
+                Thread.sleep(AGENT_POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new IOException("Hot swap agent did not start on port " + client.getPort());
+    }
+
+    /**
+     * 应用进程及其 agent 连接
+     */
+    private record AppProcess(Process process, HotSwapClient client) {
+    }
+
+    private boolean isRunning() {
+        return process != null && process.isAlive();
+    }
+
+    /**
+     * 返回不能热替换的原因，可以热替换时返回 null
+     */
+    private String findStructuralChange(ClassOutputSnapshot.Diff diff, Map<String, byte[]> changedBytes)
+            throws IOException {
+        if (!diff.removed().isEmpty()) {
+            return "删除了类 " + diff.removed();
+        }
+        // 新增的类如果是已有类的内部类/匿名类，意味着外部类结构也变了
+        if (!diff.added().isEmpty()) {
+            return "新增了类 " + diff.added();
+        }
+        for (Map.Entry<String, byte[]> entry : changedBytes.entrySet()) {
+            ClassFileInfo before = structures.get(entry.getKey());
+            ClassFileInfo after = ClassFileInfo.parse(entry.getValue());
+            if (before == null || !before.isRedefinableAs(after)) {
+                return entry.getKey() + " 的结构发生变化";
+            }
+        }
+        return null;
+    }
+
+    private void indexStructure(String className, byte[] bytes) {
+        try {
+            structures.put(className, ClassFileInfo.parse(bytes));
+        } catch (IOException e) {
+            structures.remove(className);
+        }
+    }
+
+    private List<Path> listSources() throws IOException {
+        return SourceIndex.forProject(Paths.get(cwd)).javaFiles(runner.getSourceDirPath()).stream()
+                .map(Paths::get)
+                .collect(Collectors.toList());
+    }
+
+    private boolean modifiedSinceLastCompile(Path source) {
+        try {
+            return Files.getLastModifiedTime(source).toMillis() >= lastCompileTime;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private static long elapsedMs(long beginNanos) {
+        return (System.nanoTime() - beginNanos) / 1_000_000;
+    }
+
+    private static void log(String msg) {
+        System.out.println("[dev] " + msg);
+    }
+}
@@ -0,0 +1,311 @@
+package com.qin.dev;
+
+import com.qin.constants.QinConstants;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * 共享的递归文件监听服务
+ *
+ * 进程内只有一个 WatchService 和两个线程：
+ * - 监听线程阻塞在 take() 上（不轮询），把事件交给分发线程
+ * - 分发线程按订阅合并事件，防抖后依次回调订阅者（所有回调都在这一个线程上）
+ *
+ * 新建的目录会立即递归注册，其中已经存在的文件作为变化一并发布；
+ * 收到 OVERFLOW 时重新扫描该目录并通知订阅者做全量处理。
+ * 跳过隐藏目录和 EXCLUDED_DIRS（订阅的根目录本身除外）；其中的构建输出目录只在项目目录
+ * （含 qin.config.json）下跳过，源码目录中与之同名的包目录（例如 com/acme/build）照常监听。
+ *
+ * Java 热重载（SourceWatcher / HotReloadPlugin）、JS 热重载、qin dev 的配置同步都通过这里订阅
+ */
+public final class FileWatchService {
+
+    private static final FileWatchService SHARED = new FileWatchService();
+
+    /**
+     * 一批合并后的变化
+     *
+     * @param paths    变化的文件（创建、修改或删除），已按订阅的 glob 过滤
+     * @param overflow 事件丢失过（OVERFLOW），订阅者应当全量处理，此时 paths 可能不完整
+     */
+    public record Changes(Set<Path> paths, boolean overflow) {
+    }
+
+    /**
+     * 订阅句柄，close() 后不再回调
+     */
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final Object lock = new Object();
+    private final Map<Path, WatchKey> keys = new HashMap<>();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private WatchService watchService;
+    private ScheduledExecutorService dispatcher;
+
+    private FileWatchService() {
+    }
+
+    /**
+     * 进程内共享的实例（第一次订阅时启动线程）
+     */
+    public static FileWatchService shared() {
+        return SHARED;
+    }
+
+    /**
+     * 订阅目录下的文件变化
+     *
+     * glob 相对于 root 匹配，以任意层目录前缀开头的模式也匹配 root 下的直接文件
+     * （如 "**&#47;*.java" 匹配任意深度的 .java 文件，"qin.config.json" 只匹配根目录下的配置文件）；
+     * 为空时接收所有文件
+     *
+     * @param root       监听的根目录（递归）
+     * @param globs      文件过滤
+     * @param debounceMs 最后一个事件之后等待的时间，期间的变化合并为一批
+     * @param listener   回调（在分发线程上调用）
+     */
+    public Subscription subscribe(Path root, List<String> globs, int debounceMs, Consumer<Changes> listener)
+            throws IOException {
+        return subscribe(root, globs, () -> debounceMs, listener);
+    }
+
+    /**
+     * 订阅目录下的文件变化，防抖时间每次重新取值（qin compile --watch 按编译耗时调整）
+     */
+    public Subscription subscribe(Path root, List<String> globs, IntSupplier debounceMs, Consumer<Changes> listener)
+            throws IOException {
+        Path dir = root.toAbsolutePath().normalize();
+        Subscriber subscriber = new Subscriber(dir, globs, debounceMs, listener);
+        synchronized (lock) {
+            ensureStarted();
+            registerAll(dir, dir, null);
+            subscribers.add(subscriber);
+        }
+        return () -> unsubscribe(subscriber);
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        dispatcher.execute(subscriber::cancel);
+        synchronized (lock) {
+            // 不再被任何订阅覆盖的目录取消注册
+            Iterator<Map.Entry<Path, WatchKey>> it = keys.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Path, WatchKey> entry = it.next();
+                if (subscribers.stream().noneMatch(s -> entry.getKey().startsWith(s.root))) {
+                    entry.getValue().cancel();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private void ensureStarted() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "qin-watch-dispatch");
+            t.setDaemon(true);
+            return t;
+        });
+        Thread watchThread = new Thread(this::watchLoop, "qin-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * 递归注册目录；created 不为 null 时收集其中已存在的文件（目录刚创建，文件可能先于注册写入）
+     */
+    private void registerAll(Path start, Path root, Set<Path> created) throws IOException {
+        if (!Files.isDirectory(start)) {
+            return;
+        }
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                String name = dir.getFileName() != null ? dir.getFileName().toString() : "";
+                boolean excluded = QinConstants.EXCLUDED_DIRS.contains(name) && QinConstants.isExcludedDir(name,
+                        Files.exists(dir.getParent().resolve(QinConstants.CONFIG_FILE)));
+                if (!dir.equals(root) && (excluded || name.startsWith(QinConstants.HIDDEN_PREFIX))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (!keys.containsKey(dir)) {
+                    keys.put(dir, dir.register(watchService,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE,
+                            StandardWatchEventKinds.ENTRY_MODIFY));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (created != null) {
+                    created.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir = (Path) key.watchable();
+            Set<Path> changed = new HashSet<>();
+            boolean overflow = false;
+
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    overflow = true;
+                    continue;
+                }
+                Path path = dir.resolve((Path) event.context());
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                    rescan(path, changed);
+                } else {
+                    changed.add(path);
+                }
+            }
+            if (overflow) {
+                // 事件丢失：重新注册整个目录树（期间新建的子目录可能还没注册）
+                rescan(dir, changed);
+            }
+
+            if (!key.reset()) {
+                synchronized (lock) {
+                    keys.remove(dir);
+                }
+            }
+            publish(dir, changed, overflow);
+        }
+    }
+
+    private void rescan(Path dir, Set<Path> changed) {
+        synchronized (lock) {
+            for (Subscriber subscriber : subscribers) {
+                if (dir.startsWith(subscriber.root)) {
+                    try {
+                        registerAll(dir, subscriber.root, changed);
+                    } catch (IOException e) {
+                        // 目录已被删除
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    private void publish(Path dir, Set<Path> changed, boolean overflow) {
+        if (changed.isEmpty() && !overflow) {
+            return;
+        }
+        dispatcher.execute(() -> {
+            for (Subscriber subscriber : subscribers) {
+                if (dir.startsWith(subscriber.root)) {
+                    subscriber.offer(changed, overflow);
+                }
+            }
+        });
+    }
+
+    /**
+     * 订阅者，pending 和 flushTask 只在分发线程上访问
+     */
+    private final class Subscriber {
+        private final Path root;
+        private final List<PathMatcher> matchers = new ArrayList<>();
+        private final IntSupplier debounceMs;
+        private final Consumer<Changes> listener;
+        private final Set<Path> pending = new TreeSet<>();
+        private boolean pendingOverflow;
+        private ScheduledFuture<?> flushTask;
+        private volatile boolean cancelled;
+
+        Subscriber(Path root, List<String> globs, IntSupplier debounceMs, Consumer<Changes> listener) {
+            this.root = root;
+            this.debounceMs = debounceMs;
+            this.listener = listener;
+            FileSystem fs = root.getFileSystem();
+            for (String glob : globs) {
+                matchers.add(fs.getPathMatcher("glob:" + glob));
+                if (glob.startsWith("**/")) {
+                    matchers.add(fs.getPathMatcher("glob:" + glob.substring(3)));
+                }
+            }
+        }
+
+        void offer(Set<Path> changed, boolean overflow) {
+            boolean added = overflow;
+            for (Path path : changed) {
+                if (path.startsWith(root) && matches(root.relativize(path))) {
+                    added |= pending.add(path);
+                }
+            }
+            if (!added) {
+                return;
+            }
+            pendingOverflow |= overflow;
+            if (flushTask != null) {
+                flushTask.cancel(false);
+            }
+            flushTask = dispatcher.schedule(this::flush, debounceMs.getAsInt(), TimeUnit.MILLISECONDS);
+        }
+
+        private boolean matches(Path relative) {
+            if (matchers.isEmpty()) {
+                return true;
+            }
+            for (PathMatcher matcher : matchers) {
+                if (matcher.matches(relative)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void flush() {
+            if (cancelled) {
+                return;
+            }
+            Changes changes = new Changes(Collections.unmodifiableSet(new TreeSet<>(pending)), pendingOverflow);
+            pending.clear();
+            pendingOverflow = false;
+            flushTask = null;
+            try {
+                listener.accept(changes);
+            } catch (RuntimeException e) {
+                System.err.println("[watch] Subscriber failed: " + e.getMessage());
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            if (flushTask != null) {
+                flushTask.cancel(false);
+            }
+            pending.clear();
+        }
+    }
+}
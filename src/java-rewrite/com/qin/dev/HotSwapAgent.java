@@ -0,0 +1,138 @@
+package com.qin.dev;
+
+import java.io.*;
+import java.lang.instrument.ClassDefinition;
+import java.lang.instrument.Instrumentation;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.*;
+
+/**
+ * Qin 热替换 Java Agent
+ * 通过 -javaagent 注入到 dev 模式启动的应用中，监听本地端口，
+ * 接收变化的 class 字节并调用 Instrumentation.redefineClasses 替换
+ *
+ * 协议（DataInput/DataOutput）：
+ * 请求: UTF op
+ * - REDEFINE: int count, 然后 count 次 { UTF className, int length, byte[length] }
+ * - RESTART: 无参数，通过 RestartLauncher 在当前 JVM 内重启应用
+ * - ACTIVATE: 无参数，激活等待中的备用 JVM（StandbyLauncher）
+ * 响应: UTF "OK ..." 或 "ERROR <message>"
+ *
+ * 注意：此类会被单独打包进 agent jar，只能依赖 JDK、RestartLauncher 和 StandbyLauncher
+ */
+public class HotSwapAgent {
+    public static final String OP_REDEFINE = "REDEFINE";
+    public static final String OP_RESTART = "RESTART";
+    public static final String OP_ACTIVATE = "ACTIVATE";
+
+    public static void premain(String args, Instrumentation inst) {
+        start(args, inst);
+    }
+
+    public static void agentmain(String args, Instrumentation inst) {
+        start(args, inst);
+    }
+
+    private static void start(String args, Instrumentation inst) {
+        if (!inst.isRedefineClassesSupported()) {
+            System.err.println("[hot-swap] JVM 不支持 redefineClasses，热替换不可用");
+            return;
+        }
+        int port = Integer.parseInt(args.trim());
+        Thread thread = new Thread(() -> serve(port, inst), "qin-hot-swap");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void serve(int port, Instrumentation inst) {
+        try (ServerSocket server = new ServerSocket(port, 1, InetAddress.getLoopbackAddress())) {
+            while (true) {
+                try (Socket socket = server.accept()) {
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                    DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                    out.writeUTF(handle(in, inst));
+                    out.flush();
+                } catch (IOException e) {
+                    // 单次连接失败不影响后续请求
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[hot-swap] Agent 监听失败: " + e.getMessage());
+        }
+    }
+
+    private static String handle(DataInputStream in, Instrumentation inst) throws IOException {
+        String op = in.readUTF();
+        return switch (op) {
+            case OP_REDEFINE -> redefine(readClasses(in), inst);
+            case OP_RESTART -> restart();
+            case OP_ACTIVATE -> activate();
+            default -> "ERROR unknown op " + op;
+        };
+    }
+
+    /**
+     * 重启后旧加载器里的同名类可能还没被回收，只替换当前这一代
+     */
+    private static boolean isCurrentGeneration(Class<?> type) {
+        ClassLoader loader = type.getClassLoader();
+        if (!RestartLauncher.isActive() || !(loader instanceof java.net.URLClassLoader urlLoader)) {
+            return true;
+        }
+        return !RestartLauncher.LOADER_NAME.equals(urlLoader.getName()) || loader == RestartLauncher.currentLoader();
+    }
+
+    private static String restart() {
+        if (!RestartLauncher.isActive()) {
+            return "ERROR restart loader not active";
+        }
+        try {
+            RestartLauncher.restart();
+            return "OK";
+        } catch (Throwable e) {
+            return "ERROR " + e;
+        }
+    }
+
+    private static String activate() {
+        if (!StandbyLauncher.isWaiting()) {
+            return "ERROR not a waiting standby JVM";
+        }
+        StandbyLauncher.activate();
+        return "OK";
+    }
+
+    private static Map<String, byte[]> readClasses(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        Map<String, byte[]> classes = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            classes.put(name, bytes);
+        }
+        return classes;
+    }
+
+    private static String redefine(Map<String, byte[]> classes, Instrumentation inst) {
+        List<ClassDefinition> definitions = new ArrayList<>();
+        for (Class<?> loaded : inst.getAllLoadedClasses()) {
+            byte[] bytes = classes.get(loaded.getName());
+            if (bytes != null && inst.isModifiableClass(loaded) && isCurrentGeneration(loaded)) {
+                definitions.add(new ClassDefinition(loaded, bytes));
+            }
+        }
+        // 尚未加载的类无需替换，之后加载时会直接读到磁盘上的新版本
+        if (definitions.isEmpty()) {
+            return "OK 0";
+        }
+        try {
+            inst.redefineClasses(definitions.toArray(new ClassDefinition[0]));
+            return "OK " + definitions.size();
+        } catch (Throwable e) {
+            return "ERROR " + e;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.qin.dev;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.*;
+
+/**
+ * 热替换客户端
+ * 负责生成 agent jar，并把变化的 class 字节推送给应用进程中的 HotSwapAgent
+ */
+public class HotSwapClient {
+    private static final int CONNECT_TIMEOUT_MS = 2000;
+
+    /**
+     * 打包进 agent jar 的类（只能依赖 JDK）
+     */
+    private static final List<Class<?>> AGENT_CLASSES = List.of(
+            HotSwapAgent.class, RestartLauncher.class, StandbyLauncher.class);
+
+    private final int port;
+
+    public HotSwapClient(int port) {
+        this.port = port;
+    }
+
+    /**
+     * 推送变化的类
+     *
+     * @param classes 类名 -> 新的字节码
+     * @return agent 的响应（"OK n" 或 "ERROR ..."）
+     */
+    public String push(Map<String, byte[]> classes) throws IOException {
+        return send(HotSwapAgent.OP_REDEFINE, out -> {
+            out.writeInt(classes.size());
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                out.write(entry.getValue());
+            }
+        });
+    }
+
+    /**
+     * 请求应用在当前 JVM 内通过 RestartLauncher 重启
+     *
+     * @return agent 的响应（"OK" 或 "ERROR ..."）
+     */
+    public String restart() throws IOException {
+        return send(HotSwapAgent.OP_RESTART, out -> {
+        });
+    }
+
+    /**
+     * 激活等待中的备用 JVM
+     *
+     * @return agent 的响应（"OK" 或 "ERROR ..."）
+     */
+    public String activate() throws IOException {
+        return send(HotSwapAgent.OP_ACTIVATE, out -> {
+        });
+    }
+
+    private String send(String op, Payload payload) throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MS);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeUTF(op);
+            payload.write(out);
+            out.flush();
+            return new DataInputStream(socket.getInputStream()).readUTF();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Payload {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * agent 是否已开始监听
+     */
+    public boolean isListening() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MS);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * 获取一个空闲的本地端口
+     */
+    public static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * 生成 agent jar（HotSwapAgent + 启动器，会被 JVM 加到系统 classpath）
+     *
+     * @param dir 输出目录（通常是 .qin/dev）
+     * @return agent jar 路径
+     */
+    public static Path writeAgentJar(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path jarPath = dir.resolve("qin-hot-swap-agent.jar");
+
+        Manifest manifest = new Manifest();
+        Attributes attrs = manifest.getMainAttributes();
+        attrs.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attrs.putValue("Premain-Class", HotSwapAgent.class.getName());
+        attrs.putValue("Agent-Class", HotSwapAgent.class.getName());
+        attrs.putValue("Can-Redefine-Classes", "true");
+
+        try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(jarPath), manifest)) {
+            for (Class<?> type : AGENT_CLASSES) {
+                String entryName = type.getName().replace('.', '/') + ".class";
+                try (InputStream in = type.getClassLoader().getResourceAsStream(entryName)) {
+                    if (in == null) {
+                        throw new IOException("Cannot locate " + entryName);
+                    }
+                    jar.putNextEntry(new JarEntry(entryName));
+                    in.transferTo(jar);
+                    jar.closeEntry();
+                }
+            }
+        }
+        return jarPath;
+    }
+}
@@ -0,0 +1,189 @@
+package com.qin.dev;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.*;
+
+/**
+ * 两级类加载器启动器（dev 模式应用进程的 main 类）
+ *
+ * - 基础类加载器：系统类加载器，只包含第三方 jar，整个 JVM 生命周期内常驻
+ * - 重启类加载器：工作区项目 + 应用自身的 build/classes，每次重启丢弃重建
+ *
+ * 重启时：执行应用注册的 shutdown hook → 中断应用线程 → 关闭旧加载器 →
+ * 在同一个已预热的 JVM 里用新加载器重新调用入口 main
+ *
+ * 注意：此类会被打包进 agent jar（由 HotSwapAgent 调用 restart），只能依赖 JDK
+ *
+ * 参数: mainClass restartClasspath [appArgs...]
+ */
+public class RestartLauncher {
+    public static final String LOADER_NAME = "qin-restart";
+    private static final long HOOK_TIMEOUT_MS = 10_000;
+    private static final String SHUTDOWN_HOOKS_CLASS = "java.lang.ApplicationShutdownHooks";
+
+    private static String mainClassName;
+    private static URL[] restartUrls;
+    private static String[] appArgs;
+    private static volatile URLClassLoader restartLoader;
+    private static Set<Thread> baselineHooks = Set.of();
+    private static volatile boolean active = false;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: RestartLauncher <mainClass> <restartClasspath> [args...]");
+            System.exit(1);
+        }
+        mainClassName = args[0];
+        restartUrls = toUrls(args[1]);
+        appArgs = Arrays.copyOfRange(args, 2, args.length);
+        baselineHooks = currentShutdownHooks();
+        active = true;
+        launch();
+    }
+
+    /**
+     * 是否以两级类加载器模式运行
+     */
+    public static boolean isActive() {
+        return active;
+    }
+
+    /**
+     * 当前的重启类加载器（未激活时为 null）
+     */
+    public static ClassLoader currentLoader() {
+        return restartLoader;
+    }
+
+    /**
+     * 在当前 JVM 中重启应用
+     */
+    public static synchronized void restart() throws Exception {
+        if (!active) {
+            throw new IllegalStateException("RestartLauncher is not active");
+        }
+        ClassLoader oldLoader = restartLoader;
+
+        // 1. 执行应用注册的 shutdown hook（关闭服务器端口、连接池等）
+        runAppShutdownHooks();
+
+        // 2. 中断仍在使用旧加载器的应用线程
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread != Thread.currentThread() && thread.getContextClassLoader() == oldLoader) {
+                thread.interrupt();
+            }
+        }
+
+        // 3. 丢弃旧加载器，重新调用 main
+        if (restartLoader != null) {
+            restartLoader.close();
+        }
+        launch();
+    }
+
+    private static void launch() throws Exception {
+        restartLoader = new URLClassLoader(LOADER_NAME, restartUrls, ClassLoader.getSystemClassLoader());
+        Class<?> mainClass = Class.forName(mainClassName, true, restartLoader);
+        Method main = mainClass.getMethod("main", String[].class);
+
+        ClassLoader loader = restartLoader;
+        Thread thread = new Thread(() -> {
+            try {
+                main.invoke(null, (Object) appArgs.clone());
+            } catch (Throwable e) {
+                // 被重启中断的旧一代应用线程，异常无需输出
+                if (loader != restartLoader) {
+                    return;
+                }
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                System.err.println("[restart] main 执行失败: " + cause);
+                cause.printStackTrace();
+            }
+        }, "main");
+        // restart() 由 agent 的守护线程调用，新线程必须显式设为非守护，否则 JVM 会直接退出
+        thread.setDaemon(false);
+        thread.setContextClassLoader(loader);
+        thread.start();
+    }
+
+    /**
+     * 执行并移除启动之后由应用注册的 shutdown hook
+     * 需要 --add-opens java.base/java.lang=ALL-UNNAMED（DevSupervisor 启动时会加上）
+     */
+    private static void runAppShutdownHooks() {
+        Map<Thread, Thread> hooks = shutdownHookMap();
+        if (hooks == null) {
+            return;
+        }
+        List<Thread> appHooks = new ArrayList<>();
+        synchronized (hooksLock()) {
+            for (Thread hook : hooks.keySet()) {
+                if (!baselineHooks.contains(hook)) {
+                    appHooks.add(hook);
+                }
+            }
+            appHooks.forEach(hooks::remove);
+        }
+        for (Thread hook : appHooks) {
+            hook.start();
+        }
+        for (Thread hook : appHooks) {
+            try {
+                hook.join(HOOK_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static Set<Thread> currentShutdownHooks() {
+        Map<Thread, Thread> hooks = shutdownHookMap();
+        if (hooks == null) {
+            return Set.of();
+        }
+        synchronized (hooksLock()) {
+            Set<Thread> snapshot = Collections.newSetFromMap(new IdentityHashMap<>());
+            snapshot.addAll(hooks.keySet());
+            return snapshot;
+        }
+    }
+
+    /**
+     * ApplicationShutdownHooks 的 add/remove 是 static synchronized，锁的是类对象
+     */
+    private static Object hooksLock() {
+        try {
+            return Class.forName(SHUTDOWN_HOOKS_CLASS);
+        } catch (ClassNotFoundException e) {
+            return RestartLauncher.class;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Thread, Thread> shutdownHookMap() {
+        try {
+            Class<?> hooksClass = Class.forName(SHUTDOWN_HOOKS_CLASS);
+            Field field = hooksClass.getDeclaredField("hooks");
+            field.setAccessible(true);
+            return (Map<Thread, Thread>) field.get(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null; // 未开放 java.lang 时跳过
+        }
+    }
+
+    static URL[] toUrls(String classpath) throws IOException {
+        List<URL> urls = new ArrayList<>();
+        for (String entry : classpath.split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                urls.add(new File(entry).toURI().toURL());
+            }
+        }
+        return urls.toArray(new URL[0]);
+    }
+}
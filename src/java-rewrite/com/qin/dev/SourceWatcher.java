@@ -0,0 +1,40 @@
+package com.qin.dev;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.List;
+
+/**
+ * 源码目录监听器
+ * 监听 .java 文件变化，防抖后触发回调（通过共享的 FileWatchService，回调在其分发线程上执行）
+ */
+public class SourceWatcher {
+    private final Path watchDir;
+    private final int debounceMs;
+    private final Runnable callback;
+    private FileWatchService.Subscription subscription;
+
+    public SourceWatcher(Path watchDir, int debounceMs, Runnable callback) {
+        this.watchDir = watchDir;
+        this.debounceMs = debounceMs;
+        this.callback = callback;
+    }
+
+    /**
+     * 开始监听
+     */
+    public void start() throws IOException {
+        subscription = FileWatchService.shared().subscribe(watchDir, List.of("**/*.java"), debounceMs,
+                changes -> callback.run());
+    }
+
+    /**
+     * 停止监听
+     */
+    public void stop() {
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.qin.dev;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.concurrent.CountDownLatch;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * 预热备用 JVM 启动器（dev 模式 standby 进程的 main 类）
+ *
+ * 进程启动后完成 JVM 启动，并用系统类加载器加载系统 classpath 中各个 jar 的类（不初始化），
+ * 有 CDS 归档时这些类直接从归档映射；然后挂起等待。
+ * DevSupervisor 需要重启时通过 HotSwapAgent 发送 ACTIVATE（预加载未完成时立即停止），
+ * 此时才创建应用类加载器读取最新的 build/classes 并调用入口 main
+ *
+ * 注意：此类会被打包进 agent jar（由 HotSwapAgent 调用 activate），只能依赖 JDK
+ *
+ * 参数: mainClass appClasspath [appArgs...]
+ */
+public class StandbyLauncher {
+    public static final String LOADER_NAME = "qin-standby-app";
+
+    private static final CountDownLatch activated = new CountDownLatch(1);
+    private static volatile boolean waiting = false;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: StandbyLauncher <mainClass> <appClasspath> [args...]");
+            System.exit(1);
+        }
+        String mainClassName = args[0];
+        URL[] appUrls = RestartLauncher.toUrls(args[1]);
+        String[] appArgs = Arrays.copyOfRange(args, 2, args.length);
+
+        waiting = true;
+        preloadDependencies();
+        activated.await();
+
+        URLClassLoader appLoader = new URLClassLoader(LOADER_NAME, appUrls, ClassLoader.getSystemClassLoader());
+        Thread.currentThread().setContextClassLoader(appLoader);
+        Method main = Class.forName(mainClassName, true, appLoader).getMethod("main", String[].class);
+        main.invoke(null, (Object) appArgs);
+    }
+
+    /**
+     * 加载系统 classpath 中 jar 的所有类（不执行静态初始化），激活后立即停止
+     */
+    private static void preloadDependencies() {
+        ClassLoader loader = ClassLoader.getSystemClassLoader();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (!entry.endsWith(".jar")) {
+                continue;
+            }
+            try (JarFile jar = new JarFile(entry)) {
+                Enumeration<JarEntry> entries = jar.entries();
+                while (entries.hasMoreElements()) {
+                    if (activated.getCount() == 0) {
+                        return;
+                    }
+                    String name = entries.nextElement().getName();
+                    if (!name.endsWith(".class") || name.startsWith("META-INF/")
+                            || name.endsWith("module-info.class") || name.endsWith("package-info.class")) {
+                        continue;
+                    }
+                    try {
+                        Class.forName(name.substring(0, name.length() - 6).replace('/', '.'), false, loader);
+                    } catch (ClassNotFoundException | LinkageError e) {
+                        // 可选依赖缺失等，应用运行时同样不会用到
+                    }
+                }
+            } catch (IOException e) {
+                // 无法读取的 jar 跳过
+            }
+        }
+    }
+
+    /**
+     * 是否是正在等待激活的备用进程
+     */
+    public static boolean isWaiting() {
+        return waiting && activated.getCount() > 0;
+    }
+
+    /**
+     * 激活备用进程，开始运行应用
+     */
+    public static void activate() {
+        if (!waiting) {
+            throw new IllegalStateException("Not a standby JVM");
+        }
+        activated.countDown();
+    }
+}
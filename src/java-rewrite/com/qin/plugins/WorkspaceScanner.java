@@ -1,8 +1,8 @@
 package com.qin.plugins;
 
 import com.qin.constants.QinConstants;
+import com.qin.core.WorkspaceIndex;
 
-import java.io.*;
 import java.nio.file.*;
 import java.util.*;
 
@@ -13,6 +13,7 @@ import java.util.*;
  * 1. 不依赖 npm workspaces 配置，直接递归扫描所有包含 package.json 的目录
  * 2. 默认 monorepoEntry 为 "./src/index.ts"（如果未配置）
  * 3. 自动查找项目根目录（通过 .git, qin.config.json, package.json 等标志）
+ * 4. package.json 来自工作区索引（.qin/workspace-index），目录未变化时不重新扫描
  */
 public class WorkspaceScanner {
 
@@ -40,8 +41,19 @@ public class WorkspaceScanner {
         // 1. 查找项目根目录
         Path projectRoot = findProjectRoot(startDir);
 
-        // 2. 从项目根目录递归扫描所有包
-        scanPackagesRecursive(projectRoot, packages);
+        // 2. 从工作区索引获取所有 package.json
+        for (WorkspaceIndex.JsPackage pkg : WorkspaceIndex.forRoot(projectRoot).jsPackages()) {
+            if (pkg.name() == null || packages.containsKey(pkg.name())) {
+                continue;
+            }
+            // 获取 monorepo 入口，如果没有配置则使用默认值
+            String entry = pkg.monorepo() != null ? pkg.monorepo() : DEFAULT_MONOREPO_ENTRY;
+
+            // 只有当 src/index.ts 存在时才添加（或者明确配置了 monorepo）
+            if (pkg.monorepo() != null || Files.exists(pkg.dir().resolve(entry.replace("./", "")))) {
+                packages.put(pkg.name(), new PackageInfo(pkg.name(), pkg.dir(), entry));
+            }
+        }
 
         return packages;
     }
@@ -95,80 +107,4 @@ public class WorkspaceScanner {
         // 都找不到，返回起始目录
         return startDir.toAbsolutePath().normalize();
     }
-
-    /**
-     * 递归扫描目录，收集所有包含 package.json 且有 name 字段的包
-     */
-    private void scanPackagesRecursive(Path dir, Map<String, PackageInfo> packages) {
-        if (!Files.exists(dir) || !Files.isDirectory(dir)) {
-            return;
-        }
-
-        Path pkgPath = dir.resolve(QinConstants.PACKAGE_JSON);
-
-        // 如果当前目录有 package.json，检查是否是一个包
-        if (Files.exists(pkgPath)) {
-            try {
-                String content = Files.readString(pkgPath);
-                String name = parseJsonField(content, "name");
-
-                if (name != null && !packages.containsKey(name)) {
-                    // 获取 monorepo 入口，如果没有配置则使用默认值
-                    String monorepo = parseJsonField(content, "monorepo");
-                    String entry = (monorepo != null) ? monorepo : DEFAULT_MONOREPO_ENTRY;
-
-                    // 只有当 src/index.ts 存在时才添加（或者明确配置了 monorepo）
-                    Path entryPath = dir.resolve(entry.replace("./", ""));
-                    if (monorepo != null || Files.exists(entryPath)) {
-                        packages.put(name, new PackageInfo(name, dir, entry));
-                    }
-                }
-            } catch (IOException e) {
-                // 忽略读取错误
-            }
-        }
-
-        // 递归扫描子目录
-        try (var stream = Files.list(dir)) {
-            stream.filter(Files::isDirectory)
-                    .filter(p -> !QinConstants.EXCLUDED_DIRS.contains(p.getFileName().toString()))
-                    .forEach(subDir -> scanPackagesRecursive(subDir, packages));
-        } catch (IOException e) {
-            // 忽略
-        }
-    }
-
-    /**
-     * 解析 JSON 字段值
-     */
-    private String parseJsonField(String json, String field) {
-        String search = "\"" + field + "\"";
-        int idx = json.indexOf(search);
-        if (idx == -1)
-            return null;
-
-        int colonIdx = json.indexOf(':', idx);
-        if (colonIdx == -1)
-            return null;
-
-        // 跳过空白
-        int valueStart = colonIdx + 1;
-        while (valueStart < json.length() && Character.isWhitespace(json.charAt(valueStart))) {
-            valueStart++;
-        }
-
-        if (valueStart >= json.length())
-            return null;
-
-        char c = json.charAt(valueStart);
-        if (c == '"') {
-            // 字符串值
-            int valueEnd = json.indexOf('"', valueStart + 1);
-            if (valueEnd == -1)
-                return null;
-            return json.substring(valueStart + 1, valueEnd);
-        }
-
-        return null;
-    }
 }
@@ -0,0 +1,71 @@
+package com.qin.test;
+
+import com.qin.core.DependencyResolver;
+import com.qin.utils.QinUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * 依赖指纹（测试结果缓存和影响分析使用）
+ *
+ * - jar：内容哈希，与路径和下载时间无关，不同机器上相同的依赖得到相同的指纹（远程缓存才能命中）
+ * - 目录（项目编译输出）：.class 按类单独跟踪（见 TestImpactAnalyzer），这里计入资源文件的相对路径和内容
+ * - 运行测试的 Java 版本
+ *
+ * 文件哈希按路径、大小、mtime 缓存（见 FileDigestCache），未变化的 jar 不重新读取
+ */
+public final class ClasspathFingerprint {
+
+    private ClasspathFingerprint() {
+    }
+
+    /**
+     * 计算 classpath 的指纹
+     */
+    public static String of(String classpath) {
+        return of(DependencyResolver.parseClasspath(classpath));
+    }
+
+    public static String of(List<String> entries) {
+        FileDigestCache digests = FileDigestCache.createDefault();
+        StringBuilder sb = new StringBuilder();
+        sb.append(Runtime.version()).append('|').append(System.getProperty("java.vendor")).append('\n');
+        for (String entry : entries) {
+            Path path = Paths.get(entry);
+            try {
+                if (Files.isDirectory(path)) {
+                    appendResources(path, digests, sb);
+                } else {
+                    sb.append(digests.digest(path, Files.readAttributes(path, BasicFileAttributes.class)));
+                }
+            } catch (IOException e) {
+                sb.append("missing");
+            }
+            sb.append('\n');
+        }
+        digests.save();
+        return QinUtils.sha256(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 目录中的资源文件（非 .class），按相对路径排序
+     */
+    private static void appendResources(Path dir, FileDigestCache digests, StringBuilder sb) throws IOException {
+        Map<String, String> resources = new TreeMap<>();
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (attrs.isRegularFile() && !file.toString().endsWith(".class")) {
+                    resources.put(dir.relativize(file).toString().replace('\\', '/'), digests.digest(file, attrs));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        sb.append("dir");
+        resources.forEach((name, hash) -> sb.append('|').append(name).append('=').append(hash));
+    }
+}
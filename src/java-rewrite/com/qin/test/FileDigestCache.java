@@ -0,0 +1,95 @@
+package com.qin.test;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.qin.constants.QinConstants;
+import com.qin.constants.QinDefaults;
+import com.qin.utils.QinUtils;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * 文件内容哈希缓存（~/.qin/cache/file-digests.json）
+ *
+ * 按绝对路径记录大小、mtime 和 SHA-256，未变化的文件（依赖 jar、资源）不重新读取。
+ * 多个进程同时写入时后写的覆盖，最多导致下次重新计算
+ */
+final class FileDigestCache {
+    private static final String CACHE_FILE = "file-digests.json";
+    private static final Gson GSON = new Gson();
+
+    /**
+     * @param size   文件大小
+     * @param mtime  文件 mtime
+     * @param sha256 内容哈希
+     */
+    private record Entry(long size, long mtime, String sha256) {
+    }
+
+    private final Path file;
+    private final Map<String, Entry> entries;
+    private boolean dirty;
+
+    private FileDigestCache(Path file) {
+        this.file = file;
+        this.entries = load(file);
+    }
+
+    static FileDigestCache createDefault() {
+        return new FileDigestCache(QinConstants.getQinHomeDir().resolve(QinDefaults.CACHE_DIR).resolve(CACHE_FILE));
+    }
+
+    /**
+     * 文件内容的 SHA-256
+     */
+    String digest(Path path, BasicFileAttributes attrs) throws IOException {
+        String key = path.toAbsolutePath().normalize().toString();
+        long mtime = attrs.lastModifiedTime().toMillis();
+        Entry known = entries.get(key);
+        if (known != null && known.size() == attrs.size() && known.mtime() == mtime) {
+            return known.sha256();
+        }
+        String sha256 = QinUtils.sha256(path);
+        entries.put(key, new Entry(attrs.size(), mtime, sha256));
+        dirty = true;
+        return sha256;
+    }
+
+    /**
+     * 有新计算的哈希时保存（同时丢弃已删除文件的条目）
+     */
+    void save() {
+        if (!dirty) {
+            return;
+        }
+        entries.keySet().removeIf(path -> !Files.exists(Paths.get(path)));
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), "file-digests", ".tmp");
+            Files.writeString(tmp, GSON.toJson(entries));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            // 缓存写入失败只影响下次的速度
+        }
+    }
+
+    private static Map<String, Entry> load(Path file) {
+        if (Files.exists(file)) {
+            try {
+                Map<String, Entry> stored = GSON.fromJson(Files.readString(file),
+                        new TypeToken<Map<String, Entry>>() {
+                        }.getType());
+                if (stored != null) {
+                    return new HashMap<>(stored);
+                }
+            } catch (Exception e) {
+                // 缓存损坏时重新计算
+            }
+        }
+        return new HashMap<>();
+    }
+}
@@ -0,0 +1,140 @@
+package com.qin.test;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * JUnit XML 报告解析器
+ * 读取 ConsoleLauncher 在 --reports-dir 中生成的 TEST-*.xml（legacy XML 格式）
+ */
+public class JUnitXmlReport {
+
+    /**
+     * 单个测试的状态
+     */
+    public enum Status {
+        PASSED,
+        FAILED,
+        ERROR,
+        SKIPPED
+    }
+
+    /**
+     * 单个测试的结果
+     *
+     * @param className 测试类
+     * @param name      测试名（方法名或显示名）
+     * @param seconds   耗时（秒）
+     * @param status    状态
+     * @param message   失败信息（通过/跳过时为 null）
+     */
+    public record TestCase(String className, String name, double seconds, Status status, String message) {
+    }
+
+    private JUnitXmlReport() {
+    }
+
+    /**
+     * 解析目录下所有报告
+     */
+    public static List<TestCase> parseDirectory(Path reportsDir) throws IOException {
+        if (!Files.isDirectory(reportsDir)) {
+            return List.of();
+        }
+        List<Path> reports;
+        try (Stream<Path> list = Files.list(reportsDir)) {
+            reports = list
+                    .filter(p -> p.getFileName().toString().startsWith("TEST-"))
+                    .filter(p -> p.getFileName().toString().endsWith(".xml"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        List<TestCase> result = new ArrayList<>();
+        for (Path report : reports) {
+            result.addAll(parse(report));
+        }
+        return result;
+    }
+
+    /**
+     * 解析单个报告
+     */
+    public static List<TestCase> parse(Path report) throws IOException {
+        Document doc;
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            doc = builder.parse(report.toFile());
+        } catch (Exception e) {
+            throw new IOException("Failed to parse test report " + report + ": " + e.getMessage(), e);
+        }
+
+        List<TestCase> result = new ArrayList<>();
+        NodeList testCases = doc.getElementsByTagName("testcase");
+        for (int i = 0; i < testCases.getLength(); i++) {
+            Element testCase = (Element) testCases.item(i);
+            Status status = Status.PASSED;
+            String message = null;
+
+            for (Node child = testCase.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (!(child instanceof Element element)) {
+                    continue;
+                }
+                switch (element.getTagName()) {
+                    case "failure" -> {
+                        status = Status.FAILED;
+                        message = describe(element);
+                    }
+                    case "error" -> {
+                        status = Status.ERROR;
+                        message = describe(element);
+                    }
+                    case "skipped" -> {
+                        status = Status.SKIPPED;
+                        message = element.getAttribute("message");
+                    }
+                    default -> {
+                    }
+                }
+            }
+
+            result.add(new TestCase(
+                    testCase.getAttribute("classname"),
+                    testCase.getAttribute("name"),
+                    parseSeconds(testCase.getAttribute("time")),
+                    status,
+                    message));
+        }
+        return result;
+    }
+
+    private static String describe(Element element) {
+        String message = element.getAttribute("message");
+        String type = element.getAttribute("type");
+        if (message.isEmpty()) {
+            return type.isEmpty() ? element.getTextContent().trim() : type;
+        }
+        return type.isEmpty() ? message : type + ": " + message;
+    }
+
+    private static double parseSeconds(String value) {
+        try {
+            return Double.parseDouble(value.replace(",", ""));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.qin.test;
+
+import com.qin.core.ClassFileInfo;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 测试类扫描器
+ * 在测试编译输出目录中查找测试类，命名规则与 JUnit Platform 默认的 include pattern 一致
+ */
+public class TestClassScanner {
+    /**
+     * JUnit ConsoleLauncher 默认的类名规则：Test*、*Test、*Tests
+     */
+    private static final Pattern DEFAULT_INCLUDE = Pattern.compile("^(Test.*|.+[.$]Test.*|.*Tests?)$");
+
+    private final Path testClassesDir;
+
+    public TestClassScanner(Path testClassesDir) {
+        this.testClassesDir = testClassesDir;
+    }
+
+    /**
+     * 扫描测试类（只包含顶层的具体类，嵌套类由 JUnit 从外部类发现）
+     *
+     * @param filter 类名过滤器，支持 * 通配符；不含通配符时按子串匹配；null 表示不过滤
+     * @return 排序后的全限定类名列表
+     */
+    public List<String> scan(String filter) throws IOException {
+        if (!Files.isDirectory(testClassesDir)) {
+            return List.of();
+        }
+        Pattern filterPattern = compileFilter(filter);
+
+        List<Path> classFiles;
+        try (Stream<Path> walk = Files.walk(testClassesDir)) {
+            classFiles = walk
+                    .filter(p -> p.toString().endsWith(".class"))
+                    .filter(p -> !p.getFileName().toString().contains("$"))
+                    .collect(Collectors.toList());
+        }
+
+        List<String> result = new ArrayList<>();
+        for (Path classFile : classFiles) {
+            String className = toClassName(classFile);
+            if (!DEFAULT_INCLUDE.matcher(className).matches()) {
+                continue;
+            }
+            if (filterPattern != null && !filterPattern.matcher(className).find()) {
+                continue;
+            }
+            if (ClassFileInfo.parse(Files.readAllBytes(classFile)).isConcreteClass()) {
+                result.add(className);
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private String toClassName(Path classFile) {
+        String relative = testClassesDir.relativize(classFile).toString().replace('\\', '/');
+        return relative.substring(0, relative.length() - ".class".length()).replace('/', '.');
+    }
+
+    /**
+     * 把 --filter 转换成正则：* 匹配任意字符，其余按字面匹配
+     */
+    static Pattern compileFilter(String filter) {
+        if (filter == null || filter.isBlank()) {
+            return null;
+        }
+        if (!filter.contains("*")) {
+            return Pattern.compile(Pattern.quote(filter));
+        }
+        String regex = Arrays.stream(filter.split("\\*", -1))
+                .map(Pattern::quote)
+                .collect(Collectors.joining(".*"));
+        return Pattern.compile("^" + regex + "$");
+    }
+}
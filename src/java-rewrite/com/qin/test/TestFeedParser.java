@@ -0,0 +1,117 @@
+package com.qin.test;
+
+import java.util.*;
+
+/**
+ * 解析 ConsoleLauncher --details=testfeed 的输出，转换为逐个测试的开始 / 结束事件
+ *
+ * 格式（显示名路径 + 状态，异常堆栈以制表符缩进跟在状态行之后）：
+ * <pre>
+ * JUnit Jupiter > CalcTest > adds() :: STARTED
+ * JUnit Jupiter > CalcTest > adds() :: SUCCESSFUL
+ * JUnit Jupiter > CalcTest > divides() :: FAILED
+ * 	org.opentest4j.AssertionFailedError: expected: &lt;1&gt; but was: &lt;2&gt;
+ * </pre>
+ *
+ * 显示名中的类按简单类名对应到本次运行的测试类（嵌套类取最内层），其余部分作为测试名；
+ * 测试自己打印到同一个日志中的行不匹配格式，直接忽略
+ */
+final class TestFeedParser {
+    private static final String SEPARATOR = " :: ";
+    private static final String PATH_SEPARATOR = " > ";
+
+    private final Map<String, String> classesBySimpleName = new HashMap<>();
+    private final TestRunner.Listener listener;
+    private final Map<String, Long> startedAt = new HashMap<>();
+
+    /**
+     * 等待异常信息的失败测试（状态行之后的第一行缩进内容作为失败信息）
+     */
+    private Pending pending;
+
+    private record Pending(String className, String name, double seconds, JUnitXmlReport.Status status) {
+    }
+
+    /**
+     * @param classes  本次运行的测试类（全限定名）
+     * @param listener 事件回调
+     */
+    TestFeedParser(List<String> classes, TestRunner.Listener listener) {
+        for (String className : classes) {
+            classesBySimpleName.put(simpleName(className), className);
+        }
+        this.listener = listener;
+    }
+
+    void accept(String line) {
+        if (line.startsWith("\t")) {
+            if (pending != null && !line.isBlank()) {
+                finish(pending, line.strip());
+            }
+            return;
+        }
+        flush();
+
+        int separator = line.lastIndexOf(SEPARATOR);
+        if (separator < 0) {
+            return;
+        }
+        String path = line.substring(0, separator);
+        String state = line.substring(separator + SEPARATOR.length()).strip();
+        String[] segments = path.split(PATH_SEPARATOR);
+        if (segments.length < 2) {
+            return; // 引擎级事件
+        }
+
+        // 最内层的类显示名之后是测试名（参数化测试为 "方法 > [1] 参数"）
+        int classIndex = -1;
+        for (int i = segments.length - 1; i >= 1; i--) {
+            if (classesBySimpleName.containsKey(segments[i])) {
+                classIndex = i;
+                break;
+            }
+        }
+        String className = classIndex >= 0 ? classesBySimpleName.get(segments[classIndex]) : segments[1];
+        String name = classIndex >= 0 && classIndex < segments.length - 1
+                ? String.join(PATH_SEPARATOR, Arrays.copyOfRange(segments, classIndex + 1, segments.length))
+                : className; // 类级别的失败或跳过（例如 @BeforeAll 失败、@Disabled 的类）
+        String key = className + PATH_SEPARATOR + name;
+
+        switch (state) {
+            case "STARTED" -> {
+                startedAt.put(key, System.nanoTime());
+                listener.testStarted(className, name);
+            }
+            case "SUCCESSFUL" -> finish(new Pending(className, name, elapsed(key), JUnitXmlReport.Status.PASSED), null);
+            case "SKIPPED", "ABORTED" ->
+                    pending = new Pending(className, name, elapsed(key), JUnitXmlReport.Status.SKIPPED);
+            case "FAILED" -> pending = new Pending(className, name, elapsed(key), JUnitXmlReport.Status.FAILED);
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * 输出结束（或下一条状态行）：发送还在等待信息的失败事件
+     */
+    void flush() {
+        if (pending != null) {
+            finish(pending, null);
+        }
+    }
+
+    private void finish(Pending event, String message) {
+        pending = null;
+        listener.testFinished(new JUnitXmlReport.TestCase(event.className(), event.name(), event.seconds(),
+                event.status(), message));
+    }
+
+    private double elapsed(String key) {
+        Long start = startedAt.remove(key);
+        return start != null ? (System.nanoTime() - start) / 1e9 : 0;
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1);
+    }
+}
@@ -0,0 +1,216 @@
+package com.qin.test;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.qin.constants.QinConstants;
+import com.qin.core.ClassFileInfo;
+import com.qin.core.ClassOutputSnapshot;
+import com.qin.core.DependencyGraphBuilder;
+import com.qin.core.LocalProjectResolver;
+import com.qin.types.QinConfig;
+import com.qin.utils.QinUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * 测试影响分析（qin test --affected）
+ *
+ * 每次运行后，为每个通过的测试类记录它的依赖集合（从字节码常量池递归找到的、
+ * 属于项目/工作区编译输出的类）以及这些类当时的哈希摘要。
+ * 下次运行时，只选择依赖集合中有类发生变化（或依赖 jar、资源变化、或上次未通过）的测试类。
+ *
+ * 注意：依赖集合来自静态引用，只通过反射加载的类不会被跟踪
+ */
+public class TestImpactAnalyzer {
+    private static final Gson GSON = new Gson();
+
+    /**
+     * 测试类上次通过时的记录
+     *
+     * @param dependencies         依赖集合（包含测试类本身）
+     * @param digest               依赖集合中所有类哈希的摘要
+     * @param classpathFingerprint 依赖指纹（jar 内容、资源、Java 版本）
+     */
+    public record TestRecord(List<String> dependencies, String digest, String classpathFingerprint) {
+    }
+
+    private final Path stateFile;
+    private final List<Path> classDirs;
+    private final String classpathFingerprint;
+    private final Map<String, TestRecord> records;
+
+    private Map<String, String> hashes;
+    private final Map<String, Path> classFiles = new HashMap<>();
+    private final Map<String, ClassFileInfo> infos = new HashMap<>();
+
+    /**
+     * @param projectDir           项目目录
+     * @param classDirs            需要按类跟踪的编译输出目录（test-classes、classes、工作区依赖项目）
+     * @param classpathFingerprint 依赖指纹（见 ClasspathFingerprint）
+     */
+    public TestImpactAnalyzer(Path projectDir, List<Path> classDirs, String classpathFingerprint) {
+        this.stateFile = QinConstants.getProjectQinDir(projectDir).resolve(QinConstants.TEST_IMPACT_FILE);
+        this.classDirs = classDirs;
+        this.classpathFingerprint = classpathFingerprint;
+        this.records = load(stateFile);
+    }
+
+    /**
+     * 选出受影响的测试类
+     */
+    public List<String> selectAffected(List<String> testClasses) throws IOException {
+        List<String> affected = new ArrayList<>();
+        for (String testClass : testClasses) {
+            TestRecord record = records.get(testClass);
+            if (record == null
+                    || !classpathFingerprint.equals(record.classpathFingerprint())
+                    || !digest(record.dependencies()).equals(record.digest())) {
+                affected.add(testClass);
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * 记录本次运行的结果：通过的测试类更新依赖集合，失败的删除记录（下次一定会被选中）
+     *
+     * @param ranClasses 本次运行的测试类
+     * @param results    测试结果
+     */
+    public void record(Collection<String> ranClasses, List<JUnitXmlReport.TestCase> results) throws IOException {
+        Set<String> failed = new HashSet<>();
+        for (JUnitXmlReport.TestCase testCase : results) {
+            if (testCase.status() == JUnitXmlReport.Status.FAILED || testCase.status() == JUnitXmlReport.Status.ERROR) {
+                failed.add(testCase.className());
+            }
+        }
+        for (String testClass : ranClasses) {
+            if (failed.contains(testClass)) {
+                records.remove(testClass);
+            } else {
+                List<String> dependencies = new ArrayList<>(dependencySet(testClass));
+                records.put(testClass, new TestRecord(dependencies, digest(dependencies), classpathFingerprint));
+            }
+        }
+    }
+
+    public void save() throws IOException {
+        Files.createDirectories(stateFile.getParent());
+        Files.writeString(stateFile, GSON.toJson(records));
+    }
+
+    /**
+     * 测试类的依赖集合：从测试类出发，沿常量池引用递归，只保留项目/工作区编译输出中的类
+     */
+    public Set<String> dependencySet(String testClass) throws IOException {
+        Map<String, String> current = currentHashes();
+        Set<String> visited = new TreeSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(testClass);
+        while (!queue.isEmpty()) {
+            String className = queue.poll();
+            if (!current.containsKey(className) || !visited.add(className)) {
+                continue;
+            }
+            for (String referenced : info(className).getReferencedClasses()) {
+                if (current.containsKey(referenced) && !visited.contains(referenced)) {
+                    queue.add(referenced);
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * 测试类及其依赖集合当前的字节码摘要（测试结果缓存的 key 使用）
+     */
+    public String dependencyDigest(String testClass) throws IOException {
+        return digest(dependencySet(testClass));
+    }
+
+    /**
+     * 依赖集合当前的摘要（已删除的类记为 "-"）
+     */
+    private String digest(Collection<String> dependencies) throws IOException {
+        Map<String, String> current = currentHashes();
+        StringBuilder sb = new StringBuilder();
+        for (String className : new TreeSet<>(dependencies)) {
+            sb.append(className).append('=').append(current.getOrDefault(className, "-")).append('\n');
+        }
+        return QinUtils.sha256(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 当前所有编译输出的类哈希（多个目录中同名类以 classpath 顺序靠前的为准）
+     */
+    public Map<String, String> currentHashes() throws IOException {
+        if (hashes == null) {
+            hashes = new HashMap<>();
+            for (Path dir : classDirs) {
+                ClassOutputSnapshot snapshot = ClassOutputSnapshot.capture(dir);
+                for (Map.Entry<String, String> entry : snapshot.getHashes().entrySet()) {
+                    if (hashes.putIfAbsent(entry.getKey(), entry.getValue()) == null) {
+                        classFiles.put(entry.getKey(), snapshot.classFile(entry.getKey()));
+                    }
+                }
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * 类文件路径（只对 currentHashes 中的类有效）
+     */
+    public Path classFile(String className) throws IOException {
+        currentHashes();
+        return classFiles.get(className);
+    }
+
+    private ClassFileInfo info(String className) throws IOException {
+        ClassFileInfo info = infos.get(className);
+        if (info == null) {
+            info = ClassFileInfo.parse(Files.readAllBytes(classFile(className)));
+            infos.put(className, info);
+        }
+        return info;
+    }
+
+    private static Map<String, TestRecord> load(Path stateFile) {
+        if (Files.exists(stateFile)) {
+            try {
+                Map<String, TestRecord> stored = GSON.fromJson(Files.readString(stateFile),
+                        new TypeToken<Map<String, TestRecord>>() {
+                        }.getType());
+                if (stored != null) {
+                    return new HashMap<>(stored);
+                }
+            } catch (Exception e) {
+                // 状态损坏时视为没有记录，所有测试都会被选中
+            }
+        }
+        return new HashMap<>();
+    }
+
+    /**
+     * 当前项目通过本地依赖（传递）引用的工作区项目的编译输出目录
+     */
+    public static List<Path> workspaceClassDirs(String cwd, QinConfig config) {
+        Map<String, LocalProjectResolver.ProjectInfo> projects = new LocalProjectResolver(cwd).discoverProjects();
+        if (!projects.containsKey(config.name())) {
+            return List.of();
+        }
+        DependencyGraphBuilder graphBuilder = new DependencyGraphBuilder();
+        DependencyGraphBuilder.DependencyGraph graph = graphBuilder.buildGraph(config.name(), projects);
+
+        List<Path> dirs = new ArrayList<>();
+        for (String projectName : graphBuilder.topologicalSort(graph)) {
+            if (!projectName.equals(config.name())) {
+                dirs.add(projects.get(projectName).buildClassesPath);
+            }
+        }
+        return dirs;
+    }
+}
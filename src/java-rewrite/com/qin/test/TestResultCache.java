@@ -0,0 +1,179 @@
+package com.qin.test;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.qin.constants.QinConstants;
+import com.qin.constants.QinDefaults;
+import com.qin.utils.QinUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * 测试结果缓存
+ *
+ * 缓存每个全部通过的测试类的结果，key 为：
+ * 测试类及其依赖集合的字节码摘要 + 依赖指纹（jar 内容、资源、Java 版本）+ 测试 JVM 参数
+ *
+ * 存储：
+ * - 本地：~/.qin/cache/test-results/（同一台机器上的所有检出共享）
+ * - 远程（可选）：环境变量 QIN_REMOTE_CACHE 指定的 HTTP 缓存，GET/PUT {url}/test-results/{key}.json
+ *
+ * 与影响分析独立：全量运行时同样生效
+ */
+public class TestResultCache {
+    /**
+     * key 格式版本，结果格式变化时递增，使旧缓存失效
+     */
+    private static final String KEY_VERSION = "2";
+    private static final String CACHE_SUBDIR = "test-results";
+    private static final Duration REMOTE_TIMEOUT = Duration.ofSeconds(5);
+    private static final Gson GSON = new Gson();
+
+    private final Path localDir;
+    private final String remoteUrl;
+    private final HttpClient http;
+    private boolean remoteAvailable = true;
+
+    public TestResultCache(Path localDir, String remoteUrl) {
+        this.localDir = localDir;
+        this.remoteUrl = remoteUrl != null && !remoteUrl.isBlank() ? remoteUrl.replaceAll("/+$", "") : null;
+        this.http = this.remoteUrl != null
+                ? HttpClient.newBuilder().connectTimeout(REMOTE_TIMEOUT).build()
+                : null;
+    }
+
+    /**
+     * 默认位置：~/.qin/cache/test-results + QIN_REMOTE_CACHE
+     */
+    public static TestResultCache createDefault() {
+        return new TestResultCache(
+                QinConstants.getQinHomeDir().resolve(QinDefaults.CACHE_DIR).resolve(CACHE_SUBDIR),
+                System.getenv(QinConstants.REMOTE_CACHE_ENV));
+    }
+
+    /**
+     * 计算测试类的缓存 key
+     *
+     * @param testClass            测试类
+     * @param dependencyDigest     测试类及其依赖集合的字节码摘要
+     * @param classpathFingerprint 依赖指纹（见 ClasspathFingerprint）
+     * @param jvmArgs              测试 JVM 参数
+     */
+    public static String key(String testClass, String dependencyDigest, String classpathFingerprint,
+            List<String> jvmArgs) {
+        String javaToolOptions = Objects.toString(System.getenv("JAVA_TOOL_OPTIONS"), "");
+        String material = String.join("\n",
+                KEY_VERSION,
+                testClass,
+                dependencyDigest,
+                classpathFingerprint,
+                String.join(" ", jvmArgs),
+                javaToolOptions);
+        return QinUtils.sha256(material.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 查找缓存结果，本地未命中时查远程（命中后写回本地）
+     */
+    public Optional<List<JUnitXmlReport.TestCase>> get(String key) {
+        Path file = localDir.resolve(key + ".json");
+        try {
+            if (Files.exists(file)) {
+                return Optional.of(parse(Files.readString(file)));
+            }
+        } catch (Exception e) {
+            // 本地缓存损坏时当作未命中
+        }
+
+        String remote = fetchRemote(key);
+        if (remote != null) {
+            try {
+                List<JUnitXmlReport.TestCase> cases = parse(remote);
+                writeLocal(file, remote);
+                return Optional.of(cases);
+            } catch (Exception e) {
+                // 忽略无法解析的远程条目
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 保存通过的测试类结果
+     */
+    public void put(String key, List<JUnitXmlReport.TestCase> cases) {
+        String json = GSON.toJson(cases);
+        writeLocal(localDir.resolve(key + ".json"), json);
+        storeRemote(key, json);
+    }
+
+    private List<JUnitXmlReport.TestCase> parse(String json) {
+        List<JUnitXmlReport.TestCase> cases = GSON.fromJson(json,
+                new TypeToken<List<JUnitXmlReport.TestCase>>() {
+                }.getType());
+        if (cases == null) {
+            throw new IllegalStateException("Empty cache entry");
+        }
+        return cases;
+    }
+
+    private void writeLocal(Path file, String json) {
+        try {
+            Files.createDirectories(file.getParent());
+            // 先写临时文件再移动，避免并发运行读到半个文件
+            Path tmp = Files.createTempFile(file.getParent(), "entry", ".tmp");
+            Files.writeString(tmp, json);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // 缓存写入失败不影响测试结果
+        }
+    }
+
+    private String fetchRemote(String key) {
+        if (remoteUrl == null || !remoteAvailable) {
+            return null;
+        }
+        try {
+            HttpResponse<String> response = http.send(
+                    HttpRequest.newBuilder(remoteUri(key)).timeout(REMOTE_TIMEOUT).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 ? response.body() : null;
+        } catch (IOException e) {
+            // 远程缓存不可用时本次运行不再重试
+            remoteAvailable = false;
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void storeRemote(String key, String json) {
+        if (remoteUrl == null || !remoteAvailable) {
+            return;
+        }
+        try {
+            http.send(HttpRequest.newBuilder(remoteUri(key))
+                    .timeout(REMOTE_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(json))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            remoteAvailable = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private URI remoteUri(String key) {
+        return URI.create(remoteUrl + "/" + CACHE_SUBDIR + "/" + key + ".json");
+    }
+}
@@ -0,0 +1,532 @@
+package com.qin.test;
+
+import com.qin.constants.QinConstants;
+import com.qin.core.DependencyResolver;
+import com.qin.types.TestResult;
+import com.qin.utils.QinUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * JUnit Platform 测试运行器
+ *
+ * 两级并行：
+ * 1. 分片：测试类按 .qin/test-timings 的历史耗时均衡分配到 N 个 fork 出的 JVM
+ * 2. 类级并发：每个 JVM 内由 JUnit Jupiter 并发执行测试类（同一个类内的方法仍按顺序执行）
+ *
+ * 每个分片借用 TestWorkerPool 中的常驻 worker JVM 运行 JUnit ConsoleLauncher，结果通过 XML 报告汇总为 TestResult
+ *
+ * 运行前依次经过：影响分析（--affected，决定运行哪些类）→ 结果缓存（已通过且 key 未变的类直接回放）
+ *
+ * 设置了 Listener 时（BSP buildTarget/test），ConsoleLauncher 以 testfeed 格式输出，
+ * 运行期间持续读取分片日志，逐个测试报告开始和结束；运行线程被中断时终止正在运行的 worker JVM
+ */
+public class TestRunner {
+    /**
+     * 进程异常退出（非 0/1/2）时，没有报告的测试类记为错误
+     * ConsoleLauncher：0 = 全部通过，1 = 有失败，2 = 没有发现测试
+     */
+    private static final int MAX_LAUNCHER_EXIT_CODE = 2;
+
+    /**
+     * 读取分片日志的轮询间隔
+     */
+    private static final long FEED_POLL_MS = 50;
+
+    /**
+     * 测试事件回调（在分片线程上调用，需要线程安全）
+     */
+    public interface Listener {
+        /**
+         * 测试开始
+         *
+         * @param className 测试类
+         * @param name      测试名（显示名）
+         */
+        void testStarted(String className, String name);
+
+        /**
+         * 测试结束（缓存回放的测试只有结束事件）
+         */
+        void testFinished(JUnitXmlReport.TestCase testCase);
+    }
+
+    /**
+     * 运行参数
+     *
+     * @param projectDir      项目目录
+     * @param testClassesDir  测试编译输出目录
+     * @param classpath       测试运行时 classpath（test-classes + classes + 依赖）
+     * @param junitConsoleJar junit-platform-console-standalone jar
+     * @param filter          测试类过滤器（可为 null）
+     * @param shards          JVM 分片数，<= 0 时自动选择
+     * @param verbose         是否输出测试进程的控制台输出
+     * @param workspaceDirs   工作区依赖项目的编译输出目录（影响分析时按类跟踪）
+     * @param affectedOnly    只运行受变更影响的测试类（--affected）
+     * @param useCache        是否使用测试结果缓存（--no-test-cache 关闭）
+     * @param jvmArgs         测试 JVM 参数
+     */
+    public record Options(
+            Path projectDir,
+            Path testClassesDir,
+            String classpath,
+            Path junitConsoleJar,
+            String filter,
+            int shards,
+            boolean verbose,
+            List<Path> workspaceDirs,
+            boolean affectedOnly,
+            boolean useCache,
+            List<String> jvmArgs) {
+
+        public Options {
+            Objects.requireNonNull(projectDir, "projectDir");
+            Objects.requireNonNull(testClassesDir, "testClassesDir");
+            Objects.requireNonNull(junitConsoleJar, "junitConsoleJar");
+            classpath = classpath != null ? classpath : "";
+            workspaceDirs = workspaceDirs != null ? List.copyOf(workspaceDirs) : List.of();
+            jvmArgs = jvmArgs != null ? List.copyOf(jvmArgs) : List.of();
+        }
+
+        public Options(Path projectDir, Path testClassesDir, String classpath, Path junitConsoleJar,
+                String filter, int shards, boolean verbose) {
+            this(projectDir, testClassesDir, classpath, junitConsoleJar, filter, shards, verbose,
+                    null, false, true, null);
+        }
+    }
+
+    private final Options options;
+    private final TestWorkerPool workerPool;
+    private volatile Listener listener;
+    /**
+     * 正在运行的 worker（中断时终止）
+     */
+    private final Set<TestWorkerPool.Worker> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 使用临时的 worker 池（运行结束后关闭）
+     */
+    public TestRunner(Options options) {
+        this(options, null);
+    }
+
+    /**
+     * @param workerPool 复用的 worker 池（由调用方关闭，例如 qin test --watch）
+     */
+    public TestRunner(Options options, TestWorkerPool workerPool) {
+        this.options = options;
+        this.workerPool = workerPool;
+    }
+
+    /**
+     * 设置逐个测试的事件回调
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 扫描、（按影响分析）选择、分片并运行测试
+     */
+    public TestResult run() throws IOException, InterruptedException {
+        long begin = System.nanoTime();
+        List<String> classes = new TestClassScanner(options.testClassesDir()).scan(options.filter());
+        if (classes.isEmpty()) {
+            return new TestResult(true, 0, 0, 0, 0, 0, "No tests found", null);
+        }
+
+        String classpathFingerprint = ClasspathFingerprint.of(options.classpath());
+        TestImpactAnalyzer impact = new TestImpactAnalyzer(options.projectDir(), classDirs(), classpathFingerprint);
+        List<String> selected = classes;
+        if (options.affectedOnly()) {
+            selected = impact.selectAffected(classes);
+            System.out.println("  → " + selected.size() + " of " + classes.size()
+                    + " test classes affected by changes since last green run");
+            if (selected.isEmpty()) {
+                return new TestResult(true, 0, 0, 0, 0, (System.nanoTime() - begin) / 1e9,
+                        "No affected tests", null);
+            }
+        }
+
+        // 结果缓存：回放命中的类，只运行未命中的
+        List<JUnitXmlReport.TestCase> results = new ArrayList<>();
+        List<String> toRun = selected;
+        Map<String, String> cacheKeys = new HashMap<>();
+        TestResultCache cache = options.useCache() ? TestResultCache.createDefault() : null;
+        if (cache != null) {
+            toRun = new ArrayList<>();
+            for (String testClass : selected) {
+                String key = TestResultCache.key(testClass, impact.dependencyDigest(testClass),
+                        classpathFingerprint, options.jvmArgs());
+                Optional<List<JUnitXmlReport.TestCase>> cached = cache.get(key);
+                if (cached.isPresent()) {
+                    results.addAll(cached.get());
+                    if (listener != null) {
+                        cached.get().forEach(listener::testFinished);
+                    }
+                } else {
+                    cacheKeys.put(testClass, key);
+                    toRun.add(testClass);
+                }
+            }
+        }
+        int cachedClasses = selected.size() - toRun.size();
+
+        if (!toRun.isEmpty()) {
+            List<JUnitXmlReport.TestCase> executed = execute(toRun);
+            results.addAll(executed);
+            if (cache != null) {
+                storePassed(cache, cacheKeys, executed);
+            }
+        }
+
+        // 每次运行都更新依赖集合，下次 --affected 才有数据可用
+        impact.record(selected, results);
+        impact.save();
+
+        TestResult result = aggregate(results, (System.nanoTime() - begin) / 1e9);
+        if (cachedClasses == 0) {
+            return result;
+        }
+        return new TestResult(result.isSuccess(), result.getTestsRun(), result.getFailures(), result.getErrors(),
+                result.getSkipped(), result.getTime(),
+                result.getOutput() + " (" + cachedClasses + " of " + selected.size() + " classes from cache)",
+                result.getError());
+    }
+
+    /**
+     * 缓存全部通过的测试类（有失败或错误的类不缓存，下次一定重新运行）
+     */
+    private static void storePassed(TestResultCache cache, Map<String, String> cacheKeys,
+            List<JUnitXmlReport.TestCase> executed) {
+        Map<String, List<JUnitXmlReport.TestCase>> byClass = new HashMap<>();
+        for (JUnitXmlReport.TestCase testCase : executed) {
+            byClass.computeIfAbsent(testCase.className(), k -> new ArrayList<>()).add(testCase);
+        }
+        for (Map.Entry<String, List<JUnitXmlReport.TestCase>> entry : byClass.entrySet()) {
+            String key = cacheKeys.get(entry.getKey());
+            boolean passed = entry.getValue().stream().noneMatch(t ->
+                    t.status() == JUnitXmlReport.Status.FAILED || t.status() == JUnitXmlReport.Status.ERROR);
+            if (key != null && passed) {
+                cache.put(key, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 按类跟踪的编译输出目录：classpath 中的目录条目 + 工作区依赖项目
+     */
+    private List<Path> classDirs() {
+        List<Path> dirs = new ArrayList<>();
+        for (String entry : DependencyResolver.parseClasspath(options.classpath())) {
+            Path path = Paths.get(entry);
+            if (Files.isDirectory(path)) {
+                dirs.add(path);
+            }
+        }
+        for (Path dir : options.workspaceDirs()) {
+            if (!dirs.contains(dir)) {
+                dirs.add(dir);
+            }
+        }
+        if (!dirs.contains(options.testClassesDir())) {
+            dirs.add(0, options.testClassesDir());
+        }
+        return dirs;
+    }
+
+    /**
+     * 在分片的 worker JVM 中运行指定测试类，并更新历史耗时
+     */
+    public List<JUnitXmlReport.TestCase> execute(List<String> classes) throws IOException, InterruptedException {
+        TestTimings timings = TestTimings.load(options.projectDir());
+        int cores = Runtime.getRuntime().availableProcessors();
+        int requested = options.shards() > 0 ? options.shards() : Math.max(1, cores / 2);
+        List<List<String>> shards = TestShardPlanner.plan(classes, timings, requested);
+        int threadsPerJvm = Math.max(1, cores / shards.size());
+
+        System.out.println("  → Running " + classes.size() + " test classes in " + shards.size()
+                + " JVM(s), " + threadsPerJvm + " thread(s) each");
+
+        Path resultsDir = options.projectDir().resolve(QinConstants.BUILD_TEST_RESULTS_DIR);
+        QinUtils.deleteDir(resultsDir);
+
+        TestWorkerPool workers = workerPool != null ? workerPool : new TestWorkerPool(
+                QinConstants.getProjectQinDir(options.projectDir()).resolve(QinConstants.TEST_WORKERS_DIR));
+        ExecutorService pool = Executors.newFixedThreadPool(shards.size(), r -> {
+            Thread t = new Thread(r, "qin-test-shard");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<List<JUnitXmlReport.TestCase>>> futures = new ArrayList<>();
+            for (int i = 0; i < shards.size(); i++) {
+                Path shardDir = resultsDir.resolve("shard-" + i);
+                List<String> shardClasses = shards.get(i);
+                futures.add(pool.submit(() -> runShard(workers, shardDir, shardClasses, threadsPerJvm)));
+            }
+
+            List<JUnitXmlReport.TestCase> results = new ArrayList<>();
+            for (Future<List<JUnitXmlReport.TestCase>> future : futures) {
+                try {
+                    results.addAll(future.get());
+                } catch (InterruptedException e) {
+                    // 分片线程阻塞在 worker 管道上，终止 worker 让它们结束
+                    running.forEach(TestWorkerPool.Worker::kill);
+                    throw e;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof IOException io ? io : new IOException(cause.getMessage(), cause);
+                }
+            }
+
+            timings.record(classDurations(results));
+            timings.save();
+            return results;
+        } finally {
+            pool.shutdownNow();
+            if (workers != workerPool) {
+                workers.close();
+            }
+        }
+    }
+
+    /**
+     * 在一个 worker JVM 中运行一组测试类
+     */
+    private List<JUnitXmlReport.TestCase> runShard(TestWorkerPool workers, Path shardDir, List<String> classes,
+            int threads) throws IOException {
+        Path reportsDir = shardDir.resolve("reports");
+        Files.createDirectories(reportsDir);
+
+        // 目录条目（项目编译输出）每次运行重新加载，jar 条目放进 worker 的共享 classpath
+        List<Path> classDirs = new ArrayList<>();
+        List<String> sharedClasspath = new ArrayList<>();
+        for (String entry : DependencyResolver.parseClasspath(options.classpath())) {
+            Path path = Paths.get(entry);
+            if (Files.isDirectory(path)) {
+                classDirs.add(path);
+            } else {
+                sharedClasspath.add(entry);
+            }
+        }
+        if (!classDirs.contains(options.testClassesDir())) {
+            classDirs.add(0, options.testClassesDir());
+        }
+
+        List<String> launcherArgs = launcherArgs(classes, reportsDir, threads);
+        Files.write(shardDir.resolve("launcher.args"), launcherArgs);
+        Path log = shardDir.resolve("output.log");
+
+        TestWorkerPool.Worker worker = workers.acquire(options.jvmArgs(), options.junitConsoleJar(),
+                sharedClasspath, options.projectDir());
+        Listener events = listener;
+        TestFeedTail tail = events != null ? new TestFeedTail(log, new TestFeedParser(classes, events)) : null;
+        TestWorkerPool.RunResult run;
+        running.add(worker);
+        try {
+            run = worker.run(classDirs, launcherArgs, log, options.verbose() && events == null);
+        } finally {
+            running.remove(worker);
+            workers.release(worker);
+            if (tail != null) {
+                tail.close();
+            }
+        }
+        int exitCode = run.exitCode();
+
+        List<JUnitXmlReport.TestCase> results = new ArrayList<>(JUnitXmlReport.parseDirectory(reportsDir));
+        if (exitCode > MAX_LAUNCHER_EXIT_CODE || exitCode < 0) {
+            Set<String> reported = results.stream()
+                    .map(JUnitXmlReport.TestCase::className)
+                    .collect(Collectors.toSet());
+            String reason = run.error() != null ? run.error() : "Test JVM exited with code " + exitCode;
+            for (String className : classes) {
+                if (!reported.contains(className)) {
+                    results.add(new JUnitXmlReport.TestCase(className, className, 0,
+                            JUnitXmlReport.Status.ERROR,
+                            reason + " (see " + log + ")"));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 运行期间持续读取分片日志（worker 写入），按行交给 TestFeedParser
+     */
+    private static final class TestFeedTail implements AutoCloseable {
+        private final Path log;
+        private final TestFeedParser parser;
+        private final Thread thread;
+        private volatile boolean done;
+
+        TestFeedTail(Path log, TestFeedParser parser) {
+            this.log = log;
+            this.parser = parser;
+            this.thread = new Thread(this::follow, "qin-test-feed");
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        private void follow() {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            try {
+                while (!Files.exists(log)) {
+                    if (done) {
+                        return;
+                    }
+                    Thread.sleep(FEED_POLL_MS);
+                }
+                try (InputStream in = Files.newInputStream(log)) {
+                    while (true) {
+                        boolean finished = done; // 先读标志：结束后再读一遍，保证读到最后的输出
+                        int n = in.read(buffer);
+                        if (n < 0) {
+                            if (finished) {
+                                break;
+                            }
+                            Thread.sleep(FEED_POLL_MS);
+                            continue;
+                        }
+                        for (int i = 0; i < n; i++) {
+                            if (buffer[i] == '\n') {
+                                parser.accept(line.toString(Charset.defaultCharset()).stripTrailing());
+                                line.reset();
+                            } else {
+                                line.write(buffer[i]);
+                            }
+                        }
+                    }
+                }
+                if (line.size() > 0) {
+                    parser.accept(line.toString(Charset.defaultCharset()).stripTrailing());
+                }
+                parser.flush();
+            } catch (IOException e) {
+                // 日志不可读时只是没有实时事件，最终结果仍来自 XML 报告
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void close() {
+            done = true;
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                thread.interrupt();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * ConsoleLauncher 命令行参数（测试类由 worker 每次运行的类加载器提供，不再传 --class-path）
+     */
+    private List<String> launcherArgs(List<String> classes, Path reportsDir, int threads) {
+        List<String> args = new ArrayList<>();
+        args.add("execute");
+        args.add("--disable-banner");
+        args.add("--disable-ansi-colors");
+        args.add("--details=" + (listener != null ? "testfeed" : options.verbose() ? "tree" : "none"));
+        args.add("--reports-dir=" + reportsDir);
+        args.addAll(parallelConfig(threads).stream().map(c -> "--config=" + c).collect(Collectors.toList()));
+        for (String className : classes) {
+            args.add("--select-class=" + className);
+        }
+        return args;
+    }
+
+    /**
+     * 类级并发：不同测试类并发执行，同一个类内的测试方法按顺序执行
+     */
+    static List<String> parallelConfig(int threads) {
+        return List.of(
+                "junit.jupiter.execution.parallel.enabled=true",
+                "junit.jupiter.execution.parallel.mode.default=same_thread",
+                "junit.jupiter.execution.parallel.mode.classes.default=concurrent",
+                "junit.jupiter.execution.parallel.config.strategy=fixed",
+                "junit.jupiter.execution.parallel.config.fixed.parallelism=" + threads);
+    }
+
+    /**
+     * 汇总为 TestResult
+     */
+    public static TestResult aggregate(List<JUnitXmlReport.TestCase> results, double seconds) {
+        int failures = 0;
+        int errors = 0;
+        int skipped = 0;
+        StringBuilder failureDetails = new StringBuilder();
+        for (JUnitXmlReport.TestCase testCase : results) {
+            switch (testCase.status()) {
+                case FAILED -> failures++;
+                case ERROR -> errors++;
+                case SKIPPED -> skipped++;
+                default -> {
+                }
+            }
+            if (testCase.status() == JUnitXmlReport.Status.FAILED || testCase.status() == JUnitXmlReport.Status.ERROR) {
+                failureDetails.append("  ✗ ").append(testCase.className()).append(" > ").append(testCase.name())
+                        .append("\n      ").append(testCase.message()).append("\n");
+            }
+        }
+
+        int run = results.size();
+        boolean success = failures == 0 && errors == 0;
+        String output = String.format("%d tests, %d passed, %d failed, %d errors, %d skipped",
+                run, run - failures - errors - skipped, failures, errors, skipped);
+        return new TestResult(success, run, failures, errors, skipped, seconds, output,
+                success ? null : failureDetails.toString().stripTrailing());
+    }
+
+    /**
+     * 每个测试类的总耗时（毫秒）
+     */
+    static Map<String, Long> classDurations(List<JUnitXmlReport.TestCase> results) {
+        Map<String, Long> durations = new HashMap<>();
+        for (JUnitXmlReport.TestCase testCase : results) {
+            durations.merge(testCase.className(), Math.round(testCase.seconds() * 1000), Long::sum);
+        }
+        return durations;
+    }
+
+    /**
+     * 通过 Coursier 解析 JUnit ConsoleLauncher（standalone jar 已包含 Jupiter/Vintage 引擎）
+     */
+    public static Path resolveConsoleLauncher(DependencyResolver resolver) throws IOException {
+        String classpath = resolver.resolve(List.of(QinConstants.JUNIT_CONSOLE_COORDINATE));
+        return DependencyResolver.parseClasspath(classpath).stream()
+                .filter(entry -> entry.contains("junit-platform-console-standalone"))
+                .map(Paths::get)
+                .findFirst()
+                .orElseThrow(() -> new IOException("Cannot resolve " + QinConstants.JUNIT_CONSOLE_COORDINATE));
+    }
+
+    /**
+     * 组合测试运行时 classpath
+     */
+    public static String buildTestClasspath(Path testClassesDir, String runtimeClasspath, String testDependencies) {
+        List<String> entries = new ArrayList<>();
+        entries.add(testClassesDir.toString());
+        for (String cp : List.of(runtimeClasspath, testDependencies)) {
+            if (cp != null && !cp.isEmpty()) {
+                for (String entry : DependencyResolver.parseClasspath(cp)) {
+                    if (!entries.contains(entry)) {
+                        entries.add(entry);
+                    }
+                }
+            }
+        }
+        return DependencyResolver.buildClasspath(entries);
+    }
+}
@@ -0,0 +1,46 @@
+package com.qin.test;
+
+import java.util.*;
+
+/**
+ * 测试分片规划器
+ * 按历史耗时把测试类分配到 N 个 JVM：耗时最长的类优先，每次放进当前总耗时最少的分片（LPT 贪心）
+ */
+public class TestShardPlanner {
+
+    private TestShardPlanner() {
+    }
+
+    /**
+     * 规划分片
+     *
+     * @param classes 测试类
+     * @param timings 历史耗时
+     * @param shards  分片数（会被限制在 [1, classes.size()]）
+     * @return 每个分片的测试类列表（不含空分片）
+     */
+    public static List<List<String>> plan(List<String> classes, TestTimings timings, int shards) {
+        int count = Math.max(1, Math.min(shards, classes.size()));
+
+        List<String> ordered = new ArrayList<>(classes);
+        ordered.sort(Comparator.comparingLong(timings::estimate).reversed().thenComparing(Comparator.naturalOrder()));
+
+        List<List<String>> result = new ArrayList<>();
+        PriorityQueue<long[]> loads = new PriorityQueue<>(
+                Comparator.<long[]>comparingLong(load -> load[0]).thenComparingLong(load -> load[1]));
+        for (int i = 0; i < count; i++) {
+            result.add(new ArrayList<>());
+            loads.add(new long[] { 0, i });
+        }
+
+        for (String className : ordered) {
+            long[] lightest = loads.poll();
+            result.get((int) lightest[1]).add(className);
+            lightest[0] += timings.estimate(className);
+            loads.add(lightest);
+        }
+
+        result.removeIf(List::isEmpty);
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+package com.qin.test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.qin.constants.QinConstants;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * 测试类历史耗时（.qin/test-timings）
+ * 记录每个测试类最近一次的执行时间，用于在多个 JVM 之间均衡分片
+ */
+public class TestTimings {
+    /**
+     * 没有任何历史数据时假定的单个测试类耗时
+     */
+    private static final long DEFAULT_ESTIMATE_MS = 1000;
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private final Path file;
+    private final Map<String, Long> durations;
+    /**
+     * 已知类的平均耗时（分片时每个未知类都要用到，计算一次后缓存，record 时失效）
+     */
+    private Long averageMs;
+
+    private TestTimings(Path file, Map<String, Long> durations) {
+        this.file = file;
+        this.durations = durations;
+    }
+
+    /**
+     * 加载项目的历史耗时，文件不存在或损坏时返回空记录
+     */
+    public static TestTimings load(Path projectDir) {
+        Path file = QinConstants.getProjectQinDir(projectDir).resolve(QinConstants.TEST_TIMINGS_FILE);
+        Map<String, Long> durations = new TreeMap<>();
+        if (Files.exists(file)) {
+            try {
+                Map<String, Long> stored = GSON.fromJson(Files.readString(file),
+                        new TypeToken<Map<String, Long>>() {
+                        }.getType());
+                if (stored != null) {
+                    durations.putAll(stored);
+                }
+            } catch (Exception e) {
+                // 历史数据只影响分片均衡，损坏时忽略
+            }
+        }
+        return new TestTimings(file, durations);
+    }
+
+    /**
+     * 估算测试类耗时：有记录用记录值，否则用已知类的平均值
+     */
+    public long estimate(String className) {
+        Long known = durations.get(className);
+        if (known != null) {
+            return known;
+        }
+        if (averageMs == null) {
+            averageMs = (long) durations.values().stream().mapToLong(Long::longValue).average()
+                    .orElse(DEFAULT_ESTIMATE_MS);
+        }
+        return averageMs;
+    }
+
+    /**
+     * 记录本次运行的耗时
+     */
+    public void record(Map<String, Long> classDurations) {
+        durations.putAll(classDurations);
+        averageMs = null;
+    }
+
+    public void save() throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, GSON.toJson(durations));
+    }
+}
@@ -0,0 +1,125 @@
+package com.qin.test;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Paths;
+
+/**
+ * 常驻测试 worker（运行在 fork 出的 JVM 中，由 TestWorkerPool 管理）
+ *
+ * 类加载器分两级：
+ * 1. 共享：系统 classpath（worker jar + JUnit ConsoleLauncher + 第三方依赖 jar），整个 worker 生命周期只加载一次
+ * 2. 每次运行：项目编译输出目录（test-classes、classes、工作区依赖项目）放进新的 URLClassLoader，运行结束后关闭
+ *
+ * 通过 stdin/stdout 管道通信（DataInput/DataOutput）：
+ * - RUN：目录列表 + ConsoleLauncher 参数 + 日志文件 + 是否回显，响应 DONE 退出码、已用堆、最大堆
+ * - EXIT：退出
+ *
+ * 注意：此类会被单独打包进 worker jar，只能依赖 JDK
+ */
+public class TestWorker {
+    public static final String OP_RUN = "RUN";
+    public static final String OP_EXIT = "EXIT";
+    public static final String RESPONSE_DONE = "DONE";
+    public static final String RESPONSE_ERROR = "ERROR";
+
+    private static final String CONSOLE_LAUNCHER = "org.junit.platform.console.ConsoleLauncher";
+
+    /**
+     * 已用堆超过这个比例时先 GC 再上报，避免把可回收的垃圾误判为泄漏
+     */
+    private static final double GC_BEFORE_REPORT_RATIO = 0.5;
+
+    public static void main(String[] args) throws Exception {
+        // stdout 专用于协议，测试代码的输出一律重定向
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+        PrintStream stderr = System.err;
+        System.setOut(stderr);
+
+        Method run = Class.forName(CONSOLE_LAUNCHER)
+                .getMethod("run", PrintWriter.class, PrintWriter.class, String[].class);
+
+        while (true) {
+            String op;
+            try {
+                op = in.readUTF();
+            } catch (EOFException e) {
+                // 父进程已退出
+                return;
+            }
+            if (OP_EXIT.equals(op)) {
+                return;
+            }
+            if (!OP_RUN.equals(op)) {
+                out.writeUTF(RESPONSE_ERROR);
+                out.writeUTF("Unknown op: " + op);
+                out.flush();
+                continue;
+            }
+
+            URL[] classDirs = new URL[in.readInt()];
+            for (int i = 0; i < classDirs.length; i++) {
+                classDirs[i] = Paths.get(in.readUTF()).toUri().toURL();
+            }
+            String[] launcherArgs = new String[in.readInt()];
+            for (int i = 0; i < launcherArgs.length; i++) {
+                launcherArgs[i] = in.readUTF();
+            }
+            String logFile = in.readUTF();
+            boolean echo = in.readBoolean();
+
+            int exitCode;
+            try (PrintStream log = echo ? null : new PrintStream(new FileOutputStream(logFile), true)) {
+                exitCode = runOnce(run, classDirs, launcherArgs, log != null ? log : stderr, stderr);
+            } catch (Throwable e) {
+                out.writeUTF(RESPONSE_ERROR);
+                out.writeUTF(e.toString());
+                out.flush();
+                continue;
+            }
+
+            out.writeUTF(RESPONSE_DONE);
+            out.writeInt(exitCode);
+            out.writeLong(usedHeap());
+            out.writeLong(Runtime.getRuntime().maxMemory());
+            out.flush();
+        }
+    }
+
+    /**
+     * 在新的类加载器中运行一次 ConsoleLauncher
+     * JUnit 通过线程上下文类加载器加载被选择的测试类
+     */
+    private static int runOnce(Method run, URL[] classDirs, String[] launcherArgs, PrintStream output,
+            PrintStream stderr) throws Exception {
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        try (URLClassLoader loader = new URLClassLoader("qin-test-run", classDirs,
+                ClassLoader.getSystemClassLoader())) {
+            thread.setContextClassLoader(loader);
+            System.setOut(output);
+            System.setErr(output);
+            PrintWriter writer = new PrintWriter(output, true);
+            Object result = run.invoke(null, writer, writer, launcherArgs);
+            writer.flush();
+            return (int) result.getClass().getMethod("getExitCode").invoke(result);
+        } finally {
+            System.setOut(stderr);
+            System.setErr(stderr);
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        if (used > runtime.maxMemory() * GC_BEFORE_REPORT_RATIO) {
+            System.gc();
+            used = runtime.totalMemory() - runtime.freeMemory();
+        }
+        return used;
+    }
+}
@@ -0,0 +1,307 @@
+package com.qin.test;
+
+import com.qin.core.DependencyResolver;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.*;
+import java.util.stream.Collectors;
+
+/**
+ * 常驻测试 worker JVM 池
+ *
+ * worker 以 JVM 参数 + 共享 classpath（第三方依赖 jar）为 key 复用；
+ * 依赖或 JVM 参数变化后，旧 key 的空闲 worker 会被关闭
+ *
+ * 回收策略（限制测试代码造成的泄漏）：
+ * - 运行次数达到 maxRuns
+ * - 运行后已用堆超过最大堆的 heapThreshold
+ * - 协议出错或进程退出（例如测试调用了 System.exit）
+ *
+ * qin test 每次运行使用一个临时的池；qin test --watch 在整个会话中复用同一个池
+ */
+public class TestWorkerPool implements AutoCloseable {
+    /**
+     * 默认每个 worker 最多运行的次数
+     */
+    public static final int DEFAULT_MAX_RUNS = 20;
+
+    /**
+     * 默认回收阈值：运行后已用堆 / 最大堆
+     */
+    public static final double DEFAULT_HEAP_THRESHOLD = 0.7;
+
+    private static final long EXIT_TIMEOUT_MS = 2000;
+
+    /**
+     * 打包进 worker jar 的类（只能依赖 JDK）
+     */
+    private static final List<Class<?>> WORKER_CLASSES = List.of(TestWorker.class);
+
+    private final Path workDir;
+    private final int maxRuns;
+    private final double heapThreshold;
+    private final Deque<Worker> idle = new ArrayDeque<>();
+    private final Set<Worker> all = new HashSet<>();
+    private boolean closed;
+
+    /**
+     * @param workDir       worker jar 和参数文件目录（通常是 .qin/test-workers）
+     * @param maxRuns       每个 worker 最多运行的次数
+     * @param heapThreshold 回收阈值（已用堆 / 最大堆）
+     */
+    public TestWorkerPool(Path workDir, int maxRuns, double heapThreshold) {
+        this.workDir = workDir;
+        this.maxRuns = maxRuns;
+        this.heapThreshold = heapThreshold;
+    }
+
+    public TestWorkerPool(Path workDir) {
+        this(workDir, DEFAULT_MAX_RUNS, DEFAULT_HEAP_THRESHOLD);
+    }
+
+    /**
+     * 一次运行的结果
+     *
+     * @param exitCode ConsoleLauncher 退出码，worker 异常退出时为 -1
+     * @param error    worker 异常退出的原因（正常时为 null）
+     */
+    public record RunResult(int exitCode, String error) {
+    }
+
+    /**
+     * 借出一个 worker：优先复用同 key 的空闲 worker，否则启动新的
+     *
+     * @param jvmArgs          测试 JVM 参数
+     * @param junitConsoleJar  junit-platform-console-standalone jar
+     * @param sharedClasspath  共享 classpath（第三方依赖 jar）
+     * @param projectDir       worker 工作目录
+     */
+    public Worker acquire(List<String> jvmArgs, Path junitConsoleJar, List<String> sharedClasspath, Path projectDir)
+            throws IOException {
+        List<String> classpath = new ArrayList<>();
+        classpath.add(junitConsoleJar.toString());
+        classpath.addAll(sharedClasspath);
+        String key = String.join("\n", jvmArgs) + "\n--\n" + String.join("\n", classpath)
+                + "\n--\n" + projectDir;
+
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Test worker pool is closed");
+            }
+            // 依赖或 JVM 参数已变化：旧 worker 不会再被用到
+            for (Iterator<Worker> it = idle.iterator(); it.hasNext(); ) {
+                Worker worker = it.next();
+                if (!worker.key.equals(key)) {
+                    it.remove();
+                    discard(worker);
+                }
+            }
+            Worker worker = idle.pollFirst();
+            if (worker != null) {
+                return worker;
+            }
+        }
+        Worker worker = spawn(key, jvmArgs, classpath, projectDir);
+        synchronized (this) {
+            all.add(worker);
+        }
+        return worker;
+    }
+
+    /**
+     * 归还 worker：达到回收条件时关闭，否则放回空闲队列
+     */
+    public synchronized void release(Worker worker) {
+        if (closed || !worker.isReusable(maxRuns, heapThreshold)) {
+            discard(worker);
+        } else {
+            idle.addFirst(worker);
+        }
+    }
+
+    /**
+     * 关闭所有 worker
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        idle.clear();
+        for (Worker worker : new ArrayList<>(all)) {
+            discard(worker);
+        }
+    }
+
+    private void discard(Worker worker) {
+        all.remove(worker);
+        worker.shutdown();
+    }
+
+    private Worker spawn(String key, List<String> jvmArgs, List<String> classpath, Path projectDir)
+            throws IOException {
+        Path workerJar = writeWorkerJar(workDir);
+        List<String> entries = new ArrayList<>();
+        entries.add(workerJar.toString());
+        entries.addAll(classpath);
+
+        List<String> args = new ArrayList<>(jvmArgs);
+        args.add("-cp");
+        args.add(DependencyResolver.buildClasspath(entries));
+        args.add(TestWorker.class.getName());
+
+        // 依赖 jar 可能很多，通过 @argfile 传参避免命令行过长
+        Path argFile = Files.createTempFile(workDir, "worker", ".args");
+        Files.write(argFile, args.stream().map(TestWorkerPool::quoteArg).collect(Collectors.toList()));
+
+        ProcessBuilder pb = new ProcessBuilder("java", "@" + argFile);
+        pb.directory(projectDir.toFile());
+        pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+        Process process = pb.start();
+        return new Worker(key, process, argFile);
+    }
+
+    /**
+     * 一个 worker 进程
+     */
+    public static class Worker {
+        private final String key;
+        private final Process process;
+        private final Path argFile;
+        private final DataOutputStream out;
+        private final DataInputStream in;
+        private int runs;
+        private volatile boolean broken;
+        private long usedHeap;
+        private long maxHeap = Long.MAX_VALUE;
+
+        Worker(String key, Process process, Path argFile) {
+            this.key = key;
+            this.process = process;
+            this.argFile = argFile;
+            this.out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            this.in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        }
+
+        /**
+         * 运行一次 ConsoleLauncher
+         *
+         * @param classDirs    本次运行加载的编译输出目录（每次运行使用新的类加载器）
+         * @param launcherArgs ConsoleLauncher 参数
+         * @param logFile      测试输出文件
+         * @param echo         输出直接回显到控制台（不写日志文件）
+         */
+        public RunResult run(List<Path> classDirs, List<String> launcherArgs, Path logFile, boolean echo) {
+            runs++;
+            try {
+                out.writeUTF(TestWorker.OP_RUN);
+                out.writeInt(classDirs.size());
+                for (Path dir : classDirs) {
+                    out.writeUTF(dir.toString());
+                }
+                out.writeInt(launcherArgs.size());
+                for (String arg : launcherArgs) {
+                    out.writeUTF(arg);
+                }
+                out.writeUTF(logFile.toString());
+                out.writeBoolean(echo);
+                out.flush();
+
+                String response = in.readUTF();
+                if (!TestWorker.RESPONSE_DONE.equals(response)) {
+                    broken = true;
+                    return new RunResult(-1, "Test worker failed: " + in.readUTF());
+                }
+                int exitCode = in.readInt();
+                usedHeap = in.readLong();
+                maxHeap = in.readLong();
+                return new RunResult(exitCode, null);
+            } catch (IOException e) {
+                // worker 在运行中退出（例如测试调用了 System.exit）
+                broken = true;
+                return new RunResult(-1, "Test worker exited unexpectedly"
+                        + (process.isAlive() ? "" : " with code " + process.exitValue()));
+            }
+        }
+
+        /**
+         * 强制终止（运行被取消），正在进行的 run 随之返回，归还时被回收
+         */
+        public void kill() {
+            broken = true;
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+
+        boolean isReusable(int maxRuns, double heapThreshold) {
+            return !broken && process.isAlive() && runs < maxRuns && usedHeap <= maxHeap * heapThreshold;
+        }
+
+        void shutdown() {
+            try {
+                out.writeUTF(TestWorker.OP_EXIT);
+                out.flush();
+            } catch (IOException e) {
+                // 进程已退出
+            }
+            try {
+                if (!process.waitFor(EXIT_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+            try {
+                Files.deleteIfExists(argFile);
+            } catch (IOException e) {
+                // 忽略
+            }
+        }
+    }
+
+    /**
+     * 生成 worker jar
+     */
+    static synchronized Path writeWorkerJar(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path jarPath = dir.resolve("qin-test-worker.jar");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        try (JarOutputStream jar = new JarOutputStream(bytes, manifest)) {
+            for (Class<?> type : WORKER_CLASSES) {
+                String entryName = type.getName().replace('.', '/') + ".class";
+                try (InputStream in = type.getClassLoader().getResourceAsStream(entryName)) {
+                    if (in == null) {
+                        throw new IOException("Cannot locate " + entryName);
+                    }
+                    JarEntry entry = new JarEntry(entryName);
+                    // 固定时间戳，内容不变时 jar 字节不变
+                    entry.setTime(0);
+                    jar.putNextEntry(entry);
+                    in.transferTo(jar);
+                    jar.closeEntry();
+                }
+            }
+        }
+
+        // 正在运行的 worker 可能打开着旧 jar，内容相同时不重写
+        byte[] content = bytes.toByteArray();
+        if (!Files.exists(jarPath) || !Arrays.equals(Files.readAllBytes(jarPath), content)) {
+            Path tmp = Files.createTempFile(dir, "worker", ".jar");
+            Files.write(tmp, content);
+            Files.move(tmp, jarPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return jarPath;
+    }
+
+    /**
+     * java 启动器 @argfile 的引号规则：用双引号包裹，转义反斜杠和双引号
+     */
+    private static String quoteArg(String arg) {
+        return "\"" + arg.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,30 @@
+package com.qin.types;
+
+/**
+ * 编译诊断（javac 报告一条就回调一条，供控制台和 BSP 使用）
+ *
+ * @param kind    ERROR / WARNING / MANDATORY_WARNING / NOTE / OTHER
+ * @param file    源文件绝对路径，与具体文件无关时为 null
+ * @param line    行号（从 1 开始），未知时为 -1
+ * @param column  列号（从 1 开始），未知时为 -1
+ * @param message 诊断信息
+ */
+public record CompileDiagnostic(
+        String kind,
+        String file,
+        long line,
+        long column,
+        String message) {
+
+    public boolean isError() {
+        return "ERROR".equals(kind);
+    }
+
+    /**
+     * 与 javac 命令行相同的格式：file:line: error: message
+     */
+    public String format() {
+        String location = file != null ? file + (line > 0 ? ":" + line : "") + ": " : "";
+        return location + kind.toLowerCase().replace('_', ' ') + ": " + message;
+    }
+}
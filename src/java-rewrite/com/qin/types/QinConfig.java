@@ -19,6 +19,7 @@ import java.util.Objects;
  * @param entry           Java 入口文件路径
  * @param dependencies    运行时依赖
  * @param devDependencies 开发依赖
+ * @param benchDependencies 基准测试依赖（qin bench，未声明 jmh-core 时自动添加）
  * @param packages        Monorepo 多项目配置
  * @param output          输出配置
  * @param java            Java 特定配置
@@ -39,6 +40,7 @@ public record QinConfig(
         String entry,
         Map<String, String> dependencies,
         Map<String, String> devDependencies,
+        Map<String, String> benchDependencies,
         List<String> packages,
         OutputConfig output,
         JavaConfig java,
@@ -71,6 +73,7 @@ public record QinConfig(
         // 确保集合不可变
         dependencies = dependencies != null ? Map.copyOf(dependencies) : Map.of();
         devDependencies = devDependencies != null ? Map.copyOf(devDependencies) : Map.of();
+        benchDependencies = benchDependencies != null ? Map.copyOf(benchDependencies) : Map.of();
         packages = packages != null ? List.copyOf(packages) : List.of();
         plugins = plugins != null ? List.copyOf(plugins) : List.of();
         scripts = scripts != null ? Map.copyOf(scripts) : Map.of();
@@ -93,6 +96,7 @@ public record QinConfig(
                 null, // entry
                 null, // dependencies
                 null, // devDependencies
+                null, // benchDependencies
                 null, // packages
                 null, // output
                 null, // java
@@ -2,7 +2,10 @@ package com.qin.utils;
 
 import java.io.IOException;
 import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.stream.Stream;
 
 /**
@@ -98,6 +101,32 @@ public class QinUtils {
         return content != null ? content : defaultValue;
     }
 
+    /**
+     * 计算字节数组的 SHA-256（十六进制字符串）
+     *
+     * @param bytes 内容
+     * @return 64 位十六进制哈希
+     */
+    public static String sha256(byte[] bytes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // JDK 必定支持 SHA-256
+        }
+    }
+
+    /**
+     * 计算文件内容的 SHA-256（十六进制字符串）
+     *
+     * @param path 文件路径
+     * @return 64 位十六进制哈希
+     * @throws IOException 如果读取失败
+     */
+    public static String sha256(Path path) throws IOException {
+        return sha256(Files.readAllBytes(path));
+    }
+
     private QinUtils() {
         // 工具类，禁止实例化
     }